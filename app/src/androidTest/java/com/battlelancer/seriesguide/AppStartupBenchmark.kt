@@ -0,0 +1,67 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide
+
+import android.content.Context
+import android.os.SystemClock
+import android.util.Log
+import androidx.test.core.app.ActivityScenario
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.battlelancer.seriesguide.ui.ShowsActivity
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures app startup, results are written to logcat. Run on the same device before and after
+ * a change to compare.
+ *
+ * The test runner starts the app process, so [SgApp.onCreate] ran a cold start: logs the
+ * [AppStartup] sections it recorded, notably how long the main thread was blocked
+ * ([AppStartup.SECTION_CRITICAL]) and how long the background stage took.
+ *
+ * Also launches [ShowsActivity] [RUNS] times, each time measuring until it is resumed.
+ */
+@RunWith(AndroidJUnit4::class)
+class AppStartupBenchmark {
+
+    @Test
+    fun coldStart_sections() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        // Wait for the background stage to install the security provider and set up Picasso.
+        AppStartup.awaitSecurityProvider(context)
+        AppStartup.getPicasso(context)
+
+        val trace = AppStartup.getTrace()
+        assertThat(trace).containsKey(AppStartup.SECTION_CRITICAL)
+        assertThat(trace).containsKey(AppStartup.SECTION_SECURITY_PROVIDER)
+        assertThat(trace).containsKey(AppStartup.SECTION_PICASSO)
+        Log.i(
+            TAG,
+            "Cold start: main thread ${trace[AppStartup.SECTION_CRITICAL]}ms," +
+                    " security provider ${trace[AppStartup.SECTION_SECURITY_PROVIDER]}ms," +
+                    " Picasso ${trace[AppStartup.SECTION_PICASSO]}ms," +
+                    " upgrade ${trace[AppStartup.SECTION_UPGRADE]}ms," +
+                    " background stage ${trace[AppStartup.SECTION_BACKGROUND]}ms"
+        )
+    }
+
+    @Test
+    fun launchShowsActivity() {
+        val runsMs = (1..RUNS).map {
+            val start = SystemClock.elapsedRealtime()
+            ActivityScenario.launch(ShowsActivity::class.java).use {
+                SystemClock.elapsedRealtime() - start
+            }
+        }
+        Log.i(TAG, "Launching ShowsActivity: ${runsMs.sorted()[RUNS / 2]}ms (median of $RUNS runs)")
+    }
+
+    companion object {
+        private const val TAG = "AppStartupBenchmark"
+        private const val RUNS = 5
+    }
+
+}
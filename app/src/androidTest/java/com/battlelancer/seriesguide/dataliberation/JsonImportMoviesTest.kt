@@ -0,0 +1,84 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.dataliberation
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.File
+
+/**
+ * Checks importing movies in batches handles duplicates like inserting one movie at a time did:
+ * the last one in the backup wins.
+ */
+@RunWith(AndroidJUnit4::class)
+class JsonImportMoviesTest {
+
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+
+    @Before
+    fun switchToInMemoryDb() {
+        // The import inserts movies through the content provider which uses this instance.
+        SgRoomDatabase.switchToInMemory(context)
+    }
+
+    @After
+    fun closeDb() {
+        SgRoomDatabase.getInstance(context).close()
+    }
+
+    @Test
+    fun importMovies_duplicateInBatch_lastWins() {
+        importAndVerifyLastWins(JsonImportTask.DEFAULT_COMMIT_ROW_COUNT)
+    }
+
+    @Test
+    fun importMovies_duplicateInOtherBatch_lastWins() {
+        importAndVerifyLastWins(1)
+    }
+
+    private fun importAndVerifyLastWins(commitRowCount: Int) {
+        val backupFile = File.createTempFile("seriesguide-movies-json", null, context.cacheDir)
+        backupFile.writeText(
+            """
+            [
+              {"tmdb_id": 12, "title": "First", "in_watchlist": true},
+              {"tmdb_id": 13, "title": "Other"},
+              {"tmdb_id": 12, "title": "Second", "watched": true, "plays": 2}
+            ]
+            """.trimIndent()
+        )
+
+        val importTask = JsonImportTask(
+            context,
+            importShows = false,
+            importLists = false,
+            importMovies = true
+        )
+        importTask.testBackupFile = backupFile
+        importTask.commitRowCount = commitRowCount
+
+        val result = runBlocking { importTask.run() }
+        assertThat(importTask.errorCause).isNull()
+        assertThat(result).isEqualTo(JsonImportTask.SUCCESS)
+
+        val movieHelper = SgRoomDatabase.getInstance(context).movieHelper()
+        assertThat(movieHelper.countMovies()).isEqualTo(2)
+        assertThat(movieHelper.getMovieTitle(12)).isEqualTo("Second")
+        val flags = movieHelper.getMovieFlags(12)!!
+        assertThat(flags.inWatchlist).isFalse()
+        assertThat(flags.watched).isTrue()
+        assertThat(flags.plays).isEqualTo(2)
+
+        backupFile.delete()
+    }
+
+}
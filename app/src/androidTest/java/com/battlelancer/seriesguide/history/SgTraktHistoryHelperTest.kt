@@ -0,0 +1,96 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.history
+
+import android.content.Context
+import androidx.paging.PagingSource
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.battlelancer.seriesguide.history.SgTraktHistory.Companion.TYPE_EPISODE
+import com.battlelancer.seriesguide.history.SgTraktHistory.Companion.TYPE_MOVIE
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class SgTraktHistoryHelperTest {
+
+    private lateinit var db: SgRoomDatabase
+    private lateinit var helper: SgTraktHistoryHelper
+
+    @Before
+    fun createDb() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        db = Room.inMemoryDatabaseBuilder(context, SgRoomDatabase::class.java).build()
+        helper = db.sgTraktHistoryHelper()
+    }
+
+    @After
+    fun closeDb() {
+        db.close()
+    }
+
+    private fun history(id: Long, type: Int, watchedAtMs: Long) = SgTraktHistory(
+        id = id,
+        type = type,
+        watched_at_ms = watchedAtMs,
+        action = "watch",
+        show_title = null,
+        show_tmdb_id = null,
+        episode_season = null,
+        episode_number = null,
+        episode_title = null,
+        movie_title = null,
+        movie_tmdb_id = null
+    )
+
+    private fun loadIds(type: Int): List<Long> = runBlocking {
+        val result = helper.getHistoryPagingSource(type)
+            .load(PagingSource.LoadParams.Refresh(null, 50, false))
+        (result as PagingSource.LoadResult.Page).data.map { it.id }
+    }
+
+    @Test
+    fun newestFirstAndByType() {
+        assertThat(helper.getNewestWatchedAtMs(TYPE_EPISODE)).isNull()
+        assertThat(helper.getOldestWatchedAtMs(TYPE_EPISODE)).isNull()
+
+        helper.insertHistory(
+            listOf(
+                history(1, TYPE_EPISODE, 100),
+                history(2, TYPE_EPISODE, 300),
+                history(3, TYPE_EPISODE, 100),
+                history(4, TYPE_MOVIE, 200)
+            )
+        )
+
+        assertThat(loadIds(TYPE_EPISODE)).containsExactly(2L, 3L, 1L).inOrder()
+        assertThat(loadIds(TYPE_MOVIE)).containsExactly(4L)
+        assertThat(helper.getNewestWatchedAtMs(TYPE_EPISODE)).isEqualTo(300)
+        assertThat(helper.getOldestWatchedAtMs(TYPE_EPISODE)).isEqualTo(100)
+        assertThat(helper.countWatchedAt(TYPE_EPISODE, 100)).isEqualTo(2)
+    }
+
+    @Test
+    fun insertReplacesSameId_replaceHistoryOnlyOfType() {
+        helper.insertHistory(listOf(history(1, TYPE_EPISODE, 100), history(2, TYPE_MOVIE, 100)))
+        helper.insertHistory(listOf(history(1, TYPE_EPISODE, 200)))
+        assertThat(loadIds(TYPE_EPISODE)).containsExactly(1L)
+        assertThat(helper.getOldestWatchedAtMs(TYPE_EPISODE)).isEqualTo(200)
+
+        helper.replaceHistory(TYPE_EPISODE, listOf(history(3, TYPE_EPISODE, 300)))
+        assertThat(loadIds(TYPE_EPISODE)).containsExactly(3L)
+        assertThat(loadIds(TYPE_MOVIE)).containsExactly(2L)
+
+        helper.deleteAllHistory()
+        assertThat(loadIds(TYPE_EPISODE)).isEmpty()
+        assertThat(loadIds(TYPE_MOVIE)).isEmpty()
+    }
+
+}
@@ -0,0 +1,68 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.jobs
+
+import android.content.Context
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.battlelancer.seriesguide.jobs.episodes.JobAction
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import com.google.common.truth.Truth.assertThat
+import com.google.flatbuffers.FlatBufferBuilder
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class SgJobHelperTest {
+
+    private lateinit var db: SgRoomDatabase
+    private lateinit var helper: SgJobHelper
+
+    @Before
+    fun createDb() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        db = Room.inMemoryDatabaseBuilder(context, SgRoomDatabase::class.java).build()
+        helper = db.sgJobHelper()
+    }
+
+    @After
+    fun closeDb() {
+        db.close()
+    }
+
+    private fun insertMovieJob(createdMs: Long, movieTmdbId: Int): Long {
+        val builder = FlatBufferBuilder(0)
+        builder.finish(SgJobInfo.createSgJobInfo(builder, 0, 0, movieTmdbId, 0, 0))
+        val job = SgJob()
+        job.type = JobAction.MOVIE_WATCHLIST_ADD.id
+        job.createdMs = createdMs
+        job.extras = builder.sizedByteArray()
+        return helper.insertJob(job)
+    }
+
+    @Test
+    fun pagesStatsAndDelete() {
+        val firstJobId = insertMovieJob(1000, 1)
+        val secondJobId = insertMovieJob(2000, 2)
+        insertMovieJob(3000, 3)
+
+        assertThat(helper.getQueueStats()).isEqualTo(SgJobQueueStats(3, 1000))
+        assertThat(helper.getQueueStats().getOldestAgeMs(1500)).isEqualTo(500)
+
+        val firstPage = helper.getJobsPage(Long.MIN_VALUE, 2)
+        assertThat(firstPage.map { it.jobInfo.movieTmdbId() }).containsExactly(1, 2).inOrder()
+        val secondPage = helper.getJobsPage(firstPage.last().createdMs, 2)
+        assertThat(secondPage.map { it.jobInfo.movieTmdbId() }).containsExactly(3)
+
+        helper.deleteJobs(listOf(firstJobId, secondJobId))
+        assertThat(helper.getQueueStats()).isEqualTo(SgJobQueueStats(1, 3000))
+
+        helper.deleteAllJobs()
+        assertThat(helper.getQueueStats()).isEqualTo(SgJobQueueStats(0, null))
+    }
+
+}
@@ -0,0 +1,138 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.lists
+
+import android.content.Context
+import android.util.Log
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.battlelancer.seriesguide.lists.database.SgListItem
+import com.battlelancer.seriesguide.provider.SeriesGuideContract.ListItemTypes
+import com.battlelancer.seriesguide.provider.SeriesGuideContract.ListItems
+import com.battlelancer.seriesguide.provider.SeriesGuideContract.Lists
+import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgShow2Columns
+import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import com.battlelancer.seriesguide.shows.ShowsDistillationSettings
+import com.battlelancer.seriesguide.shows.tools.ShowTestHelper.showToInsert
+import com.google.common.truth.Truth.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Compares querying the items of one list from [Tables.LIST_ITEMS_WITH_DETAILS] against
+ * [Tables.TMDB_LIST_ITEMS_WITH_DETAILS] on a generated database of [SHOWS] shows, each added
+ * to all of [LISTS] lists. Results are written to logcat.
+ */
+@RunWith(AndroidJUnit4::class)
+class ListItemsQueryBenchmark {
+
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+    private lateinit var db: SgRoomDatabase
+
+    @Before
+    fun createDb() {
+        db = Room.inMemoryDatabaseBuilder(context, SgRoomDatabase::class.java)
+            .addCallback(SgRoomDatabase.SgRoomCallback(context))
+            .build()
+        db.runInTransaction { insertListsAndShows() }
+    }
+
+    @After
+    fun closeDb() {
+        db.close()
+    }
+
+    private fun insertListsAndShows() {
+        val showHelper = db.sgShow2Helper()
+        for (showIndex in 1..SHOWS) {
+            showHelper.insertShow(
+                showToInsert().copy(
+                    tmdbId = showIndex,
+                    title = "Show $showIndex",
+                    titleNoArticle = "Show $showIndex"
+                )
+            )
+        }
+        val listItems = ArrayList<SgListItem>()
+        for (listIndex in 1..LISTS) {
+            val listId = "list-$listIndex"
+            db.openHelper.writableDatabase.execSQL(
+                "INSERT INTO ${Tables.LISTS} (${Lists.LIST_ID}, ${Lists.NAME}) VALUES (?, ?)",
+                arrayOf(listId, "List $listIndex")
+            )
+            for (showIndex in 1..SHOWS) {
+                listItems.add(SgListItem(showIndex, ListItemTypes.TMDB_SHOW, listId))
+            }
+        }
+        db.sgListHelper().insertListItems(listItems)
+    }
+
+    @Test
+    fun queryListItems_unionViewVsDirectJoin() {
+        val listId = "list-1"
+        // Like SgListItemViewModel, but break ties to compare order.
+        val order = ShowsDistillationSettings.getSortQuery2(
+            ShowsDistillationSettings.ShowsSortOrder.TITLE_ID,
+            isSortFavoritesFirst = false,
+            isSortIgnoreArticles = false
+        ) + "," + ListItems.SORT_TYPE + "," + ListItems._ID
+        val unionQuery = "SELECT * FROM ${Tables.LIST_ITEMS_WITH_DETAILS}" +
+                " WHERE ${Lists.LIST_ID}=? AND ${SgShow2Columns.REF_SHOW_ID}>0" +
+                " ORDER BY $order"
+        val directQuery = "SELECT * FROM ${Tables.TMDB_LIST_ITEMS_WITH_DETAILS}" +
+                " WHERE ${Lists.LIST_ID}=?" +
+                " ORDER BY $order"
+
+        // Warm up and verify both return the same items.
+        assertThat(db.sgListHelper().hasLegacyListItems(listId)).isFalse()
+        val expected = queryItemIds(unionQuery, listId)
+        assertThat(expected).hasSize(SHOWS)
+        val actual = queryItemIds(directQuery, listId)
+        assertThat(actual).containsExactlyElementsIn(expected).inOrder()
+
+        val unionMs = measureMs { queryItemIds(unionQuery, listId) }
+        val directMs = measureMs { queryItemIds(directQuery, listId) }
+        Log.i(
+            TAG,
+            "Querying $SHOWS items of one of $LISTS lists:" +
+                    " union view ${unionMs}ms, direct join ${directMs}ms" +
+                    " (median of $RUNS runs)"
+        )
+    }
+
+    /**
+     * Reads all rows like the list screen does when scrolling through all items.
+     */
+    private fun queryItemIds(query: String, listId: String): List<String> {
+        val ids = ArrayList<String>()
+        db.openHelper.readableDatabase.query(query, arrayOf(listId)).use { cursor ->
+            val columnIndex = cursor.getColumnIndexOrThrow(ListItems.LIST_ITEM_ID)
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getString(columnIndex))
+            }
+        }
+        return ids
+    }
+
+    private fun measureMs(block: () -> Unit): Long {
+        val runsMs = (1..RUNS).map {
+            val start = System.nanoTime()
+            block()
+            (System.nanoTime() - start) / 1_000_000
+        }
+        return runsMs.sorted()[RUNS / 2]
+    }
+
+    companion object {
+        private const val TAG = "ListItemsBenchmark"
+        private const val SHOWS = 2000
+        private const val LISTS = 5
+        private const val RUNS = 5
+    }
+
+}
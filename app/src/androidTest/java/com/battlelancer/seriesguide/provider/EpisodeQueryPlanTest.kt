@@ -0,0 +1,143 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.provider
+
+import android.content.Context
+import android.text.format.DateUtils
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.battlelancer.seriesguide.notifications.NotificationService
+import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
+import com.battlelancer.seriesguide.shows.database.SgEpisode2WithShow
+import com.battlelancer.seriesguide.shows.database.SgUpcomingEpisode
+import com.google.common.truth.Truth.assertWithMessage
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Checks calendar, widget and notification queries look up episodes using an index
+ * instead of scanning the whole episode or upcoming episodes table.
+ */
+@RunWith(AndroidJUnit4::class)
+class EpisodeQueryPlanTest {
+
+    private lateinit var context: Context
+    private lateinit var db: SgRoomDatabase
+
+    @Before
+    fun createDb() {
+        context = ApplicationProvider.getApplicationContext()
+        db = Room.inMemoryDatabaseBuilder(context, SgRoomDatabase::class.java)
+            .addCallback(SgRoomDatabase.SgRoomCallback(context))
+            .build()
+    }
+
+    @After
+    fun closeDb() {
+        db.close()
+    }
+
+    @Test
+    fun calendarQueries_useIndex() {
+        for (isUpcomingElseRecent in booleanArrayOf(true, false)) {
+            for (isInfinite in booleanArrayOf(true, false)) {
+                for (isOnlyUnwatchedAndCollected in booleanArrayOf(true, false)) {
+                    val query = SgEpisode2WithShow.buildEpisodesWithShowQuery(
+                        context,
+                        isUpcomingElseRecent,
+                        isInfiniteCalendar = isInfinite,
+                        isOnlyFavorites = false,
+                        isOnlyUnwatched = isOnlyUnwatchedAndCollected,
+                        isOnlyCollected = isOnlyUnwatchedAndCollected,
+                        isOnlyPremieres = false
+                    )
+                    assertEpisodesSearchedUsingIndex(query)
+                    // Widgets additionally limit results.
+                    assertEpisodesSearchedUsingIndex("$query LIMIT 100")
+                }
+            }
+        }
+    }
+
+    @Test
+    fun notificationQuery_usesIndex() {
+        val now = System.currentTimeMillis()
+        val query = (SgEpisode2WithShow.SELECT
+                + " WHERE " + NotificationService.SELECTION
+                + " ORDER BY " + NotificationService.ORDER)
+            .replaceFirst("?", now.toString())
+            .replaceFirst("?", (now + 14 * DateUtils.DAY_IN_MILLIS).toString())
+        assertEpisodesSearchedUsingIndex(query)
+    }
+
+    @Test
+    fun upcomingTableQueries_useIndex() {
+        for (isUpcomingElseRecent in booleanArrayOf(true, false)) {
+            val query = SgEpisode2WithShow.buildEpisodesWithShowQuery(
+                context,
+                isUpcomingElseRecent,
+                isInfiniteCalendar = false,
+                isOnlyFavorites = false,
+                isOnlyUnwatched = false,
+                isOnlyCollected = false,
+                isOnlyPremieres = false,
+                select = SgUpcomingEpisode.SELECT
+            )
+            assertEpisodesSearchedUsingIndex(
+                "$query LIMIT 100",
+                Tables.SG_UPCOMING_EPISODE,
+                INDEX_UPCOMING_RELEASE_TIME
+            )
+        }
+
+        val now = System.currentTimeMillis()
+        val query = (SgUpcomingEpisode.SELECT
+                + " WHERE " + NotificationService.SELECTION
+                + " ORDER BY " + NotificationService.ORDER)
+            .replaceFirst("?", now.toString())
+            .replaceFirst("?", (now + 14 * DateUtils.DAY_IN_MILLIS).toString())
+        assertEpisodesSearchedUsingIndex(
+            query,
+            Tables.SG_UPCOMING_EPISODE,
+            INDEX_UPCOMING_RELEASE_TIME
+        )
+    }
+
+    /**
+     * The episode table might be the outer or inner loop of the join with the show table,
+     * but either way should be searched using the release time [index].
+     */
+    private fun assertEpisodesSearchedUsingIndex(
+        query: String,
+        table: String = Tables.SG_EPISODE,
+        index: String = INDEX_EPISODE_RELEASE_TIME
+    ) {
+        val details = ArrayList<String>()
+        db.query("EXPLAIN QUERY PLAN $query", null).use {
+            // The last column contains the human readable detail.
+            val detailColumn = it.columnCount - 1
+            while (it.moveToNext()) details.add(it.getString(detailColumn))
+        }
+        val episodeDetails = details.filter {
+            it.contains(" $table ") || it.endsWith(" $table")
+        }
+        assertWithMessage("Plan for $query: $details").that(episodeDetails).isNotEmpty()
+        for (detail in episodeDetails) {
+            assertWithMessage("Plan for $query").that(detail).startsWith("SEARCH")
+            assertWithMessage("Plan for $query").that(detail).contains("INDEX $index")
+        }
+    }
+
+    companion object {
+        // Names as generated by Room, see SgEpisode2 and SgUpcomingEpisode indices.
+        private const val INDEX_EPISODE_RELEASE_TIME =
+            "index_sg_episode_episode_firstairedms_episode_watched_episode_collected_series_id"
+        private const val INDEX_UPCOMING_RELEASE_TIME =
+            "index_sg_upcoming_episode_episode_firstairedms"
+    }
+
+}
@@ -0,0 +1,81 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.provider
+
+import android.content.Context
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
+import com.battlelancer.seriesguide.shows.tools.ShowTestHelper.episodeToInsert
+import com.battlelancer.seriesguide.shows.tools.ShowTestHelper.seasonToInsert
+import com.battlelancer.seriesguide.shows.tools.ShowTestHelper.showToInsert
+import com.google.common.truth.Truth.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Checks triggers keep the search table up to date with episode changes.
+ */
+@RunWith(AndroidJUnit4::class)
+class EpisodeSearchIndexTest {
+
+    private lateinit var db: SgRoomDatabase
+
+    @Before
+    fun createDb() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        db = Room.inMemoryDatabaseBuilder(context, SgRoomDatabase::class.java)
+            .addCallback(SgRoomDatabase.SgRoomCallback(context))
+            .build()
+    }
+
+    @After
+    fun closeDb() {
+        db.close()
+    }
+
+    private fun insertEpisode(title: String): Long {
+        val showId = db.sgShow2Helper().insertShow(showToInsert())
+        val season = seasonToInsert(showId, 1)
+        val seasonId = db.sgSeason2Helper().insertSeason(season)
+        return db.sgEpisode2Helper().insertEpisode(
+            season.episodeToInsert(seasonId, 1, 0).copy(title = title)
+        )
+    }
+
+    private fun search(term: String): List<Long> {
+        val result = ArrayList<Long>()
+        db.query(
+            "SELECT docid FROM ${Tables.EPISODES_SEARCH} WHERE ${Tables.EPISODES_SEARCH} MATCH ?",
+            arrayOf("\"$term*\"")
+        ).use {
+            while (it.moveToNext()) result.add(it.getLong(0))
+        }
+        return result
+    }
+
+    @Test
+    fun insertUpdateDelete_updatesIndex() {
+        val episodeId = insertEpisode("Pilot")
+        assertThat(search("pilot")).containsExactly(episodeId)
+
+        // Changing other values does not touch the index.
+        db.sgEpisode2Helper().setWatchedAndAddPlay(episodeId)
+        assertThat(search("pilot")).containsExactly(episodeId)
+
+        db.openHelper.writableDatabase.execSQL(
+            "UPDATE ${Tables.SG_EPISODE} SET ${SeriesGuideContract.SgEpisode2Columns.TITLE} = 'Finale'"
+                    + " WHERE _id = $episodeId"
+        )
+        assertThat(search("pilot")).isEmpty()
+        assertThat(search("finale")).containsExactly(episodeId)
+
+        db.sgEpisode2Helper().deleteAllEpisodes()
+        assertThat(search("finale")).isEmpty()
+    }
+
+}
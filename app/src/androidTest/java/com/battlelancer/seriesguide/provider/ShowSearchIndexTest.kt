@@ -0,0 +1,95 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.provider
+
+import android.content.Context
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
+import com.battlelancer.seriesguide.shows.database.SgShow2Helper
+import com.battlelancer.seriesguide.shows.tools.ShowTestHelper.showToInsert
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Checks triggers keep the show search table up to date and searching it matches like expected.
+ */
+@RunWith(AndroidJUnit4::class)
+class ShowSearchIndexTest {
+
+    private lateinit var db: SgRoomDatabase
+
+    @Before
+    fun createDb() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        db = Room.inMemoryDatabaseBuilder(context, SgRoomDatabase::class.java)
+            .addCallback(SgRoomDatabase.SgRoomCallback(context))
+            .build()
+    }
+
+    @After
+    fun closeDb() {
+        db.close()
+    }
+
+    private fun insertShow(title: String, network: String): Long {
+        return db.sgShow2Helper().insertShow(
+            showToInsert().copy(title = title, network = network)
+        )
+    }
+
+    private fun search(term: String): List<Long> = runBlocking {
+        db.sgShow2Helper().searchShowsFlow(term).first().map { it.id }
+    }
+
+    @Test
+    fun search_matchesWordsOfTitleAndNetwork() {
+        val robotId = insertShow("Mr. Robot", "USA Network")
+        val otherId = insertShow("The Expanse", "Amazon")
+
+        assertThat(search("mr robot")).containsExactly(robotId)
+        assertThat(search("Mr. Rob")).containsExactly(robotId)
+        assertThat(search("robot")).containsExactly(robotId)
+        assertThat(search("amazon")).containsExactly(otherId)
+        assertThat(search("expanse usa")).isEmpty()
+        // No words, so all shows.
+        assertThat(search(" . ")).containsExactly(robotId, otherId)
+    }
+
+    @Test
+    fun insertUpdateDelete_updatesIndex() {
+        val showId = insertShow("Pilot Show", "Network")
+        assertThat(search("pilot")).containsExactly(showId)
+
+        // Changing other values does not touch the index.
+        db.sgShow2Helper().setShowHidden(showId, true)
+        assertThat(search("pilot")).containsExactly(showId)
+
+        db.openHelper.writableDatabase.execSQL(
+            "UPDATE ${Tables.SG_SHOW} SET ${SeriesGuideContract.SgShow2Columns.TITLE} = 'Finale Show'"
+                    + " WHERE _id = $showId"
+        )
+        assertThat(search("pilot")).isEmpty()
+        assertThat(search("finale")).containsExactly(showId)
+
+        runBlocking { db.sgShow2Helper().deleteShow(showId) }
+        assertThat(search("finale")).isEmpty()
+    }
+
+    @Test
+    fun buildShowSearchMatchQuery() {
+        assertThat(SgShow2Helper.buildShowSearchMatchQuery(null)).isNull()
+        assertThat(SgShow2Helper.buildShowSearchMatchQuery("  ")).isNull()
+        assertThat(SgShow2Helper.buildShowSearchMatchQuery("\"")).isNull()
+        assertThat(SgShow2Helper.buildShowSearchMatchQuery(" Mr.  Robot "))
+            .isEqualTo("\"Mr*\" \"Robot*\"")
+    }
+
+}
@@ -0,0 +1,137 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.shows.tools
+
+import android.content.Context
+import android.util.Log
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import com.battlelancer.seriesguide.shows.database.SgEpisode2
+import com.battlelancer.seriesguide.shows.database.SgShow2
+import com.battlelancer.seriesguide.shows.episodes.EpisodeFlags
+import com.battlelancer.seriesguide.shows.tools.ShowTestHelper.episodeToInsert
+import com.battlelancer.seriesguide.shows.tools.ShowTestHelper.seasonToInsert
+import com.battlelancer.seriesguide.shows.tools.ShowTestHelper.showToInsert
+import com.google.common.truth.Truth.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import kotlin.random.Random
+
+/**
+ * Compares [NextEpisodeUpdater.updateForShows] against [NextEpisodeUpdaterOneByOne]
+ * on a generated database of [SHOWS] shows with [EPISODES_PER_SEASON] episodes for each of
+ * [SEASONS] seasons (including specials). Results are written to logcat.
+ */
+@RunWith(AndroidJUnit4::class)
+class NextEpisodeUpdaterBenchmark {
+
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+    private lateinit var db: SgRoomDatabase
+
+    @Before
+    fun createDb() {
+        db = Room.inMemoryDatabaseBuilder(context, SgRoomDatabase::class.java)
+            .addCallback(SgRoomDatabase.SgRoomCallback(context))
+            .build()
+        db.runInTransaction { insertShows() }
+    }
+
+    @After
+    fun closeDb() {
+        db.close()
+    }
+
+    private fun insertShows() {
+        val random = Random(42)
+        val showHelper = db.sgShow2Helper()
+        val seasonHelper = db.sgSeason2Helper()
+        val episodeHelper = db.sgEpisode2Helper()
+        var episodeTmdbId = 1
+        for (showIndex in 1..SHOWS) {
+            val showId = showHelper.insertShow(showToInsert().copy(tmdbId = showIndex))
+            // Some shows are not watched at all, some are watched up to some episode.
+            val watchedUpTo = random.nextInt(-1, SEASONS * EPISODES_PER_SEASON)
+            var lastWatchedIndex = -1
+            val episodes = ArrayList<SgEpisode2>()
+            for (seasonNumber in 0 until SEASONS) {
+                val season = seasonToInsert(showId, seasonNumber)
+                val seasonId = seasonHelper.insertSeason(season)
+                for (number in 1..EPISODES_PER_SEASON) {
+                    val index = seasonNumber * EPISODES_PER_SEASON + number - 1
+                    // Specials are released in between, some episodes at the same time,
+                    // some without release date.
+                    val releaseMs = when {
+                        random.nextInt(50) == 0 -> -1L
+                        seasonNumber == 0 -> random.nextLong(0, 1_000_000L)
+                        else -> seasonNumber * 100_000L + (number / 2) * 1000L
+                    }
+                    val watched = when {
+                        index <= watchedUpTo && random.nextInt(20) == 0 -> EpisodeFlags.SKIPPED
+                        index <= watchedUpTo -> EpisodeFlags.WATCHED
+                        else -> EpisodeFlags.UNWATCHED
+                    }
+                    val plays = if (watched == EpisodeFlags.WATCHED) random.nextInt(1, 3) else 0
+                    if (watched == EpisodeFlags.WATCHED) lastWatchedIndex = episodes.size
+                    episodes.add(
+                        season.episodeToInsert(seasonId, number, releaseMs)
+                            .copy(tmdbId = episodeTmdbId++, watched = watched, plays = plays)
+                    )
+                }
+            }
+            val episodeIds = episodeHelper.insertEpisodes(episodes)
+            // Only some shows have a last watched episode set, like after a backup import.
+            if (lastWatchedIndex >= 0 && random.nextBoolean()) {
+                showHelper.updateLastWatchedEpisodeId(showId, episodeIds[lastWatchedIndex])
+            }
+        }
+    }
+
+    @Test
+    fun updateForShows_allShows() {
+        val updater = NextEpisodeUpdater(context, db.sgShow2Helper())
+        val oneByOneUpdater =
+            NextEpisodeUpdaterOneByOne(context, db.sgShow2Helper(), db.sgEpisode2Helper())
+
+        // Warm up and verify both produce the same values.
+        oneByOneUpdater.updateForAllShows()
+        val expected = db.sgShow2Helper().getShowsForExport().map { it.nextEpisodeValues() }
+        updater.updateForShows(null)
+        val actual = db.sgShow2Helper().getShowsForExport().map { it.nextEpisodeValues() }
+        assertThat(actual).containsExactlyElementsIn(expected).inOrder()
+
+        val oneByOneMs = measureMs { oneByOneUpdater.updateForAllShows() }
+        val singleQueryMs = measureMs { updater.updateForShows(null) }
+        Log.i(
+            TAG,
+            "Updating ${SHOWS * SEASONS * EPISODES_PER_SEASON} episodes of $SHOWS shows:" +
+                    " one by one ${oneByOneMs}ms, single query ${singleQueryMs}ms" +
+                    " (median of $RUNS runs)"
+        )
+    }
+
+    private fun SgShow2.nextEpisodeValues(): List<Any?> =
+        listOf(id, nextEpisode, nextAirdateMs, nextText, unwatchedCount)
+
+    private fun measureMs(block: () -> Unit): Long {
+        val runsMs = (1..RUNS).map {
+            val start = System.nanoTime()
+            block()
+            (System.nanoTime() - start) / 1_000_000
+        }
+        return runsMs.sorted()[RUNS / 2]
+    }
+
+    companion object {
+        private const val TAG = "NextEpisodeBenchmark"
+        private const val SHOWS = 600
+        private const val SEASONS = 5
+        private const val EPISODES_PER_SEASON = 20
+        private const val RUNS = 5
+    }
+
+}
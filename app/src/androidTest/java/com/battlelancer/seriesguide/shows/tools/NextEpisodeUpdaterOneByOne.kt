@@ -0,0 +1,129 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.shows.tools
+
+import android.content.Context
+import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgEpisode2Columns
+import com.battlelancer.seriesguide.settings.DisplaySettings
+import com.battlelancer.seriesguide.shows.database.SgEpisode2Helper
+import com.battlelancer.seriesguide.shows.database.SgShow2Helper
+import com.battlelancer.seriesguide.shows.database.SgShow2NextEpisodeUpdate
+import com.battlelancer.seriesguide.util.TextTools
+import com.battlelancer.seriesguide.util.TimeTools
+
+/**
+ * The previous implementation of [NextEpisodeUpdater.updateForShows] for all shows that runs up
+ * to three queries for each show. Only used to verify and benchmark the single query
+ * implementation, see [NextEpisodeUpdaterBenchmark].
+ */
+class NextEpisodeUpdaterOneByOne(
+    private val context: Context,
+    private val showHelper: SgShow2Helper,
+    private val episodeHelper: SgEpisode2Helper
+) {
+
+    fun updateForAllShows() {
+        val shows = showHelper.getShowsWithLastWatchedEpisode()
+
+        val isNoReleasedEpisodes = DisplaySettings.isNoReleasedEpisodes(context)
+        val nextEpisodeSelection = buildNextEpisodeSelection(
+            DisplaySettings.isHidingSpecials(context), isNoReleasedEpisodes
+        )
+        val currentTime = TimeTools.getCurrentTime(context)
+        val preventSpoilers = DisplaySettings.preventSpoilers(context)
+
+        val batch = shows.map { show ->
+            // STEP 1: get last watched episode details
+            var season = show.seasonNumber
+            var number = show.episodeNumber
+            var releaseTime = show.episodeReleaseDateMs
+            val plays = if (show.episodePlays == null || show.episodePlays == 0) {
+                1
+            } else show.episodePlays
+            // Note: Due to LEFT JOIN query, episode values are null if no matching episode found
+            // or there is no last watched episode ID stored.
+            if (show.lastWatchedEpisodeId == 0L
+                || season == null || number == null || releaseTime == null) {
+                // Use the newest watched/skipped episode, if there is one.
+                val newestWatched = episodeHelper.getNewestWatchedEpisodeOfShow(show.id)
+                // Otherwise assume all episodes unwatched: include all starting with special 0.
+                season = newestWatched?.season ?: -1
+                number = newestWatched?.episodenumber ?: -1
+                releaseTime = newestWatched?.firstReleasedMs ?: Long.MIN_VALUE
+            }
+
+            // STEP 2: get episode released closest afterwards
+            val selectionArgs: Array<Any> = if (isNoReleasedEpisodes) {
+                arrayOf(plays, releaseTime, number, season, releaseTime, currentTime)
+            } else {
+                arrayOf(plays, releaseTime, number, season, releaseTime)
+            }
+            val episodeOrNull = episodeHelper.getEpisodeInfo(
+                show.id,
+                nextEpisodeSelection,
+                SORTORDER,
+                selectionArgs
+            )
+
+            // STEP 3: get remaining episodes count
+            val unwatchedEpisodesCount = episodeHelper
+                .countNotWatchedEpisodesOfShow(show.id, currentTime)
+
+            // STEP 4: build updated next episode values
+            if (episodeOrNull != null) {
+                val nextEpisodeString = TextTools.getNextEpisodeString(
+                    context,
+                    episodeOrNull.season,
+                    episodeOrNull.episodenumber,
+                    if (preventSpoilers) null else episodeOrNull.title
+                )
+                SgShow2NextEpisodeUpdate(
+                    show.id, episodeOrNull.id.toString(),
+                    episodeOrNull.firstReleasedMs,
+                    nextEpisodeString,
+                    unwatchedEpisodesCount
+                )
+            } else {
+                SgShow2NextEpisodeUpdate(
+                    show.id,
+                    "",
+                    NextEpisodeUpdater.UNKNOWN_NEXT_RELEASE_DATE,
+                    "",
+                    unwatchedEpisodesCount
+                )
+            }
+        }
+
+        showHelper.updateShowNextEpisode(batch)
+    }
+
+    private fun buildNextEpisodeSelection(
+        isHidingSpecials: Boolean,
+        isNoReleasedEpisodes: Boolean
+    ): String {
+        val selection = StringBuilder(SELECT_NEXT)
+        if (isHidingSpecials) {
+            selection.append(" AND ").append(SgEpisode2Columns.SELECTION_NO_SPECIALS)
+        }
+        if (isNoReleasedEpisodes) {
+            selection.append(" AND " + SgEpisode2Columns.FIRSTAIREDMS + ">=?")
+        } else {
+            selection.append(" AND " + SgEpisode2Columns.FIRSTAIREDMS + "!=-1")
+        }
+        return selection.toString()
+    }
+
+    companion object {
+        private const val SELECT_NEXT =
+            (SgEpisode2Columns.PLAYS + "<? AND " + SgEpisode2Columns.SELECTION_NOT_SKIPPED + " AND ("
+                    + "(" + SgEpisode2Columns.FIRSTAIREDMS + "=? AND "
+                    + "(" + SgEpisode2Columns.NUMBER + "!=? OR " + SgEpisode2Columns.SEASON + "!=?)) "
+                    + "OR " + SgEpisode2Columns.FIRSTAIREDMS + ">?)")
+
+        private const val SORTORDER = (SgEpisode2Columns.FIRSTAIREDMS + " ASC,"
+                + SgEpisode2Columns.SEASON + " ASC,"
+                + SgEpisode2Columns.NUMBER + " ASC")
+    }
+
+}
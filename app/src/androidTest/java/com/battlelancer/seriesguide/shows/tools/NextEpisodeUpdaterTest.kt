@@ -56,7 +56,7 @@ class NextEpisodeUpdaterTest {
         val episodeIds = episodeHelper.insertEpisodes(listOf(episode1, episode2, episode3))
 
         val nextEpisodeId =
-            NextEpisodeUpdater(context, showHelper, episodeHelper).updateForShows(showId)
+            NextEpisodeUpdater(context, showHelper).updateForShows(showId)
         // Should choose the one released after the newest one watched.
         assertThat(nextEpisodeId).isEqualTo(episodeIds[2])
     }
@@ -84,7 +84,7 @@ class NextEpisodeUpdaterTest {
         showHelper.updateLastWatchedEpisodeId(showId, episodeIds[1])
 
         val nextEpisodeId =
-            NextEpisodeUpdater(context, showHelper, episodeHelper).updateForShows(showId)
+            NextEpisodeUpdater(context, showHelper).updateForShows(showId)
         // Should pick the special released just afterwards instead of episode with higher number.
         assertThat(nextEpisodeId).isEqualTo(episodeIds[0])
     }
@@ -110,7 +110,7 @@ class NextEpisodeUpdaterTest {
         showHelper.updateLastWatchedEpisodeId(showId, episodeIds[0])
 
         val nextEpisodeId =
-            NextEpisodeUpdater(context, showHelper, episodeHelper).updateForShows(showId)
+            NextEpisodeUpdater(context, showHelper).updateForShows(showId)
         // Should pick the one that has a single play and not the unwatched one.
         assertThat(nextEpisodeId).isEqualTo(episodeIds[1])
     }
@@ -130,7 +130,7 @@ class NextEpisodeUpdaterTest {
         // Set last watched ID to episode1.
         showHelper.updateLastWatchedEpisodeId(showId, episode1Id)
 
-        val nextEpisodeUpdater = NextEpisodeUpdater(context, showHelper, episodeHelper)
+        val nextEpisodeUpdater = NextEpisodeUpdater(context, showHelper)
         val noNextEpisodeId = nextEpisodeUpdater.updateForShows(showId)
         // There should be no next episode.
         assertThat(noNextEpisodeId).isEqualTo(0)
@@ -155,4 +155,30 @@ class NextEpisodeUpdaterTest {
         assertThat(showWithNext.unwatchedCount).isEqualTo(1)
     }
 
-}
\ No newline at end of file
+    @Test
+    fun updateForDirtyShows_onlyUpdatesChangedShows() {
+        val showHelper = db.sgShow2Helper()
+        val episodeHelper = db.sgEpisode2Helper()
+
+        val showIds = (1..5).map { tmdbId ->
+            val showId = showHelper.insertShow(showToInsert().copy(tmdbId = tmdbId))
+            val season = seasonToInsert(showId, 1)
+            val seasonId = db.sgSeason2Helper().insertSeason(season)
+            episodeHelper.insertEpisode(season.episodeToInsert(seasonId, 1, 11000))
+            showId
+        }
+
+        val nextEpisodeUpdater = NextEpisodeUpdater(context, showHelper)
+        // Updates all shows first.
+        NextEpisodeDirtyShows.requestFullUpdate()
+        assertThat(nextEpisodeUpdater.updateForDirtyShows()).isEqualTo(5)
+        // Nothing changed.
+        assertThat(nextEpisodeUpdater.updateForDirtyShows()).isEqualTo(0)
+
+        // Changes to some shows only update those.
+        NextEpisodeDirtyShows.add(showIds[0])
+        NextEpisodeDirtyShows.addAll(listOf(showIds[2], showIds[4], showIds[2]))
+        assertThat(nextEpisodeUpdater.updateForDirtyShows()).isEqualTo(3)
+    }
+
+}
@@ -71,7 +71,7 @@ public class TmdbSyncTest {
     }
 
     @Test
-    public void updatesMoviesLessFrequentIfOlder() {
+    public void updatesMoviesLessFrequentIfOlder() throws InterruptedException {
         long lastUpdatedCurrent = System.currentTimeMillis();
         long lastUpdatedOutdated = System.currentTimeMillis()
                 - TmdbSync.UPDATED_BEFORE_DAYS - DateUtils.DAY_IN_MILLIS;
@@ -89,7 +89,11 @@ public class TmdbSyncTest {
         insertMovie(13, releaseDateOld, lastUpdatedOutdated);
         insertMovie(14, releaseDateOld, lastUpdatedVeryOutdated);
 
-        doUpdateAndAssertSuccess();
+        SyncProgress progress = doUpdateAndAssertSuccess();
+        SyncProgress.StepStats stats = progress.getStats(SyncProgress.Step.TMDB);
+        assertThat(stats).isNotNull();
+        assertThat(stats.updatedCount).isEqualTo(2);
+        assertThat(stats.failedCount).isEqualTo(0);
 
         // only the recently released outdated and the older very outdated movie should have been updated
         List<SgMovie> movies = movieHelper.getAllMovies();
@@ -102,7 +106,7 @@ public class TmdbSyncTest {
     }
 
     @Test
-    public void updatesMovieWithLastUpdatedIsNull() {
+    public void updatesMovieWithLastUpdatedIsNull() throws InterruptedException {
         // released today + last updated IS NULL
         insertMovie(12, System.currentTimeMillis(), null);
 
@@ -144,10 +148,12 @@ public class TmdbSyncTest {
         resolver.insert(Movies.CONTENT_URI, values);
     }
 
-    private void doUpdateAndAssertSuccess() {
+    private SyncProgress doUpdateAndAssertSuccess() throws InterruptedException {
         TmdbSync tmdbSync = new TmdbSync(ApplicationProvider.getApplicationContext(),
                 tmdbConfigService, movieTools);
-        boolean successful = tmdbSync.updateMovies(new SyncProgress());
+        SyncProgress progress = new SyncProgress();
+        boolean successful = tmdbSync.updateMovies(progress);
         assertThat(successful).isTrue();
+        return progress;
     }
 }
@@ -0,0 +1,91 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.tmdbapi
+
+import android.content.Context
+import android.text.format.DateUtils
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import com.battlelancer.seriesguide.tmdbapi.PosterPathCache.PosterPathResult
+import com.google.common.truth.Truth.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class PosterPathCacheTest {
+
+    private lateinit var db: SgRoomDatabase
+    private lateinit var helper: SgPosterPathHelper
+
+    @Before
+    fun createDb() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        db = Room.inMemoryDatabaseBuilder(context, SgRoomDatabase::class.java).build()
+        helper = db.sgPosterPathHelper()
+    }
+
+    @After
+    fun closeDb() {
+        db.close()
+    }
+
+    private fun resolve(
+        tmdbIds: List<Int>,
+        fetchMissing: Boolean,
+        fetched: MutableList<Int> = ArrayList()
+    ): Map<Int, String> = PosterPathCache.resolvePosterPaths(
+        helper,
+        PosterPathCache.TYPE_SHOW,
+        tmdbIds,
+        LANGUAGE,
+        fetchMissing
+    ) { tmdbId ->
+        fetched.add(tmdbId)
+        when (tmdbId) {
+            3 -> PosterPathResult(null) // no poster
+            4 -> null // fetching fails
+            else -> PosterPathResult("/fetched$tmdbId.jpg")
+        }
+    }
+
+    @Test
+    fun resolvesCachedThenFetchesMissing() {
+        val now = System.currentTimeMillis()
+        helper.insertPosterPaths(
+            listOf(
+                SgPosterPath(PosterPathCache.TYPE_SHOW, 1, LANGUAGE, "/cached1.jpg", now),
+                // Outdated.
+                SgPosterPath(
+                    PosterPathCache.TYPE_SHOW, 2, LANGUAGE, "/cached2.jpg",
+                    now - 15 * DateUtils.DAY_IN_MILLIS
+                ),
+                // Other type and language.
+                SgPosterPath(PosterPathCache.TYPE_MOVIE, 3, LANGUAGE, "/movie3.jpg", now),
+                SgPosterPath(PosterPathCache.TYPE_SHOW, 3, "de-DE", "/de3.jpg", now)
+            )
+        )
+
+        assertThat(resolve(listOf(1, 2, 3, 4), fetchMissing = false))
+            .containsExactly(1, "/cached1.jpg")
+
+        val fetched = ArrayList<Int>()
+        assertThat(resolve(listOf(1, 2, 3, 4, 2), fetchMissing = true, fetched))
+            .containsExactly(1, "/cached1.jpg", 2, "/fetched2.jpg")
+        assertThat(fetched).containsExactly(2, 3, 4).inOrder()
+
+        // Shows without poster are cached, failed ones are not.
+        fetched.clear()
+        resolve(listOf(1, 2, 3, 4), fetchMissing = true, fetched)
+        assertThat(fetched).containsExactly(4)
+    }
+
+    companion object {
+        private const val LANGUAGE = "en-US"
+    }
+
+}
@@ -0,0 +1,71 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.util
+
+import android.util.Log
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.battlelancer.seriesguide.BuildConfig
+import com.google.common.truth.Truth.assertThat
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Compares signing image cache URLs each time with looking them up in the signed URL cache of
+ * [ImageTools], like when scrolling [PASSES] times through a list of [POSTERS] posters.
+ * Results are written to logcat.
+ */
+@RunWith(AndroidJUnit4::class)
+class ImageToolsBenchmark {
+
+    private val posterUrls = (1..POSTERS).map { "https://image.tmdb.org/t/p/w154/poster$it.jpg" }
+
+    @Before
+    fun clearCache() {
+        ImageTools.clearSignedUrlCache()
+    }
+
+    @Test
+    fun signedUrls_uncachedVsCached() {
+        // Without a secret (SG_IMAGE_CACHE_SECRET) URLs are not signed or cached.
+        assumeTrue(BuildConfig.IMAGE_CACHE_SECRET.isNotEmpty())
+
+        // Warm up and verify both produce the same values.
+        val expected = posterUrls.map { ImageTools.signImageCacheUrl(it) }
+        val actual = posterUrls.map { ImageTools.getOrSignImageCacheUrl(it) }
+        assertThat(actual).containsExactlyElementsIn(expected).inOrder()
+
+        val uncachedMs = measureMs {
+            repeat(PASSES) { posterUrls.forEach { ImageTools.signImageCacheUrl(it) } }
+        }
+        val cachedMs = measureMs {
+            repeat(PASSES) { posterUrls.forEach { ImageTools.getOrSignImageCacheUrl(it) } }
+        }
+        val stats = ImageTools.getSignedUrlCacheStats()
+        assertThat(stats.size).isEqualTo(POSTERS)
+        Log.i(
+            TAG,
+            "Binding $POSTERS posters $PASSES times: uncached ${uncachedMs}ms," +
+                    " cached ${cachedMs}ms (median of $RUNS runs), cache $stats"
+        )
+    }
+
+    private fun measureMs(block: () -> Unit): Long {
+        val runsMs = (1..RUNS).map {
+            val start = System.nanoTime()
+            block()
+            (System.nanoTime() - start) / 1_000_000
+        }
+        return runsMs.sorted()[RUNS / 2]
+    }
+
+    companion object {
+        private const val TAG = "ImageToolsBenchmark"
+        private const val POSTERS = 600
+        private const val PASSES = 10
+        private const val RUNS = 5
+    }
+
+}
@@ -0,0 +1,201 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide
+
+import android.content.Context
+import android.os.SystemClock
+import androidx.core.os.trace
+import com.battlelancer.seriesguide.modules.HttpClientModule
+import com.battlelancer.seriesguide.modules.HttpClientModule.Companion.trustLetsEncryptAndroidNOrLower
+import com.battlelancer.seriesguide.settings.AppSettings
+import com.battlelancer.seriesguide.util.AppUpgrade
+import com.battlelancer.seriesguide.util.SgPicassoRequestHandler
+import com.google.android.gms.common.GooglePlayServicesNotAvailableException
+import com.google.android.gms.common.GooglePlayServicesRepairableException
+import com.google.android.gms.security.ProviderInstaller
+import com.squareup.picasso.Downloader
+import com.squareup.picasso.OkHttp3Downloader
+import com.squareup.picasso.Picasso
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.Response
+import timber.log.Timber
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Initializes the app in stages: [SgApp.onCreate] only runs what is needed before the first
+ * frame, then [startBackgroundStage] installs the security provider, builds Picasso and runs
+ * [AppUpgrade] off the main thread.
+ *
+ * Code that needs any of these waits for it using [awaitSecurityProvider] or [awaitUpgrade],
+ * like background entry points such as the sync adapter and flag jobs that should only run
+ * after upgrade code. If the background stage has not done it yet, the first caller does.
+ * [getPicasso] never waits, so can be used on the main thread.
+ *
+ * Each step is a trace section (see [SECTION_CRITICAL] and others) and its duration is recorded,
+ * see [getTrace].
+ */
+object AppStartup {
+
+    const val SECTION_CRITICAL = "SgStartup.critical"
+    const val SECTION_BACKGROUND = "SgStartup.background"
+    const val SECTION_SECURITY_PROVIDER = "SgStartup.securityProvider"
+    const val SECTION_PICASSO = "SgStartup.picasso"
+    const val SECTION_UPGRADE = "SgStartup.upgrade"
+
+    private val durationsMs = ConcurrentHashMap<String, Long>()
+
+    @Volatile
+    private var isSecurityProviderInstalled = false
+    private val securityProviderLock = Any()
+
+    @Volatile
+    private var picasso: Picasso? = null
+    private val picassoLock = Any()
+
+    @Volatile
+    private var isUpgradeDone = false
+    private val upgradeLock = Any()
+
+    /**
+     * Returns durations in milliseconds of the startup sections that have completed so far.
+     */
+    fun getTrace(): Map<String, Long> = HashMap(durationsMs)
+
+    internal fun <T> traced(section: String, block: () -> T): T {
+        val start = SystemClock.elapsedRealtime()
+        try {
+            return trace(section, block)
+        } finally {
+            val durationMs = SystemClock.elapsedRealtime() - start
+            durationsMs[section] = durationMs
+            Timber.d("%s took %d ms", section, durationMs)
+        }
+    }
+
+    /**
+     * Runs the background stage on [Dispatchers.IO]. Call once from [SgApp.onCreate].
+     */
+    fun startBackgroundStage(context: Context) {
+        val appContext = context.applicationContext
+        SgApp.coroutineScope.launch(Dispatchers.IO) {
+            traced(SECTION_BACKGROUND) {
+                awaitSecurityProvider(appContext)
+                getPicasso(appContext)
+                awaitUpgrade(appContext)
+            }
+        }
+    }
+
+    /**
+     * Tell Google Play Services to update the security provider.
+     * This enables older devices to keep connecting to APIs and image servers
+     * by use modern encryption.
+     *
+     * HTTP clients should only be built after this returns, so they use it.
+     */
+    @JvmStatic
+    fun awaitSecurityProvider(context: Context) {
+        if (isSecurityProviderInstalled) return
+        synchronized(securityProviderLock) {
+            if (isSecurityProviderInstalled) return
+            traced(SECTION_SECURITY_PROVIDER) {
+                try {
+                    ProviderInstaller.installIfNeeded(context.applicationContext)
+                    Timber.v("Successfully installed GMS security provider")
+                } catch (e: GooglePlayServicesRepairableException) {
+                    Timber.e("Failed to install GMS security provider ${e.connectionStatusCode}")
+                } catch (e: GooglePlayServicesNotAvailableException) {
+                    Timber.e("Failed to install GMS security provider ${e.errorCode}")
+                }
+            }
+            isSecurityProviderInstalled = true
+        }
+    }
+
+    /**
+     * Returns the app-wide [Picasso] instance, use instead of [Picasso.get].
+     *
+     * Does not wait for the security provider, so it is safe to call on the main thread.
+     * Requests are queued until the image HTTP client is ready, see [DeferredDownloader].
+     */
+    @JvmStatic
+    fun getPicasso(context: Context): Picasso {
+        picasso?.let { return it }
+        synchronized(picassoLock) {
+            picasso?.let { return it }
+            val newPicasso = traced(SECTION_PICASSO) {
+                buildPicasso(context.applicationContext)
+            }
+            try {
+                Picasso.setSingletonInstance(newPicasso)
+            } catch (ignored: IllegalStateException) {
+                // instance was already set
+            }
+            return Picasso.get().also { picasso = it }
+        }
+    }
+
+    private fun buildPicasso(context: Context): Picasso {
+        val downloader = DeferredDownloader(context)
+        return Picasso.Builder(context)
+            .downloader(downloader)
+            .addRequestHandler(SgPicassoRequestHandler(downloader, context))
+            .build()
+    }
+
+    /**
+     * Only waits for the security provider and builds the image HTTP client once Picasso
+     * downloads the first image. Picasso does this on its own threads, so until then
+     * requests just wait in its queue.
+     */
+    private class DeferredDownloader(private val context: Context) : Downloader {
+
+        private val downloader = lazy {
+            // Update security provider before building HTTP client.
+            awaitSecurityProvider(context)
+            val builder = OkHttpClient.Builder()
+                .cache(HttpClientModule.getImageDiskCache(context))
+                .trustLetsEncryptAndroidNOrLower()
+            OkHttp3Downloader(builder.build())
+        }
+
+        override fun load(request: Request): Response = downloader.value.load(request)
+
+        override fun shutdown() {
+            if (downloader.isInitialized()) downloader.value.shutdown()
+        }
+    }
+
+    /**
+     * Runs [AppUpgrade] if it has not run in this process yet, waits if it is running.
+     */
+    @JvmStatic
+    fun awaitUpgrade(context: Context) {
+        if (isUpgradeDone) return
+        synchronized(upgradeLock) {
+            if (isUpgradeDone) return
+            traced(SECTION_UPGRADE) {
+                AppUpgrade(context.applicationContext).upgradeIfNewVersion()
+            }
+            isUpgradeDone = true
+        }
+    }
+
+    /**
+     * Waits for [AppUpgrade] to finish. Returns true if the app was updated from a previous
+     * version, but only once, so the update is only announced once. This also works if the
+     * upgrade ran in an earlier process, like one started for a sync.
+     */
+    suspend fun consumeWasUpgraded(context: Context): Boolean {
+        return withContext(Dispatchers.IO) {
+            awaitUpgrade(context)
+            AppSettings.consumeShowWhatsNew(context)
+        }
+    }
+
+}
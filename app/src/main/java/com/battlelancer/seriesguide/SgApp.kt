@@ -16,7 +16,6 @@ import androidx.annotation.RequiresApi
 import com.battlelancer.seriesguide.modules.AppModule
 import com.battlelancer.seriesguide.modules.DaggerServicesComponent
 import com.battlelancer.seriesguide.modules.HttpClientModule
-import com.battlelancer.seriesguide.modules.HttpClientModule.Companion.trustLetsEncryptAndroidNOrLower
 import com.battlelancer.seriesguide.modules.ServicesComponent
 import com.battlelancer.seriesguide.modules.TmdbModule
 import com.battlelancer.seriesguide.modules.TraktModule
@@ -24,14 +23,8 @@ import com.battlelancer.seriesguide.notifications.NotificationService
 import com.battlelancer.seriesguide.settings.AppSettings
 import com.battlelancer.seriesguide.settings.DisplaySettings
 import com.battlelancer.seriesguide.util.Errors
-import com.battlelancer.seriesguide.util.SgPicassoRequestHandler
 import com.battlelancer.seriesguide.util.ThemeUtils
-import com.google.android.gms.common.GooglePlayServicesNotAvailableException
-import com.google.android.gms.common.GooglePlayServicesRepairableException
-import com.google.android.gms.security.ProviderInstaller
 import com.jakewharton.threetenabp.AndroidThreeTen
-import com.squareup.picasso.OkHttp3Downloader
-import com.squareup.picasso.Picasso
 import com.uwetrottmann.androidutils.AndroidUtils
 import io.palaima.debugdrawer.timber.data.LumberYard
 import kotlinx.coroutines.CoroutineScope
@@ -39,7 +32,6 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.asCoroutineDispatcher
 import kotlinx.coroutines.launch
-import okhttp3.OkHttpClient
 import org.greenrobot.eventbus.EventBus
 import org.greenrobot.eventbus.EventBusException
 import timber.log.Timber
@@ -167,37 +159,19 @@ class SgApp : Application() {
         // set up logging first so crashes during initialization are caught
         initializeLogging()
 
-        AndroidThreeTen.init(this)
-        initializeEventBus()
-        if (AndroidUtils.isAtLeastOreo) {
-            initializeNotificationChannels()
-        }
-
-        // Load the current theme into a global variable
-        ThemeUtils.updateTheme(DisplaySettings.getThemeIndex(this))
-
-        // Update security provider before building HTTP client (for Picasso and in HttpClientModule).
-        initializeSecurityProvider()
-        initializePicasso()
-    }
+        AppStartup.traced(AppStartup.SECTION_CRITICAL) {
+            AndroidThreeTen.init(this)
+            initializeEventBus()
+            if (AndroidUtils.isAtLeastOreo) {
+                initializeNotificationChannels()
+            }
 
-    /**
-     * Tell Google Play Services to update the security provider.
-     * This enables older devices to keep connecting to APIs and image servers
-     * by use modern encryption.
-     */
-    private fun initializeSecurityProvider() {
-        // TODO Figure out how to do this async
-        //  (either Picasso and HttpClientModule need to wait, or replace them on success?).
-//        ProviderInstaller.installIfNeededAsync(applicationContext, providerInstallListener)
-        try {
-            ProviderInstaller.installIfNeeded(applicationContext)
-            Timber.v("Successfully installed GMS security provider")
-        } catch (e: GooglePlayServicesRepairableException) {
-            Timber.e("Failed to install GMS security provider ${e.connectionStatusCode}")
-        } catch (e: GooglePlayServicesNotAvailableException) {
-            Timber.e("Failed to install GMS security provider ${e.errorCode}")
+            // Load the current theme into a global variable
+            ThemeUtils.updateTheme(DisplaySettings.getThemeIndex(this))
         }
+
+        // Security provider, Picasso and app upgrade do not need to block the first frame.
+        AppStartup.startBackgroundStage(this)
     }
 
     private fun initializeLogging() {
@@ -233,22 +207,6 @@ class SgApp : Application() {
 
     }
 
-    private fun initializePicasso() {
-        val builder = OkHttpClient.Builder()
-            .cache(HttpClientModule.getImageDiskCache(this))
-            .trustLetsEncryptAndroidNOrLower()
-        val downloader = OkHttp3Downloader(builder.build())
-        val picasso = Picasso.Builder(this)
-            .downloader(downloader)
-            .addRequestHandler(SgPicassoRequestHandler(downloader, this))
-            .build()
-        try {
-            Picasso.setSingletonInstance(picasso)
-        } catch (ignored: IllegalStateException) {
-            // instance was already set
-        }
-    }
-
     @RequiresApi(api = Build.VERSION_CODES.O)
     private fun initializeNotificationChannels() {
         // note: sound is on by default
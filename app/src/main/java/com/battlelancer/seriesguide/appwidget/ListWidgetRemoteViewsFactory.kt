@@ -17,6 +17,8 @@ import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgShow2Columns
 import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
 import com.battlelancer.seriesguide.shows.database.SgEpisode2WithShow
+import com.battlelancer.seriesguide.shows.database.SgUpcomingEpisode
+import com.battlelancer.seriesguide.shows.database.UpcomingEpisodesTable
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.shows.database.SgShow2ForLists
 import com.battlelancer.seriesguide.settings.AdvancedSettings
@@ -116,18 +118,30 @@ class ListWidgetRemoteViewsFactory(
     }
 
     private fun getUpcomingElseRecentEpisodes(isUpcomingElseRecent: Boolean) {
+        val isInfinite = WidgetSettings.isInfinite(context, appWidgetId)
+        // Episodes of the last or next few days can be read from the upcoming episodes table
+        // without joining episodes and shows.
+        val isFromUpcomingTable = !isInfinite && SgEpisode2WithShow
+            .getCalendarReleaseTimeRange(context)
+            .let { UpcomingEpisodesTable.covers(context, it.first, it.second) }
         val query = SgEpisode2WithShow.buildEpisodesWithShowQuery(
             context,
             isUpcomingElseRecent,
-            isInfiniteCalendar = WidgetSettings.isInfinite(context, appWidgetId),
+            isInfiniteCalendar = isInfinite,
             isOnlyFavorites = WidgetSettings.isOnlyFavoriteShows(context, appWidgetId),
             isOnlyUnwatched = WidgetSettings.isHidingWatchedEpisodes(context, appWidgetId),
             isOnlyCollected = WidgetSettings.isOnlyCollectedEpisodes(context, appWidgetId),
-            isOnlyPremieres = WidgetSettings.isOnlyPremieres(context, appWidgetId)
+            isOnlyPremieres = WidgetSettings.isOnlyPremieres(context, appWidgetId),
+            select = if (isFromUpcomingTable) SgUpcomingEpisode.SELECT else SgEpisode2WithShow.SELECT
         )
         // In addition limit results for widget to reduce memory consumption.
-        val results = SgRoomDatabase.getInstance(context).sgEpisode2Helper()
-            .getEpisodesWithShow(SimpleSQLiteQuery("$query LIMIT 100"))
+        val limitedQuery = SimpleSQLiteQuery("$query LIMIT 100")
+        val database = SgRoomDatabase.getInstance(context)
+        val results = if (isFromUpcomingTable) {
+            database.sgUpcomingEpisodeHelper().getEpisodesWithShow(limitedQuery)
+        } else {
+            database.sgEpisode2Helper().getEpisodesWithShow(limitedQuery)
+        }
         episodesWithShow.addAll(results)
     }
 
@@ -17,6 +17,7 @@ import java.io.FileInputStream
 import java.io.FileNotFoundException
 import java.io.FileOutputStream
 import java.io.IOException
+import java.io.OutputStream
 import java.text.SimpleDateFormat
 import java.util.Date
 import java.util.Locale
@@ -32,6 +33,9 @@ class AutoBackupException(message: String) : IOException(message)
  *
  * If the user has specified auto backup files, copies the latest backups to them.
  * If the user specified files do not exist, their URI is purged from prefs.
+ *
+ * Writes using [jsonExportTask], so uses its format and if it loads shows in parallel
+ * ([JsonExportTask.isPrefetchingShows]), by default as configured in [BackupSettings].
  */
 @Suppress("BlockingMethodInNonBlockingContext")
 class AutoBackupTask(
@@ -46,7 +50,8 @@ class AutoBackupTask(
     }
 
     private fun getBackupFile(backup: Backup, timestamp: String, backupDirectory: File): File {
-        val fileName = "${backup.name}-$timestamp.json"
+        val extension = if (jsonExportTask.isBinaryFormat) BinaryBackup.FILE_EXTENSION else "json"
+        val fileName = "${backup.name}-$timestamp.$extension"
         return File(backupDirectory, fileName)
     }
 
@@ -82,9 +87,9 @@ class AutoBackupTask(
 
         if (BackupSettings.isCreateCopyOfAutoBackup(context)) {
             // Copy to user files.
-            copyBackupToUserFile(Backup.Shows, backupFileShows)
-            copyBackupToUserFile(Backup.Lists, backupFileLists)
-            copyBackupToUserFile(Backup.Movies, backupFileMovies)
+            copyBackupToUserFile(coroutineScope, Backup.Shows, backupFileShows)
+            copyBackupToUserFile(coroutineScope, Backup.Lists, backupFileLists)
+            copyBackupToUserFile(coroutineScope, Backup.Movies, backupFileMovies)
         }
 
         AutoBackupTools.deleteOldBackups(context)
@@ -101,12 +106,7 @@ class AutoBackupTask(
         var out: FileOutputStream? = null
         try {
             out = FileOutputStream(backupFile)
-
-            when (backup) {
-                Backup.Shows -> jsonExportTask.writeJsonStreamShows(coroutineScope, out)
-                Backup.Lists -> jsonExportTask.writeJsonStreamLists(coroutineScope, out)
-                Backup.Movies -> jsonExportTask.writeJsonStreamMovies(coroutineScope, out)
-            }
+            write(coroutineScope, backup, out, jsonExportTask.isBinaryFormat)
         } catch (e: Exception) {
             if (backupFile.delete()) {
                 Timber.e("Backup failed, deleted backup file.")
@@ -119,8 +119,30 @@ class AutoBackupTask(
         }
     }
 
+    private suspend fun write(
+        coroutineScope: CoroutineScope,
+        backup: Backup,
+        out: OutputStream,
+        isBinary: Boolean
+    ) {
+        when (backup) {
+            Backup.Shows -> jsonExportTask.writeJsonStreamShows(coroutineScope, out, isBinary)
+            Backup.Lists -> jsonExportTask.writeJsonStreamLists(coroutineScope, out, isBinary)
+            Backup.Movies -> jsonExportTask.writeJsonStreamMovies(coroutineScope, out, isBinary)
+        }
+    }
+
+    /**
+     * User files are JSON documents intended for interchange, like with other apps or older
+     * versions of this app. So if backups use the binary format, writes JSON to them instead
+     * of copying the backup.
+     */
     @Throws(AutoBackupException::class)
-    private fun copyBackupToUserFile(backup: Backup, sourceFile: File) {
+    private suspend fun copyBackupToUserFile(
+        coroutineScope: CoroutineScope,
+        backup: Backup,
+        sourceFile: File
+    ) {
         // Skip if no custom backup file configured.
         val outFileUri: Uri = jsonExportTask.getDataBackupFile(backup.type)
             ?: return
@@ -142,7 +164,11 @@ class AutoBackupTask(
                             // bytes, potentially leaving old bytes hanging over:
                             // so truncate the file first.
                             it.channel.truncate(0)
-                            source.copyTo(it)
+                            if (jsonExportTask.isBinaryFormat) {
+                                write(coroutineScope, backup, it, isBinary = false)
+                            } else {
+                                source.copyTo(it)
+                            }
                         }
                     }
                 } catch (e: FileNotFoundException) {
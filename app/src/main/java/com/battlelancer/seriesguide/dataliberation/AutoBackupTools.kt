@@ -60,6 +60,9 @@ object AutoBackupTools {
         return getLatestBackupOrNull(JsonExportTask.BACKUP_SHOWS, context) != null
     }
 
+    /**
+     * Returns the latest JSON or [BinaryBackup] file, if any.
+     */
     @JvmStatic
     fun getLatestBackupOrNull(@BackupType type: Int, context: Context): BackupFile? {
         val backup = when (type) {
@@ -98,7 +101,7 @@ object AutoBackupTools {
     private fun getBackupTimestamp(file: File): Long? {
         val nameAndExtension = file.name.split(".")
 
-        // <something>.json
+        // <something>.json or <something>.sgbak
         if (nameAndExtension.size == 2) {
             val nameParts = nameAndExtension[0].split("-")
 
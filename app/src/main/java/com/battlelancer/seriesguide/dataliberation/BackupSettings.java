@@ -29,6 +29,10 @@ public class BackupSettings {
             = "com.battlelancer.seriesguide.backup.moviesExport";
     private static final String KEY_MOVIES_IMPORT_URI
             = "com.battlelancer.seriesguide.backup.moviesImport";
+    private static final String KEY_BINARY_FORMAT
+            = "com.battlelancer.seriesguide.backup.binaryFormat";
+    private static final String KEY_PREFETCH_SHOWS
+            = "com.battlelancer.seriesguide.backup.prefetchShows";
 
     // auto backup
     // Previous auto backup preference key.
@@ -54,6 +58,39 @@ public class BackupSettings {
     private static final String KEY_AUTOBACKUP_LAST_ERROR = "last_error";
     private static final String KEY_AUTOBACKUP_LAST_ERROR_WARN = "last_error.warn";
 
+    /**
+     * Whether backups, including auto backups, should use the compact {@link BinaryBackup} format
+     * instead of JSON. Importing detects the format of a file, so supports both.
+     */
+    public static boolean isBinaryBackupFormat(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context)
+                .getBoolean(KEY_BINARY_FORMAT, false);
+    }
+
+    static void setBinaryBackupFormat(Context context, boolean isBinaryFormat) {
+        PreferenceManager.getDefaultSharedPreferences(context)
+                .edit()
+                .putBoolean(KEY_BINARY_FORMAT, isBinaryFormat)
+                .apply();
+    }
+
+    /**
+     * Whether backups, including auto backups, should load seasons and episodes of upcoming
+     * shows while writing a show, see {@link JsonExportTask#isPrefetchingShows()}. Enabled by
+     * default, turning off uses less memory.
+     */
+    public static boolean isPrefetchingShows(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context)
+                .getBoolean(KEY_PREFETCH_SHOWS, true);
+    }
+
+    static void setPrefetchingShows(Context context, boolean isPrefetchingShows) {
+        PreferenceManager.getDefaultSharedPreferences(context)
+                .edit()
+                .putBoolean(KEY_PREFETCH_SHOWS, isPrefetchingShows)
+                .apply();
+    }
+
     public static boolean isAutoBackupEnabled(Context context) {
         return PreferenceManager.getDefaultSharedPreferences(context).getBoolean(KEY_AUTOBACKUP,
                 true);
@@ -0,0 +1,357 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.dataliberation
+
+import com.battlelancer.seriesguide.dataliberation.JsonExportTask.BackupType
+import com.battlelancer.seriesguide.dataliberation.binary.BackupEpisode
+import com.battlelancer.seriesguide.dataliberation.binary.BackupList
+import com.battlelancer.seriesguide.dataliberation.binary.BackupListItem
+import com.battlelancer.seriesguide.dataliberation.binary.BackupMovie
+import com.battlelancer.seriesguide.dataliberation.binary.BackupSeason
+import com.battlelancer.seriesguide.dataliberation.binary.BackupShow
+import com.battlelancer.seriesguide.dataliberation.model.Episode
+import com.battlelancer.seriesguide.dataliberation.model.Movie
+import com.battlelancer.seriesguide.dataliberation.model.Season
+import com.battlelancer.seriesguide.dataliberation.model.Show
+import com.google.flatbuffers.FlatBufferBuilder
+import java.io.BufferedOutputStream
+import java.io.Closeable
+import java.io.IOException
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+import com.battlelancer.seriesguide.dataliberation.model.List as ExportList
+
+/**
+ * Compact binary backup format using FlatBuffers, see `flatbuffers/SgBackup.fbs`.
+ *
+ * A backup file is a sequence of size prefixed buffers, one for each show, list or movie.
+ * So shows can be written one by one when exporting. When importing the file can be memory
+ * mapped and values read directly from it, without parsing or creating objects for all of them.
+ */
+object BinaryBackup {
+
+    const val FILE_EXTENSION = "sgbak"
+
+    private const val IDENTIFIER_SHOWS = "SGBS"
+    private const val IDENTIFIER_LISTS = "SGBL"
+    private const val IDENTIFIER_MOVIES = "SGBM"
+
+    /**
+     * Size prefix, offset to root table, file identifier.
+     */
+    private const val HEADER_LENGTH = 12
+    private const val SIZE_PREFIX_LENGTH = 4
+    private const val IDENTIFIER_POSITION = 8
+    private const val INITIAL_BUFFER_SIZE = 16 * 1024
+
+    private fun identifierOf(@BackupType type: Int): String {
+        return when (type) {
+            JsonExportTask.BACKUP_SHOWS -> IDENTIFIER_SHOWS
+            JsonExportTask.BACKUP_LISTS -> IDENTIFIER_LISTS
+            JsonExportTask.BACKUP_MOVIES -> IDENTIFIER_MOVIES
+            else -> throw IllegalArgumentException("Unknown backup type $type")
+        }
+    }
+
+    /**
+     * Returns the backup type if the file starts with a binary backup record,
+     * or null if it is not a binary backup (like a JSON backup).
+     * Does not change the position of the channel.
+     */
+    @Throws(IOException::class)
+    fun getBackupTypeOrNull(channel: FileChannel): Int? {
+        if (channel.size() < HEADER_LENGTH) return null
+        val header = ByteBuffer.allocate(HEADER_LENGTH)
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position().toLong()) < 0) return null
+        }
+        return getBackupTypeOrNull(header, 0)
+    }
+
+    private fun getBackupTypeOrNull(buffer: ByteBuffer, recordPosition: Int): Int? {
+        return listOf(
+            JsonExportTask.BACKUP_SHOWS,
+            JsonExportTask.BACKUP_LISTS,
+            JsonExportTask.BACKUP_MOVIES
+        ).find { hasIdentifier(buffer, recordPosition, identifierOf(it)) }
+    }
+
+    private fun hasIdentifier(buffer: ByteBuffer, recordPosition: Int, identifier: String): Boolean {
+        val start = recordPosition + IDENTIFIER_POSITION
+        if (start + identifier.length > buffer.limit()) return false
+        return identifier.indices.all { buffer.get(start + it) == identifier[it].code.toByte() }
+    }
+
+    /**
+     * Memory maps the whole file. If the file can not be mapped, like for some
+     * Storage Access Framework providers, reads it into memory instead.
+     */
+    @Throws(IOException::class)
+    fun map(channel: FileChannel): ByteBuffer {
+        val size = channel.size()
+        if (size > Int.MAX_VALUE) throw IOException("Backup file is too large")
+        return try {
+            channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+        } catch (e: IOException) {
+            val buffer = ByteBuffer.allocate(size.toInt())
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position().toLong()) < 0) break
+            }
+            buffer.flip()
+            buffer
+        }
+    }
+
+    /**
+     * Writes shows, lists or movies as binary backup records of the given [type] to [out].
+     * Closing the writer closes [out].
+     */
+    class Writer(out: OutputStream, @BackupType type: Int) : Closeable {
+
+        private val out = BufferedOutputStream(out)
+        private val identifier = identifierOf(type)
+        private val builder = FlatBufferBuilder(INITIAL_BUFFER_SIZE)
+
+        @Throws(IOException::class)
+        fun write(show: Show) {
+            check(identifier == IDENTIFIER_SHOWS)
+            builder.clear()
+            writeRecord(addShow(show))
+        }
+
+        @Throws(IOException::class)
+        fun write(list: ExportList) {
+            check(identifier == IDENTIFIER_LISTS)
+            builder.clear()
+            writeRecord(addList(list))
+        }
+
+        @Throws(IOException::class)
+        fun write(movie: Movie) {
+            check(identifier == IDENTIFIER_MOVIES)
+            builder.clear()
+            writeRecord(addMovie(movie))
+        }
+
+        private fun writeRecord(rootOffset: Int) {
+            builder.finishSizePrefixed(rootOffset, identifier)
+            val buffer = builder.dataBuffer()
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining())
+        }
+
+        override fun close() {
+            out.close()
+        }
+
+        private fun addString(value: String?): Int {
+            return if (value != null) builder.createString(value) else 0
+        }
+
+        private fun addShow(show: Show): Int {
+            val seasons = show.seasons?.map { addSeason(it) }?.toIntArray() ?: IntArray(0)
+            val seasonsOffset = BackupShow.createSeasonsVector(builder, seasons)
+            val imdbIdOffset = addString(show.imdb_id)
+            val titleOffset = addString(show.title)
+            val overviewOffset = addString(show.overview)
+            val languageOffset = addString(show.language)
+            val firstAiredOffset = addString(show.first_aired)
+            val releaseTimezoneOffset = addString(show.release_timezone)
+            val countryOffset = addString(show.country)
+            val customReleaseTimezoneOffset = addString(show.custom_release_timezone)
+            val posterOffset = addString(show.poster)
+            val contentRatingOffset = addString(show.content_rating)
+            val statusOffset = addString(show.status)
+            val genresOffset = addString(show.genres)
+            val networkOffset = addString(show.network)
+
+            BackupShow.startBackupShow(builder)
+            show.tmdb_id?.let { BackupShow.addTmdbId(builder, it) }
+            show.tvdb_id?.let { BackupShow.addTvdbId(builder, it) }
+            BackupShow.addImdbId(builder, imdbIdOffset)
+            show.trakt_id?.let { BackupShow.addTraktId(builder, it) }
+            BackupShow.addTitle(builder, titleOffset)
+            BackupShow.addOverview(builder, overviewOffset)
+            BackupShow.addLanguage(builder, languageOffset)
+            BackupShow.addFirstAired(builder, firstAiredOffset)
+            BackupShow.addReleaseTime(builder, show.release_time)
+            BackupShow.addReleaseWeekday(builder, show.release_weekday)
+            BackupShow.addReleaseTimezone(builder, releaseTimezoneOffset)
+            BackupShow.addCountry(builder, countryOffset)
+            show.custom_release_time?.let { BackupShow.addCustomReleaseTime(builder, it) }
+            show.custom_release_day_offset?.let { BackupShow.addCustomReleaseDayOffset(builder, it) }
+            BackupShow.addCustomReleaseTimezone(builder, customReleaseTimezoneOffset)
+            BackupShow.addPoster(builder, posterOffset)
+            BackupShow.addContentRating(builder, contentRatingOffset)
+            BackupShow.addStatus(builder, statusOffset)
+            BackupShow.addRuntime(builder, show.runtime)
+            BackupShow.addGenres(builder, genresOffset)
+            BackupShow.addNetwork(builder, networkOffset)
+            show.rating_tmdb?.let { BackupShow.addRatingTmdb(builder, it) }
+            show.rating_tmdb_votes?.let { BackupShow.addRatingTmdbVotes(builder, it) }
+            show.rating?.let { BackupShow.addRating(builder, it) }
+            show.rating_votes?.let { BackupShow.addRatingVotes(builder, it) }
+            show.rating_user?.let { BackupShow.addRatingUser(builder, it) }
+            BackupShow.addFavorite(builder, show.favorite)
+            show.notify?.let { BackupShow.addNotifyEnabled(builder, it) }
+            BackupShow.addHidden(builder, show.hidden)
+            BackupShow.addLastWatchedMs(builder, show.last_watched_ms)
+            BackupShow.addSeasons(builder, seasonsOffset)
+            return BackupShow.endBackupShow(builder)
+        }
+
+        private fun addSeason(season: Season): Int {
+            val episodes = season.episodes?.map { addEpisode(it) }?.toIntArray() ?: IntArray(0)
+            val episodesOffset = BackupSeason.createEpisodesVector(builder, episodes)
+            val tmdbIdOffset = addString(season.tmdb_id)
+
+            BackupSeason.startBackupSeason(builder)
+            BackupSeason.addTmdbId(builder, tmdbIdOffset)
+            season.tvdbId?.let { BackupSeason.addTvdbId(builder, it) }
+            BackupSeason.addSeason(builder, season.season)
+            BackupSeason.addEpisodes(builder, episodesOffset)
+            return BackupSeason.endBackupSeason(builder)
+        }
+
+        private fun addEpisode(episode: Episode): Int {
+            val titleOffset = addString(episode.title)
+            val imdbIdOffset = addString(episode.imdbId)
+            val overviewOffset = addString(episode.overview)
+            val imageOffset = addString(episode.image)
+            val writersOffset = addString(episode.writers)
+            val gueststarsOffset = addString(episode.gueststars)
+            val directorsOffset = addString(episode.directors)
+
+            BackupEpisode.startBackupEpisode(builder)
+            episode.tmdb_id?.let { BackupEpisode.addTmdbId(builder, it) }
+            episode.tvdbId?.let { BackupEpisode.addTvdbId(builder, it) }
+            BackupEpisode.addEpisode(builder, episode.episode)
+            episode.episodeAbsolute?.let { BackupEpisode.addEpisodeAbsolute(builder, it) }
+            BackupEpisode.addTitle(builder, titleOffset)
+            BackupEpisode.addFirstAired(builder, episode.firstAired)
+            BackupEpisode.addWatched(builder, episode.watched)
+            BackupEpisode.addPlays(builder, episode.plays)
+            BackupEpisode.addSkipped(builder, episode.skipped)
+            BackupEpisode.addCollected(builder, episode.collected)
+            BackupEpisode.addImdbId(builder, imdbIdOffset)
+            episode.episodeDvd?.let { BackupEpisode.addEpisodeDvd(builder, it) }
+            BackupEpisode.addOverview(builder, overviewOffset)
+            BackupEpisode.addImage(builder, imageOffset)
+            BackupEpisode.addWriters(builder, writersOffset)
+            BackupEpisode.addGueststars(builder, gueststarsOffset)
+            BackupEpisode.addDirectors(builder, directorsOffset)
+            episode.rating_tmdb?.let { BackupEpisode.addRatingTmdb(builder, it) }
+            episode.rating_tmdb_votes?.let { BackupEpisode.addRatingTmdbVotes(builder, it) }
+            episode.rating?.let { BackupEpisode.addRating(builder, it) }
+            episode.rating_votes?.let { BackupEpisode.addRatingVotes(builder, it) }
+            episode.rating_user?.let { BackupEpisode.addRatingUser(builder, it) }
+            return BackupEpisode.endBackupEpisode(builder)
+        }
+
+        private fun addList(list: ExportList): Int {
+            val items = list.items?.map {
+                BackupListItem.createBackupListItem(
+                    builder,
+                    addString(it.listItemId),
+                    addString(it.externalId),
+                    addString(it.type)
+                )
+            }?.toIntArray() ?: IntArray(0)
+            val itemsOffset = BackupList.createItemsVector(builder, items)
+            return BackupList.createBackupList(
+                builder,
+                addString(list.listId),
+                addString(list.name),
+                list.order,
+                itemsOffset
+            )
+        }
+
+        private fun addMovie(movie: Movie): Int {
+            val imdbIdOffset = addString(movie.imdbId)
+            val titleOffset = addString(movie.title)
+            val posterOffset = addString(movie.poster)
+            val overviewOffset = addString(movie.overview)
+            return BackupMovie.createBackupMovie(
+                builder,
+                movie.tmdbId,
+                imdbIdOffset,
+                titleOffset,
+                movie.releasedUtcMs,
+                movie.runtimeMin,
+                posterOffset,
+                overviewOffset,
+                movie.inCollection,
+                movie.inWatchlist,
+                movie.watched,
+                movie.plays,
+                movie.lastUpdatedMs
+            )
+        }
+    }
+
+    /**
+     * Reads binary backup records of the given [type] from [buffer], like one returned by [map].
+     *
+     * To avoid creating objects for every record, the next methods assign the record to the
+     * given table object, which can be re-used.
+     */
+    class Reader(buffer: ByteBuffer, @BackupType private val type: Int) {
+
+        private val buffer: ByteBuffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+        private val identifier = identifierOf(type)
+        private val start = buffer.position()
+        private var position = start
+
+        val size: Int
+            get() = buffer.limit() - start
+
+        val bytesRead: Int
+            get() = position - start
+
+        fun hasNext(): Boolean = position < buffer.limit()
+
+        @Throws(IOException::class)
+        fun next(show: BackupShow): BackupShow =
+            BackupShow.getRootAsBackupShow(nextRecord(), show)
+
+        @Throws(IOException::class)
+        fun next(list: BackupList): BackupList =
+            BackupList.getRootAsBackupList(nextRecord(), list)
+
+        @Throws(IOException::class)
+        fun next(movie: BackupMovie): BackupMovie =
+            BackupMovie.getRootAsBackupMovie(nextRecord(), movie)
+
+        private fun nextRecord(): ByteBuffer {
+            val recordPosition = position
+            if (buffer.limit() - recordPosition < HEADER_LENGTH) {
+                throw IOException("Backup file is truncated")
+            }
+            val size = buffer.getInt(recordPosition)
+            val end = recordPosition.toLong() + SIZE_PREFIX_LENGTH + size
+            if (size < HEADER_LENGTH - SIZE_PREFIX_LENGTH || end > buffer.limit()) {
+                throw IOException("Backup file is truncated")
+            }
+            if (!hasIdentifier(buffer, recordPosition, identifier)) {
+                val foundType = getBackupTypeOrNull(buffer, recordPosition)
+                throw IllegalStateException(
+                    if (foundType != null) {
+                        "Backup file is of type $foundType, expected type $type"
+                    } else {
+                        "Backup file is corrupted"
+                    }
+                )
+            }
+            position = end.toInt()
+            // Tables only read using absolute positions, so just skip the size prefix.
+            val record = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+            record.position(recordPosition + SIZE_PREFIX_LENGTH)
+            record.limit(position)
+            return record
+        }
+    }
+
+}
@@ -26,7 +26,8 @@ import org.greenrobot.eventbus.Subscribe
 import org.greenrobot.eventbus.ThreadMode
 
 /**
- * One button export or import of the show database using a JSON file on external storage.
+ * One button export or import of the show database using a JSON (or compact binary) file
+ * on external storage.
  * Uses Storage Access Framework so no permissions are required.
  */
 class DataLiberationFragment : Fragment(), OnTaskProgressListener {
@@ -56,12 +57,25 @@ class DataLiberationFragment : Fragment(), OnTaskProgressListener {
         binding.buttonDataLibImport.setOnClickListener {
             doDataImport()
         }
+        binding.checkBoxDataLibBinaryFormat.isChecked =
+            BackupSettings.isBinaryBackupFormat(requireContext())
+        binding.checkBoxDataLibBinaryFormat.setOnCheckedChangeListener { _, isChecked ->
+            BackupSettings.setBinaryBackupFormat(requireContext(), isChecked)
+        }
+        binding.checkBoxDataLibPrefetchShows.isChecked =
+            BackupSettings.isPrefetchingShows(requireContext())
+        binding.checkBoxDataLibPrefetchShows.setOnCheckedChangeListener { _, isChecked ->
+            BackupSettings.setPrefetchingShows(requireContext(), isChecked)
+        }
 
         // note: selecting custom backup files is only supported on KitKat and up
         // as we use Storage Access Framework in this case
         binding.buttonDataLibShowsExportFile.setOnClickListener {
             createShowExportFileResult.tryLaunch(
-                JsonExportTask.EXPORT_JSON_FILE_SHOWS,
+                getExportFileName(
+                    JsonExportTask.EXPORT_JSON_FILE_SHOWS,
+                    JsonExportTask.EXPORT_BINARY_FILE_SHOWS
+                ),
                 requireContext()
             )
         }
@@ -71,7 +85,10 @@ class DataLiberationFragment : Fragment(), OnTaskProgressListener {
 
         binding.buttonDataLibListsExportFile.setOnClickListener {
             createListsExportFileResult.tryLaunch(
-                JsonExportTask.EXPORT_JSON_FILE_LISTS,
+                getExportFileName(
+                    JsonExportTask.EXPORT_JSON_FILE_LISTS,
+                    JsonExportTask.EXPORT_BINARY_FILE_LISTS
+                ),
                 requireContext()
             )
         }
@@ -81,7 +98,10 @@ class DataLiberationFragment : Fragment(), OnTaskProgressListener {
 
         binding.buttonDataLibMoviesExportFile.setOnClickListener {
             createMovieExportFileResult.tryLaunch(
-                JsonExportTask.EXPORT_JSON_FILE_MOVIES,
+                getExportFileName(
+                    JsonExportTask.EXPORT_JSON_FILE_MOVIES,
+                    JsonExportTask.EXPORT_BINARY_FILE_MOVIES
+                ),
                 requireContext()
             )
         }
@@ -96,6 +116,14 @@ class DataLiberationFragment : Fragment(), OnTaskProgressListener {
         }
     }
 
+    private fun getExportFileName(jsonFileName: String, binaryFileName: String): String {
+        return if (BackupSettings.isBinaryBackupFormat(requireContext())) {
+            binaryFileName
+        } else {
+            jsonFileName
+        }
+    }
+
     private fun updateImportButtonEnabledState() {
         val binding = binding ?: return
         binding.buttonDataLibImport.isEnabled = (binding.checkBoxDataLibShows.isChecked
@@ -145,6 +173,8 @@ class DataLiberationFragment : Fragment(), OnTaskProgressListener {
         }
         binding.progressBarDataLib.visibility = if (isLocked) View.VISIBLE else View.GONE
         binding.checkBoxDataLibFullDump.isEnabled = !isLocked
+        binding.checkBoxDataLibBinaryFormat.isEnabled = !isLocked
+        binding.checkBoxDataLibPrefetchShows.isEnabled = !isLocked
         binding.buttonDataLibShowsExportFile.isEnabled = !isLocked
         binding.buttonDataLibShowsImportFile.isEnabled = !isLocked
         binding.buttonDataLibListsExportFile.isEnabled = !isLocked
@@ -163,7 +193,8 @@ class DataLiberationFragment : Fragment(), OnTaskProgressListener {
         val dataLibTask = JsonImportTask(
             requireContext(),
             binding.checkBoxDataLibShows.isChecked, binding.checkBoxDataLibLists.isChecked,
-            binding.checkBoxDataLibMovies.isChecked
+            binding.checkBoxDataLibMovies.isChecked,
+            this@DataLiberationFragment
         )
         model.dataLibJob = SgApp.coroutineScope.launch { dataLibTask.run() }
     }
@@ -183,6 +214,7 @@ class DataLiberationFragment : Fragment(), OnTaskProgressListener {
             this@DataLiberationFragment,
             binding.checkBoxDataLibFullDump.isChecked, false, type
         )
+        exportTask.isPrefetchingShows = binding.checkBoxDataLibPrefetchShows.isChecked
         model.dataLibJob = exportTask.launch()
     }
 
@@ -3,7 +3,14 @@
 
 package com.battlelancer.seriesguide.dataliberation
 
+import com.battlelancer.seriesguide.dataliberation.binary.BackupEpisode
+import com.battlelancer.seriesguide.dataliberation.binary.BackupList
+import com.battlelancer.seriesguide.dataliberation.binary.BackupMovie
+import com.battlelancer.seriesguide.dataliberation.binary.BackupSeason
+import com.battlelancer.seriesguide.dataliberation.binary.BackupShow
 import com.battlelancer.seriesguide.dataliberation.model.Episode
+import com.battlelancer.seriesguide.dataliberation.model.ListItem
+import com.battlelancer.seriesguide.dataliberation.model.Movie
 import com.battlelancer.seriesguide.dataliberation.model.Season
 import com.battlelancer.seriesguide.dataliberation.model.Show
 import com.battlelancer.seriesguide.shows.database.SgEpisode2
@@ -14,6 +21,7 @@ import com.battlelancer.seriesguide.util.LanguageTools
 import com.battlelancer.seriesguide.util.TextTools
 import com.battlelancer.seriesguide.util.TimeTools
 import kotlin.math.absoluteValue
+import com.battlelancer.seriesguide.dataliberation.model.List as ExportList
 
 object ImportTools {
 
@@ -99,6 +107,132 @@ object ImportTools {
         )
     }
 
+    /**
+     * Like [Show.toSgShowForImport], but reads values directly from the binary backup.
+     * The [language] should already be validated.
+     */
+    fun BackupShow.toSgShowForImport(language: String?): SgShow2 {
+        val title = title()
+        val poster = poster()
+        return SgShow2(
+            tmdbId = tmdbId().takeIf { it > 0 },
+            tvdbId = tvdbId().takeIf { it > 0 },
+            traktId = traktId(),
+            title = title ?: "",
+            titleNoArticle = TextTools.trimLeadingArticle(title),
+            overview = overview() ?: "",
+            releaseTime = releaseTime(),
+            releaseWeekDay = releaseWeekday().let { if (it >= -1 && it <= 7) it else TimeTools.RELEASE_WEEKDAY_UNKNOWN },
+            releaseCountry = country(),
+            releaseTimeZone = releaseTimezone(),
+            customReleaseTime = customReleaseTime().takeIf { it in 0..2359 },
+            customReleaseDayOffset = customReleaseDayOffset().takeIf { it in -SgShow2.MAX_CUSTOM_DAY_OFFSET..SgShow2.MAX_CUSTOM_DAY_OFFSET },
+            customReleaseTimeZone = customReleaseTimezone(),
+            firstRelease = firstAired(),
+            ratingTmdb = ratingTmdb().toRating(),
+            ratingTmdbVotes = ratingTmdbVotes().toVotes(),
+            ratingTrakt = rating().toRating(),
+            ratingTraktVotes = ratingVotes().toVotes(),
+            ratingUser = ratingUser().toUserRating(),
+            genres = genres() ?: "",
+            network = network() ?: "",
+            imdbId = imdbId() ?: "",
+            runtime = runtime().coerceAtLeast(0),
+            status = DataLiberationTools.encodeShowStatus(status()),
+            poster = poster ?: "",
+            posterSmall = poster ?: "",
+            language = language ?: LanguageTools.LANGUAGE_EN,
+            lastUpdatedMs = 0, // never, e.g. update next.
+            favorite = favorite(),
+            notify = notifyEnabled(),
+            hidden = hidden(),
+            lastWatchedMs = lastWatchedMs(),
+        )
+    }
+
+    fun BackupSeason.toSgSeasonForImport(showId: Long): SgSeason2 {
+        return SgSeason2(
+            showId = showId,
+            tmdbId = tmdbId(),
+            tvdbId = tvdbId().takeIf { it > 0 },
+            numberOrNull = season(),
+            order = season(),
+            name = null
+        )
+    }
+
+    fun BackupEpisode.toSgEpisodeForImport(
+        showId: Long,
+        seasonId: Long,
+        seasonNumber: Int
+    ): SgEpisode2 {
+        val watched = watched()
+        val plays = plays()
+        return SgEpisode2(
+            showId = showId,
+            seasonId = seasonId,
+            tmdbId = tmdbId().takeIf { it > 0 },
+            tvdbId = tvdbId().takeIf { it > 0 },
+            title = title() ?: "",
+            overview = overview(),
+            number = episode(),
+            absoluteNumber = episodeAbsolute().takeIf { it >= 0 },
+            dvdNumber = episodeDvd().takeIf { it >= 0 },
+            order = episode(),
+            season = seasonNumber,
+            image = image() ?: "",
+            firstReleasedMs = firstAired(),
+            directors = directors() ?: "",
+            guestStars = gueststars() ?: "",
+            writers = writers() ?: "",
+            watched = if (skipped()) EpisodeFlags.SKIPPED else if (watched) EpisodeFlags.WATCHED else EpisodeFlags.UNWATCHED,
+            collected = collected(),
+            plays = if (watched && plays >= 1) plays else if (watched) 1 else 0,
+            ratingTmdb = ratingTmdb().toRating(),
+            ratingTmdbVotes = ratingTmdbVotes().toVotes(),
+            ratingTrakt = rating().toRating(),
+            ratingTraktVotes = ratingVotes().toVotes(),
+            ratingUser = ratingUser().toUserRating()
+        )
+    }
+
+    /**
+     * Lists are small, so just maps to the JSON model.
+     */
+    fun BackupList.toListForImport(): ExportList {
+        val list = ExportList()
+        list.listId = listId()
+        list.name = name()
+        list.order = order()
+        list.items = ArrayList(itemsLength())
+        for (i in 0 until itemsLength()) {
+            val backupItem = items(i)
+            val item = ListItem()
+            item.listItemId = backupItem.listItemId()
+            item.externalId = backupItem.externalId()
+            item.type = backupItem.type()
+            list.items.add(item)
+        }
+        return list
+    }
+
+    fun BackupMovie.toMovieForImport(): Movie {
+        val movie = Movie()
+        movie.tmdbId = tmdbId()
+        movie.imdbId = imdbId()
+        movie.title = title()
+        movie.releasedUtcMs = releasedUtcMs()
+        movie.runtimeMin = runtimeMin()
+        movie.poster = poster()
+        movie.overview = overview()
+        movie.inCollection = inCollection()
+        movie.inWatchlist = inWatchlist()
+        movie.watched = watched()
+        movie.plays = plays()
+        movie.lastUpdatedMs = lastUpdatedMs()
+        return movie
+    }
+
     fun Double?.toRating(): Double? = if (this != null && this in 0.0..10.0) this else null
     private fun Int?.toUserRating(): Int? = if (this != null && this in 0..10) this else null
     fun Int?.toVotes(): Int? = if (this != null && this >= 0) this else null
@@ -22,6 +22,7 @@ import com.battlelancer.seriesguide.provider.SeriesGuideContract.ListItemTypes
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.shows.database.SgEpisode2Helper
 import com.battlelancer.seriesguide.shows.database.SgSeason2Helper
+import com.battlelancer.seriesguide.shows.database.SgShow2
 import com.battlelancer.seriesguide.shows.database.SgShow2Helper
 import com.battlelancer.seriesguide.shows.episodes.EpisodeTools
 import com.battlelancer.seriesguide.util.Errors
@@ -30,13 +31,17 @@ import com.google.gson.Gson
 import com.google.gson.JsonParseException
 import com.google.gson.stream.JsonWriter
 import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
+import kotlinx.coroutines.async
+import kotlinx.coroutines.channels.Channel
 import kotlinx.coroutines.isActive
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import org.greenrobot.eventbus.EventBus
 import timber.log.Timber
+import java.io.Closeable
 import java.io.File
 import java.io.FileNotFoundException
 import java.io.FileOutputStream
@@ -50,6 +55,9 @@ import com.battlelancer.seriesguide.dataliberation.model.List as ExportList
  * Export the show database to a human-readable JSON file on external storage. By default meta-data
  * like descriptions, ratings, actors, etc. will not be included.
  *
+ * If [isBinaryFormat] is set, writes a compact [BinaryBackup] file instead, which is faster to
+ * import, but only intended for restoring a backup.
+ *
  * @param isFullDump Whether to also export meta-data like descriptions, ratings, actors, etc.
  * Increases file size about 2-4 times.
  * @param isAutoBackupMode Whether to run an auto backup, also shows no result toasts.
@@ -100,6 +108,19 @@ class JsonExportTask(
     @VisibleForTesting
     var testBackupFile: File? = null
 
+    /**
+     * If a [BinaryBackup] instead of JSON should be written.
+     * By default uses [BackupSettings.isBinaryBackupFormat].
+     */
+    var isBinaryFormat = BackupSettings.isBinaryBackupFormat(this.context)
+
+    /**
+     * If seasons and episodes of the next [PREFETCH_SHOWS] shows should be loaded in parallel
+     * while writing a show. Otherwise loads them on the writing thread before writing each show,
+     * which uses less memory. By default uses [BackupSettings.isPrefetchingShows].
+     */
+    var isPrefetchingShows = BackupSettings.isPrefetchingShows(this.context)
+
     /**
      * Wraps [run] so it can be called from Java code.
      */
@@ -280,7 +301,11 @@ class JsonExportTask(
     }
 
     @Throws(IOException::class)
-    suspend fun writeJsonStreamShows(coroutineScope: CoroutineScope, out: OutputStream) {
+    suspend fun writeJsonStreamShows(
+        coroutineScope: CoroutineScope,
+        out: OutputStream,
+        isBinary: Boolean = isBinaryFormat
+    ) {
         val shows = sgShow2Helper.getShowsForExport()
 
         val numTotal = shows.size
@@ -288,62 +313,86 @@ class JsonExportTask(
 
         onProgressUpdate(numTotal, 0)
 
-        val gson = Gson()
-        val writer = JsonWriter(OutputStreamWriter(out, StandardCharsets.UTF_8))
-        writer.beginArray()
-
-        for (sgShow in shows) {
-            if (!coroutineScope.isActive) {
-                break
+        val writer = BackupWriter(out, BACKUP_SHOWS, isBinary)
+
+        if (isPrefetchingShows) {
+            // While writing a show, load seasons and episodes of the next shows in parallel.
+            withContext(Dispatchers.IO) {
+                val exportShows = Channel<Deferred<Show>>(capacity = PREFETCH_SHOWS)
+                val producer = launch {
+                    for (sgShow in shows) {
+                        exportShows.send(async(Dispatchers.IO) { toExportShow(sgShow) })
+                    }
+                    exportShows.close()
+                }
+                for (exportShow in exportShows) {
+                    if (!coroutineScope.isActive) {
+                        break
+                    }
+                    writer.write(exportShow.await())
+                    onProgressUpdate(numTotal, ++numExported)
+                }
+                // Stop loading if cancelled.
+                producer.cancel()
+                exportShows.cancel()
             }
-
-            val show = Show()
-            show.tmdb_id = sgShow.tmdbId
-            show.tvdb_id = sgShow.tvdbId
-            show.title = sgShow.title
-            show.favorite = sgShow.favorite
-            show.notify = sgShow.notify
-            show.hidden = sgShow.hidden
-            // Note: not mapping legacy language codes so backups can be imported in older versions,
-            // which would drop the language if it isn't recognized.
-            show.language = sgShow.language
-            show.release_time = sgShow.releaseTimeOrDefault
-            show.release_weekday = sgShow.releaseWeekDayOrDefault
-            show.release_timezone = sgShow.releaseTimeZone
-            show.country = sgShow.releaseCountry
-            // Note: do net set default values for custom time if never configured, set to null
-            // instead. This avoids restoring a backup overwriting values in Cloud on next sync.
-            show.custom_release_time = sgShow.customReleaseTime
-            show.custom_release_day_offset = sgShow.customReleaseDayOffset
-            show.custom_release_timezone = sgShow.customReleaseTimeZone
-            show.last_watched_ms = sgShow.lastWatchedMs
-            show.poster = sgShow.poster
-            show.content_rating = sgShow.contentRating
-            show.status = DataLiberationTools.decodeShowStatus(sgShow.statusOrUnknown)
-            show.runtime = sgShow.runtime ?: 0
-            show.network = sgShow.network
-            show.imdb_id = sgShow.imdbId
-            show.trakt_id = sgShow.traktId
-            show.first_aired = sgShow.firstRelease
-            show.rating_user = sgShow.ratingUser
-            if (isFullDump) {
-                show.overview = sgShow.overview
-                show.rating_tmdb = sgShow.ratingTmdb
-                show.rating_tmdb_votes = sgShow.ratingTmdbVotes
-                show.rating = sgShow.ratingTrakt
-                show.rating_votes = sgShow.ratingTraktVotes
-                show.genres = sgShow.genres
+        } else {
+            for (sgShow in shows) {
+                if (!coroutineScope.isActive) {
+                    break
+                }
+                writer.write(toExportShow(sgShow))
+                onProgressUpdate(numTotal, ++numExported)
             }
+        }
 
-            show.seasons = getSeasons(sgShow.id)
-
-            gson.toJson(show, Show::class.java, writer)
+        writer.close()
+    }
 
-            onProgressUpdate(numTotal, ++numExported)
+    /**
+     * Maps the show and loads its seasons and episodes.
+     */
+    private fun toExportShow(sgShow: SgShow2): Show {
+        val show = Show()
+        show.tmdb_id = sgShow.tmdbId
+        show.tvdb_id = sgShow.tvdbId
+        show.title = sgShow.title
+        show.favorite = sgShow.favorite
+        show.notify = sgShow.notify
+        show.hidden = sgShow.hidden
+        // Note: not mapping legacy language codes so backups can be imported in older versions,
+        // which would drop the language if it isn't recognized.
+        show.language = sgShow.language
+        show.release_time = sgShow.releaseTimeOrDefault
+        show.release_weekday = sgShow.releaseWeekDayOrDefault
+        show.release_timezone = sgShow.releaseTimeZone
+        show.country = sgShow.releaseCountry
+        // Note: do net set default values for custom time if never configured, set to null
+        // instead. This avoids restoring a backup overwriting values in Cloud on next sync.
+        show.custom_release_time = sgShow.customReleaseTime
+        show.custom_release_day_offset = sgShow.customReleaseDayOffset
+        show.custom_release_timezone = sgShow.customReleaseTimeZone
+        show.last_watched_ms = sgShow.lastWatchedMs
+        show.poster = sgShow.poster
+        show.content_rating = sgShow.contentRating
+        show.status = DataLiberationTools.decodeShowStatus(sgShow.statusOrUnknown)
+        show.runtime = sgShow.runtime ?: 0
+        show.network = sgShow.network
+        show.imdb_id = sgShow.imdbId
+        show.trakt_id = sgShow.traktId
+        show.first_aired = sgShow.firstRelease
+        show.rating_user = sgShow.ratingUser
+        if (isFullDump) {
+            show.overview = sgShow.overview
+            show.rating_tmdb = sgShow.ratingTmdb
+            show.rating_tmdb_votes = sgShow.ratingTmdbVotes
+            show.rating = sgShow.ratingTrakt
+            show.rating_votes = sgShow.ratingTraktVotes
+            show.genres = sgShow.genres
         }
 
-        writer.endArray()
-        writer.close()
+        show.seasons = getSeasons(sgShow.id)
+        return show
     }
 
     /**
@@ -411,7 +460,11 @@ class JsonExportTask(
     }
 
     @Throws(IOException::class)
-    suspend fun writeJsonStreamLists(coroutineScope: CoroutineScope, out: OutputStream) {
+    suspend fun writeJsonStreamLists(
+        coroutineScope: CoroutineScope,
+        out: OutputStream,
+        isBinary: Boolean = isBinaryFormat
+    ) {
         val lists = sgListHelper.getListsForExport()
 
         val numTotal = lists.size
@@ -419,9 +472,7 @@ class JsonExportTask(
 
         onProgressUpdate(numTotal, 0)
 
-        val gson = Gson()
-        val writer = JsonWriter(OutputStreamWriter(out, StandardCharsets.UTF_8))
-        writer.beginArray()
+        val writer = BackupWriter(out, BACKUP_LISTS, isBinary)
 
         for (sgList in lists) {
             if (!coroutineScope.isActive) {
@@ -435,12 +486,11 @@ class JsonExportTask(
 
             addListItems(list)
 
-            gson.toJson(list, ExportList::class.java, writer)
+            writer.write(list)
 
             onProgressUpdate(numTotal, ++numExported)
         }
 
-        writer.endArray()
         writer.close()
     }
 
@@ -465,7 +515,11 @@ class JsonExportTask(
     }
 
     @Throws(IOException::class)
-    suspend fun writeJsonStreamMovies(coroutineScope: CoroutineScope, out: OutputStream) {
+    suspend fun writeJsonStreamMovies(
+        coroutineScope: CoroutineScope,
+        out: OutputStream,
+        isBinary: Boolean = isBinaryFormat
+    ) {
         val movies = movieHelper.getMoviesForExport()
 
         val numTotal = movies.size
@@ -473,9 +527,7 @@ class JsonExportTask(
 
         onProgressUpdate(numTotal, 0)
 
-        val gson = Gson()
-        val writer = JsonWriter(OutputStreamWriter(out, StandardCharsets.UTF_8))
-        writer.beginArray()
+        val writer = BackupWriter(out, BACKUP_MOVIES, isBinary)
 
         for (sgMovie in movies) {
             if (!coroutineScope.isActive) {
@@ -497,19 +549,68 @@ class JsonExportTask(
                 movie.overview = sgMovie.overview
             }
 
-            gson.toJson(movie, Movie::class.java, writer)
+            writer.write(movie)
 
             onProgressUpdate(numTotal, ++numExported)
         }
 
-        writer.endArray()
         writer.close()
     }
 
+    /**
+     * Writes items to a JSON array or, if [isBinary], a [BinaryBackup].
+     * Closing the writer closes [out].
+     */
+    private inner class BackupWriter(
+        out: OutputStream,
+        @BackupType type: Int,
+        isBinary: Boolean
+    ) : Closeable {
+
+        private val binaryWriter = if (isBinary) BinaryBackup.Writer(out, type) else null
+        private val jsonWriter = if (binaryWriter == null) {
+            JsonWriter(OutputStreamWriter(out, StandardCharsets.UTF_8)).also { it.beginArray() }
+        } else null
+        private val gson = Gson()
+
+        fun write(show: Show) {
+            if (binaryWriter != null) {
+                binaryWriter.write(show)
+            } else {
+                gson.toJson(show, Show::class.java, jsonWriter)
+            }
+        }
+
+        fun write(list: ExportList) {
+            if (binaryWriter != null) {
+                binaryWriter.write(list)
+            } else {
+                gson.toJson(list, ExportList::class.java, jsonWriter)
+            }
+        }
+
+        fun write(movie: Movie) {
+            if (binaryWriter != null) {
+                binaryWriter.write(movie)
+            } else {
+                gson.toJson(movie, Movie::class.java, jsonWriter)
+            }
+        }
+
+        override fun close() {
+            binaryWriter?.close()
+            jsonWriter?.endArray()
+            jsonWriter?.close()
+        }
+    }
+
     companion object {
         const val EXPORT_JSON_FILE_SHOWS = "seriesguide-shows-backup.json"
         const val EXPORT_JSON_FILE_LISTS = "seriesguide-lists-backup.json"
         const val EXPORT_JSON_FILE_MOVIES = "seriesguide-movies-backup.json"
+        const val EXPORT_BINARY_FILE_SHOWS = "seriesguide-shows-backup.${BinaryBackup.FILE_EXTENSION}"
+        const val EXPORT_BINARY_FILE_LISTS = "seriesguide-lists-backup.${BinaryBackup.FILE_EXTENSION}"
+        const val EXPORT_BINARY_FILE_MOVIES = "seriesguide-movies-backup.${BinaryBackup.FILE_EXTENSION}"
 
         const val BACKUP_SHOWS = 1
         const val BACKUP_LISTS = 2
@@ -518,6 +619,11 @@ class JsonExportTask(
         const val SUCCESS = 1
         private const val ERROR_FILE_ACCESS = 0
         private const val ERROR = -1
+
+        /**
+         * How many shows to load ahead of the writer, limits memory use.
+         */
+        private const val PREFETCH_SHOWS = 8
     }
 
     interface OnTaskProgressListener {
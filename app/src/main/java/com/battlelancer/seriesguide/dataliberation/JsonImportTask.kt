@@ -8,15 +8,26 @@ import android.content.ContentValues
 import android.content.Context
 import android.content.OperationApplicationException
 import android.net.Uri
+import android.os.Handler
+import android.os.Looper
 import android.os.ParcelFileDescriptor
+import android.os.SystemClock
 import androidx.annotation.VisibleForTesting
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.dataliberation.DataLiberationFragment.LiberationResultEvent
+import com.battlelancer.seriesguide.dataliberation.ImportTools.toListForImport
+import com.battlelancer.seriesguide.dataliberation.ImportTools.toMovieForImport
 import com.battlelancer.seriesguide.dataliberation.ImportTools.toSgEpisodeForImport
 import com.battlelancer.seriesguide.dataliberation.ImportTools.toSgSeasonForImport
 import com.battlelancer.seriesguide.dataliberation.ImportTools.toSgShowForImport
 import com.battlelancer.seriesguide.dataliberation.JsonExportTask.BackupType
 import com.battlelancer.seriesguide.dataliberation.JsonExportTask.ListItemTypesExport
+import com.battlelancer.seriesguide.dataliberation.JsonExportTask.OnTaskProgressListener
+import com.battlelancer.seriesguide.dataliberation.binary.BackupEpisode
+import com.battlelancer.seriesguide.dataliberation.binary.BackupList
+import com.battlelancer.seriesguide.dataliberation.binary.BackupMovie
+import com.battlelancer.seriesguide.dataliberation.binary.BackupSeason
+import com.battlelancer.seriesguide.dataliberation.binary.BackupShow
 import com.battlelancer.seriesguide.dataliberation.model.List
 import com.battlelancer.seriesguide.dataliberation.model.Movie
 import com.battlelancer.seriesguide.dataliberation.model.Season
@@ -24,12 +35,12 @@ import com.battlelancer.seriesguide.dataliberation.model.Show
 import com.battlelancer.seriesguide.provider.SeriesGuideContract
 import com.battlelancer.seriesguide.provider.SeriesGuideContract.ListItemTypes
 import com.battlelancer.seriesguide.provider.SeriesGuideContract.ListItems
-import com.battlelancer.seriesguide.provider.SeriesGuideDatabase
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.shows.database.SgEpisode2
 import com.battlelancer.seriesguide.shows.database.SgEpisode2Helper
 import com.battlelancer.seriesguide.shows.database.SgSeason2Helper
 import com.battlelancer.seriesguide.shows.database.SgShow2Helper
+import com.battlelancer.seriesguide.shows.tools.NextEpisodeDirtyShows
 import com.battlelancer.seriesguide.sync.SgSyncAdapter
 import com.battlelancer.seriesguide.util.DBUtils
 import com.battlelancer.seriesguide.util.Errors.Companion.logAndReport
@@ -51,7 +62,8 @@ import java.io.IOException
 import java.io.InputStreamReader
 
 /**
- * Imports shows, lists or movies from a human-readable JSON file replacing existing data.
+ * Imports shows, lists or movies from a human-readable JSON file or a [BinaryBackup] file
+ * replacing existing data.
  */
 class JsonImportTask(
     context: Context,
@@ -61,7 +73,8 @@ class JsonImportTask(
     private val database: SgRoomDatabase,
     private val sgShow2Helper: SgShow2Helper,
     private val sgSeason2Helper: SgSeason2Helper,
-    private val sgEpisode2Helper: SgEpisode2Helper
+    private val sgEpisode2Helper: SgEpisode2Helper,
+    private val progressListener: OnTaskProgressListener? = null
 ) {
 
     private val context: Context = context.applicationContext
@@ -83,6 +96,15 @@ class JsonImportTask(
     @VisibleForTesting
     var testBackupFile: File? = null
 
+    /**
+     * About how many rows (shows, seasons, episodes, movies) to insert per transaction.
+     * Larger values are faster, but keep more parsed data in memory.
+     */
+    var commitRowCount = DEFAULT_COMMIT_ROW_COUNT
+
+    private val mainHandler = Handler(Looper.getMainLooper())
+    private var lastProgressUpdateMs = 0L
+
     init {
         isImportingAutoBackup = false
         isImportShows = importShows
@@ -94,7 +116,8 @@ class JsonImportTask(
         context: Context,
         importShows: Boolean,
         importLists: Boolean,
-        importMovies: Boolean
+        importMovies: Boolean,
+        progressListener: OnTaskProgressListener? = null
     ) : this(
         context,
         importShows,
@@ -103,7 +126,8 @@ class JsonImportTask(
         SgRoomDatabase.getInstance(context),
         SgRoomDatabase.getInstance(context).sgShow2Helper(),
         SgRoomDatabase.getInstance(context).sgSeason2Helper(),
-        SgRoomDatabase.getInstance(context).sgEpisode2Helper()
+        SgRoomDatabase.getInstance(context).sgEpisode2Helper(),
+        progressListener
     )
 
     constructor(context: Context) : this(context, true, true, true) {
@@ -133,6 +157,9 @@ class JsonImportTask(
         var result: Int
         if (isImportShows) {
             result = importData(JsonExportTask.BACKUP_SHOWS)
+            // Shows and episodes were replaced (even if the import failed part way),
+            // so next episodes of all shows need to be updated.
+            NextEpisodeDirtyShows.requestFullUpdate()
             if (result != SUCCESS) {
                 return result
             }
@@ -161,9 +188,6 @@ class JsonImportTask(
             }
         }
 
-        // Renew search table
-        SeriesGuideDatabase.rebuildFtsTable(context)
-
         return SUCCESS
     }
 
@@ -233,7 +257,7 @@ class JsonImportTask(
                 FileInputStream(pfd!!.fileDescriptor)
             } else FileInputStream(testBackupFile)
             try {
-                importFromJson(type, inputStream)
+                importFromFile(type, inputStream)
 
                 // let the document provider know we're done.
                 pfd?.close()
@@ -280,7 +304,7 @@ class JsonImportTask(
 
             // Access JSON from backup file and try to import data
             try {
-                importFromJson(type, inputStream)
+                importFromFile(type, inputStream)
             } catch (e: JsonParseException) {
                 // the given Json might not be valid or unreadable
                 Timber.e(e, "Import failed")
@@ -347,41 +371,190 @@ class JsonImportTask(
     }
 
     @Throws(JsonParseException::class, IOException::class, IllegalArgumentException::class)
-    private fun importFromJson(@BackupType type: Int, inputStream: FileInputStream) {
+    private fun importFromFile(@BackupType type: Int, inputStream: FileInputStream) {
         if (inputStream.channel.size() == 0L) {
             Timber.i("Backup file is empty, nothing to import.")
             inputStream.close()
             return  // File is empty, nothing to import.
         }
 
+        if (BinaryBackup.getBackupTypeOrNull(inputStream.channel) != null) {
+            importFromBinary(type, inputStream)
+        } else {
+            importFromJson(type, inputStream)
+        }
+    }
+
+    @Throws(JsonParseException::class, IOException::class, IllegalArgumentException::class)
+    private fun importFromJson(@BackupType type: Int, inputStream: FileInputStream) {
         val gson = Gson()
         val reader = JsonReader(InputStreamReader(inputStream, "UTF-8"))
+        val progress = ImportProgress(inputStream.channel.size()) {
+            inputStream.channel.position()
+        }
         reader.beginArray()
         when (type) {
             JsonExportTask.BACKUP_SHOWS -> {
+                // Insert multiple shows, including seasons and episodes, per transaction.
+                val shows = ArrayList<Show>()
+                var rowCount = 0
                 while (reader.hasNext()) {
                     val show = gson.fromJson<Show>(reader, Show::class.java)
-                    addShowToDatabase(show)
+                    shows.add(show)
+                    rowCount += 1 + (show.seasons?.sumOf { 1 + (it.episodes?.size ?: 0) } ?: 0)
+                    if (rowCount >= commitRowCount) {
+                        addShowsToDatabase(shows)
+                        progress.onRowsImported(rowCount)
+                        shows.clear()
+                        rowCount = 0
+                    }
                 }
+                addShowsToDatabase(shows)
+                progress.onRowsImported(rowCount)
             }
             JsonExportTask.BACKUP_LISTS -> {
                 while (reader.hasNext()) {
                     val list = gson.fromJson<List>(reader, List::class.java)
                     addListToDatabase(list)
+                    progress.onRowsImported(1 + (list.items?.size ?: 0))
                 }
             }
             JsonExportTask.BACKUP_MOVIES -> {
+                // Insert multiple movies per transaction.
+                val movies = ArrayList<ContentValues>()
                 while (reader.hasNext()) {
                     val movie = gson.fromJson<Movie>(reader, Movie::class.java)
-                    context.contentResolver.insert(
-                        SeriesGuideContract.Movies.CONTENT_URI,
-                        movie.toContentValues()
-                    )
+                    movies.add(movie.toContentValues())
+                    if (movies.size >= commitRowCount) {
+                        addMoviesToDatabase(movies)
+                        progress.onRowsImported(movies.size)
+                        movies.clear()
+                    }
                 }
+                addMoviesToDatabase(movies)
+                progress.onRowsImported(movies.size)
             }
         }
         reader.endArray()
         reader.close()
+        progress.onFinished(type)
+    }
+
+    /**
+     * Reads values directly from the memory mapped file, only creating the entities to insert.
+     */
+    @Throws(IOException::class)
+    private fun importFromBinary(@BackupType type: Int, inputStream: FileInputStream) {
+        // The mapping stays valid after closing the file.
+        val reader = inputStream.use { BinaryBackup.Reader(BinaryBackup.map(it.channel), type) }
+        val progress = ImportProgress(reader.size.toLong()) { reader.bytesRead.toLong() }
+        when (type) {
+            JsonExportTask.BACKUP_SHOWS -> {
+                // Insert multiple shows, including seasons and episodes, per transaction.
+                val show = BackupShow()
+                while (reader.hasNext()) {
+                    var rowCount = 0
+                    database.runInTransaction {
+                        while (reader.hasNext() && rowCount < commitRowCount) {
+                            rowCount += addShowToDatabase(reader.next(show))
+                        }
+                    }
+                    progress.onRowsImported(rowCount)
+                }
+            }
+            JsonExportTask.BACKUP_LISTS -> {
+                val backupList = BackupList()
+                while (reader.hasNext()) {
+                    val list = reader.next(backupList).toListForImport()
+                    addListToDatabase(list)
+                    progress.onRowsImported(1 + list.items.size)
+                }
+            }
+            JsonExportTask.BACKUP_MOVIES -> {
+                // Insert multiple movies per transaction.
+                val movie = BackupMovie()
+                val movies = ArrayList<ContentValues>()
+                while (reader.hasNext()) {
+                    movies.add(reader.next(movie).toMovieForImport().toContentValues())
+                    if (movies.size >= commitRowCount) {
+                        addMoviesToDatabase(movies)
+                        progress.onRowsImported(movies.size)
+                        movies.clear()
+                    }
+                }
+                addMoviesToDatabase(movies)
+                progress.onRowsImported(movies.size)
+            }
+        }
+        progress.onFinished(type)
+    }
+
+    /**
+     * Reports progress based on how much of the backup file was read
+     * and tracks throughput in rows per second.
+     */
+    private inner class ImportProgress(
+        totalBytes: Long,
+        private val getBytesRead: () -> Long
+    ) {
+        private val startMs = SystemClock.elapsedRealtime()
+        private val totalKb = (totalBytes / 1024).toInt()
+        private var rowCount = 0L
+
+        fun onRowsImported(count: Int) {
+            rowCount += count
+            val now = SystemClock.elapsedRealtime()
+            if (now - lastProgressUpdateMs < PROGRESS_UPDATE_INTERVAL_MS) return
+            lastProgressUpdateMs = now
+            val readKb = try {
+                (getBytesRead() / 1024).toInt()
+            } catch (e: IOException) {
+                return // Stream closed, not an issue.
+            }
+            Timber.d("Imported %d rows, %d rows/s", rowCount, rowsPerSecond(now))
+            postProgress(totalKb, readKb.coerceAtMost(totalKb))
+        }
+
+        fun onFinished(@BackupType type: Int) {
+            val now = SystemClock.elapsedRealtime()
+            Timber.i(
+                "Imported %d rows of type %d in %d ms, %d rows/s",
+                rowCount, type, now - startMs, rowsPerSecond(now)
+            )
+            postProgress(totalKb, totalKb)
+        }
+
+        private fun rowsPerSecond(now: Long): Long {
+            val elapsedMs = (now - startMs).coerceAtLeast(1)
+            return rowCount * 1000 / elapsedMs
+        }
+    }
+
+    private fun postProgress(total: Int, completed: Int) {
+        val progressListener = progressListener ?: return
+        mainHandler.post { progressListener.onProgressUpdate(total, completed) }
+    }
+
+    private fun addShowsToDatabase(shows: kotlin.collections.List<Show>) {
+        if (shows.isEmpty()) return
+        database.runInTransaction {
+            for (show in shows) {
+                addShowToDatabase(show)
+            }
+        }
+    }
+
+    /**
+     * Inserts all [movies] in a single transaction of the provider. Like inserting one movie at a
+     * time, a movie with the same TMDB ID replaces an existing one, so if the backup contains
+     * duplicates the last one wins (see JsonImportMoviesTest).
+     */
+    private fun addMoviesToDatabase(movies: ArrayList<ContentValues>) {
+        if (movies.isEmpty()) return
+        context.contentResolver.bulkInsert(
+            SeriesGuideContract.Movies.CONTENT_URI,
+            movies.toTypedArray()
+        )
     }
 
     private fun addShowToDatabase(show: Show) {
@@ -391,15 +564,7 @@ class JsonImportTask(
             return
         }
 
-        // Map legacy language codes.
-        if (!show.language.isNullOrEmpty()) {
-            show.language = LanguageTools.mapLegacyShowCode(show.language)
-        }
-        // Reset language if it is not supported.
-        val languageSupported = languageCodes.find { it == show.language } != null
-        if (!languageSupported) {
-            show.language = null
-        }
+        show.language = toSupportedLanguageOrNull(show.language)
 
         val sgShow = show.toSgShowForImport()
         val showId = sgShow2Helper.insertShow(sgShow)
@@ -416,6 +581,66 @@ class JsonImportTask(
         insertSeasonsAndEpisodes(show, showId)
     }
 
+    /**
+     * Maps legacy language codes, returns null if the language is not supported.
+     */
+    private fun toSupportedLanguageOrNull(language: String?): String? {
+        val mappedLanguage = if (!language.isNullOrEmpty()) {
+            LanguageTools.mapLegacyShowCode(language)
+        } else {
+            language
+        }
+        return languageCodes.find { it == mappedLanguage }
+    }
+
+    /**
+     * Returns the number of inserted rows (shows, seasons, episodes).
+     */
+    private fun addShowToDatabase(show: BackupShow): Int {
+        if (show.tmdbId() <= 0 && show.tvdbId() <= 0) {
+            // valid id required
+            return 0
+        }
+
+        val sgShow = show.toSgShowForImport(toSupportedLanguageOrNull(show.language()))
+        val showId = sgShow2Helper.insertShow(sgShow)
+        if (showId == -1L) {
+            return 0 // Insert failed.
+        }
+        var rowCount = 1
+
+        val season = BackupSeason()
+        val episode = BackupEpisode()
+        for (i in 0 until show.seasonsLength()) {
+            show.seasons(season, i)
+            if (season.tmdbId().isNullOrEmpty() && season.tvdbId() <= 0) {
+                // valid id is required
+                continue
+            }
+            val episodeCount = season.episodesLength()
+            if (episodeCount == 0) {
+                // episodes required
+                continue
+            }
+
+            val seasonId = sgSeason2Helper.insertSeason(season.toSgSeasonForImport(showId))
+            if (seasonId == -1L) continue
+
+            val episodes = ArrayList<SgEpisode2>(episodeCount)
+            for (j in 0 until episodeCount) {
+                season.episodes(episode, j)
+                if (episode.tmdbId() <= 0 && episode.tvdbId() <= 0) {
+                    // valid id is required
+                    continue
+                }
+                episodes.add(episode.toSgEpisodeForImport(showId, seasonId, season.season()))
+            }
+            sgEpisode2Helper.insertEpisodes(episodes)
+            rowCount += 1 + episodes.size
+        }
+        return rowCount
+    }
+
     private fun insertSeasonsAndEpisodes(show: Show, showId: Long) {
         for (season in show.seasons) {
             if ((season.tmdb_id == null || season.tmdb_id!!.isEmpty())
@@ -520,6 +745,8 @@ class JsonImportTask(
 
     companion object {
         const val SUCCESS = 1
+        const val DEFAULT_COMMIT_ROW_COUNT = 5000
+        private const val PROGRESS_UPDATE_INTERVAL_MS = 250L
         private const val ERROR_STORAGE_ACCESS = 0
         private const val ERROR = -1
         private const val ERROR_LARGE_DB_OP = -2
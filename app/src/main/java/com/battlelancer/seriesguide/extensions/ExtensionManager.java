@@ -16,6 +16,10 @@ import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.content.res.Resources;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
 import android.text.TextUtils;
 import android.util.Log;
 import androidx.annotation.NonNull;
@@ -33,6 +37,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import org.greenrobot.eventbus.EventBus;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -45,14 +50,41 @@ public class ExtensionManager {
 
     private static final int HARD_CACHE_CAPACITY = 5;
 
+    /**
+     * If actions for an item were requested less than this ago, do not request them again.
+     */
+    private static final long ACTIONS_MAX_AGE_MS = 5 * DateUtils.MINUTE_IN_MILLIS;
+
+    /**
+     * Requests for other items within this interval are coalesced, see {@link RequestThrottle}.
+     */
+    private static final long REQUEST_INTERVAL_MS = 1000;
+
     // Cashes received actions for the last few displayed episodes.
-    private final static LruCache<Integer, Map<ComponentName, Action>>
+    private final static LruCache<Integer, CachedActions>
             sEpisodeActionsCache = new LruCache<>(HARD_CACHE_CAPACITY);
 
     // Cashes received actions for the last few displayed movies.
-    private final static LruCache<Integer, Map<ComponentName, Action>>
+    private final static LruCache<Integer, CachedActions>
             sMovieActionsCache = new LruCache<>(HARD_CACHE_CAPACITY);
 
+    /**
+     * Actions received for an item and when they were last requested.
+     */
+    private static class CachedActions {
+        // Modified while holding the manager lock, but read without it.
+        final Map<ComponentName, Action> actions = new ConcurrentHashMap<>();
+        volatile long requestedAtMs;
+
+        CachedActions(long requestedAtMs) {
+            this.requestedAtMs = requestedAtMs;
+        }
+
+        boolean isFresh(long nowMs) {
+            return nowMs - requestedAtMs < ACTIONS_MAX_AGE_MS;
+        }
+    }
+
     /**
      * {@link com.battlelancer.seriesguide.extensions.ExtensionManager} has received new {@link
      * com.battlelancer.seriesguide.api.Action} objects from enabled extensions. Receivers might
@@ -83,8 +115,13 @@ public class ExtensionManager {
     private Map<ComponentName, String> subscriptions; // extension + token = sub
     @Nullable
     private Map<String, ComponentName> tokens; // mirrored map for faster token searching
+    // Order-preserving list of enabled extensions. Only ever replaced, never modified,
+    // so reading actions does not have to wait for the manager lock.
     @Nullable
-    private List<ComponentName> enabledExtensions; // order-preserving list of enabled extensions
+    private volatile List<ComponentName> enabledExtensions;
+
+    private final RequestThrottle<Episode> episodeRequests;
+    private final RequestThrottle<Movie> movieRequests;
 
     private static ExtensionManager _instance;
 
@@ -99,6 +136,11 @@ public class ExtensionManager {
     }
 
     private ExtensionManager(Context context) {
+        Handler handler = new Handler(Looper.getMainLooper());
+        episodeRequests = new RequestThrottle<>(handler,
+                episode -> sendEpisodeActionRequests(context, episode));
+        movieRequests = new RequestThrottle<>(handler,
+                movie -> sendMovieActionRequests(context, movie));
         checkEnabledExtensions(context);
     }
 
@@ -307,28 +349,34 @@ public class ExtensionManager {
     /**
      * Returns the currently available {@link com.battlelancer.seriesguide.api.Action} list for the
      * given episode, identified through its TMDB id. Sorted in the order determined by the user.
+     * <p>
+     * Does not wait for requests to extensions or received actions to be handled.
      */
-    synchronized List<Action> getLatestEpisodeActions(Context context, int episodeTmdbId) {
-        Map<ComponentName, Action> actionMap = sEpisodeActionsCache.get(episodeTmdbId);
-        return actionListFrom(context, actionMap);
+    List<Action> getLatestEpisodeActions(Context context, int episodeTmdbId) {
+        return actionListFrom(context, sEpisodeActionsCache.get(episodeTmdbId));
     }
 
     /**
      * Returns the currently available {@link com.battlelancer.seriesguide.api.Action} list for the
      * given movie, identified through its TMDB id. Sorted in the order determined by the user.
+     * <p>
+     * Does not wait for requests to extensions or received actions to be handled.
      */
-    public synchronized List<Action> getLatestMovieActions(Context context, int movieTmdbId) {
-        Map<ComponentName, Action> actionMap = sMovieActionsCache.get(movieTmdbId);
-        return actionListFrom(context, actionMap);
+    public List<Action> getLatestMovieActions(Context context, int movieTmdbId) {
+        return actionListFrom(context, sMovieActionsCache.get(movieTmdbId));
     }
 
-    private List<Action> actionListFrom(Context context, Map<ComponentName, Action> actionMap) {
-        if (actionMap == null) {
+    private List<Action> actionListFrom(Context context, @Nullable CachedActions cachedActions) {
+        if (cachedActions == null) {
             return null;
         }
+        List<ComponentName> enabledExtensions = this.enabledExtensions;
+        if (enabledExtensions == null) {
+            enabledExtensions = enabledExtensions(context);
+        }
         List<Action> sortedActions = new ArrayList<>();
-        for (ComponentName extension : enabledExtensions(context)) {
-            Action action = actionMap.get(extension);
+        for (ComponentName extension : enabledExtensions) {
+            Action action = cachedActions.actions.get(extension);
             if (action != null) {
                 sortedActions.add(action);
             }
@@ -337,9 +385,23 @@ public class ExtensionManager {
     }
 
     /**
-     * Asks all enabled extensions to publish an action for the given episode.
+     * Asks all enabled extensions to publish an action for the given episode. Does nothing if
+     * actions were requested recently. If actions for other episodes were just requested, waits
+     * and only requests actions for the latest episode.
      */
-    synchronized void requestEpisodeActions(Context context, Episode episode) {
+    void requestEpisodeActions(Context context, Episode episode) {
+        if (isRequestedRecently(sEpisodeActionsCache, episode.getTmdbId())) {
+            Timber.d("requestEpisodeActions: requested recently for %s", episode.getTmdbId());
+            return;
+        }
+        episodeRequests.request(episode);
+    }
+
+    private synchronized void sendEpisodeActionRequests(Context context, Episode episode) {
+        // Might have been requested while waiting.
+        if (!prepareActionsCache(sEpisodeActionsCache, episode.getTmdbId())) {
+            return;
+        }
         for (ComponentName extension : subscriptions(context).keySet()) {
             requestEpisodeAction(context, extension, episode);
         }
@@ -352,11 +414,6 @@ public class ExtensionManager {
             Episode episode) {
         Integer episodeIdentifier = episode.getTmdbId();
         Timber.d("requestAction: requesting from %s for %s", extension, episodeIdentifier);
-        // prepare to receive actions for the given episode
-        if (sEpisodeActionsCache.get(episodeIdentifier) == null) {
-            sEpisodeActionsCache.put(episodeIdentifier, new HashMap<>());
-        }
-        // actually request actions
         context.sendBroadcast(new Intent(IncomingConstants.ACTION_UPDATE)
                 .setComponent(extension)
                 .putExtra(IncomingConstants.EXTRA_ENTITY_IDENTIFIER, episodeIdentifier)
@@ -365,9 +422,23 @@ public class ExtensionManager {
     }
 
     /**
-     * Asks all enabled extensions to publish an action for the given movie.
+     * Asks all enabled extensions to publish an action for the given movie. Like {@link
+     * #requestEpisodeActions(Context, Episode)} does nothing if actions were requested recently
+     * and coalesces requests.
      */
-    public synchronized void requestMovieActions(Context context, Movie movie) {
+    public void requestMovieActions(Context context, Movie movie) {
+        if (isRequestedRecently(sMovieActionsCache, movie.getTmdbId())) {
+            Timber.d("requestMovieActions: requested recently for %s", movie.getTmdbId());
+            return;
+        }
+        movieRequests.request(movie);
+    }
+
+    private synchronized void sendMovieActionRequests(Context context, Movie movie) {
+        // Might have been requested while waiting.
+        if (!prepareActionsCache(sMovieActionsCache, movie.getTmdbId())) {
+            return;
+        }
         for (ComponentName extension : subscriptions(context).keySet()) {
             requestMovieAction(context, extension, movie);
         }
@@ -379,11 +450,6 @@ public class ExtensionManager {
     private synchronized void requestMovieAction(Context context, ComponentName extension,
             Movie movie) {
         Timber.d("requestAction: requesting from %s for %s", extension, movie.getTmdbId());
-        // prepare to receive actions for the given episode
-        if (sMovieActionsCache.get(movie.getTmdbId()) == null) {
-            sMovieActionsCache.put(movie.getTmdbId(), new HashMap<>());
-        }
-        // actually request actions
         context.sendBroadcast(new Intent(IncomingConstants.ACTION_UPDATE)
                 .setComponent(extension)
                 .putExtra(IncomingConstants.EXTRA_ENTITY_IDENTIFIER, movie.getTmdbId())
@@ -391,6 +457,31 @@ public class ExtensionManager {
                 .putExtra(IncomingConstants.EXTRA_VERSION, 2));
     }
 
+    private static boolean isRequestedRecently(LruCache<Integer, CachedActions> cache,
+            Integer identifier) {
+        CachedActions cachedActions = cache.get(identifier);
+        return cachedActions != null && cachedActions.isFresh(SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Prepares to receive actions for the given item, keeps previously received actions.
+     * Returns false if actions were requested recently, then no request should be sent.
+     */
+    private static boolean prepareActionsCache(LruCache<Integer, CachedActions> cache,
+            Integer identifier) {
+        long now = SystemClock.elapsedRealtime();
+        CachedActions cachedActions = cache.get(identifier);
+        if (cachedActions == null) {
+            cache.put(identifier, new CachedActions(now));
+            return true;
+        }
+        if (cachedActions.isFresh(now)) {
+            return false;
+        }
+        cachedActions.requestedAtMs = now;
+        return true;
+    }
+
     /**
      * This is thread-safe.
      */
@@ -414,15 +505,15 @@ public class ExtensionManager {
             }
 
             // check if action entity identifier is for an entity we requested actions for
-            Map<ComponentName, Action> actionMap;
+            CachedActions cachedActions;
             if (type == ACTION_TYPE_EPISODE) {
                 // episode
-                actionMap = sEpisodeActionsCache.get(action.getEntityIdentifier());
+                cachedActions = sEpisodeActionsCache.get(action.getEntityIdentifier());
             } else {
                 // movie
-                actionMap = sMovieActionsCache.get(action.getEntityIdentifier());
+                cachedActions = sMovieActionsCache.get(action.getEntityIdentifier());
             }
-            if (actionMap == null) {
+            if (cachedActions == null) {
                 // did not request actions for this episode, or is already out of cache (too late!)
                 Timber.d(
                         "handlePublishedAction: ignoring actions for %s, not requested",
@@ -432,7 +523,7 @@ public class ExtensionManager {
             // store action for this entity
             ComponentName extension = tokens.get(token);
             //noinspection ConstantConditions Should never be null if token exists.
-            actionMap.put(extension, action);
+            cachedActions.actions.put(extension, action);
         }
 
         // notify that actions were updated
@@ -449,12 +540,13 @@ public class ExtensionManager {
             return; // already loaded subscriptions
         }
         Timber.i("Loading extension subscriptions");
-        enabledExtensions = new ArrayList<>();
+        List<ComponentName> enabledExtensions = new ArrayList<>();
         subscriptions = new HashMap<>();
         tokens = new HashMap<>();
 
         String serializedSubscriptions = preferences(context).getString(PREF_SUBSCRIPTIONS, null);
         if (serializedSubscriptions == null) {
+            this.enabledExtensions = enabledExtensions;
             setDefaultEnabledExtensions(context);
             return;
         }
@@ -464,6 +556,7 @@ public class ExtensionManager {
             jsonArray = new JSONArray(serializedSubscriptions);
         } catch (JSONException e) {
             Timber.e(e, "Deserializing subscriptions failed");
+            this.enabledExtensions = enabledExtensions;
             return;
         }
 
@@ -484,6 +577,8 @@ public class ExtensionManager {
             tokens.put(token, extension);
             Timber.d("Restored subscription: %s token: %s", extension, token);
         }
+        // Only publish once complete.
+        this.enabledExtensions = enabledExtensions;
     }
 
     private void saveSubscriptions(Context context) {
@@ -531,4 +626,62 @@ public class ExtensionManager {
         sEpisodeActionsCache.evictAll();
         sMovieActionsCache.evictAll();
     }
+
+    /**
+     * Sends a request right away, unless one was sent less than {@link #REQUEST_INTERVAL_MS} ago.
+     * Then only sends the latest request once the interval has passed. So paging quickly through
+     * episodes only requests actions for the one that remains displayed.
+     */
+    static class RequestThrottle<T> {
+
+        interface Sender<T> {
+            void send(T request);
+        }
+
+        private final Handler handler;
+        private final Sender<T> sender;
+        private final Runnable sendPendingRunnable = this::sendPending;
+
+        // Guarded by this.
+        private long lastSentAtMs;
+        @Nullable
+        private T pendingRequest;
+
+        RequestThrottle(Handler handler, Sender<T> sender) {
+            this.handler = handler;
+            this.sender = sender;
+        }
+
+        void request(T request) {
+            synchronized (this) {
+                long now = SystemClock.elapsedRealtime();
+                long waitMs = lastSentAtMs + REQUEST_INTERVAL_MS - now;
+                if (pendingRequest != null) {
+                    // Replace waiting request.
+                    pendingRequest = request;
+                    return;
+                }
+                if (lastSentAtMs != 0 && waitMs > 0) {
+                    pendingRequest = request;
+                    handler.postDelayed(sendPendingRunnable, waitMs);
+                    return;
+                }
+                lastSentAtMs = now;
+            }
+            sender.send(request);
+        }
+
+        private void sendPending() {
+            T request;
+            synchronized (this) {
+                request = pendingRequest;
+                pendingRequest = null;
+                if (request == null) {
+                    return;
+                }
+                lastSentAtMs = SystemClock.elapsedRealtime();
+            }
+            sender.send(request);
+        }
+    }
 }
@@ -7,23 +7,22 @@ import android.content.Context
 import android.view.View
 import android.view.ViewGroup
 import androidx.appcompat.content.res.AppCompatResources
+import androidx.paging.PagingDataAdapter
 import androidx.recyclerview.widget.DiffUtil
-import androidx.recyclerview.widget.ListAdapter
 import androidx.recyclerview.widget.RecyclerView
 import com.battlelancer.seriesguide.R
-import com.battlelancer.seriesguide.history.TraktEpisodeHistoryLoader.HistoryItem
 import com.battlelancer.seriesguide.ui.AutoGridLayoutManager
-import com.uwetrottmann.trakt5.entities.HistoryEntry
+import java.util.Calendar
 
 abstract class BaseHistoryAdapter(
     val context: Context,
     val itemClickListener: OnItemClickListener
-) : ListAdapter<HistoryItem, RecyclerView.ViewHolder>(
+) : PagingDataAdapter<SgTraktHistory, RecyclerView.ViewHolder>(
     DIFF_CALLBACK
 ), AutoGridLayoutManager.SpanCountListener {
 
     interface OnItemClickListener {
-        fun onItemClick(view: View, item: HistoryEntry)
+        fun onItemClick(view: View, item: SgTraktHistory)
     }
 
     private var drawableWatched =
@@ -31,6 +30,7 @@ abstract class BaseHistoryAdapter(
     private var drawableCheckIn =
         AppCompatResources.getDrawable(context, R.drawable.ic_checkin_16dp)!!
 
+    private val calendar = Calendar.getInstance()
     private var isMultiColumn: Boolean = false
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): RecyclerView.ViewHolder {
@@ -39,37 +39,56 @@ abstract class BaseHistoryAdapter(
 
     override fun onBindViewHolder(holder: RecyclerView.ViewHolder, position: Int) {
         if (holder is HistoryItemViewHolder) {
-            val currentItem = getItem(position)
-            val previousPosition = position - 1
-            val previousItem = if (previousPosition >= 0) getItem(previousPosition) else null
+            val currentItem = getItem(position) ?: return
+            // Only peek to not trigger loading. Without placeholders (see TraktHistoryViewModel)
+            // the previous item is always loaded.
+            val previousItem = if (position > 0) peek(position - 1) else null
+            val headerTime = calculateHeaderTime(currentItem.watched_at_ms)
+            val isShowingHeader = previousItem == null
+                    || calculateHeaderTime(previousItem.watched_at_ms) != headerTime
             holder.bindCommon(
                 currentItem,
-                previousItem,
+                if (isShowingHeader) headerTime else null,
                 drawableWatched,
                 drawableCheckIn,
                 isMultiColumn
             )
-            onBindHistoryItemViewHolder(holder, getItem(position))
+            onBindHistoryItemViewHolder(holder, currentItem)
         }
     }
 
     abstract fun onBindHistoryItemViewHolder(
         holder: HistoryItemViewHolder,
-        item: HistoryItem
+        item: SgTraktHistory
     )
 
+    /**
+     * Takes the action timestamp and "rounds" it down to shortly after midnight in the current
+     * device time zone.
+     */
+    private fun calculateHeaderTime(timestampMs: Long): Long {
+        calendar.timeInMillis = timestampMs
+        calendar.set(Calendar.HOUR_OF_DAY, 0)
+        calendar.set(Calendar.MINUTE, 0)
+        calendar.set(Calendar.SECOND, 0)
+        calendar.set(Calendar.MILLISECOND, 1)
+        return calendar.timeInMillis
+    }
+
     override fun onSetSpanCount(spanCount: Int) {
         isMultiColumn = spanCount > 1
     }
 
     companion object {
-        private val DIFF_CALLBACK = object : DiffUtil.ItemCallback<HistoryItem>() {
-            override fun areItemsTheSame(oldItem: HistoryItem, newItem: HistoryItem) =
-                oldItem.historyEntry.id == newItem.historyEntry.id
+        private val DIFF_CALLBACK = object : DiffUtil.ItemCallback<SgTraktHistory>() {
+            override fun areItemsTheSame(oldItem: SgTraktHistory, newItem: SgTraktHistory) =
+                oldItem.id == newItem.id
 
-            override fun areContentsTheSame(oldItem: HistoryItem, newItem: HistoryItem): Boolean =
-                HistoryItemViewHolder.areContentsTheSame(oldItem, newItem)
+            override fun areContentsTheSame(
+                oldItem: SgTraktHistory,
+                newItem: SgTraktHistory
+            ): Boolean = oldItem == newItem
         }
     }
 
-}
\ No newline at end of file
+}
@@ -5,25 +5,21 @@ package com.battlelancer.seriesguide.history
 
 import android.content.Context
 import androidx.collection.SparseArrayCompat
-import com.battlelancer.seriesguide.SgApp
 
 class EpisodeHistoryAdapter(
     context: Context,
     itemClickListener: OnItemClickListener
 ) : BaseHistoryAdapter(context, itemClickListener) {
 
-    private var localShowPosters: SparseArrayCompat<String>? = null
-
-    override fun submitList(list: MutableList<TraktEpisodeHistoryLoader.HistoryItem>?) {
-        // TODO This should be done async (e.g. in view model).
-        localShowPosters = SgApp.getServicesComponent(context).showTools().getTmdbIdsToPoster()
-        super.submitList(list)
-    }
+    /**
+     * Posters of added shows by TMDB ID, set before submitting data.
+     */
+    var localShowPosters: SparseArrayCompat<String>? = null
 
     override fun onBindHistoryItemViewHolder(
         holder: HistoryItemViewHolder,
-        item: TraktEpisodeHistoryLoader.HistoryItem
+        item: SgTraktHistory
     ) {
-        holder.bindToEpisode(item.historyEntry, localShowPosters)
+        holder.bindToEpisode(item, localShowPosters)
     }
-}
\ No newline at end of file
+}
@@ -68,8 +68,6 @@ class HistoryActivity : BaseActivity(), OnAddShowListener {
     }
 
     companion object {
-        const val EPISODES_LOADER_ID = 100
-        const val MOVIES_LOADER_ID = 101
         const val DISPLAY_EPISODE_HISTORY = 0
         const val DISPLAY_MOVIE_HISTORY = 1
     }
@@ -12,13 +12,11 @@ import androidx.core.view.isGone
 import androidx.core.view.isInvisible
 import androidx.recyclerview.widget.RecyclerView
 import com.battlelancer.seriesguide.databinding.ItemHistoryBinding
-import com.battlelancer.seriesguide.history.TraktEpisodeHistoryLoader.HistoryItem
 import com.battlelancer.seriesguide.settings.DisplaySettings
 import com.battlelancer.seriesguide.util.ImageTools
 import com.battlelancer.seriesguide.util.LanguageTools
 import com.battlelancer.seriesguide.util.TextTools
 import com.battlelancer.seriesguide.util.TimeTools
-import com.uwetrottmann.trakt5.entities.HistoryEntry
 import java.util.Date
 
 class HistoryItemViewHolder(
@@ -26,7 +24,7 @@ class HistoryItemViewHolder(
     itemClickListener: BaseHistoryAdapter.OnItemClickListener
 ) : RecyclerView.ViewHolder(binding.root) {
 
-    private var historyEntry: HistoryEntry? = null
+    private var historyEntry: SgTraktHistory? = null
 
     init {
         binding.imageViewHistoryAvatar.isGone = true
@@ -35,33 +33,36 @@ class HistoryItemViewHolder(
         }
     }
 
+    /**
+     * Displays a header for [headerTime] if it is not null.
+     */
     fun bindCommon(
-        item: HistoryItem,
-        previousItem: HistoryItem?,
+        item: SgTraktHistory,
+        headerTime: Long?,
         drawableWatched: Drawable,
         drawableCheckIn: Drawable,
         isMultiColumn: Boolean
     ) {
-        this.historyEntry = item.historyEntry
+        this.historyEntry = item
 
         // optional header
-        val isShowingHeader = previousItem == null || previousItem.headerTime != item.headerTime
+        val isShowingHeader = headerTime != null
         if (isMultiColumn) {
             // In a multi-column layout it looks nicer if all items are inset by header height.
             binding.textViewHistoryHeader.isInvisible = !isShowingHeader
         } else {
             binding.textViewHistoryHeader.isGone = !isShowingHeader
         }
-        binding.textViewHistoryHeader.text = if (isShowingHeader) {
+        binding.textViewHistoryHeader.text = if (headerTime != null) {
             // display headers like "Mon in 3 days", also "today" when applicable
             val context = binding.root.context.applicationContext
-            TimeTools.formatToLocalDayAndRelativeTime(context, Date(item.headerTime))
+            TimeTools.formatToLocalDayAndRelativeTime(context, Date(headerTime))
         } else {
             null
         }
 
         // action type indicator
-        if ("watch" == item.historyEntry.action) {
+        if ("watch" == item.action) {
             // marked watched
             binding.imageViewHistoryType.setImageDrawable(drawableWatched)
         } else {
@@ -72,28 +73,21 @@ class HistoryItemViewHolder(
         binding.imageViewHistoryType.isEnabled = false
 
         // timestamp
-        val watchedAt = item.historyEntry.watched_at
-        if (watchedAt != null) {
-            val timestamp =
-                DateUtils.getRelativeTimeSpanString(
-                    watchedAt.toInstant().toEpochMilli(),
-                    System.currentTimeMillis(),
-                    DateUtils.MINUTE_IN_MILLIS,
-                    DateUtils.FORMAT_ABBREV_ALL
-                )
-            binding.textViewHistoryInfo.text = timestamp
-        } else {
-            binding.textViewHistoryInfo.text = null
-        }
+        binding.textViewHistoryInfo.text = DateUtils.getRelativeTimeSpanString(
+            item.watched_at_ms,
+            System.currentTimeMillis(),
+            DateUtils.MINUTE_IN_MILLIS,
+            DateUtils.FORMAT_ABBREV_ALL
+        )
     }
 
-    fun bindToEpisode(item: HistoryEntry, localShowPosters: SparseArrayCompat<String>?) {
+    fun bindToEpisode(item: SgTraktHistory, localShowPosters: SparseArrayCompat<String>?) {
         val context = binding.root.context.applicationContext
 
         // show title
-        binding.textViewHistoryShow.text = item.show?.title
+        binding.textViewHistoryShow.text = item.show_title
         // show poster, use a TMDB one
-        val showTmdbId = item.show?.ids?.tmdb
+        val showTmdbId = item.show_tmdb_id
         val posterUrl = if (localShowPosters != null && showTmdbId != null) {
             // prefer poster of already added show, fall back to first uploaded poster
             ImageTools.posterUrlOrResolve(
@@ -112,22 +106,21 @@ class HistoryItemViewHolder(
         )
 
         // episode
-        val episode = item.episode
-        val number = episode?.number
-        val season = episode?.season
-        if (episode != null && season != null && number != null) {
+        val number = item.episode_number
+        val season = item.episode_season
+        if (season != null && number != null) {
             binding.textViewHistoryEpisode.text =
-                TextTools.getNextEpisodeString(context, season, number, episode.title)
+                TextTools.getNextEpisodeString(context, season, number, item.episode_title)
         } else {
             binding.textViewHistoryEpisode.text = null
         }
     }
 
-    fun bindToMovie(item: HistoryEntry) {
+    fun bindToMovie(item: SgTraktHistory) {
         // movie title
-        binding.textViewHistoryShow.text = item.movie?.title
+        binding.textViewHistoryShow.text = item.movie_title
 
-        val movieTmdbId = item.movie?.ids?.tmdb
+        val movieTmdbId = item.movie_tmdb_id
         val posterUrl = if (movieTmdbId != null) {
             // TMDb poster (resolved on demand as trakt does not have them)
             "movietmdb://$movieTmdbId"
@@ -154,16 +147,6 @@ class HistoryItemViewHolder(
                 itemClickListener
             )
         }
-
-        fun areContentsTheSame(oldItem: HistoryItem, newItem: HistoryItem): Boolean {
-            val old = oldItem.historyEntry
-            val new = newItem.historyEntry
-            return old.watched_at == new.watched_at
-                    && old.action == new.action
-                    && old.show?.title == new.show?.title
-                    && old.episode?.title == new.episode?.title
-                    && old.movie?.title == new.movie?.title
-        }
     }
 
 }
\ No newline at end of file
@@ -12,8 +12,8 @@ class MovieHistoryAdapter(
 
     override fun onBindHistoryItemViewHolder(
         holder: HistoryItemViewHolder,
-        item: TraktEpisodeHistoryLoader.HistoryItem
+        item: SgTraktHistory
     ) {
-        holder.bindToMovie(item.historyEntry)
+        holder.bindToMovie(item)
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.history
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+import com.uwetrottmann.trakt5.entities.HistoryEntry
+
+/**
+ * A cached Trakt history entry of the user, see [TraktHistoryRemoteMediator].
+ */
+@Entity(
+    tableName = "sg_trakt_history",
+    indices = [Index(value = ["type", "watched_at_ms"])]
+)
+data class SgTraktHistory(
+    /**
+     * The Trakt history ID.
+     */
+    @PrimaryKey val id: Long,
+    /**
+     * Either [TYPE_EPISODE] or [TYPE_MOVIE].
+     */
+    val type: Int,
+    val watched_at_ms: Long,
+    /**
+     * Like "watch", "checkin" or "scrobble".
+     */
+    val action: String?,
+    val show_title: String?,
+    val show_tmdb_id: Int?,
+    val episode_season: Int?,
+    val episode_number: Int?,
+    val episode_title: String?,
+    val movie_title: String?,
+    val movie_tmdb_id: Int?
+) {
+    companion object {
+        const val TYPE_EPISODE = 1
+        const val TYPE_MOVIE = 2
+
+        /**
+         * Returns null if the entry is missing required values.
+         */
+        fun from(type: Int, entry: HistoryEntry): SgTraktHistory? {
+            val id = entry.id ?: return null
+            val watchedAt = entry.watched_at ?: return null
+            return SgTraktHistory(
+                id = id,
+                type = type,
+                watched_at_ms = watchedAt.toInstant().toEpochMilli(),
+                action = entry.action,
+                show_title = entry.show?.title,
+                show_tmdb_id = entry.show?.ids?.tmdb,
+                episode_season = entry.episode?.season,
+                episode_number = entry.episode?.number,
+                episode_title = entry.episode?.title,
+                movie_title = entry.movie?.title,
+                movie_tmdb_id = entry.movie?.ids?.tmdb
+            )
+        }
+    }
+}
@@ -0,0 +1,52 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.history
+
+import androidx.paging.PagingSource
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+
+/**
+ * Data Access Object for the sg_trakt_history table, see [SgTraktHistory].
+ */
+@Dao
+interface SgTraktHistoryHelper {
+
+    /**
+     * Newest first. Ties are ordered by ID like Trakt does, so paging is stable.
+     */
+    @Query("SELECT * FROM sg_trakt_history WHERE type = :type ORDER BY watched_at_ms DESC, id DESC")
+    fun getHistoryPagingSource(type: Int): PagingSource<Int, SgTraktHistory>
+
+    @Query("SELECT MAX(watched_at_ms) FROM sg_trakt_history WHERE type = :type")
+    fun getNewestWatchedAtMs(type: Int): Long?
+
+    @Query("SELECT MIN(watched_at_ms) FROM sg_trakt_history WHERE type = :type")
+    fun getOldestWatchedAtMs(type: Int): Long?
+
+    @Query("SELECT COUNT(id) FROM sg_trakt_history WHERE type = :type AND watched_at_ms = :watchedAtMs")
+    fun countWatchedAt(type: Int, watchedAtMs: Long): Int
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun insertHistory(history: List<SgTraktHistory>)
+
+    @Query("DELETE FROM sg_trakt_history WHERE type = :type")
+    fun deleteHistoryOfType(type: Int)
+
+    @Query("DELETE FROM sg_trakt_history")
+    fun deleteAllHistory()
+
+    /**
+     * Replaces all cached history of [type] with [history].
+     */
+    @Transaction
+    fun replaceHistory(type: Int, history: List<SgTraktHistory>) {
+        deleteHistoryOfType(type)
+        insertHistory(history)
+    }
+
+}
@@ -11,24 +11,33 @@ import android.view.MenuItem
 import android.view.View
 import android.view.ViewGroup
 import android.widget.Toast
+import androidx.annotation.StringRes
 import androidx.core.view.MenuProvider
 import androidx.core.view.isGone
 import androidx.fragment.app.Fragment
+import androidx.fragment.app.viewModels
 import androidx.lifecycle.Lifecycle
+import androidx.lifecycle.lifecycleScope
+import androidx.paging.LoadState
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.databinding.FragmentStreamBinding
-import com.battlelancer.seriesguide.history.TraktEpisodeHistoryLoader.HistoryItem
 import com.battlelancer.seriesguide.traktapi.TraktCredentials
 import com.battlelancer.seriesguide.ui.AutoGridLayoutManager
 import com.battlelancer.seriesguide.ui.widgets.SgFastScroller
 import com.battlelancer.seriesguide.util.ThemeUtils
 import com.battlelancer.seriesguide.util.ViewTools
-import com.uwetrottmann.androidutils.AndroidUtils
+import kotlinx.coroutines.flow.collectLatest
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
 
 /**
  * Displays a stream of activities that can be refreshed by the user via a swipe gesture (or an
  * action item).
+ *
+ * Displays the cached Trakt history of [historyType] right away, then looks for new entries,
+ * see [TraktHistoryViewModel].
  */
 abstract class StreamFragment : Fragment() {
 
@@ -40,6 +49,24 @@ abstract class StreamFragment : Fragment() {
      */
     protected abstract val listAdapter: BaseHistoryAdapter
 
+    /**
+     * Either [SgTraktHistory.TYPE_EPISODE] or [SgTraktHistory.TYPE_MOVIE].
+     */
+    protected abstract val historyType: Int
+
+    /**
+     * Displayed if there is no history.
+     */
+    @get:StringRes
+    protected abstract val emptyMessage: Int
+
+    private val model: TraktHistoryViewModel by viewModels(
+        extrasProducer = {
+            TraktHistoryViewModel.creationExtras(defaultViewModelCreationExtras, historyType)
+        },
+        factoryProducer = { TraktHistoryViewModel.Factory }
+    )
+
     override fun onCreateView(
         inflater: LayoutInflater, container: ViewGroup?,
         savedInstanceState: Bundle?
@@ -56,7 +83,7 @@ abstract class StreamFragment : Fragment() {
 
         binding.swipeRefreshLayoutStream.apply {
             setSwipeableChildren(R.id.scrollViewStream, R.id.recyclerViewStream)
-            setOnRefreshListener { refreshStreamWithNetworkCheck() }
+            setOnRefreshListener { refreshStream() }
             setProgressViewOffset(
                 false, resources.getDimensionPixelSize(
                     R.dimen.swipe_refresh_progress_bar_start_margin
@@ -87,8 +114,53 @@ abstract class StreamFragment : Fragment() {
 
         // set initial view states
         showProgressBar(true)
+        binding.emptyViewStream.isGone = true
+
+        viewLifecycleOwner.lifecycleScope.launch {
+            onPrepareAdapter()
+            model.items.collectLatest {
+                listAdapter.submitData(it)
+            }
+        }
+
+        viewLifecycleOwner.lifecycleScope.launch {
+            listAdapter.loadStateFlow.collectLatest { loadStates ->
+                // Cached history is displayed while the mediator is looking for new entries.
+                val mediatorRefresh = loadStates.mediator?.refresh
+                showProgressBar(
+                    loadStates.source.refresh is LoadState.Loading
+                            || mediatorRefresh is LoadState.Loading
+                )
+                val isEmpty = loadStates.source.refresh is LoadState.NotLoading
+                        && listAdapter.itemCount == 0
+                        && mediatorRefresh !is LoadState.Loading
+                if (isEmpty) {
+                    if (mediatorRefresh is LoadState.Error) {
+                        binding.emptyViewStream.text = mediatorRefresh.error.message
+                    } else {
+                        binding.emptyViewStream.setText(emptyMessage)
+                    }
+                }
+                binding.recyclerViewStream.isGone = isEmpty
+                binding.emptyViewStream.isGone = !isEmpty
+            }
+        }
 
-        initializeStream()
+        viewLifecycleOwner.lifecycleScope.launch {
+            // Cached history remains displayed, so just notify about failed requests.
+            listAdapter.loadStateFlow
+                .map {
+                    it.mediator?.refresh as? LoadState.Error
+                        ?: it.mediator?.append as? LoadState.Error
+                }
+                .distinctUntilChanged()
+                .collect { error ->
+                    if (error != null && listAdapter.itemCount > 0) {
+                        Toast.makeText(requireContext(), error.error.message, Toast.LENGTH_SHORT)
+                            .show()
+                    }
+                }
+        }
 
         requireActivity().addMenuProvider(
             optionsMenuProvider,
@@ -105,7 +177,7 @@ abstract class StreamFragment : Fragment() {
         override fun onMenuItemSelected(menuItem: MenuItem): Boolean {
             return when (menuItem.itemId) {
                 R.id.menu_action_stream_refresh -> {
-                    refreshStreamWithNetworkCheck()
+                    refreshStream()
                     true
                 }
                 else -> false
@@ -113,20 +185,11 @@ abstract class StreamFragment : Fragment() {
         }
     }
 
-    private fun refreshStreamWithNetworkCheck() {
+    private fun refreshStream() {
         // launch trakt connect flow if disconnected
         TraktCredentials.ensureCredentials(requireContext())
-
-        // intercept loader call if offline to avoid replacing data with error message
-        // once trakt data has proper cache headers this might become irrelevant
-        if (!AndroidUtils.isNetworkConnected(requireContext())) {
-            showProgressBar(false)
-            setEmptyMessage(getString(R.string.offline))
-            Toast.makeText(requireContext(), R.string.offline, Toast.LENGTH_SHORT).show()
-            return
-        }
-
-        refreshStream()
+        // Errors, like being offline, are displayed once the refresh fails.
+        listAdapter.refresh()
     }
 
     override fun onDestroyView() {
@@ -135,37 +198,15 @@ abstract class StreamFragment : Fragment() {
     }
 
     /**
-     * Submits data and an sets empty message to be shown if the data list is empty.
-     */
-    fun setListData(data: List<HistoryItem>, emptyMessage: String) {
-        listAdapter.submitList(data)
-        setEmptyMessage(emptyMessage)
-        showProgressBar(false)
-        binding.recyclerViewStream.isGone = data.isEmpty()
-        binding.emptyViewStream.isGone = data.isNotEmpty()
-    }
-
-    private fun setEmptyMessage(emptyMessage: String) {
-        binding.emptyViewStream.text = emptyMessage
-    }
-
-    /**
-     * Implementers should initialize the activity stream and supply the results to the grid
-     * adapter.
-     */
-    protected abstract fun initializeStream()
-
-    /**
-     * Implementers should refresh the activity stream and replace the data of the grid adapter.
-     * Once finished you should hide the progress bar with [.showProgressBar].
+     * Called before history items are submitted to [listAdapter], e.g. to load data it needs.
      */
-    protected abstract fun refreshStream()
+    protected open suspend fun onPrepareAdapter() {}
 
     /**
      * Show or hide the progress bar of the [SwipeRefreshLayout]
      * wrapping the stream view.
      */
-    protected fun showProgressBar(isShowing: Boolean) {
+    private fun showProgressBar(isShowing: Boolean) {
         binding.swipeRefreshLayoutStream.isRefreshing = isShowing
     }
 
@@ -0,0 +1,191 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.history
+
+import android.content.Context
+import androidx.paging.ExperimentalPagingApi
+import androidx.paging.LoadType
+import androidx.paging.PagingState
+import androidx.paging.RemoteMediator
+import com.battlelancer.seriesguide.R
+import com.battlelancer.seriesguide.SgApp
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import com.battlelancer.seriesguide.traktapi.SgTrakt
+import com.battlelancer.seriesguide.traktapi.TraktCredentials
+import com.battlelancer.seriesguide.util.Errors
+import com.uwetrottmann.androidutils.AndroidUtils
+import com.uwetrottmann.trakt5.entities.HistoryEntry
+import com.uwetrottmann.trakt5.entities.UserSlug
+import com.uwetrottmann.trakt5.enums.HistoryType
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import org.threeten.bp.Instant
+import org.threeten.bp.OffsetDateTime
+import org.threeten.bp.ZoneOffset
+import retrofit2.awaitResponse
+import java.io.IOException
+
+/**
+ * Keeps the Trakt history of the user of the given [type] (see [SgTraktHistory]) cached in the
+ * database, so history screens can display it right away.
+ *
+ * On refresh only requests entries watched since the newest cached one. Older entries are
+ * requested page by page once the end of the cached ones is displayed.
+ *
+ * Note: entries removed from the history on Trakt remain cached.
+ */
+@OptIn(ExperimentalPagingApi::class)
+class TraktHistoryRemoteMediator(
+    context: Context,
+    private val type: Int
+) : RemoteMediator<Int, SgTraktHistory>() {
+
+    private val context = context.applicationContext
+    private val helper = SgRoomDatabase.getInstance(context).sgTraktHistoryHelper()
+
+    private val historyType: HistoryType
+        get() = if (type == SgTraktHistory.TYPE_MOVIE) HistoryType.MOVIES else HistoryType.EPISODES
+
+    private val action: String
+        get() = if (type == SgTraktHistory.TYPE_MOVIE) {
+            "get user movie history"
+        } else {
+            "get user episode history"
+        }
+
+    override suspend fun initialize(): InitializeAction {
+        // Display cached entries right away, but always look for new ones.
+        return InitializeAction.LAUNCH_INITIAL_REFRESH
+    }
+
+    override suspend fun load(
+        loadType: LoadType,
+        state: PagingState<Int, SgTraktHistory>
+    ): MediatorResult {
+        if (loadType == LoadType.PREPEND) {
+            // Only refreshing adds newer entries.
+            return MediatorResult.Success(endOfPaginationReached = true)
+        }
+        if (!TraktCredentials.get(context).hasCredentials()) {
+            return MediatorResult.Error(
+                IOException(context.getString(R.string.trakt_error_credentials))
+            )
+        }
+        return withContext(Dispatchers.IO) {
+            try {
+                if (loadType == LoadType.REFRESH) {
+                    loadNewer()
+                } else {
+                    loadOlder()
+                }
+            } catch (e: IOException) {
+                MediatorResult.Error(e)
+            }
+        }
+    }
+
+    private suspend fun loadNewer(): MediatorResult {
+        val newestMs = helper.getNewestWatchedAtMs(type)
+        if (newestMs == null) {
+            // Nothing cached, yet.
+            val entries = requestHistory(1, PAGE_SIZE, null, null)
+            helper.insertHistory(entries.toSgTraktHistory())
+            return MediatorResult.Success(endOfPaginationReached = entries.size < PAGE_SIZE)
+        }
+
+        // Trakt includes entries watched at start_at, those are just replaced.
+        val startAt = newestMs.toDateTime()
+        val newEntries = ArrayList<HistoryEntry>()
+        for (page in 1..MAX_REFRESH_PAGES) {
+            val entries = requestHistory(page, PAGE_SIZE, startAt, null)
+            newEntries.addAll(entries)
+            if (entries.size < PAGE_SIZE) {
+                helper.insertHistory(newEntries.toSgTraktHistory())
+                return MediatorResult.Success(endOfPaginationReached = false)
+            }
+        }
+        // Too many new entries, do not leave a gap to the cached ones: start over from
+        // the new ones, older ones are requested again when needed.
+        helper.replaceHistory(type, newEntries.toSgTraktHistory())
+        return MediatorResult.Success(endOfPaginationReached = false)
+    }
+
+    private suspend fun loadOlder(): MediatorResult {
+        val oldestMs = helper.getOldestWatchedAtMs(type)
+            ?: return MediatorResult.Success(endOfPaginationReached = true)
+        // Trakt includes entries watched at end_at. There might be many (like when watching
+        // all episodes of a season at once), so request enough to get past the cached ones.
+        val limit = PAGE_SIZE + helper.countWatchedAt(type, oldestMs)
+        val entries = requestHistory(1, limit, null, oldestMs.toDateTime())
+        helper.insertHistory(entries.toSgTraktHistory())
+        return MediatorResult.Success(endOfPaginationReached = entries.size < limit)
+    }
+
+    /**
+     * Throws [IOException] with a message to display if the request fails.
+     */
+    private suspend fun requestHistory(
+        page: Int,
+        limit: Int,
+        startAt: OffsetDateTime?,
+        endAt: OffsetDateTime?
+    ): List<HistoryEntry> {
+        val traktUsers = SgApp.getServicesComponent(context).traktUsers()!!
+        val call = traktUsers.history(
+            UserSlug.ME,
+            historyType,
+            page,
+            limit,
+            null,
+            startAt,
+            endAt
+        )
+
+        val response = try {
+            call.awaitResponse()
+        } catch (e: Exception) {
+            Errors.logAndReport(action, e)
+            // Not checking for connection until here to allow hitting the response cache.
+            throw if (AndroidUtils.isNetworkConnected(context)) {
+                genericFailure()
+            } else {
+                IOException(context.getString(R.string.offline))
+            }
+        }
+
+        if (!response.isSuccessful) {
+            if (SgTrakt.isUnauthorized(context, response)) {
+                throw IOException(context.getString(R.string.trakt_error_credentials))
+            }
+            Errors.logAndReport(action, response)
+            throw genericFailure()
+        }
+        val body = response.body()
+        if (body == null) {
+            Errors.logAndReport(action, IllegalStateException("body is null"))
+            throw genericFailure()
+        }
+        return body
+    }
+
+    private fun genericFailure() = IOException(
+        context.getString(R.string.api_error_generic, context.getString(R.string.trakt))
+    )
+
+    private fun List<HistoryEntry?>.toSgTraktHistory(): List<SgTraktHistory> =
+        mapNotNull { entry -> entry?.let { SgTraktHistory.from(type, it) } }
+
+    private fun Long.toDateTime(): OffsetDateTime =
+        Instant.ofEpochMilli(this).atOffset(ZoneOffset.UTC)
+
+    companion object {
+        const val PAGE_SIZE = 50
+
+        /**
+         * How many pages of new entries a refresh requests at most.
+         */
+        private const val MAX_REFRESH_PAGES = 5
+    }
+
+}
@@ -0,0 +1,60 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.history
+
+import android.app.Application
+import androidx.lifecycle.AndroidViewModel
+import androidx.lifecycle.ViewModelProvider
+import androidx.lifecycle.viewModelScope
+import androidx.lifecycle.viewmodel.CreationExtras
+import androidx.lifecycle.viewmodel.MutableCreationExtras
+import androidx.lifecycle.viewmodel.initializer
+import androidx.lifecycle.viewmodel.viewModelFactory
+import androidx.paging.ExperimentalPagingApi
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.cachedIn
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+
+/**
+ * Pages the cached Trakt history of the given [type], see [TraktHistoryRemoteMediator].
+ */
+class TraktHistoryViewModel(
+    application: Application,
+    type: Int
+) : AndroidViewModel(application) {
+
+    @OptIn(ExperimentalPagingApi::class)
+    val items = Pager(
+        // No placeholders: the adapter shows a day header by peeking at the previous item,
+        // so it must be loaded, see BaseHistoryAdapter.
+        config = PagingConfig(
+            pageSize = TraktHistoryRemoteMediator.PAGE_SIZE,
+            enablePlaceholders = false
+        ),
+        remoteMediator = TraktHistoryRemoteMediator(application, type)
+    ) {
+        SgRoomDatabase.getInstance(getApplication()).sgTraktHistoryHelper()
+            .getHistoryPagingSource(type)
+    }.flow
+        .cachedIn(viewModelScope)
+
+    companion object {
+        private val KEY_HISTORY_TYPE = object : CreationExtras.Key<Int> {}
+
+        val Factory = viewModelFactory {
+            initializer {
+                val application = this[ViewModelProvider.AndroidViewModelFactory.APPLICATION_KEY]!!
+                val type = this[KEY_HISTORY_TYPE]!!
+                TraktHistoryViewModel(application, type)
+            }
+        }
+
+        fun creationExtras(defaultExtras: CreationExtras, type: Int) =
+            MutableCreationExtras(defaultExtras).apply {
+                set(KEY_HISTORY_TYPE, type)
+            }
+    }
+
+}
@@ -3,17 +3,15 @@
 
 package com.battlelancer.seriesguide.history
 
-import android.os.Bundle
 import android.view.View
 import androidx.core.app.ActivityCompat
 import androidx.core.app.ActivityOptionsCompat
 import androidx.lifecycle.lifecycleScope
-import androidx.loader.app.LoaderManager
-import androidx.loader.content.Loader
+import com.battlelancer.seriesguide.R
+import com.battlelancer.seriesguide.SgApp
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.shows.episodes.EpisodesActivity
 import com.battlelancer.seriesguide.shows.search.discover.AddShowDialogFragment
-import com.uwetrottmann.trakt5.entities.HistoryEntry
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
@@ -33,24 +31,25 @@ class UserEpisodeStreamFragment : StreamFragment() {
             return adapter!!
         }
 
-    override fun initializeStream() {
-        LoaderManager.getInstance(this)
-            .initLoader(HistoryActivity.EPISODES_LOADER_ID, null, activityLoaderCallbacks)
-    }
+    override val historyType: Int
+        get() = SgTraktHistory.TYPE_EPISODE
+
+    override val emptyMessage: Int
+        get() = R.string.now_empty
 
-    override fun refreshStream() {
-        LoaderManager.getInstance(this).restartLoader(
-            HistoryActivity.EPISODES_LOADER_ID, null,
-            activityLoaderCallbacks
-        )
+    override suspend fun onPrepareAdapter() {
+        val localShowPosters = withContext(Dispatchers.IO) {
+            SgApp.getServicesComponent(requireContext()).showTools().getTmdbIdsToPoster()
+        }
+        adapter?.localShowPosters = localShowPosters
     }
 
     private val itemClickListener: BaseHistoryAdapter.OnItemClickListener =
         object : BaseHistoryAdapter.OnItemClickListener {
-            override fun onItemClick(view: View, item: HistoryEntry) {
-                val season = item.episode?.season
-                val number = item.episode?.number
-                val showTmdbId = item.show?.ids?.tmdb
+            override fun onItemClick(view: View, item: SgTraktHistory) {
+                val season = item.episode_season
+                val number = item.episode_number
+                val showTmdbId = item.show_tmdb_id
                 if (season == null || number == null || showTmdbId == null) {
                     // no episode or show? give up
                     return
@@ -87,30 +86,4 @@ class UserEpisodeStreamFragment : StreamFragment() {
             }
         }
 
-    private val activityLoaderCallbacks: LoaderManager.LoaderCallbacks<TraktEpisodeHistoryLoader.Result> =
-        object : LoaderManager.LoaderCallbacks<TraktEpisodeHistoryLoader.Result> {
-            override fun onCreateLoader(
-                id: Int,
-                args: Bundle?
-            ): Loader<TraktEpisodeHistoryLoader.Result> {
-                showProgressBar(true)
-                return TraktEpisodeHistoryLoader(requireContext())
-            }
-
-            override fun onLoadFinished(
-                loader: Loader<TraktEpisodeHistoryLoader.Result>,
-                data: TraktEpisodeHistoryLoader.Result
-            ) {
-                if (!isAdded) {
-                    return
-                }
-                setListData(data.results, data.emptyText)
-            }
-
-            override fun onLoaderReset(
-                loader: Loader<TraktEpisodeHistoryLoader.Result>
-            ) {
-                // keep current data
-            }
-        }
-}
\ No newline at end of file
+}
@@ -3,14 +3,11 @@
 
 package com.battlelancer.seriesguide.history
 
-import android.os.Bundle
 import android.view.View
 import androidx.core.app.ActivityCompat
 import androidx.core.app.ActivityOptionsCompat
-import androidx.loader.app.LoaderManager
-import androidx.loader.content.Loader
+import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.movies.details.MovieDetailsActivity
-import com.uwetrottmann.trakt5.entities.HistoryEntry
 
 /**
  * Displays a stream of movies the user has recently watched on Trakt.
@@ -27,24 +24,16 @@ class UserMovieStreamFragment : StreamFragment() {
             return adapter!!
         }
 
-    override fun initializeStream() {
-        LoaderManager.getInstance(this).initLoader(
-            HistoryActivity.MOVIES_LOADER_ID, null,
-            activityLoaderCallbacks
-        )
-    }
+    override val historyType: Int
+        get() = SgTraktHistory.TYPE_MOVIE
 
-    override fun refreshStream() {
-        LoaderManager.getInstance(this).restartLoader(
-            HistoryActivity.MOVIES_LOADER_ID, null,
-            activityLoaderCallbacks
-        )
-    }
+    override val emptyMessage: Int
+        get() = R.string.now_movies_empty
 
     private val itemClickListener = object : BaseHistoryAdapter.OnItemClickListener {
-        override fun onItemClick(view: View, item: HistoryEntry) {
+        override fun onItemClick(view: View, item: SgTraktHistory) {
             // display movie details
-            val tmdb = item.movie?.ids?.tmdb ?: return
+            val tmdb = item.movie_tmdb_id ?: return
             val i = MovieDetailsActivity.intentMovie(requireContext(), tmdb)
             ActivityCompat.startActivity(
                 requireContext(), i, ActivityOptionsCompat
@@ -54,25 +43,4 @@ class UserMovieStreamFragment : StreamFragment() {
         }
     }
 
-    private val activityLoaderCallbacks: LoaderManager.LoaderCallbacks<TraktEpisodeHistoryLoader.Result> =
-        object : LoaderManager.LoaderCallbacks<TraktEpisodeHistoryLoader.Result> {
-            override fun onCreateLoader(
-                id: Int,
-                args: Bundle?
-            ): Loader<TraktEpisodeHistoryLoader.Result> {
-                showProgressBar(true)
-                return TraktMovieHistoryLoader(requireContext())
-            }
-
-            override fun onLoadFinished(
-                loader: Loader<TraktEpisodeHistoryLoader.Result>,
-                data: TraktEpisodeHistoryLoader.Result
-            ) {
-                setListData(data.results, data.emptyText)
-            }
-
-            override fun onLoaderReset(loader: Loader<TraktEpisodeHistoryLoader.Result>) {
-                // keep current data
-            }
-        }
-}
\ No newline at end of file
+}
@@ -3,22 +3,28 @@
 
 package com.battlelancer.seriesguide.jobs
 
-import android.content.ContentValues
 import android.content.Context
+import android.database.SQLException
 import com.battlelancer.seriesguide.jobs.episodes.JobAction
-import com.battlelancer.seriesguide.provider.SeriesGuideContract
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import timber.log.Timber
 
 abstract class BaseFlagJob(private val action: JobAction) : FlagJob {
 
     protected fun persistNetworkJob(context: Context, jobInfo: ByteArray): Boolean {
-        val values = ContentValues()
-        values.put(SeriesGuideContract.Jobs.TYPE, action.id)
-        values.put(SeriesGuideContract.Jobs.CREATED_MS, System.currentTimeMillis())
-        values.put(SeriesGuideContract.Jobs.EXTRAS, jobInfo)
+        val job = SgJob()
+        job.type = action.id
+        job.createdMs = System.currentTimeMillis()
+        job.extras = jobInfo
 
-        val insert = context.contentResolver.insert(SeriesGuideContract.Jobs.CONTENT_URI, values)
+        val rowId = try {
+            SgRoomDatabase.getInstance(context).sgJobHelper().insertJob(job)
+        } catch (e: SQLException) {
+            Timber.e(e, "Error inserting job")
+            -1L
+        }
 
-        return insert != null
+        return rowId != -1L
     }
 
-}
\ No newline at end of file
+}
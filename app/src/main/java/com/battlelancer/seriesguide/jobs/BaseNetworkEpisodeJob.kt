@@ -17,8 +17,8 @@ import com.battlelancer.seriesguide.util.PendingIntentCompat
 
 abstract class BaseNetworkEpisodeJob(
     action: JobAction,
-    jobInfo: SgJobInfo
-) : BaseNetworkJob(action, jobInfo) {
+    jobs: List<PendingNetworkJob>
+) : BaseNetworkJob(action, jobs) {
 
     override fun getItemTitle(context: Context): String? {
         return SgRoomDatabase.getInstance(context).sgShow2Helper().getShowTitle(jobInfo.showId())
@@ -18,11 +18,19 @@ import com.uwetrottmann.trakt5.TraktV2
 import retrofit2.Call
 import retrofit2.Response
 
+/**
+ * Sends one or more [jobs] with the same [action], see [PendingNetworkJob.canCoalesceWith].
+ */
 abstract class BaseNetworkJob(
     val action: JobAction,
-    val jobInfo: SgJobInfo
+    val jobs: List<PendingNetworkJob>
 ) : NetworkJob {
 
+    /**
+     * The info of the first job, e.g. to get the show of jobs for episodes.
+     */
+    val jobInfo: SgJobInfo = jobs.first().info
+
     /**
      * @return JobResult.jobRemovable true if the job can be removed, false if it should be retried
      * later.
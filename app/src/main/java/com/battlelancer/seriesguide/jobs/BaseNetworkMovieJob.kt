@@ -17,12 +17,17 @@ import com.battlelancer.seriesguide.util.PendingIntentCompat
 
 abstract class BaseNetworkMovieJob(
     action: JobAction,
-    jobInfo: SgJobInfo
-) : BaseNetworkJob(action, jobInfo) {
+    jobs: List<PendingNetworkJob>
+) : BaseNetworkJob(action, jobs) {
 
-    override fun getItemTitle(context: Context): String? = getInstance(context)
-        .movieHelper()
-        .getMovieTitle(jobInfo.movieTmdbId())
+    override fun getItemTitle(context: Context): String? {
+        val movieHelper = getInstance(context).movieHelper()
+        return jobs.map { it.info.movieTmdbId() }
+            .distinct()
+            .mapNotNull { movieHelper.getMovieTitle(it) }
+            .joinToString(", ")
+            .ifEmpty { null }
+    }
 
     override fun getActionDescription(context: Context): String? {
         return when (action) {
@@ -4,6 +4,7 @@
 package com.battlelancer.seriesguide.jobs
 
 import android.content.Context
+import com.battlelancer.seriesguide.AppStartup
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.SgApp
 import com.battlelancer.seriesguide.backend.settings.HexagonSettings
@@ -31,6 +32,9 @@ object FlagJobExecutor {
         SgApp.coroutineScope.launch(Dispatchers.IO) {
             // Semaphore ensures waiting jobs receive permit in order of submission (FIFO).
             semaphore.withPermit {
+                // Jobs may depend on upgrade code.
+                AppStartup.awaitUpgrade(appContext)
+
                 val shouldSendToHexagon = job.supportsHexagon()
                         && HexagonSettings.isEnabled(appContext)
                 val shouldSendToTrakt = job.supportsTrakt()
@@ -18,8 +18,8 @@ import java.io.IOException
 class HexagonEpisodeJob(
     private val hexagonTools: HexagonTools,
     action: JobAction,
-    jobInfo: SgJobInfo
-) : BaseNetworkEpisodeJob(action, jobInfo) {
+    jobs: List<PendingNetworkJob>
+) : BaseNetworkEpisodeJob(action, jobs) {
 
     override fun execute(context: Context): NetworkJobResult {
         val showTmdbIdOrZero = SgRoomDatabase.getInstance(context).sgShow2Helper()
@@ -82,6 +82,9 @@ class HexagonEpisodeJob(
     /**
      * Builds a list of episodes ready to upload to hexagon. However, the show id is not set.
      * It should be set in the wrapping entity.
+     *
+     * If multiple jobs contain the same episode, only includes it once with the values of the
+     * latest job (like the latest number of plays).
      */
     private fun getEpisodesForHexagon(): MutableList<SgCloudEpisode> {
         val isWatchedNotCollected = when (action) {
@@ -90,23 +93,27 @@ class HexagonEpisodeJob(
             else -> throw IllegalArgumentException("Action $action not supported.")
         }
 
-        val episodes: MutableList<SgCloudEpisode> = ArrayList()
-        for (i in 0 until jobInfo.episodesLength()) {
-            val episodeInfo = jobInfo.episodes(i)
+        // By season and episode number.
+        val episodes = LinkedHashMap<Pair<Int, Int>, SgCloudEpisode>()
+        for (job in jobs) {
+            val jobInfo = job.info
+            for (i in 0 until jobInfo.episodesLength()) {
+                val episodeInfo = jobInfo.episodes(i)
 
-            val episode = SgCloudEpisode()
-            episode.seasonNumber = episodeInfo.season()
-            episode.episodeNumber = episodeInfo.number()
-            if (isWatchedNotCollected) {
-                episode.watchedFlag = jobInfo.flagValue()
-                // Always upload (regardless if watched, skipped or not watched).
-                // Also ensures legacy data slowly adds the new plays field.
-                episode.plays = episodeInfo.plays()
-            } else {
-                episode.isInCollection = EpisodeTools.isCollected(jobInfo.flagValue())
+                val episode = SgCloudEpisode()
+                episode.seasonNumber = episodeInfo.season()
+                episode.episodeNumber = episodeInfo.number()
+                if (isWatchedNotCollected) {
+                    episode.watchedFlag = jobInfo.flagValue()
+                    // Always upload (regardless if watched, skipped or not watched).
+                    // Also ensures legacy data slowly adds the new plays field.
+                    episode.plays = episodeInfo.plays()
+                } else {
+                    episode.isInCollection = EpisodeTools.isCollected(jobInfo.flagValue())
+                }
+                episodes[Pair(episode.seasonNumber, episode.episodeNumber)] = episode
             }
-            episodes.add(episode)
         }
-        return episodes
+        return ArrayList(episodes.values)
     }
 }
\ No newline at end of file
@@ -21,12 +21,12 @@ import java.io.IOException
 class HexagonMovieJob(
     private val hexagonTools: HexagonTools,
     action: JobAction,
-    jobInfo: SgJobInfo
-) : BaseNetworkMovieJob(action, jobInfo) {
+    jobs: List<PendingNetworkJob>
+) : BaseNetworkMovieJob(action, jobs) {
 
     override fun execute(context: Context): NetworkJobResult {
         val uploadWrapper = MovieList()
-        uploadWrapper.movies = getMovieForHexagon()
+        uploadWrapper.movies = getMoviesForHexagon()
 
         try {
             val moviesService = hexagonTools.moviesService ?: return buildResult(
@@ -50,28 +50,34 @@ class HexagonMovieJob(
         return buildResult(context, SUCCESS)
     }
 
-    private fun getMovieForHexagon(): List<Movie> {
-        val movie = Movie()
-        movie.tmdbId = jobInfo.movieTmdbId()
+    /**
+     * If multiple jobs are for the same movie, only includes it once with the values of the
+     * latest job (like the latest number of plays).
+     */
+    private fun getMoviesForHexagon(): List<Movie> {
+        val moviesByTmdbId = LinkedHashMap<Int, Movie>()
+        for (job in jobs) {
+            val movie = Movie()
+            movie.tmdbId = job.info.movieTmdbId()
 
-        when (action) {
-            MOVIE_COLLECTION_ADD -> movie.isInCollection = true
-            MOVIE_COLLECTION_REMOVE -> movie.isInCollection = false
-            MOVIE_WATCHLIST_ADD -> movie.isInWatchlist = true
-            MOVIE_WATCHLIST_REMOVE -> movie.isInWatchlist = false
-            MOVIE_WATCHED_SET -> {
-                movie.isWatched = true
-                movie.plays = jobInfo.plays()
+            when (action) {
+                MOVIE_COLLECTION_ADD -> movie.isInCollection = true
+                MOVIE_COLLECTION_REMOVE -> movie.isInCollection = false
+                MOVIE_WATCHLIST_ADD -> movie.isInWatchlist = true
+                MOVIE_WATCHLIST_REMOVE -> movie.isInWatchlist = false
+                MOVIE_WATCHED_SET -> {
+                    movie.isWatched = true
+                    movie.plays = job.info.plays()
+                }
+                MOVIE_WATCHED_REMOVE -> {
+                    movie.isWatched = false
+                    movie.plays = 0
+                }
+                else -> throw IllegalArgumentException("Action $action not supported.")
             }
-            MOVIE_WATCHED_REMOVE -> {
-                movie.isWatched = false
-                movie.plays = 0
-            }
-            else -> throw IllegalArgumentException("Action $action not supported.")
-        }
 
-        val movies = ArrayList<Movie>()
-        movies.add(movie)
-        return movies
+            moviesByTmdbId[movie.tmdbId] = movie
+        }
+        return ArrayList(moviesByTmdbId.values)
     }
 }
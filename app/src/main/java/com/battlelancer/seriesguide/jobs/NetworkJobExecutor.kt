@@ -0,0 +1,114 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.jobs
+
+/**
+ * Decides in which order and batches pending jobs are sent, see [NetworkJobProcessor].
+ *
+ * Use a new instance for each run: if jobs are passed in pages, it remembers jobs to retry
+ * from previous pages to decide which later jobs to hold back.
+ */
+interface NetworkJobExecutor {
+
+    /**
+     * Sends [jobs], ordered oldest first, in batches using [send]. It should return true if all
+     * jobs of a batch can be removed, false if they should be retried later.
+     *
+     * Returns the IDs of jobs that can be removed.
+     */
+    fun execute(
+        jobs: List<PendingNetworkJob>,
+        send: (batch: List<PendingNetworkJob>) -> Boolean
+    ): List<Long>
+
+}
+
+/**
+ * Sends jobs one by one. Stops at the first job that should be retried, so all jobs are
+ * sent in order.
+ */
+class SequentialNetworkJobExecutor : NetworkJobExecutor {
+
+    private var isStopped = false
+
+    override fun execute(
+        jobs: List<PendingNetworkJob>,
+        send: (batch: List<PendingNetworkJob>) -> Boolean
+    ): List<Long> {
+        val jobsToRemove = ArrayList<Long>()
+        for (job in jobs) {
+            if (isStopped) break
+            if (send(listOf(job))) {
+                jobsToRemove.add(job.id)
+            } else {
+                isStopped = true
+            }
+        }
+        return jobsToRemove
+    }
+
+}
+
+/**
+ * Merges jobs that can be sent together (see [PendingNetworkJob.canCoalesceWith]) into batches
+ * of up to [maxJobsPerBatch] jobs, e.g. to send many watched episodes of a show with one request.
+ *
+ * Jobs are only sent in order for each show or movie (see [PendingNetworkJob.entityKey]):
+ * a job is only added to a batch if there is no earlier unsent job for the same show or movie.
+ * If a batch should be retried, later jobs of its shows and movies are not sent,
+ * but jobs of other shows and movies are.
+ */
+class CoalescingNetworkJobExecutor(
+    private val maxJobsPerBatch: Int = MAX_JOBS_PER_BATCH
+) : NetworkJobExecutor {
+
+    /**
+     * Shows and movies with jobs to retry, do not send any later jobs for them.
+     */
+    private val blockedKeys = HashSet<PendingNetworkJob.EntityKey>()
+
+    override fun execute(
+        jobs: List<PendingNetworkJob>,
+        send: (batch: List<PendingNetworkJob>) -> Boolean
+    ): List<Long> {
+        val jobsToRemove = ArrayList<Long>()
+        val isSent = BooleanArray(jobs.size)
+
+        for (i in jobs.indices) {
+            if (isSent[i]) continue
+            val firstJob = jobs[i]
+            if (firstJob.entityKey in blockedKeys) continue
+
+            val batch = arrayListOf(firstJob)
+            isSent[i] = true
+            // Shows and movies with a job that can not be added to this batch,
+            // adding any of their later jobs would change their order.
+            val skippedKeys = HashSet(blockedKeys)
+            for (j in i + 1 until jobs.size) {
+                if (batch.size >= maxJobsPerBatch) break
+                if (isSent[j]) continue
+                val job = jobs[j]
+                if (job.entityKey in skippedKeys) continue
+                if (firstJob.canCoalesceWith(job)) {
+                    batch.add(job)
+                    isSent[j] = true
+                } else {
+                    skippedKeys.add(job.entityKey)
+                }
+            }
+
+            if (send(batch)) {
+                batch.mapTo(jobsToRemove) { it.id }
+            } else {
+                batch.mapTo(blockedKeys) { it.entityKey }
+            }
+        }
+        return jobsToRemove
+    }
+
+    companion object {
+        const val MAX_JOBS_PER_BATCH = 100
+    }
+
+}
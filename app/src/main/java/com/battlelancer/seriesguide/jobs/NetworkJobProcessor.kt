@@ -4,9 +4,7 @@
 package com.battlelancer.seriesguide.jobs
 
 import android.app.NotificationManager
-import android.content.ContentProviderOperation
 import android.content.Context
-import android.content.OperationApplicationException
 import android.text.format.DateUtils
 import androidx.core.app.NotificationCompat
 import androidx.core.content.getSystemService
@@ -15,82 +13,110 @@ import com.battlelancer.seriesguide.SgApp
 import com.battlelancer.seriesguide.backend.HexagonTools
 import com.battlelancer.seriesguide.backend.settings.HexagonSettings
 import com.battlelancer.seriesguide.jobs.episodes.JobAction
-import com.battlelancer.seriesguide.provider.SeriesGuideContract.Jobs
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.settings.NotificationSettings
 import com.battlelancer.seriesguide.traktapi.TraktCredentials
-import com.battlelancer.seriesguide.util.DBUtils
 import com.uwetrottmann.androidutils.AndroidUtils
 import timber.log.Timber
-import java.nio.ByteBuffer
 
 /**
- * Gets jobs from the [Jobs] table, executes them one by one starting with the oldest.
+ * Gets jobs from the jobs table page by page and sends them using an executor created with
+ * [createExecutor], by default merging jobs for the same show or movie flag into single requests.
  * Based on the job result shows an error notification and maybe removes the job.
- * If the job isn't removed, will stop processing further jobs. The job will be tried
- * again the next time jobs are processed.
+ * If a job isn't removed, the executor decides which further jobs are not sent.
+ * The job will be tried again the next time jobs are processed.
  */
-class NetworkJobProcessor(private val context: Context) {
+class NetworkJobProcessor(
+    private val context: Context,
+    private val createExecutor: () -> NetworkJobExecutor = { CoalescingNetworkJobExecutor() }
+) {
 
     private val shouldSendToHexagon = HexagonSettings.isEnabled(context)
     private val shouldSendToTrakt = TraktCredentials.get(context).hasCredentials()
+    private val jobHelper = SgRoomDatabase.getInstance(context).sgJobHelper()
 
     fun process() {
-        // query for jobs
-        val query = context.contentResolver
-            .query(Jobs.CONTENT_URI, Jobs.PROJECTION, null, null, Jobs.SORT_OLDEST)
-            ?: return  // query failed
-
-        // process jobs, starting with oldest
-        val jobsToRemove: MutableList<Long> = ArrayList()
-        while (query.moveToNext()) {
-            val jobId = query.getLong(0)
-            val typeId = query.getInt(1)
-            val action = JobAction.fromId(typeId)
-
-            if (action != JobAction.UNKNOWN) {
-                Timber.d("Running job %d %s", jobId, action)
-
-                val createdAt = query.getLong(2)
-                val jobInfoArr = query.getBlob(3)
-                val jobInfoBuffered = ByteBuffer.wrap(jobInfoArr)
-                val jobInfo = SgJobInfo.getRootAsSgJobInfo(jobInfoBuffered)
-
-                if (!doNetworkJob(jobId, action, createdAt, jobInfo)) {
-                    Timber.e("Job %d failed, will retry.", jobId)
-                    break // abort to avoid ordering issues
+        logQueueStats("Before sending")
+        val executor = createExecutor()
+
+        // process jobs page by page, starting with oldest
+        var createdAfterMs = Long.MIN_VALUE
+        while (true) {
+            val page = jobHelper.getJobsPage(createdAfterMs, PAGE_SIZE)
+            if (page.isEmpty()) break
+            createdAfterMs = page.last().createdMs
+
+            val jobs = ArrayList<PendingNetworkJob>(page.size)
+            val jobsToRemove: MutableList<Long> = ArrayList()
+            for (job in page) {
+                val jobId = job.id.toLong()
+                val action = JobAction.fromId(job.type)
+                if (action != JobAction.UNKNOWN) {
+                    jobs.add(PendingNetworkJob(jobId, action, job.createdMs, job.jobInfo))
+                } else {
+                    jobsToRemove.add(jobId)
                 }
-                Timber.d("Job %d completed, will remove.", jobId)
             }
-            jobsToRemove.add(jobId)
-        }
-        query.close()
 
-        // remove completed jobs
-        if (jobsToRemove.isNotEmpty()) {
-            removeJobs(jobsToRemove)
+            if (jobs.isNotEmpty()) {
+                jobsToRemove.addAll(executor.execute(jobs) { batch ->
+                    val firstJob = batch.first()
+                    Timber.d(
+                        "Running %d job(s) starting with %d %s",
+                        batch.size, firstJob.id, firstJob.action
+                    )
+                    val removable = doNetworkJob(batch)
+                    if (removable) {
+                        Timber.d("Job(s) starting with %d completed, will remove.", firstJob.id)
+                    } else {
+                        Timber.e("Job(s) starting with %d failed, will retry.", firstJob.id)
+                    }
+                    removable
+                })
+            }
+
+            // remove completed jobs
+            if (jobsToRemove.isNotEmpty()) {
+                jobHelper.deleteJobs(jobsToRemove)
+            }
+
+            if (page.size < PAGE_SIZE) break
         }
+        logQueueStats("After sending")
     }
 
     /**
-     * Returns true if the job can be removed, false if it should be retried later.
+     * Logs how many jobs are waiting and for how long the oldest is waiting,
+     * e.g. to see how far behind sending is.
      */
-    private fun doNetworkJob(
-        jobId: Long,
-        action: JobAction,
-        createdAt: Long,
-        jobInfo: SgJobInfo
-    ): Boolean {
+    private fun logQueueStats(label: String) {
+        val stats = jobHelper.getQueueStats()
+        if (stats.count == 0) return
+        Timber.i(
+            "%s: %d job(s) waiting, oldest for %d min",
+            label, stats.count,
+            stats.getOldestAgeMs(System.currentTimeMillis()) / DateUtils.MINUTE_IN_MILLIS
+        )
+    }
+
+    /**
+     * Returns true if the jobs can be removed, false if they should be retried later.
+     */
+    private fun doNetworkJob(batch: List<PendingNetworkJob>): Boolean {
+        val firstJob = batch.first()
+        val action = firstJob.action
+
         // upload to hexagon
         if (shouldSendToHexagon) {
             if (!AndroidUtils.isNetworkConnected(context)) {
                 return false
             }
             val hexagonTools = SgApp.getServicesComponent(context).hexagonTools()
-            val hexagonJob = getHexagonJobForAction(hexagonTools, action, jobInfo)
+            val hexagonJob = getHexagonJobForAction(hexagonTools, action, batch)
             if (hexagonJob != null) {
                 val result = hexagonJob.execute(context)
                 if (!result.successful) {
-                    showNotification(jobId, createdAt, result)
+                    showNotification(firstJob.id, firstJob.createdAt, result)
                     return result.jobRemovable
                 }
             }
@@ -101,11 +127,11 @@ class NetworkJobProcessor(private val context: Context) {
             if (!AndroidUtils.isNetworkConnected(context)) {
                 return false
             }
-            val traktJob = getTraktJobForAction(action, jobInfo, createdAt)
+            val traktJob = getTraktJobForAction(action, batch)
             if (traktJob != null) {
                 val result = traktJob.execute(context)
                 // may need to show notification if successful (for not found error)
-                showNotification(jobId, createdAt, result)
+                showNotification(firstJob.id, firstJob.createdAt, result)
                 if (!result.successful) {
                     return result.jobRemovable
                 }
@@ -116,12 +142,12 @@ class NetworkJobProcessor(private val context: Context) {
 
     private fun getHexagonJobForAction(
         hexagonTools: HexagonTools, action: JobAction,
-        jobInfo: SgJobInfo
+        jobs: List<PendingNetworkJob>
     ): NetworkJob? {
         return when (action) {
             JobAction.EPISODE_COLLECTION,
             JobAction.EPISODE_WATCHED_FLAG -> {
-                HexagonEpisodeJob(hexagonTools, action, jobInfo)
+                HexagonEpisodeJob(hexagonTools, action, jobs)
             }
             JobAction.MOVIE_COLLECTION_ADD,
             JobAction.MOVIE_COLLECTION_REMOVE,
@@ -129,7 +155,7 @@ class NetworkJobProcessor(private val context: Context) {
             JobAction.MOVIE_WATCHLIST_REMOVE,
             JobAction.MOVIE_WATCHED_SET,
             JobAction.MOVIE_WATCHED_REMOVE -> {
-                HexagonMovieJob(hexagonTools, action, jobInfo)
+                HexagonMovieJob(hexagonTools, action, jobs)
             }
             else -> {
                 null // Action not supported by hexagon.
@@ -139,18 +165,17 @@ class NetworkJobProcessor(private val context: Context) {
 
     private fun getTraktJobForAction(
         action: JobAction,
-        jobInfo: SgJobInfo,
-        createdAt: Long
+        jobs: List<PendingNetworkJob>
     ): NetworkJob? {
         return when (action) {
             JobAction.EPISODE_COLLECTION,
             JobAction.EPISODE_WATCHED_FLAG -> {
-                TraktEpisodeJob(action, jobInfo, createdAt)
+                TraktEpisodeJob(action, jobs)
             }
             JobAction.MOVIE_COLLECTION_ADD,
             JobAction.MOVIE_COLLECTION_REMOVE, JobAction.MOVIE_WATCHLIST_ADD, JobAction.MOVIE_WATCHLIST_REMOVE, JobAction.MOVIE_WATCHED_SET, JobAction.MOVIE_WATCHED_REMOVE -> // action not supported by trakt
             {
-                TraktMovieJob(action, jobInfo, createdAt)
+                TraktMovieJob(action, jobs)
             }
             else -> {
                 null // Action not supported by Trakt.
@@ -209,21 +234,6 @@ class NetworkJobProcessor(private val context: Context) {
         return builder.toString()
     }
 
-    private fun removeJobs(jobsToRemove: List<Long>) {
-        val batch = ArrayList<ContentProviderOperation>()
-        for (jobId in jobsToRemove) {
-            batch.add(
-                ContentProviderOperation.newDelete(Jobs.buildJobUri(jobId))
-                    .build()
-            )
-        }
-        try {
-            DBUtils.applyInSmallBatches(context, batch)
-        } catch (e: OperationApplicationException) {
-            Timber.e(e, "process: failed to delete completed jobs")
-        }
-    }
-
     /**
      * If neither Trakt or Cloud are connected, clears all remaining jobs.
      */
@@ -231,6 +241,10 @@ class NetworkJobProcessor(private val context: Context) {
         if (!ignoreHexagonState && shouldSendToHexagon || shouldSendToTrakt) {
             return // Still signed in to either service, do not clear jobs.
         }
-        context.contentResolver.delete(Jobs.CONTENT_URI, null, null)
+        jobHelper.deleteAllJobs()
+    }
+
+    companion object {
+        private const val PAGE_SIZE = 200
     }
 }
\ No newline at end of file
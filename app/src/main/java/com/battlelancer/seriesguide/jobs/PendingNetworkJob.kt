@@ -0,0 +1,51 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.jobs
+
+import com.battlelancer.seriesguide.jobs.episodes.JobAction
+
+/**
+ * A job loaded from the jobs table, see [NetworkJobProcessor].
+ */
+class PendingNetworkJob(
+    val id: Long,
+    val action: JobAction,
+    val createdAt: Long,
+    val info: SgJobInfo
+) {
+
+    /**
+     * Identifies the show or movie a job changes.
+     */
+    data class EntityKey(val isMovie: Boolean, val id: Long)
+
+    private val isMovieJob = when (action) {
+        JobAction.MOVIE_COLLECTION_ADD,
+        JobAction.MOVIE_COLLECTION_REMOVE,
+        JobAction.MOVIE_WATCHLIST_ADD,
+        JobAction.MOVIE_WATCHLIST_REMOVE,
+        JobAction.MOVIE_WATCHED_SET,
+        JobAction.MOVIE_WATCHED_REMOVE -> true
+        else -> false
+    }
+
+    /**
+     * Jobs for the same show or movie have the same key and must be sent in order.
+     */
+    val entityKey = EntityKey(
+        isMovieJob,
+        if (isMovieJob) info.movieTmdbId().toLong() else info.showId()
+    )
+
+    /**
+     * Returns if [other] can be sent with a single request together with this job. This is the
+     * case if it has the same action and flag and for episodes if it is for the same show.
+     */
+    fun canCoalesceWith(other: PendingNetworkJob): Boolean {
+        return action == other.action
+                && info.flagValue() == other.info.flagValue()
+                && (isMovieJob || entityKey == other.entityKey)
+    }
+
+}
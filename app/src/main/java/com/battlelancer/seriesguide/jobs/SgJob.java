@@ -9,6 +9,7 @@ import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import com.battlelancer.seriesguide.provider.SeriesGuideContract.Jobs;
 import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables;
+import java.nio.ByteBuffer;
 
 /**
  * Note: ensure to use CONFLICT_REPLACE when inserting to mimic SQLite UNIQUE x ON CONFLICT REPLACE.
@@ -29,4 +30,11 @@ public class SgJob {
 
     @ColumnInfo(name = Jobs.EXTRAS)
     public byte[] extras;
+
+    /**
+     * Reads the {@link SgJobInfo} FlatBuffer directly from {@link #extras}, without copying it.
+     */
+    public SgJobInfo getJobInfo() {
+        return SgJobInfo.getRootAsSgJobInfo(ByteBuffer.wrap(extras));
+    }
 }
@@ -0,0 +1,69 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.jobs
+
+import androidx.room.ColumnInfo
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+import com.battlelancer.seriesguide.provider.chunkedForSqlite
+
+/**
+ * Data Access Object for the jobs table, see [SgJob].
+ */
+@Dao
+interface SgJobHelper {
+
+    /**
+     * Replaces a job created at the same time, see [SgJob].
+     * Returns the row ID or -1 if inserting failed.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun insertJob(job: SgJob): Long
+
+    /**
+     * Returns up to [limit] jobs created after [createdAfterMs], oldest first.
+     * To get the next page pass the created time of the last job.
+     */
+    @Query("SELECT * FROM jobs WHERE job_created_at > :createdAfterMs ORDER BY job_created_at ASC LIMIT :limit")
+    fun getJobsPage(createdAfterMs: Long, limit: Int): List<SgJob>
+
+    @Query("DELETE FROM jobs WHERE _id IN (:jobIds)")
+    fun deleteJobsChunk(jobIds: List<Long>)
+
+    /**
+     * Deletes the given jobs, using a single statement for each chunk, see [chunkedForSqlite].
+     */
+    @Transaction
+    fun deleteJobs(jobIds: List<Long>) {
+        jobIds.chunkedForSqlite().forEach {
+            deleteJobsChunk(it)
+        }
+    }
+
+    @Query("DELETE FROM jobs")
+    fun deleteAllJobs()
+
+    @Query("SELECT COUNT(_id) AS count, MIN(job_created_at) AS oldestCreatedMs FROM jobs")
+    fun getQueueStats(): SgJobQueueStats
+}
+
+data class SgJobQueueStats(
+    /**
+     * Number of jobs waiting to be sent.
+     */
+    @ColumnInfo(name = "count") val count: Int,
+    /**
+     * Time the oldest waiting job was created at, or null if there are no jobs.
+     */
+    @ColumnInfo(name = "oldestCreatedMs") val oldestCreatedMs: Long?
+) {
+    /**
+     * How long the oldest waiting job is waiting at [currentTimeMs], or 0 if there are no jobs.
+     */
+    fun getOldestAgeMs(currentTimeMs: Long): Long =
+        oldestCreatedMs?.let { currentTimeMs - it } ?: 0
+}
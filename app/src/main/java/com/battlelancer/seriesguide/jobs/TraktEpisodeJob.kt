@@ -4,6 +4,7 @@
 package com.battlelancer.seriesguide.jobs
 
 import android.content.Context
+import android.text.format.DateUtils
 import com.battlelancer.seriesguide.SgApp
 import com.battlelancer.seriesguide.jobs.episodes.JobAction
 import com.battlelancer.seriesguide.shows.episodes.EpisodeFlags
@@ -29,12 +30,12 @@ import org.threeten.bp.OffsetDateTime
 import org.threeten.bp.ZoneOffset
 import retrofit2.Call
 import java.util.LinkedList
+import java.util.TreeMap
 
 class TraktEpisodeJob(
     action: JobAction,
-    jobInfo: SgJobInfo,
-    private val actionAtMs: Long
-) : BaseNetworkEpisodeJob(action, jobInfo) {
+    jobs: List<PendingNetworkJob>
+) : BaseNetworkEpisodeJob(action, jobs) {
 
     override fun execute(context: Context): NetworkJobResult {
         // Do not send if show has no trakt id (was not on trakt last time we checked).
@@ -116,23 +117,16 @@ class TraktEpisodeJob(
     ): Result<List<SyncSeason>, Int> {
         val isAddingWatchedEntry = action == JobAction.EPISODE_WATCHED_FLAG && isAddNotDelete
 
-        // Send time of action to avoid adding duplicate collection entries at Trakt (does not work
-        // for watched entries, separate check for those below) if this job re-runs due to failure,
-        // but Trakt already applied changes (it happens).
-        // Also if execution is delayed due to being offline this will ensure the actual action time
-        // is stored at Trakt.
-        val instant = Instant.ofEpochMilli(actionAtMs)
-        val actionAtDateTime = instant.atOffset(ZoneOffset.UTC)
-
-        val seasons: MutableList<SyncSeason> = ArrayList()
         val trakt = SgApp.getServicesComponent(context).trakt()
         val traktUsers = trakt.users()
 
-        // If sending a watched entry, check if there are already episodes watched at
-        // actionAtDateTime, then exclude those. This is to prevent duplicate watched entries at
-        // Trakt if this job re-runs due to failure, but Trakt already applied changes.
+        // If sending watched entries, check if there are already episodes watched at the time
+        // of each job, then exclude those. This is to prevent duplicate watched entries at
+        // Trakt if a job re-runs due to failure, but Trakt already applied changes.
         val watchedEpisodes = mutableListOf<WatchedEpisode>()
         if (isAddingWatchedEntry) {
+            val startAt = toDateTime(jobs.minOf { it.createdAt })
+            val endAt = toDateTime(jobs.maxOf { it.createdAt })
             var page = 1
             do {
                 val historyPage =
@@ -141,7 +135,8 @@ class TraktEpisodeJob(
                         trakt,
                         traktUsers,
                         showTraktId,
-                        actionAtDateTime,
+                        startAt,
+                        endAt,
                         page
                     ).getOrElse { return Err(it) }
                 watchedEpisodes.addAll(historyPage.episodes)
@@ -149,43 +144,59 @@ class TraktEpisodeJob(
             } while (page <= historyPage.pageCount)
         }
 
-        var currentSeason: SyncSeason? = null
-        for (i in 0 until jobInfo.episodesLength()) {
-            val episodeInfo = jobInfo.episodes(i)
-            val number = episodeInfo.number()
-            val seasonNumber = episodeInfo.season()
+        val seasons = TreeMap<Int, SyncSeason>()
+        for (job in jobs) {
+            // Send time of action to avoid adding duplicate collection entries at Trakt (does not
+            // work for watched entries, separate check for those above) if this job re-runs due
+            // to failure, but Trakt already applied changes (it happens).
+            // Also if execution is delayed due to being offline this will ensure the actual
+            // action time is stored at Trakt.
+            val actionAtDateTime = toDateTime(job.createdAt)
+            val jobInfo = job.info
+            for (i in 0 until jobInfo.episodesLength()) {
+                val episodeInfo = jobInfo.episodes(i)
+                val number = episodeInfo.number()
+                val seasonNumber = episodeInfo.season()
 
-            if (isAddingWatchedEntry
-                && watchedEpisodes.find { it.number == number && it.season == seasonNumber } != null) {
-                // Skip, this episode already has an entry at actionAtDateTime.
-                continue
-            }
+                if (isAddingWatchedEntry
+                    && watchedEpisodes.find {
+                        it.number == number && it.season == seasonNumber
+                                && isSameSecond(it.watchedAtMs, job.createdAt)
+                    } != null) {
+                    // Skip, this episode already has an entry at actionAtDateTime.
+                    continue
+                }
 
-            // start new season?
-            if (currentSeason == null || currentSeason.number?.let { seasonNumber > it } == true) {
-                currentSeason = SyncSeason().number(seasonNumber)
-                currentSeason.episodes = LinkedList()
-                seasons.add(currentSeason)
-            }
+                val season = seasons.getOrPut(seasonNumber) {
+                    SyncSeason().number(seasonNumber).also { it.episodes = LinkedList() }
+                }
 
-            // add episode
-            val episode = SyncEpisode().number(episodeInfo.number())
-            if (isAddNotDelete) {
-                // only send timestamp if adding, not if removing to save data
-                if (action == JobAction.EPISODE_WATCHED_FLAG) {
-                    episode.watchedAt(actionAtDateTime)
-                } else {
-                    episode.collectedAt(actionAtDateTime)
+                // add episode
+                val episode = SyncEpisode().number(number)
+                if (isAddNotDelete) {
+                    // only send timestamp if adding, not if removing to save data
+                    if (action == JobAction.EPISODE_WATCHED_FLAG) {
+                        episode.watchedAt(actionAtDateTime)
+                    } else {
+                        episode.collectedAt(actionAtDateTime)
+                    }
                 }
+                season.episodes!!.add(episode)
             }
-            currentSeason.episodes!!.add(episode)
         }
-        return Ok(seasons)
+        return Ok(ArrayList(seasons.values))
     }
 
+    private fun toDateTime(timeMs: Long): OffsetDateTime =
+        Instant.ofEpochMilli(timeMs).atOffset(ZoneOffset.UTC)
+
+    private fun isSameSecond(timeMs: Long, otherTimeMs: Long): Boolean =
+        timeMs / DateUtils.SECOND_IN_MILLIS == otherTimeMs / DateUtils.SECOND_IN_MILLIS
+
     data class WatchedEpisode(
         val number: Int,
-        val season: Int
+        val season: Int,
+        val watchedAtMs: Long
     )
 
     data class HistoryPage(
@@ -198,7 +209,8 @@ class TraktEpisodeJob(
         trakt: TraktV2,
         traktUsers: Users,
         showTraktId: Int,
-        actionAtDateTime: OffsetDateTime,
+        startAt: OffsetDateTime,
+        endAt: OffsetDateTime,
         page: Int
     ): Result<HistoryPage, Int> {
         val action = "get history of show"
@@ -209,8 +221,8 @@ class TraktEpisodeJob(
             page,
             null,
             null,
-            actionAtDateTime,
-            actionAtDateTime
+            startAt,
+            endAt
         )
         return executeTraktCall(
             context,
@@ -221,11 +233,12 @@ class TraktEpisodeJob(
             val episodes = body.map {
                 val number = it.episode?.number
                 val season = it.episode?.season
-                if (number == null || season == null) {
-                    Errors.logAndReport(action, response, "episode is null")
+                val watchedAt = it.watched_at
+                if (number == null || season == null || watchedAt == null) {
+                    Errors.logAndReport(action, response, "episode or watched_at is null")
                     return@executeTraktCall Err(ERROR_TRAKT_CLIENT)
                 }
-                WatchedEpisode(number, season)
+                WatchedEpisode(number, season, watchedAt.toInstant().toEpochMilli())
             }
             val pageCount = response.headers()["x-pagination-page-count"]?.toIntOrNull()
                 ?: 1
@@ -4,10 +4,10 @@
 package com.battlelancer.seriesguide.jobs
 
 import android.content.Context
+import android.text.format.DateUtils
 import com.battlelancer.seriesguide.SgApp
 import com.battlelancer.seriesguide.jobs.episodes.JobAction
 import com.battlelancer.seriesguide.traktapi.TraktCredentials
-import com.battlelancer.seriesguide.traktapi.TraktTools
 import com.github.michaelbull.result.Err
 import com.github.michaelbull.result.Ok
 import com.github.michaelbull.result.Result
@@ -25,9 +25,8 @@ import retrofit2.Call
 
 class TraktMovieJob(
     action: JobAction,
-    jobInfo: SgJobInfo,
-    private val actionAtMs: Long
-) : BaseNetworkMovieJob(action, jobInfo) {
+    jobs: List<PendingNetworkJob>
+) : BaseNetworkMovieJob(action, jobs) {
 
     override fun execute(context: Context): NetworkJobResult {
         return buildResult(context, upload(context))
@@ -38,32 +37,46 @@ class TraktMovieJob(
             return ERROR_TRAKT_AUTH
         }
 
-        val movie = SyncMovie().id(MovieIds.tmdb(jobInfo.movieTmdbId()))
-
-        // Send time of action to avoid adding duplicate collection entries at Trakt (does not work
-        // for watched entries, separate check for those below) if this job re-runs due to failure,
-        // but Trakt already applied changes (it happens).
-        // Also if execution is delayed due to being offline this will ensure the actual action time
-        // is stored at Trakt.
-        val instant = Instant.ofEpochMilli(actionAtMs)
-        val actionAtDateTime = instant.atOffset(ZoneOffset.UTC)
-        // only send timestamp if adding, not if removing to save data
-        // note: timestamp currently not supported for watchlist action
-        if (action == JobAction.MOVIE_COLLECTION_ADD) {
-            movie.collectedAt(actionAtDateTime)
-        } else if (action == JobAction.MOVIE_WATCHED_SET) {
-            movie.watchedAt(actionAtDateTime)
-            // If sending a watched entry, check if there is already one at actionAtDateTime, then
-            // just complete successfully. This is to prevent duplicate watched entries at
-            // Trakt if this job re-runs due to failure, but Trakt already applied changes.
-            val entryExists = watchedEntryExistsAt(context, jobInfo.movieTmdbId(), actionAtDateTime)
-                .getOrElse { return it }
-            if (entryExists) {
-                return SUCCESS
+        // If sending watched entries, check if there are already entries at the time of each job,
+        // then exclude those movies. This is to prevent duplicate watched entries at
+        // Trakt if a job re-runs due to failure, but Trakt already applied changes.
+        val watchedMovies = if (action == JobAction.MOVIE_WATCHED_SET) {
+            getWatchedMovies(context).getOrElse { return it }
+        } else {
+            emptyList()
+        }
+
+        val movies = ArrayList<SyncMovie>()
+        for (job in jobs) {
+            val movieTmdbId = job.info.movieTmdbId()
+            val movie = SyncMovie().id(MovieIds.tmdb(movieTmdbId))
+
+            // Send time of action to avoid adding duplicate collection entries at Trakt (does not
+            // work for watched entries, separate check for those above) if this job re-runs due
+            // to failure, but Trakt already applied changes (it happens).
+            // Also if execution is delayed due to being offline this will ensure the actual
+            // action time is stored at Trakt.
+            val actionAtDateTime = toDateTime(job.createdAt)
+            // only send timestamp if adding, not if removing to save data
+            // note: timestamp currently not supported for watchlist action
+            if (action == JobAction.MOVIE_COLLECTION_ADD) {
+                movie.collectedAt(actionAtDateTime)
+            } else if (action == JobAction.MOVIE_WATCHED_SET) {
+                if (watchedMovies.find {
+                        it.tmdbId == movieTmdbId && isSameSecond(it.watchedAtMs, job.createdAt)
+                    } != null) {
+                    // Skip, this movie already has an entry at actionAtDateTime.
+                    continue
+                }
+                movie.watchedAt(actionAtDateTime)
             }
+            movies.add(movie)
+        }
+        if (movies.isEmpty()) {
+            return SUCCESS // nothing to upload, done.
         }
 
-        val items = SyncItems().movies(movie)
+        val items = SyncItems().movies(movies)
 
         // determine network call
         val errorLabel: String
@@ -105,42 +118,64 @@ class TraktMovieJob(
         }.getOrElse { return it }
     }
 
-    private fun watchedEntryExistsAt(
-        context: Context,
-        movieTmdbId: Int,
-        actionAtDateTime: OffsetDateTime
-    ): Result<Boolean, Int> {
-        val action = "get history for movie"
-        val trakt = SgApp.getServicesComponent(context).trakt()
+    private fun toDateTime(timeMs: Long): OffsetDateTime =
+        Instant.ofEpochMilli(timeMs).atOffset(ZoneOffset.UTC)
 
-        // Look up Trakt id.
-        val movieTraktId = TraktTools.lookupMovieTraktId(trakt, movieTmdbId)
-            ?: return Err(ERROR_TRAKT_SERVER)
-        if (movieTraktId == -1) return Err(ERROR_TRAKT_NOT_FOUND)
+    private fun isSameSecond(timeMs: Long, otherTimeMs: Long): Boolean =
+        timeMs / DateUtils.SECOND_IN_MILLIS == otherTimeMs / DateUtils.SECOND_IN_MILLIS
 
-        // Check history if at least one item at actionAtDateTime exists.
+    data class WatchedMovie(
+        val tmdbId: Int,
+        val watchedAtMs: Long
+    )
+
+    /**
+     * Gets movie history entries watched between the time of the oldest and newest job.
+     */
+    private fun getWatchedMovies(context: Context): Result<List<WatchedMovie>, Int> {
+        val action = "get history of movies"
+        val trakt = SgApp.getServicesComponent(context).trakt()
         val traktUsers = trakt.users()
-        val historyCall = traktUsers.history(
-            UserSlug.ME,
-            HistoryType.MOVIES,
-            movieTraktId,
-            1,
-            1,
-            null,
-            actionAtDateTime,
-            actionAtDateTime
-        )
-        return executeTraktCall(
-            context,
-            trakt,
-            historyCall,
-            action
-        ) { _, body ->
-            Ok(body.isNotEmpty())
-        }
+        val startAt = toDateTime(jobs.minOf { it.createdAt })
+        val endAt = toDateTime(jobs.maxOf { it.createdAt })
+
+        val watchedMovies = ArrayList<WatchedMovie>()
+        var page = 1
+        var pageCount: Int
+        do {
+            val historyCall = traktUsers.history(
+                UserSlug.ME,
+                HistoryType.MOVIES,
+                null,
+                page,
+                HISTORY_PAGE_SIZE,
+                null,
+                startAt,
+                endAt
+            )
+            pageCount = executeTraktCall(
+                context,
+                trakt,
+                historyCall,
+                action
+            ) { response, body ->
+                body.mapNotNullTo(watchedMovies) {
+                    val tmdbId = it.movie?.ids?.tmdb
+                    val watchedAt = it.watched_at
+                    if (tmdbId != null && watchedAt != null) {
+                        WatchedMovie(tmdbId, watchedAt.toInstant().toEpochMilli())
+                    } else null
+                }
+                Ok(response.headers()["x-pagination-page-count"]?.toIntOrNull() ?: 1)
+            }.getOrElse { return Err(it) }
+            page++
+        } while (page <= pageCount)
+        return Ok(watchedMovies)
     }
 
     companion object {
+        private const val HISTORY_PAGE_SIZE = 100
+
         /**
          * If [SyncResponse.not_found] indicates any show,
          * season or episode was not found returns `false`.
@@ -10,9 +10,11 @@ import com.battlelancer.seriesguide.jobs.SgJobInfo
 import com.battlelancer.seriesguide.provider.SeriesGuideContract
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.shows.database.SgEpisode2Numbers
+import com.battlelancer.seriesguide.shows.database.UpcomingEpisodesTable
 import com.battlelancer.seriesguide.shows.episodes.EpisodeTools
 import com.battlelancer.seriesguide.shows.history.SgActivityHelper
 import com.battlelancer.seriesguide.shows.tools.LatestEpisodeUpdateTask
+import com.battlelancer.seriesguide.shows.tools.NextEpisodeDirtyShows
 import com.google.flatbuffers.FlatBufferBuilder
 
 abstract class BaseEpisodesJob(
@@ -34,7 +36,7 @@ abstract class BaseEpisodesJob(
 
     /**
      * Builds and executes the database op required to flag episodes in the local database,
-     * notifies affected URIs, may update the list widget.
+     * refreshes the upcoming episodes table, notifies affected URIs, may update the list widget.
      */
     @CallSuper
     override fun applyLocalChanges(context: Context, requiresNetworkJob: Boolean): Boolean {
@@ -54,6 +56,8 @@ abstract class BaseEpisodesJob(
         if (!updated) {
             return false
         }
+        // Before widgets are notified, so they can keep reading from the upcoming episodes table.
+        UpcomingEpisodesTable.refresh(context)
 
         // persist network job after successful local updates
         if (requiresNetworkJob) {
@@ -126,6 +130,8 @@ abstract class BaseEpisodesJob(
                     setLastWatchedToNow
                 )
         }
+        // If updating fails, update with the next pass over changed shows.
+        NextEpisodeDirtyShows.add(showId)
         LatestEpisodeUpdateTask.updateLatestEpisodeFor(context, showId)
     }
 
@@ -14,6 +14,7 @@ import androidx.core.view.isGone
 import androidx.fragment.app.Fragment
 import androidx.fragment.app.FragmentManager
 import androidx.fragment.app.viewModels
+import androidx.lifecycle.lifecycleScope
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.SgApp
 import com.battlelancer.seriesguide.databinding.FragmentListBinding
@@ -27,6 +28,9 @@ import com.battlelancer.seriesguide.ui.OverviewActivity
 import com.battlelancer.seriesguide.ui.widgets.SgFastScroller
 import com.battlelancer.seriesguide.util.Utils
 import com.battlelancer.seriesguide.util.ViewTools
+import kotlinx.coroutines.flow.collectLatest
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.launch
 import org.greenrobot.eventbus.EventBus
 import org.greenrobot.eventbus.Subscribe
 import org.greenrobot.eventbus.ThreadMode
@@ -80,11 +84,19 @@ class SgListFragment : Fragment() {
                 }
             }
 
-        model.sgListItemLiveData.observe(viewLifecycleOwner) {
-            val bindingOnDemand = this.binding ?: return@observe
-            bindingOnDemand.recyclerViewListItems.isGone = it.isEmpty()
-            bindingOnDemand.emptyViewList.isGone = it.isNotEmpty()
-            adapter.submitList(it)
+        viewLifecycleOwner.lifecycleScope.launch {
+            adapter.onPagesUpdatedFlow.conflate().collectLatest {
+                val bindingOnDemand = this@SgListFragment.binding ?: return@collectLatest
+                val isEmpty = adapter.itemCount == 0
+                bindingOnDemand.recyclerViewListItems.isGone = isEmpty
+                bindingOnDemand.emptyViewList.isGone = !isEmpty
+            }
+        }
+
+        viewLifecycleOwner.lifecycleScope.launch {
+            model.items.collectLatest {
+                adapter.submitData(it)
+            }
         }
     }
 
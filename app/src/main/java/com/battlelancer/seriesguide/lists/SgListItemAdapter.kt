@@ -10,8 +10,8 @@ import android.view.ViewGroup
 import androidx.appcompat.widget.TooltipCompat
 import androidx.core.view.isGone
 import androidx.core.view.isVisible
+import androidx.paging.PagingDataAdapter
 import androidx.recyclerview.widget.DiffUtil
-import androidx.recyclerview.widget.ListAdapter
 import androidx.recyclerview.widget.RecyclerView
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.databinding.ItemShowListBinding
@@ -30,7 +30,7 @@ import org.threeten.bp.Instant
 class SgListItemAdapter(
     private val context: Context,
     private val onItemClickListener: SgListItemViewHolder.OnItemClickListener
-) : ListAdapter<SgListItemWithDetails, SgListItemViewHolder>(DIFF_CALLBACK) {
+) : PagingDataAdapter<SgListItemWithDetails, SgListItemViewHolder>(DIFF_CALLBACK) {
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): SgListItemViewHolder {
         return SgListItemViewHolder.create(onItemClickListener, parent)
@@ -5,46 +5,74 @@ package com.battlelancer.seriesguide.lists
 
 import android.app.Application
 import androidx.lifecycle.AndroidViewModel
-import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.ViewModelProvider
-import androidx.lifecycle.switchMap
+import androidx.lifecycle.asFlow
+import androidx.lifecycle.viewModelScope
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
 import androidx.sqlite.db.SimpleSQLiteQuery
 import com.battlelancer.seriesguide.lists.database.SgListItemWithDetails
 import com.battlelancer.seriesguide.provider.SeriesGuideContract.Lists
 import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgShow2Columns
 import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.withContext
 
 /**
  * Uses raw query to get list items with show details.
+ *
+ * Only if a list contains legacy items queries [Tables.LIST_ITEMS_WITH_DETAILS] which has to
+ * look at items of all lists. Otherwise joins its items directly with shows using
+ * [Tables.TMDB_LIST_ITEMS_WITH_DETAILS].
  */
 class SgListItemViewModel(
     private val listId: String,
     application: Application
 ) : AndroidViewModel(application) {
 
-    private val queryString = MutableLiveData<String>()
-    val sgListItemLiveData: LiveData<List<SgListItemWithDetails>> =
-        queryString.switchMap { queryString ->
-            SgRoomDatabase.getInstance(getApplication()).sgListHelper()
-                .getListItemsWithDetails(SimpleSQLiteQuery(queryString, arrayOf(listId)))
-        }
+    private val orderClause = MutableLiveData<String>()
+    val items: Flow<PagingData<SgListItemWithDetails>> = orderClause.asFlow().flatMapLatest {
+        val helper = SgRoomDatabase.getInstance(getApplication()).sgListHelper()
+        // Legacy items can no longer be added, so only need to check once per query.
+        val queryString = buildQuery(
+            withContext(Dispatchers.IO) { helper.hasLegacyListItems(listId) },
+            it
+        )
+        Pager(
+            PagingConfig(pageSize = 50)
+        ) {
+            helper.getListItemsWithDetails(SimpleSQLiteQuery(queryString, arrayOf(listId)))
+        }.flow
+    }.cachedIn(viewModelScope)
 
     init {
         updateQuery()
     }
 
     fun updateQuery() {
-        val orderClause = ListsDistillationSettings.getSortQuery(getApplication())
+        orderClause.value = ListsDistillationSettings.getSortQuery(getApplication())
+    }
 
-        // items of this list, but exclude any if show was removed from the database
-        // (the join on show data will fail, hence the show id will be 0/null)
-        queryString.value =
+    private fun buildQuery(hasLegacyItems: Boolean, orderClause: String): String {
+        return if (hasLegacyItems) {
+            // items of this list, but exclude any if show was removed from the database
+            // (the join on show data will fail, hence the show id will be 0/null)
             "SELECT * FROM ${Tables.LIST_ITEMS_WITH_DETAILS}" +
                     " WHERE ${Lists.LIST_ID}=? AND ${SgShow2Columns.REF_SHOW_ID}>0" +
                     " ORDER BY $orderClause"
+        } else {
+            // inner join already excludes items of removed shows
+            "SELECT * FROM ${Tables.TMDB_LIST_ITEMS_WITH_DETAILS}" +
+                    " WHERE ${Lists.LIST_ID}=?" +
+                    " ORDER BY $orderClause"
+        }
     }
 
 }
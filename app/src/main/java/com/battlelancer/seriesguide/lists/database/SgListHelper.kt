@@ -5,6 +5,7 @@ package com.battlelancer.seriesguide.lists.database
 
 import androidx.annotation.VisibleForTesting
 import androidx.lifecycle.LiveData
+import androidx.paging.PagingSource
 import androidx.room.ColumnInfo
 import androidx.room.Dao
 import androidx.room.Insert
@@ -33,7 +34,15 @@ interface SgListHelper {
     fun getListItemsWithTmdbId(tmdbId: Int): List<SgListItem>
 
     @RawQuery(observedEntities = [SgListItem::class, SgShow2::class])
-    fun getListItemsWithDetails(query: SupportSQLiteQuery): LiveData<List<SgListItemWithDetails>>
+    fun getListItemsWithDetails(
+        query: SupportSQLiteQuery
+    ): PagingSource<Int, SgListItemWithDetails>
+
+    /**
+     * Returns if the list contains legacy TVDB show, season or episode items.
+     */
+    @Query("SELECT EXISTS(SELECT 1 FROM listitems WHERE list_id = :listId AND item_type != ${ListItemTypes.TMDB_SHOW})")
+    fun hasLegacyListItems(listId: String): Boolean
 
     @Query("SELECT * FROM listitems WHERE list_id = :listId")
     fun getListItemsForExport(listId: String): List<SgListItem>
@@ -6,6 +6,7 @@ package com.battlelancer.seriesguide.modules
 import android.content.Context
 import android.os.Build
 import android.os.StatFs
+import com.battlelancer.seriesguide.AppStartup
 import com.battlelancer.seriesguide.tmdbapi.SgTmdbInterceptor
 import com.battlelancer.seriesguide.traktapi.SgTraktInterceptor
 import com.battlelancer.seriesguide.util.AllApisAuthenticator
@@ -28,11 +29,14 @@ open class HttpClientModule {
     @Provides
     @Singleton
     fun provideOkHttpClient(
+        @ApplicationContext context: Context,
         cache: Cache,
         traktInterceptor: SgTraktInterceptor,
         tmdbInterceptor: SgTmdbInterceptor,
         authenticator: AllApisAuthenticator
     ): OkHttpClient {
+        // Build with the updated security provider, which may still be installing.
+        AppStartup.awaitSecurityProvider(context)
         val builder = OkHttpClient.Builder()
         builder.connectTimeout(CONNECT_TIMEOUT_MILLIS.toLong(), TimeUnit.MILLISECONDS)
         builder.readTimeout(READ_TIMEOUT_MILLIS.toLong(), TimeUnit.MILLISECONDS)
@@ -9,11 +9,11 @@ import android.view.LayoutInflater
 import android.view.ViewGroup
 import androidx.recyclerview.widget.DiffUtil
 import androidx.recyclerview.widget.RecyclerView
+import com.battlelancer.seriesguide.AppStartup
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.databinding.ItemMovieBinding
 import com.battlelancer.seriesguide.movies.database.SgMovie
 import com.battlelancer.seriesguide.util.ImageTools
-import com.squareup.picasso.Picasso
 import com.uwetrottmann.tmdb2.entities.BaseMovie
 import java.text.DateFormat
 
@@ -44,7 +44,7 @@ class MovieViewHolder(
             movieTmdbId = -1
             title.text = ""
             date.text = ""
-            Picasso.get().cancelRequest(poster)
+            AppStartup.getPicasso(itemView.context).cancelRequest(poster)
             poster.setImageDrawable(null)
         } else {
             movieTmdbId = sgMovie.tmdbId
@@ -91,7 +91,7 @@ class MovieViewHolder(
                 .centerCrop()
                 .into(poster)
         } else {
-            Picasso.get().cancelRequest(poster)
+            AppStartup.getPicasso(itemView.context).cancelRequest(poster)
         }
     }
 
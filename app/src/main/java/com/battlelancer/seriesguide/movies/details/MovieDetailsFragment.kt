@@ -31,6 +31,7 @@ import androidx.lifecycle.lifecycleScope
 import androidx.loader.app.LoaderManager
 import androidx.loader.content.Loader
 import androidx.palette.graphics.Palette
+import com.battlelancer.seriesguide.AppStartup
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.backend.settings.HexagonSettings
 import com.battlelancer.seriesguide.comments.TraktCommentsActivity
@@ -71,7 +72,6 @@ import com.battlelancer.seriesguide.util.ViewTools
 import com.battlelancer.seriesguide.util.WebTools
 import com.battlelancer.seriesguide.util.copyTextToClipboardOnLongClick
 import com.squareup.picasso.Callback
-import com.squareup.picasso.Picasso
 import com.uwetrottmann.androidutils.AndroidUtils
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
@@ -280,7 +280,7 @@ class MovieDetailsFragment : Fragment(), MovieActionsContract {
         // This ensures that the anonymous callback we have does not prevent the fragment from
         // being garbage collected. It also prevents our callback from getting invoked even after the
         // fragment is destroyed.
-        Picasso.get().cancelRequest(binding.imageViewMoviePoster)
+        AppStartup.getPicasso(requireContext()).cancelRequest(binding.imageViewMoviePoster)
 
         _binding = null
     }
@@ -3,6 +3,7 @@
 
 package com.battlelancer.seriesguide.movies.tools;
 
+import android.content.ContentProviderOperation;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
@@ -299,17 +300,42 @@ public class MovieTools {
      * Updates existing movie. If movie does not exist in database, will do nothing.
      */
     public void updateMovie(MovieDetails details, int tmdbId) {
-        ContentValues values = details.toContentValuesUpdate();
-        if (values.size() == 0) {
+        ContentValues values = buildMovieUpdateValues(details);
+        if (values == null) {
             return; // nothing to update, downloading probably failed :(
         }
 
-        values.put(Movies.LAST_UPDATED, System.currentTimeMillis());
-
         context.getContentResolver().update(Movies.buildMovieUri(tmdbId),
                 values, null, null);
     }
 
+    /**
+     * Like {@link #updateMovie(MovieDetails, int)}, but returns an operation to apply in a batch
+     * with others, or {@code null} if there is nothing to update.
+     */
+    @Nullable
+    public ContentProviderOperation buildMovieUpdateOp(MovieDetails details, int tmdbId) {
+        ContentValues values = buildMovieUpdateValues(details);
+        if (values == null) {
+            return null; // nothing to update, downloading probably failed :(
+        }
+
+        return ContentProviderOperation.newUpdate(Movies.buildMovieUri(tmdbId))
+                .withValues(values)
+                .build();
+    }
+
+    @Nullable
+    private static ContentValues buildMovieUpdateValues(MovieDetails details) {
+        ContentValues values = details.toContentValuesUpdate();
+        if (values.size() == 0) {
+            return null;
+        }
+
+        values.put(Movies.LAST_UPDATED, System.currentTimeMillis());
+        return values;
+    }
+
     /**
      * Returns {@code true} if the movie was deleted.
      */
@@ -34,6 +34,8 @@ import com.battlelancer.seriesguide.settings.DisplaySettings.isHidingSpecials
 import com.battlelancer.seriesguide.settings.NotificationSettings
 import com.battlelancer.seriesguide.shows.ShowsActivityImpl
 import com.battlelancer.seriesguide.shows.database.SgEpisode2WithShow
+import com.battlelancer.seriesguide.shows.database.SgUpcomingEpisode
+import com.battlelancer.seriesguide.shows.database.UpcomingEpisodesTable
 import com.battlelancer.seriesguide.shows.episodes.EpisodesActivity.Companion.intentEpisode
 import com.battlelancer.seriesguide.sync.SgSyncAdapter
 import com.battlelancer.seriesguide.traktapi.QuickCheckInActivity
@@ -272,10 +274,12 @@ class NotificationService(context: Context) {
         // than latestTimeToInclude. That can be up to 7 days. But also as small as a few minutes.
         // To avoid waking up too often if there are no episodes for a few days,
         // look ahead up to 14 days.
-        val bindArgs = arrayOf<Any>(
-            customCurrentTime - 12 * DateUtils.HOUR_IN_MILLIS,
-            customCurrentTime + 14 * DateUtils.DAY_IN_MILLIS
-        )
+        val startMs = customCurrentTime - 12 * DateUtils.HOUR_IN_MILLIS
+        val endMs = customCurrentTime + 14 * DateUtils.DAY_IN_MILLIS
+        val bindArgs = arrayOf<Any>(startMs, endMs)
+
+        // Usually can read from the upcoming episodes table without joining episodes and shows.
+        val isFromUpcomingTable = UpcomingEpisodesTable.covers(context, startMs, endMs)
 
         val isNoSpecials = isHidingSpecials(context)
         Timber.d("Settings: specials: %s", if (isNoSpecials) "YES" else "NO")
@@ -289,16 +293,28 @@ class NotificationService(context: Context) {
             selection.append(" AND (")
                 .append(SgShow2Columns.NEXTEPISODE + "=''")
                 .append(" OR ")
-                .append(SgShow2Columns.NEXTEPISODE + "=" + SeriesGuideDatabase.Qualified.SG_EPISODE_ID)
+                .append(
+                    SgShow2Columns.NEXTEPISODE + "=" + if (isFromUpcomingTable) {
+                        SgEpisode2Columns._ID
+                    } else {
+                        SeriesGuideDatabase.Qualified.SG_EPISODE_ID
+                    }
+                )
                 .append(")")
         }
 
-        val query = (SgEpisode2WithShow.SELECT
-                + " WHERE " + selection
-                + " ORDER BY " + ORDER)
+        val select = if (isFromUpcomingTable) SgUpcomingEpisode.SELECT else SgEpisode2WithShow.SELECT
+        val query = SimpleSQLiteQuery(
+            "$select WHERE $selection ORDER BY $ORDER",
+            bindArgs
+        )
 
-        return getInstance(context).sgEpisode2Helper()
-            .getEpisodesWithShow(SimpleSQLiteQuery(query, bindArgs))
+        val database = getInstance(context)
+        return if (isFromUpcomingTable) {
+            database.sgUpcomingEpisodeHelper().getEpisodesWithShow(query)
+        } else {
+            database.sgEpisode2Helper().getEpisodesWithShow(query)
+        }
     }
 
     private fun maybeNotify(
@@ -677,13 +693,15 @@ class NotificationService(context: Context) {
         )
 
         // only if notifications are on: unwatched episodes released on or after arg
-        private const val SELECTION = (SgShow2Columns.NOTIFY + " = 1 AND "
+        @VisibleForTesting
+        internal const val SELECTION = (SgShow2Columns.NOTIFY + " = 1 AND "
                 + SgEpisode2Columns.SELECTION_UNWATCHED + " AND "
                 + SgEpisode2Columns.FIRSTAIREDMS + ">= ? AND "
                 + SgEpisode2Columns.FIRSTAIREDMS + "< ?")
 
         /** By release date, then by show, then lowest number first. */
-        private const val ORDER = (SgEpisode2Columns.FIRSTAIREDMS + " ASC,"
+        @VisibleForTesting
+        internal const val ORDER = (SgEpisode2Columns.FIRSTAIREDMS + " ASC,"
                 + SgShow2Columns.SORT_TITLE + ","
                 + SgEpisode2Columns.NUMBER + " ASC")
 
@@ -13,6 +13,7 @@ import android.database.sqlite.SQLiteQueryBuilder;
 import android.provider.BaseColumns;
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
+import androidx.preference.PreferenceManager;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import com.battlelancer.seriesguide.lists.database.SgListItemWithDetails;
 import com.battlelancer.seriesguide.provider.SeriesGuideContract.Episodes;
@@ -147,6 +148,7 @@ public class SeriesGuideDatabase {
         String SHOWS_NEXT_EPISODE = Tables.SHOWS + "." + Shows.NEXTEPISODE;
         String EPISODES_ID = Tables.EPISODES + "." + Episodes._ID;
         String EPISODES_SHOW_ID = Tables.EPISODES + "." + Shows.REF_SHOW_ID;
+        String LIST_ITEMS_ID = Tables.LIST_ITEMS + "." + ListItems._ID;
         String LIST_ITEMS_REF_ID = Tables.LIST_ITEMS + "." + ListItems.ITEM_REF_ID;
 
         String SG_SHOW_ID = Tables.SG_SHOW + "." + SgShow2Columns._ID;
@@ -164,6 +166,7 @@ public class SeriesGuideDatabase {
         String SG_SHOW = "sg_show";
         String SG_SEASON = "sg_season";
         String SG_EPISODE = "sg_episode";
+        String SG_UPCOMING_EPISODE = "sg_upcoming_episode";
 
         String SHOWS_JOIN_EPISODES_ON_LAST_EPISODE = SHOWS + " LEFT OUTER JOIN " + EPISODES
                 + " ON " + Qualified.SHOWS_LAST_EPISODE + "=" + Qualified.EPISODES_ID;
@@ -176,6 +179,8 @@ public class SeriesGuideDatabase {
 
         String EPISODES_SEARCH = "searchtable";
 
+        String SHOWS_SEARCH = "sg_show_search";
+
         String LISTS = "lists";
 
         String LIST_ITEMS = "listitems";
@@ -189,6 +194,9 @@ public class SeriesGuideDatabase {
 
         /**
          * Compare with {@link SgListItemWithDetails}.
+         * <p>
+         * Branches select distinct item types, so use UNION ALL to not sort and de-duplicate
+         * all rows. If a list has no legacy items, prefer {@link #TMDB_LIST_ITEMS_WITH_DETAILS}.
          */
         String LIST_ITEMS_WITH_DETAILS = "("
                 // new TMDB shows
@@ -199,21 +207,21 @@ public class SeriesGuideDatabase {
                 + " ON " + Qualified.LIST_ITEMS_REF_ID + "=" + SgShow2Columns.TMDB_ID
                 + ")"
                 // legacy TVDB shows
-                + " UNION " + ItemsQuery.SELECT_ITEMS_AND_SHOWS_COLUMNS + " FROM "
+                + " UNION ALL " + ItemsQuery.SELECT_ITEMS_AND_SHOWS_COLUMNS + " FROM "
                 + "("
                 + ItemsQuery.SELECT_TVDB_SHOWS
                 + " LEFT OUTER JOIN " + Tables.SG_SHOW
                 + " ON " + Qualified.LIST_ITEMS_REF_ID + "=" + SgShow2Columns.TVDB_ID
                 + ")"
                 // legacy TVDB seasons
-                + " UNION " + ItemsQuery.SELECT_ITEMS_AND_SHOWS_COLUMNS + " FROM "
+                + " UNION ALL " + ItemsQuery.SELECT_ITEMS_AND_SHOWS_COLUMNS + " FROM "
                 + "("
                 + ItemsQuery.SELECT_TVDB_SEASONS
                 + " LEFT OUTER JOIN " + "(" + SG_SEASON_JOIN_SG_SHOW + ") AS " + Tables.SG_SEASON
                 + " ON " + Qualified.LIST_ITEMS_REF_ID + "=" + SgSeason2Columns.TVDB_ID
                 + ")"
                 // legacy TVDB episodes
-                + " UNION " + ItemsQuery.SELECT_ITEMS_AND_SHOWS_COLUMNS + " FROM "
+                + " UNION ALL " + ItemsQuery.SELECT_ITEMS_AND_SHOWS_COLUMNS + " FROM "
                 + "("
                 + ItemsQuery.SELECT_TVDB_EPISODES
                 + " LEFT OUTER JOIN " + "(" + SG_EPISODE_JOIN_SG_SHOW + ") AS " + Tables.SG_EPISODE
@@ -222,6 +230,18 @@ public class SeriesGuideDatabase {
                 //
                 + ")";
 
+        /**
+         * Like {@link #LIST_ITEMS_WITH_DETAILS}, but only TMDB show items. Joins list items
+         * directly with shows, so the list ID and show TMDB ID indexes can be used. Only includes
+         * items with a show in the database.
+         */
+        String TMDB_LIST_ITEMS_WITH_DETAILS = "("
+                + ItemsQuery.SELECT_TMDB_ITEMS_AND_SHOWS_COLUMNS + " FROM " + Tables.LIST_ITEMS
+                + " JOIN " + Tables.SG_SHOW
+                + " ON " + Qualified.LIST_ITEMS_REF_ID + "=" + SgShow2Columns.TMDB_ID
+                + " WHERE " + ListItems.SELECTION_TMDB_SHOWS
+                + ")";
+
         String MOVIES = "movies";
 
         String ACTIVITY = "activity";
@@ -256,9 +276,7 @@ public class SeriesGuideDatabase {
                 + " WHERE " + ListItems.SELECTION_EPISODES + ")"
                 + " AS " + Tables.LIST_ITEMS;
 
-        String SELECT_ITEMS_AND_SHOWS_COLUMNS = "SELECT item_row_id as " + ListItems._ID + ","
-                + ITEMS_COLUMNS + ","
-                + Qualified.SG_SHOW_ID + " as " + SgShow2Columns.REF_SHOW_ID + ","
+        String SHOWS_COLUMNS = Qualified.SG_SHOW_ID + " as " + SgShow2Columns.REF_SHOW_ID + ","
                 + SgShow2Columns.RELEASE_TIME + ","
                 + SgShow2Columns.NEXTTEXT + ","
                 + SgShow2Columns.NEXTAIRDATEMS + ","
@@ -277,6 +295,15 @@ public class SeriesGuideDatabase {
                 + SgShow2Columns.CUSTOM_RELEASE_TIME_ZONE + ","
                 + SgShow2Columns.LASTWATCHED_MS + ","
                 + SgShow2Columns.UNWATCHED_COUNT;
+
+        String SELECT_ITEMS_AND_SHOWS_COLUMNS = "SELECT item_row_id as " + ListItems._ID + ","
+                + ITEMS_COLUMNS + ","
+                + SHOWS_COLUMNS;
+
+        String SELECT_TMDB_ITEMS_AND_SHOWS_COLUMNS = "SELECT "
+                + Qualified.LIST_ITEMS_ID + " as " + ListItems._ID + ","
+                + ITEMS_COLUMNS + ","
+                + SHOWS_COLUMNS;
     }
 
     interface References {
@@ -449,6 +476,99 @@ public class SeriesGuideDatabase {
 
             + ");";
 
+    /**
+     * Indexes show title and network to search shows by words (or their beginning) in any of them,
+     * like "mr robot" matches "Mr. Robot". Uses the same tokenizer as {@link #CREATE_SEARCH_TABLE}.
+     */
+    static final String CREATE_SHOW_SEARCH_TABLE = "CREATE VIRTUAL TABLE "
+            + Tables.SHOWS_SEARCH + " USING fts4(tokenize=unicode61 'remove_diacritics=0',"
+
+            // set shows table as external content table
+            + "content='" + Tables.SG_SHOW + "',"
+
+            + SgShow2Columns.TITLE + ","
+
+            + SgShow2Columns.NETWORK
+
+            + ");";
+
+    /**
+     * Bump to rebuild the search index on next open, like when changing {@link #CREATE_SEARCH_TABLE}
+     * or {@link #CREATE_SHOW_SEARCH_TABLE}.
+     */
+    private static final int SEARCH_INDEX_VERSION = 2;
+    private static final String KEY_SEARCH_INDEX_VERSION = "search_index_version";
+
+    private static final String TRIGGER_SEARCH_BEFORE_UPDATE = "sg_episode_search_before_update";
+    private static final String TRIGGER_SEARCH_AFTER_UPDATE = "sg_episode_search_after_update";
+    private static final String TRIGGER_SEARCH_BEFORE_DELETE = "sg_episode_search_before_delete";
+    private static final String TRIGGER_SEARCH_AFTER_INSERT = "sg_episode_search_after_insert";
+
+    private static final String TRIGGER_SHOW_SEARCH_BEFORE_UPDATE = "sg_show_search_before_update";
+    private static final String TRIGGER_SHOW_SEARCH_AFTER_UPDATE = "sg_show_search_after_update";
+    private static final String TRIGGER_SHOW_SEARCH_BEFORE_DELETE = "sg_show_search_before_delete";
+    private static final String TRIGGER_SHOW_SEARCH_AFTER_INSERT = "sg_show_search_after_insert";
+
+    private static final String SEARCH_COLUMNS_CHANGED = " WHEN old." + SgEpisode2Columns.TITLE
+            + " IS NOT new." + SgEpisode2Columns.TITLE
+            + " OR old." + SgEpisode2Columns.OVERVIEW + " IS NOT new." + SgEpisode2Columns.OVERVIEW;
+
+    private static final String SEARCH_DELETE_OLD = " BEGIN DELETE FROM " + Tables.EPISODES_SEARCH
+            + " WHERE docid=old." + SgEpisode2Columns._ID + "; END";
+
+    private static final String SEARCH_INSERT_NEW = " BEGIN INSERT INTO " + Tables.EPISODES_SEARCH
+            + "(docid," + SgEpisode2Columns.TITLE + "," + SgEpisode2Columns.OVERVIEW + ")"
+            + " VALUES(new." + SgEpisode2Columns._ID + ",new." + SgEpisode2Columns.TITLE
+            + ",new." + SgEpisode2Columns.OVERVIEW + "); END";
+
+    /**
+     * Keep the external content {@link #CREATE_SEARCH_TABLE} in sync with {@link Tables#SG_EPISODE}
+     * (see https://www.sqlite.org/fts3.html#_external_content_fts4_tables_). Old values must be
+     * removed before the content row changes as the search table reads them from it.
+     * Updates only touch the index if the title or overview actually changed.
+     */
+    private static final String[] CREATE_SEARCH_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS " + TRIGGER_SEARCH_BEFORE_UPDATE
+                    + " BEFORE UPDATE OF " + SgEpisode2Columns.TITLE + "," + SgEpisode2Columns.OVERVIEW
+                    + " ON " + Tables.SG_EPISODE + SEARCH_COLUMNS_CHANGED + SEARCH_DELETE_OLD,
+            "CREATE TRIGGER IF NOT EXISTS " + TRIGGER_SEARCH_AFTER_UPDATE
+                    + " AFTER UPDATE OF " + SgEpisode2Columns.TITLE + "," + SgEpisode2Columns.OVERVIEW
+                    + " ON " + Tables.SG_EPISODE + SEARCH_COLUMNS_CHANGED + SEARCH_INSERT_NEW,
+            "CREATE TRIGGER IF NOT EXISTS " + TRIGGER_SEARCH_BEFORE_DELETE
+                    + " BEFORE DELETE ON " + Tables.SG_EPISODE + SEARCH_DELETE_OLD,
+            "CREATE TRIGGER IF NOT EXISTS " + TRIGGER_SEARCH_AFTER_INSERT
+                    + " AFTER INSERT ON " + Tables.SG_EPISODE + SEARCH_INSERT_NEW
+    };
+
+    private static final String SHOW_SEARCH_COLUMNS_CHANGED = " WHEN old." + SgShow2Columns.TITLE
+            + " IS NOT new." + SgShow2Columns.TITLE
+            + " OR old." + SgShow2Columns.NETWORK + " IS NOT new." + SgShow2Columns.NETWORK;
+
+    private static final String SHOW_SEARCH_DELETE_OLD = " BEGIN DELETE FROM " + Tables.SHOWS_SEARCH
+            + " WHERE docid=old." + SgShow2Columns._ID + "; END";
+
+    private static final String SHOW_SEARCH_INSERT_NEW = " BEGIN INSERT INTO " + Tables.SHOWS_SEARCH
+            + "(docid," + SgShow2Columns.TITLE + "," + SgShow2Columns.NETWORK + ")"
+            + " VALUES(new." + SgShow2Columns._ID + ",new." + SgShow2Columns.TITLE
+            + ",new." + SgShow2Columns.NETWORK + "); END";
+
+    /**
+     * Like {@link #CREATE_SEARCH_TRIGGERS}, but keeps {@link #CREATE_SHOW_SEARCH_TABLE} in sync
+     * with {@link Tables#SG_SHOW}.
+     */
+    private static final String[] CREATE_SHOW_SEARCH_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS " + TRIGGER_SHOW_SEARCH_BEFORE_UPDATE
+                    + " BEFORE UPDATE OF " + SgShow2Columns.TITLE + "," + SgShow2Columns.NETWORK
+                    + " ON " + Tables.SG_SHOW + SHOW_SEARCH_COLUMNS_CHANGED + SHOW_SEARCH_DELETE_OLD,
+            "CREATE TRIGGER IF NOT EXISTS " + TRIGGER_SHOW_SEARCH_AFTER_UPDATE
+                    + " AFTER UPDATE OF " + SgShow2Columns.TITLE + "," + SgShow2Columns.NETWORK
+                    + " ON " + Tables.SG_SHOW + SHOW_SEARCH_COLUMNS_CHANGED + SHOW_SEARCH_INSERT_NEW,
+            "CREATE TRIGGER IF NOT EXISTS " + TRIGGER_SHOW_SEARCH_BEFORE_DELETE
+                    + " BEFORE DELETE ON " + Tables.SG_SHOW + SHOW_SEARCH_DELETE_OLD,
+            "CREATE TRIGGER IF NOT EXISTS " + TRIGGER_SHOW_SEARCH_AFTER_INSERT
+                    + " AFTER INSERT ON " + Tables.SG_SHOW + SHOW_SEARCH_INSERT_NEW
+    };
+
     @VisibleForTesting
     public static final String CREATE_LISTS_TABLE = "CREATE TABLE " + Tables.LISTS + " ("
 
@@ -1048,35 +1168,117 @@ public class SeriesGuideDatabase {
 //    }
 
     /**
-     * Drops the current {@link Tables#EPISODES_SEARCH} table and re-creates it with current data
-     * from {@link Tables#SG_EPISODE}.
+     * Creates the {@link Tables#EPISODES_SEARCH} and {@link Tables#SHOWS_SEARCH} tables and
+     * triggers that keep them up to date for a new database, so the (empty) indexes are up to date.
+     */
+    static void createFtsTable(Context context, SupportSQLiteDatabase db) {
+        db.execSQL(CREATE_SEARCH_TABLE);
+        db.execSQL(CREATE_SHOW_SEARCH_TABLE);
+        for (String createTrigger : CREATE_SEARCH_TRIGGERS) {
+            db.execSQL(createTrigger);
+        }
+        for (String createTrigger : CREATE_SHOW_SEARCH_TRIGGERS) {
+            db.execSQL(createTrigger);
+        }
+        setSearchIndexVersion(context, SEARCH_INDEX_VERSION);
+    }
+
+    /**
+     * Creates the triggers that keep {@link Tables#EPISODES_SEARCH} and {@link Tables#SHOWS_SEARCH}
+     * up to date if any are missing, like after upgrading or a migration re-created
+     * {@link Tables#SG_EPISODE}. Then rebuilds the show index and, as the episode index is likely
+     * outdated, marks it to be rebuilt by {@link #rebuildFtsTableIfNeeded(Context)}.
+     */
+    static void createFtsTriggersIfMissing(Context context, SupportSQLiteDatabase db) {
+        int triggerCount;
+        try (Cursor query = db.query("SELECT count(*) FROM sqlite_master WHERE type='trigger'"
+                + " AND name IN (?,?,?,?,?,?,?,?)", new Object[]{
+                TRIGGER_SEARCH_BEFORE_UPDATE, TRIGGER_SEARCH_AFTER_UPDATE,
+                TRIGGER_SEARCH_BEFORE_DELETE, TRIGGER_SEARCH_AFTER_INSERT,
+                TRIGGER_SHOW_SEARCH_BEFORE_UPDATE, TRIGGER_SHOW_SEARCH_AFTER_UPDATE,
+                TRIGGER_SHOW_SEARCH_BEFORE_DELETE, TRIGGER_SHOW_SEARCH_AFTER_INSERT})) {
+            triggerCount = query.moveToFirst() ? query.getInt(0) : 0;
+        }
+        if (triggerCount == CREATE_SEARCH_TRIGGERS.length + CREATE_SHOW_SEARCH_TRIGGERS.length) {
+            return;
+        }
+        Timber.d("Creating FTS triggers");
+        // Ensure the tables exist as the triggers write to them.
+        db.execSQL(CREATE_SEARCH_TABLE.replace("CREATE VIRTUAL TABLE ",
+                "CREATE VIRTUAL TABLE IF NOT EXISTS "));
+        db.execSQL(CREATE_SHOW_SEARCH_TABLE.replace("CREATE VIRTUAL TABLE ",
+                "CREATE VIRTUAL TABLE IF NOT EXISTS "));
+        for (String createTrigger : CREATE_SEARCH_TRIGGERS) {
+            db.execSQL(createTrigger);
+        }
+        for (String createTrigger : CREATE_SHOW_SEARCH_TRIGGERS) {
+            db.execSQL(createTrigger);
+        }
+        // Populate the show index right away so show search works before the next sync,
+        // it is small and an external content table so this is cheap.
+        db.execSQL("INSERT INTO " + Tables.SHOWS_SEARCH
+                + "(" + Tables.SHOWS_SEARCH + ") VALUES('rebuild')");
+        setSearchIndexVersion(context, 0);
+    }
+
+    private static void setSearchIndexVersion(Context context, int version) {
+        PreferenceManager.getDefaultSharedPreferences(context).edit()
+                .putInt(KEY_SEARCH_INDEX_VERSION, version)
+                .apply();
+    }
+
+    /**
+     * The search index is kept up to date by triggers, so this only rebuilds it if the search
+     * table has changed (see {@link #SEARCH_INDEX_VERSION}), triggers were missing or a previous
+     * rebuild failed.
+     */
+    public static void rebuildFtsTableIfNeeded(Context context) {
+        int version = PreferenceManager.getDefaultSharedPreferences(context)
+                .getInt(KEY_SEARCH_INDEX_VERSION, 0);
+        if (version != SEARCH_INDEX_VERSION) {
+            rebuildFtsTable(context);
+        }
+    }
+
+    /**
+     * Drops the current {@link Tables#EPISODES_SEARCH} and {@link Tables#SHOWS_SEARCH} tables and
+     * re-creates them with current data from {@link Tables#SG_EPISODE} and {@link Tables#SG_SHOW}.
      */
     public static void rebuildFtsTable(Context context) {
         Timber.d("Renewing FTS table");
         SupportSQLiteDatabase db = SgRoomDatabase.getInstance(context).getOpenHelper()
                 .getWritableDatabase();
         if (!recreateFtsTable(db)) {
+            setSearchIndexVersion(context, 0);
             return;
         }
-        rebuildFtsTableJellyBean(db);
+        if (rebuildFtsTableJellyBean(db)) {
+            setSearchIndexVersion(context, SEARCH_INDEX_VERSION);
+        } else {
+            setSearchIndexVersion(context, 0);
+        }
     }
 
     /**
      * Works with FTS4 search table.
      */
-    private static void rebuildFtsTableJellyBean(SupportSQLiteDatabase db) {
+    private static boolean rebuildFtsTableJellyBean(SupportSQLiteDatabase db) {
         try {
             db.beginTransaction();
             try {
                 db.execSQL("INSERT OR IGNORE INTO " + Tables.EPISODES_SEARCH
                         + "(" + Tables.EPISODES_SEARCH + ") VALUES('rebuild')");
+                db.execSQL("INSERT OR IGNORE INTO " + Tables.SHOWS_SEARCH
+                        + "(" + Tables.SHOWS_SEARCH + ") VALUES('rebuild')");
                 db.setTransactionSuccessful();
             } finally {
                 db.endTransaction();
             }
+            return true;
         } catch (SQLiteException e) {
             Timber.e(e, "rebuildFtsTableJellyBean: failed to populate table.");
             DBUtils.postDatabaseError(e);
+            return false;
         }
     }
 
@@ -1086,6 +1288,8 @@ public class SeriesGuideDatabase {
             try {
                 db.execSQL("drop table if exists " + Tables.EPISODES_SEARCH);
                 db.execSQL(CREATE_SEARCH_TABLE);
+                db.execSQL("drop table if exists " + Tables.SHOWS_SEARCH);
+                db.execSQL(CREATE_SHOW_SEARCH_TABLE);
                 db.setTransactionSuccessful();
             } finally {
                 db.endTransaction();
@@ -219,7 +219,7 @@ public class SeriesGuideProvider extends ContentProvider {
     /**
      * @param bulkInsert It seems to happen on occasion that TVDB has duplicate episodes, also
      * backup files may contain duplicates. Handle them by making the last insert win (ON CONFLICT
-     * REPLACE) for bulk inserts.
+     * REPLACE, see {@link #tryInsert}), for bulk inserts the same as for single inserts.
      */
     private Uri insertInTransaction(SgRoomDatabase room, Uri uri, ContentValues values,
             boolean bulkInsert) {
@@ -14,11 +14,14 @@ import androidx.room.migration.Migration
 import androidx.sqlite.db.SupportSQLiteDatabase
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.jobs.SgJob
+import com.battlelancer.seriesguide.jobs.SgJobHelper
 import com.battlelancer.seriesguide.lists.database.SgList
 import com.battlelancer.seriesguide.lists.database.SgListHelper
 import com.battlelancer.seriesguide.lists.database.SgListItem
 import com.battlelancer.seriesguide.movies.database.MovieHelper
 import com.battlelancer.seriesguide.movies.database.SgMovie
+import com.battlelancer.seriesguide.history.SgTraktHistory
+import com.battlelancer.seriesguide.history.SgTraktHistoryHelper
 import com.battlelancer.seriesguide.provider.SeriesGuideContract.Lists
 import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
 import com.battlelancer.seriesguide.shows.database.SgEpisode
@@ -30,12 +33,18 @@ import com.battlelancer.seriesguide.shows.database.SgSeason2Helper
 import com.battlelancer.seriesguide.shows.database.SgShow
 import com.battlelancer.seriesguide.shows.database.SgShow2
 import com.battlelancer.seriesguide.shows.database.SgShow2Helper
+import com.battlelancer.seriesguide.shows.database.SgUpcomingEpisode
+import com.battlelancer.seriesguide.shows.database.SgUpcomingEpisodeHelper
+import com.battlelancer.seriesguide.shows.database.UpcomingEpisodesTable
 import com.battlelancer.seriesguide.shows.history.ActivityType
 import com.battlelancer.seriesguide.shows.history.SgActivity
 import com.battlelancer.seriesguide.shows.history.SgActivityHelper
 import com.battlelancer.seriesguide.streaming.SgWatchProvider
 import com.battlelancer.seriesguide.streaming.SgWatchProviderHelper
 import com.battlelancer.seriesguide.streaming.SgWatchProviderShowMapping
+import com.battlelancer.seriesguide.streaming.SgWatchProviderShowUpdate
+import com.battlelancer.seriesguide.tmdbapi.SgPosterPath
+import com.battlelancer.seriesguide.tmdbapi.SgPosterPathHelper
 import timber.log.Timber
 
 @Database(
@@ -53,6 +62,10 @@ import timber.log.Timber
         SgJob::class,
         SgWatchProvider::class,
         SgWatchProviderShowMapping::class,
+        SgUpcomingEpisode::class,
+        SgPosterPath::class,
+        SgWatchProviderShowUpdate::class,
+        SgTraktHistory::class,
     ],
     version = SgRoomDatabase.VERSION,
     autoMigrations = [
@@ -67,6 +80,30 @@ import timber.log.Timber
         AutoMigration(
             from = SgRoomDatabase.VERSION_52_WATCH_PROVIDER_FILTERS,
             to = SgRoomDatabase.VERSION_53_SHOW_TMDB_RATINGS
+        ),
+        AutoMigration(
+            from = SgRoomDatabase.VERSION_53_SHOW_TMDB_RATINGS,
+            to = SgRoomDatabase.VERSION_54_EPISODE_NUMBER_INDEX
+        ),
+        AutoMigration(
+            from = SgRoomDatabase.VERSION_54_EPISODE_NUMBER_INDEX,
+            to = SgRoomDatabase.VERSION_55_RELEASE_TIME_INDEX
+        ),
+        AutoMigration(
+            from = SgRoomDatabase.VERSION_55_RELEASE_TIME_INDEX,
+            to = SgRoomDatabase.VERSION_56_UPCOMING_EPISODES
+        ),
+        AutoMigration(
+            from = SgRoomDatabase.VERSION_56_UPCOMING_EPISODES,
+            to = SgRoomDatabase.VERSION_57_POSTER_PATHS
+        ),
+        AutoMigration(
+            from = SgRoomDatabase.VERSION_57_POSTER_PATHS,
+            to = SgRoomDatabase.VERSION_58_WATCH_PROVIDER_SHOW_UPDATES
+        ),
+        AutoMigration(
+            from = SgRoomDatabase.VERSION_58_WATCH_PROVIDER_SHOW_UPDATES,
+            to = SgRoomDatabase.VERSION_59_TRAKT_HISTORY
         )
     ]
 )
@@ -75,6 +112,7 @@ abstract class SgRoomDatabase : RoomDatabase() {
     abstract fun sgShow2Helper(): SgShow2Helper
     abstract fun sgSeason2Helper(): SgSeason2Helper
     abstract fun sgEpisode2Helper(): SgEpisode2Helper
+    abstract fun sgUpcomingEpisodeHelper(): SgUpcomingEpisodeHelper
     abstract fun sgActivityHelper(): SgActivityHelper
     abstract fun sgListHelper(): SgListHelper
 
@@ -82,12 +120,18 @@ abstract class SgRoomDatabase : RoomDatabase() {
 
     abstract fun sgWatchProviderHelper(): SgWatchProviderHelper
 
+    abstract fun sgJobHelper(): SgJobHelper
+
+    abstract fun sgPosterPathHelper(): SgPosterPathHelper
+
+    abstract fun sgTraktHistoryHelper(): SgTraktHistoryHelper
+
     class SgRoomCallback(context: Context) : Callback() {
         private val context = context.applicationContext
 
         override fun onCreate(db: SupportSQLiteDatabase) {
             // manually create FTS table, not supported by Room
-            db.execSQL(SeriesGuideDatabase.CREATE_SEARCH_TABLE)
+            SeriesGuideDatabase.createFtsTable(context, db)
             // Add initial data, currently only first list
             val listName = context.getString(R.string.first_list)
             val listId = Lists.generateListId(listName)
@@ -99,6 +143,12 @@ abstract class SgRoomDatabase : RoomDatabase() {
             stmt.executeInsert()
             //db.execSQL("INSERT INTO `${Tables.LISTS}` (`${Lists.LIST_ID}`,`${Lists.NAME}`,`${Lists.ORDER}`) VALUES (`$listId`,`$listName`,0)")
         }
+
+        override fun onOpen(db: SupportSQLiteDatabase) {
+            // Triggers keeping the FTS table up to date are not managed by Room,
+            // so (re-)create them if missing, e.g. after an upgrade.
+            SeriesGuideDatabase.createFtsTriggersIfMissing(context, db)
+        }
     }
 
     companion object {
@@ -139,7 +189,37 @@ abstract class SgRoomDatabase : RoomDatabase() {
          * - Add [SgEpisode2.ratingTmdb] and [SgEpisode2.ratingTmdbVotes].
          */
         const val VERSION_53_SHOW_TMDB_RATINGS = 53
-        const val VERSION = VERSION_53_SHOW_TMDB_RATINGS
+
+        /**
+         * Add index on show ID, season and episode number of [SgEpisode2].
+         */
+        const val VERSION_54_EPISODE_NUMBER_INDEX = 54
+
+        /**
+         * Add index on release time, watched and collected flags and show ID of [SgEpisode2].
+         */
+        const val VERSION_55_RELEASE_TIME_INDEX = 55
+
+        /**
+         * Add [SgUpcomingEpisode] table.
+         */
+        const val VERSION_56_UPCOMING_EPISODES = 56
+
+        /**
+         * Add [SgPosterPath] table.
+         */
+        const val VERSION_57_POSTER_PATHS = 57
+
+        /**
+         * Add [SgWatchProviderShowUpdate] table.
+         */
+        const val VERSION_58_WATCH_PROVIDER_SHOW_UPDATES = 58
+
+        /**
+         * Add [SgTraktHistory] table.
+         */
+        const val VERSION_59_TRAKT_HISTORY = 59
+        const val VERSION = VERSION_59_TRAKT_HISTORY
 
         @Volatile
         private var instance: SgRoomDatabase? = null
@@ -184,6 +264,7 @@ abstract class SgRoomDatabase : RoomDatabase() {
                         .addCallback(SgRoomCallback(context))
                         .allowMainThreadQueries()
                         .build()
+                    UpcomingEpisodesTable.observeChanges(context, newInstance)
                     instance = newInstance
                     newInstance
                 }
@@ -0,0 +1,16 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.provider
+
+/**
+ * SQLite before 3.32.0, as shipped with older supported Android versions, allows at most 999
+ * variables per statement. Stay well below to leave room for other arguments of the statement.
+ */
+const val SQLITE_MAX_VARIABLES_PER_CHUNK = 500
+
+/**
+ * Splits into lists of at most [SQLITE_MAX_VARIABLES_PER_CHUNK] elements, so each can be bound
+ * as variables of a single statement, like for `IN (:ids)`.
+ */
+fun <T> Iterable<T>.chunkedForSqlite(): List<List<T>> = chunked(SQLITE_MAX_VARIABLES_PER_CHUNK)
@@ -16,6 +16,7 @@ import timber.log.Timber
 object AppSettings {
 
     const val KEY_VERSION = "oldversioncode"
+    private const val KEY_SHOW_WHATS_NEW = "com.battlelancer.seriesguide.showWhatsNew"
 
     @Deprecated("")
     const val KEY_GOOGLEANALYTICS = "enableGAnalytics"
@@ -43,6 +44,26 @@ object AppSettings {
         return lastVersionCode
     }
 
+    /**
+     * Remembers to let the user know the app was updated, even if the upgrade ran in a
+     * background process that was stopped before the UI was shown.
+     */
+    fun setShowWhatsNew(context: Context) {
+        PreferenceManager.getDefaultSharedPreferences(context).edit(commit = true) {
+            putBoolean(KEY_SHOW_WHATS_NEW, true)
+        }
+    }
+
+    /**
+     * Returns true only once after [setShowWhatsNew].
+     */
+    fun consumeShowWhatsNew(context: Context): Boolean {
+        val prefs = PreferenceManager.getDefaultSharedPreferences(context)
+        if (!prefs.getBoolean(KEY_SHOW_WHATS_NEW, false)) return false
+        prefs.edit { remove(KEY_SHOW_WHATS_NEW) }
+        return true
+    }
+
     @JvmStatic
     fun shouldAskForFeedback(context: Context): Boolean {
         val prefs = PreferenceManager.getDefaultSharedPreferences(context)
@@ -18,6 +18,12 @@ public class UpdateSettings {
 
     public static final String KEY_FAILED_COUNTER = "com.battlelancer.seriesguide.failedcounter";
 
+    public static final String KEY_SHOW_UPDATE_WORKERS
+            = "com.battlelancer.seriesguide.showupdateworkers";
+
+    private static final int SHOW_UPDATE_WORKERS_DEFAULT = 4;
+    private static final int SHOW_UPDATE_WORKERS_MAX = 8;
+
     /**
      * Whether the user wants us to download larger chunks of data (e.g. images) only over a Wi-Fi
      * connection.
@@ -48,4 +54,14 @@ public class UpdateSettings {
         return PreferenceManager.getDefaultSharedPreferences(context).getInt(KEY_FAILED_COUNTER, 0);
     }
 
+    /**
+     * How many shows to download at once when updating multiple shows. If 1, shows are
+     * updated one after another.
+     */
+    public static int getShowUpdateWorkerCount(Context context) {
+        int workers = PreferenceManager.getDefaultSharedPreferences(context)
+                .getInt(KEY_SHOW_UPDATE_WORKERS, SHOW_UPDATE_WORKERS_DEFAULT);
+        return Math.max(1, Math.min(workers, SHOW_UPDATE_WORKERS_MAX));
+    }
+
 }
@@ -11,6 +11,7 @@ import androidx.activity.viewModels
 import androidx.lifecycle.ViewModelProvider
 import androidx.lifecycle.lifecycleScope
 import androidx.viewpager2.widget.ViewPager2
+import com.battlelancer.seriesguide.AppStartup
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.SgApp
 import com.battlelancer.seriesguide.api.Intents
@@ -30,7 +31,6 @@ import com.battlelancer.seriesguide.sync.AccountUtils
 import com.battlelancer.seriesguide.ui.BaseTopActivity
 import com.battlelancer.seriesguide.ui.OverviewActivity
 import com.battlelancer.seriesguide.ui.TabStripAdapter
-import com.battlelancer.seriesguide.util.AppUpgrade
 import com.battlelancer.seriesguide.util.TaskManager
 import com.battlelancer.seriesguide.util.ThemeUtils
 import com.battlelancer.seriesguide.util.Utils
@@ -45,7 +45,7 @@ import kotlinx.coroutines.launch
 
 /**
  * Provides the apps main screen, displays tabs for shows, discover, history,
- * recent and upcoming episodes. Runs upgrade code and checks billing state.
+ * recent and upcoming episodes. Announces app updates and checks billing state.
  */
 open class ShowsActivityImpl : BaseTopActivity(), AddShowDialogFragment.OnAddShowListener {
 
@@ -78,16 +78,19 @@ open class ShowsActivityImpl : BaseTopActivity(), AddShowDialogFragment.OnAddSho
             AccountUtils.createAccount(this)
         }
 
-        if (AppUpgrade(applicationContext).upgradeIfNewVersion()) {
-            // Let the user know the app has updated.
-            Snackbar.make(snackbarParentView, R.string.updated, Snackbar.LENGTH_LONG)
-                .setAction(R.string.updated_what_is_new) {
-                    WebTools.openInApp(
-                        this@ShowsActivityImpl,
-                        getString(R.string.url_release_notes)
-                    )
-                }
-                .show()
+        lifecycleScope.launch {
+            // Upgrade runs in the background startup stage.
+            if (AppStartup.consumeWasUpgraded(applicationContext)) {
+                // Let the user know the app has updated.
+                Snackbar.make(snackbarParentView, R.string.updated, Snackbar.LENGTH_LONG)
+                    .setAction(R.string.updated_what_is_new) {
+                        WebTools.openInApp(
+                            this@ShowsActivityImpl,
+                            getString(R.string.url_release_notes)
+                        )
+                    }
+                    .show()
+            }
         }
 
         // may launch from a notification, then set last cleared time
@@ -48,7 +48,14 @@ import com.battlelancer.seriesguide.shows.episodes.EpisodeFlags
     )],
     indices = [
         Index(SgSeason2Columns.REF_SEASON_ID),
-        Index(SgShow2Columns.REF_SHOW_ID)
+        Index(SgShow2Columns.REF_SHOW_ID),
+        // Added with SgRoomDatabase.VERSION_54_EPISODE_NUMBER_INDEX
+        // to look up episodes by number, like when downloading flags from Cloud.
+        Index(SgShow2Columns.REF_SHOW_ID, SEASON, NUMBER),
+        // Added with SgRoomDatabase.VERSION_55_RELEASE_TIME_INDEX
+        // to look up episodes by release time range, like for the calendar, widgets and
+        // notifications, and filter by flags without reading the table.
+        Index(FIRSTAIREDMS, WATCHED, COLLECTED, SgShow2Columns.REF_SHOW_ID)
     ]
 )
 data class SgEpisode2(
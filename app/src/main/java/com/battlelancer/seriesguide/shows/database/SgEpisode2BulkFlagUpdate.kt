@@ -0,0 +1,134 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.shows.database
+
+import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgEpisode2Columns
+import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgShow2Columns
+import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+
+/**
+ * Applies watched, plays and collected flags of many episodes identified by show ID, season and
+ * episode number, like downloaded from Cloud.
+ *
+ * Instead of running up to two UPDATE statements per episode, stages all updates in a temporary
+ * table using a single prepared statement, then applies them with one UPDATE statement for
+ * watched flags and one for collected flags. Both look up episodes using the index on
+ * show ID, season and episode number (see [SgEpisode2]).
+ */
+object SgEpisode2BulkFlagUpdate {
+
+    private const val TABLE = "temp.sg_episode_flag_updates"
+    private const val SHOW_ID = "show_id"
+    private const val SEASON = "season"
+    private const val NUMBER = "number"
+    private const val WATCHED = "watched"
+    private const val PLAYS = "plays"
+    private const val COLLECTED = "collected"
+
+    private const val CREATE_TABLE = "CREATE TABLE IF NOT EXISTS $TABLE (" +
+            "$SHOW_ID INTEGER NOT NULL," +
+            "$SEASON INTEGER NOT NULL," +
+            "$NUMBER INTEGER NOT NULL," +
+            "$WATCHED INTEGER," +
+            "$PLAYS INTEGER," +
+            "$COLLECTED INTEGER," +
+            "PRIMARY KEY ($SHOW_ID, $SEASON, $NUMBER))"
+
+    private const val INSERT = "INSERT INTO $TABLE " +
+            "($SHOW_ID, $SEASON, $NUMBER, $WATCHED, $PLAYS, $COLLECTED) VALUES (?, ?, ?, ?, ?, ?)"
+
+    private const val EPISODES = Tables.SG_EPISODE
+
+    private const val MATCHES_EPISODE = "u.$SHOW_ID = $EPISODES.${SgShow2Columns.REF_SHOW_ID}" +
+            " AND u.$SEASON = $EPISODES.${SgEpisode2Columns.SEASON}" +
+            " AND u.$NUMBER = $EPISODES.${SgEpisode2Columns.NUMBER}"
+
+    /**
+     * Row IDs of episodes that have an update, needs a condition on the update appended.
+     */
+    private const val SELECT_EPISODE_IDS_WHERE =
+        "SELECT $EPISODES.${SgEpisode2Columns._ID} FROM $TABLE AS u" +
+                " JOIN $EPISODES ON $MATCHES_EPISODE WHERE "
+
+    private const val UPDATE_WATCHED = "UPDATE $EPISODES SET " +
+            "${SgEpisode2Columns.WATCHED} = (SELECT u.$WATCHED FROM $TABLE AS u WHERE $MATCHES_EPISODE)," +
+            "${SgEpisode2Columns.PLAYS} = (SELECT u.$PLAYS FROM $TABLE AS u WHERE $MATCHES_EPISODE)" +
+            " WHERE ${SgEpisode2Columns._ID} IN (" +
+            SELECT_EPISODE_IDS_WHERE + "u.$WATCHED IS NOT NULL AND u.$PLAYS IS NOT NULL)"
+
+    private const val UPDATE_COLLECTED = "UPDATE $EPISODES SET " +
+            "${SgEpisode2Columns.COLLECTED} = (SELECT u.$COLLECTED FROM $TABLE AS u WHERE $MATCHES_EPISODE)" +
+            " WHERE ${SgEpisode2Columns._ID} IN (" +
+            SELECT_EPISODE_IDS_WHERE + "u.$COLLECTED IS NOT NULL)"
+
+    /**
+     * Updates watched flag and plays of episodes if both are not null,
+     * updates collected flag if not null. If an episode is contained multiple times,
+     * later values win, just like if applying updates one by one.
+     *
+     * Runs in a single transaction.
+     */
+    @JvmStatic
+    fun apply(database: SgRoomDatabase, episodes: List<SgEpisode2UpdateByNumber>) {
+        if (episodes.isEmpty()) return
+        val updates = mergeByNumber(episodes)
+
+        database.runInTransaction {
+            // Note: temporary tables are per connection, Room uses the same one for the
+            // whole transaction.
+            val db = database.openHelper.writableDatabase
+            db.execSQL(CREATE_TABLE)
+            db.execSQL("DELETE FROM $TABLE")
+
+            val insert = db.compileStatement(INSERT)
+            try {
+                for (update in updates) {
+                    insert.clearBindings()
+                    insert.bindLong(1, update.showId)
+                    insert.bindLong(2, update.seasonNumber.toLong())
+                    insert.bindLong(3, update.episodeNumber.toLong())
+                    update.watched?.let { insert.bindLong(4, it.toLong()) }
+                    update.plays?.let { insert.bindLong(5, it.toLong()) }
+                    update.collected?.let { insert.bindLong(6, if (it) 1 else 0) }
+                    insert.executeInsert()
+                }
+            } finally {
+                insert.close()
+            }
+
+            db.execSQL(UPDATE_WATCHED)
+            db.execSQL(UPDATE_COLLECTED)
+            db.execSQL("DELETE FROM $TABLE")
+        }
+    }
+
+    private data class EpisodeNumber(
+        val showId: Long,
+        val seasonNumber: Int,
+        val episodeNumber: Int
+    )
+
+    private fun mergeByNumber(
+        episodes: List<SgEpisode2UpdateByNumber>
+    ): Collection<SgEpisode2UpdateByNumber> {
+        val merged = LinkedHashMap<EpisodeNumber, SgEpisode2UpdateByNumber>(episodes.size)
+        for (episode in episodes) {
+            val key = EpisodeNumber(episode.showId, episode.seasonNumber, episode.episodeNumber)
+            val existing = merged[key]
+            merged[key] = if (existing == null) {
+                episode
+            } else {
+                val hasWatched = episode.watched != null && episode.plays != null
+                existing.copy(
+                    watched = if (hasWatched) episode.watched else existing.watched,
+                    plays = if (hasWatched) episode.plays else existing.plays,
+                    collected = episode.collected ?: existing.collected
+                )
+            }
+        }
+        return merged.values
+    }
+
+}
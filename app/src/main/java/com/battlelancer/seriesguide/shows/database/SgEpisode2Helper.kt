@@ -51,6 +51,8 @@ import com.battlelancer.seriesguide.settings.DisplaySettings
 import com.battlelancer.seriesguide.shows.episodes.EpisodeFlags
 import com.battlelancer.seriesguide.shows.episodes.EpisodesSettings
 import com.battlelancer.seriesguide.util.TimeTools
+import kotlin.math.max
+import kotlin.math.min
 
 @Dao
 interface SgEpisode2Helper {
@@ -210,14 +212,13 @@ interface SgEpisode2Helper {
     @Query("SELECT _id, episode_number, episode_season_number, episode_watched, episode_plays, episode_collected FROM sg_episode WHERE series_id = :showId AND episode_tmdb_id > 0 AND (episode_watched != ${EpisodeFlags.UNWATCHED} OR episode_collected = 1)")
     fun getEpisodesForHexagonSync(showId: Long): List<SgEpisode2ForSync>
 
-    @Query("SELECT _id, episode_number, episode_season_number, episode_watched, episode_plays, episode_collected FROM sg_episode WHERE season_id=:seasonId")
-    fun getEpisodesForTraktSync(seasonId: Long): List<SgEpisode2ForSync>
-
-    @Query("SELECT _id, episode_number, episode_season_number, episode_watched, episode_plays, episode_collected FROM sg_episode WHERE season_id=:seasonId AND episode_watched = 1 ORDER BY episode_number ASC")
-    fun getWatchedEpisodesForTraktSync(seasonId: Long): List<SgEpisode2ForSync>
-
-    @Query("SELECT _id, episode_number, episode_season_number, episode_watched, episode_plays, episode_collected FROM sg_episode WHERE season_id=:seasonId AND episode_collected = 1 ORDER BY episode_number ASC")
-    fun getCollectedEpisodesForTraktSync(seasonId: Long): List<SgEpisode2ForSync>
+    /**
+     * Gets episodes of all given shows at once.
+     * Pass at most one chunk of [showIds],
+     * see [com.battlelancer.seriesguide.provider.chunkedForSqlite].
+     */
+    @Query("SELECT series_id, episode_number, episode_season_number, episode_watched, episode_plays, episode_collected FROM sg_episode WHERE series_id IN (:showIds)")
+    fun getEpisodesForTraktSync(showIds: List<Long>): List<SgEpisode2ForTraktSync>
 
     /**
      * Gets episodes of season ordered by episode number.
@@ -251,11 +252,17 @@ interface SgEpisode2Helper {
     @Query("SELECT COUNT(_id) FROM sg_episode WHERE episode_season_number != 0")
     fun countEpisodesWithoutSpecials(): Int
 
-    @Query("SELECT COUNT(_id) FROM sg_episode WHERE episode_watched == ${EpisodeFlags.WATCHED}")
-    fun countWatchedEpisodes(): Int
+    /**
+     * Count of watched episodes and their runtime in minutes, using the runtime of their show.
+     */
+    @Query("SELECT COUNT(sg_episode._id) AS count, SUM(series_runtime) AS runtime FROM sg_episode LEFT OUTER JOIN sg_show ON sg_episode.series_id = sg_show._id WHERE episode_watched == ${EpisodeFlags.WATCHED}")
+    fun getStatsWatched(): SgEpisode2Stats
 
-    @Query("SELECT COUNT(_id) FROM sg_episode WHERE episode_watched == ${EpisodeFlags.WATCHED} AND episode_season_number != 0")
-    fun countWatchedEpisodesWithoutSpecials(): Int
+    /**
+     * Like [getStatsWatched], but excludes specials.
+     */
+    @Query("SELECT COUNT(sg_episode._id) AS count, SUM(series_runtime) AS runtime FROM sg_episode LEFT OUTER JOIN sg_show ON sg_episode.series_id = sg_show._id WHERE episode_watched == ${EpisodeFlags.WATCHED} AND episode_season_number != 0")
+    fun getStatsWatchedWithoutSpecials(): SgEpisode2Stats
 
     /**
      * Count episodes of a show excluding specials, but including those without a release date.
@@ -263,12 +270,6 @@ interface SgEpisode2Helper {
     @Query("SELECT COUNT(_id) FROM sg_episode WHERE series_id = :showId AND episode_season_number != 0")
     suspend fun countEpisodesOfShow(showId: Long): Int
 
-    @Query("SELECT COUNT(_id) FROM sg_episode WHERE series_id = :showId AND episode_watched = ${EpisodeFlags.WATCHED}")
-    fun countWatchedEpisodesOfShow(showId: Long): Int
-
-    @Query("SELECT COUNT(_id) FROM sg_episode WHERE series_id = :showId AND episode_watched = ${EpisodeFlags.WATCHED} AND episode_season_number != 0")
-    fun countWatchedEpisodesOfShowWithoutSpecials(showId: Long): Int
-
     /**
      * Returns if at least one episode of the show is collected. Excludes specials.
      */
@@ -383,19 +384,6 @@ interface SgEpisode2Helper {
     )
     fun setSeasonNotWatchedAndRemovePlays(seasonId: Long): Int
 
-    @Query(
-        """UPDATE sg_episode SET episode_watched = 0, episode_plays = 0
-        WHERE season_id = :seasonId AND episode_watched == ${EpisodeFlags.WATCHED}"""
-    )
-    fun setSeasonNotWatchedExcludeSkipped(seasonId: Long): Int
-
-    @Transaction
-    fun setSeasonsNotWatchedExcludeSkipped(seasonIds: List<Long>) {
-        for (seasonId in seasonIds) {
-            setSeasonNotWatchedExcludeSkipped(seasonId)
-        }
-    }
-
     @Query(
         """UPDATE sg_episode SET episode_watched = 0, episode_plays = 0
         WHERE series_id = :showId AND episode_watched == ${EpisodeFlags.WATCHED}"""
@@ -421,9 +409,6 @@ interface SgEpisode2Helper {
     )
     fun getNotWatchedOrSkippedEpisodeNumbersOfSeason(seasonId: Long): List<SgEpisode2Numbers>
 
-    @Query("UPDATE sg_episode SET episode_watched = 1, episode_plays = 1 WHERE season_id = :seasonId")
-    fun setSeasonWatched(seasonId: Long): Int
-
     /**
      * Sets all not watched or skipped episodes of a season as watched and adds a play.
      *
@@ -502,25 +487,12 @@ interface SgEpisode2Helper {
     )
     fun setShowWatchedAndAddPlay(showId: Long, currentTimePlusOneHour: Long): Int
 
-    @Update(entity = SgEpisode2::class)
-    fun updateEpisodesWatched(episodes: List<SgEpisode2WatchedUpdate>): Int
-
-    @Update(entity = SgEpisode2::class)
-    fun updateEpisodesCollected(episodes: List<SgEpisode2CollectedUpdate>): Int
-
     @Query("UPDATE sg_episode SET episode_collected = :isCollected WHERE _id = :episodeId")
     fun updateCollected(episodeId: Long, isCollected: Boolean): Int
 
     @Query("UPDATE sg_episode SET episode_collected = :isCollected WHERE season_id = :seasonId")
     fun updateCollectedOfSeason(seasonId: Long, isCollected: Boolean): Int
 
-    @Transaction
-    fun updateCollectedOfSeasons(seasonIds: List<Long>, isCollected: Boolean) {
-        for (seasonId in seasonIds) {
-            updateCollectedOfSeason(seasonId, isCollected)
-        }
-    }
-
     @Query("UPDATE sg_episode SET episode_collected = :isCollected WHERE series_id = :showId")
     fun updateCollectedOfShow(showId: Long, isCollected: Boolean): Int
 
@@ -534,46 +506,6 @@ interface SgEpisode2Helper {
     @Query("UPDATE sg_episode SET episode_collected = :isCollected WHERE series_id = :showId AND episode_season_number != 0")
     fun updateCollectedOfShowExcludeSpecials(showId: Long, isCollected: Boolean): Int
 
-    @Query("UPDATE sg_episode SET episode_watched = :watched, episode_plays = :plays WHERE series_id = :showId AND episode_season_number = :seasonNumber AND episode_number = :episodeNumber")
-    fun updateWatchedByNumber(
-        showId: Long,
-        seasonNumber: Int,
-        episodeNumber: Int,
-        watched: Int,
-        plays: Int
-    )
-
-    @Query("UPDATE sg_episode SET episode_collected = :isCollected WHERE series_id = :showId AND episode_season_number = :seasonNumber AND episode_number = :episodeNumber")
-    fun updateCollectedByNumber(
-        showId: Long,
-        seasonNumber: Int,
-        episodeNumber: Int,
-        isCollected: Boolean
-    )
-
-    @Transaction
-    fun updateWatchedAndCollectedByNumber(episodes: List<SgEpisode2UpdateByNumber>) {
-        for (episode in episodes) {
-            if (episode.watched != null && episode.plays != null) {
-                updateWatchedByNumber(
-                    episode.showId,
-                    episode.seasonNumber,
-                    episode.episodeNumber,
-                    episode.watched,
-                    episode.plays
-                )
-            }
-            if (episode.collected != null) {
-                updateCollectedByNumber(
-                    episode.showId,
-                    episode.seasonNumber,
-                    episode.episodeNumber,
-                    episode.collected
-                )
-            }
-        }
-    }
-
     /**
      * Note: currently last updated value is unused, all episodes are always updated.
      * See [com.battlelancer.seriesguide.shows.tools.AddUpdateShowTools].
@@ -682,8 +614,24 @@ data class SgEpisode2WithShow(
 
         private const val CALENDAR_DAY_LIMIT_MS = 31 * DateUtils.DAY_IN_MILLIS
 
+        /**
+         * Returns the earliest and latest release time of episodes returned by
+         * [buildEpisodesWithShowQuery] if not using an infinite calendar.
+         */
+        fun getCalendarReleaseTimeRange(context: Context): Pair<Long, Long> {
+            val recentThreshold = TimeTools.getCurrentTime(context) - DateUtils.HOUR_IN_MILLIS
+            val now = System.currentTimeMillis()
+            return Pair(
+                min(recentThreshold, now - CALENDAR_DAY_LIMIT_MS),
+                max(recentThreshold, now + CALENDAR_DAY_LIMIT_MS)
+            )
+        }
+
         /**
          * For use with [SgEpisode2Helper.getEpisodesWithShowDataSource].
+         *
+         * Set [select] to [SgUpcomingEpisode.SELECT] to read from the upcoming episodes table
+         * instead, see [UpcomingEpisodesTable].
          */
         fun buildEpisodesWithShowQuery(
             context: Context,
@@ -692,7 +640,8 @@ data class SgEpisode2WithShow(
             isOnlyFavorites: Boolean,
             isOnlyUnwatched: Boolean,
             isOnlyCollected: Boolean,
-            isOnlyPremieres: Boolean
+            isOnlyPremieres: Boolean,
+            select: String = SELECT
         ): String {
             // go an hour back in time, so episodes move to recent one hour late
             val recentThreshold = TimeTools.getCurrentTime(context) - DateUtils.HOUR_IN_MILLIS
@@ -758,7 +707,7 @@ data class SgEpisode2WithShow(
                 query.append(" AND ").append(SELECTION_ONLY_PREMIERES)
             }
 
-            return "$SELECT WHERE $query ORDER BY $sortOrder "
+            return "$select WHERE $query ORDER BY $sortOrder "
         }
     }
 }
@@ -842,6 +791,15 @@ data class SgEpisode2ForSync(
     @ColumnInfo(name = COLLECTED) val collected: Boolean
 )
 
+data class SgEpisode2ForTraktSync(
+    @ColumnInfo(name = SgShow2Columns.REF_SHOW_ID) val showId: Long,
+    @ColumnInfo(name = NUMBER) val number: Int,
+    @ColumnInfo(name = SEASON) val season: Int,
+    @ColumnInfo(name = WATCHED) val watched: Int,
+    @ColumnInfo(name = PLAYS) val plays: Int,
+    @ColumnInfo(name = COLLECTED) val collected: Boolean
+)
+
 /** See [SgEpisode2]. */
 data class SgEpisode2Update(
     @ColumnInfo(name = _ID) val id: Long,
@@ -859,22 +817,16 @@ data class SgEpisode2Update(
     @ColumnInfo(name = RATING_TMDB_VOTES) val ratingTmdbVotes: Int?,
 )
 
-data class SgEpisode2WatchedUpdate(
-    @ColumnInfo(name = _ID) val id: Long,
-    @ColumnInfo(name = WATCHED) val watched: Int,
-    @ColumnInfo(name = PLAYS) val plays: Int,
-)
-
-data class SgEpisode2CollectedUpdate(
-    @ColumnInfo(name = _ID) val id: Long,
-    @ColumnInfo(name = COLLECTED) val collected: Boolean
-)
-
 data class SgEpisode2TmdbIdUpdate(
     @ColumnInfo(name = _ID) val id: Long,
     @ColumnInfo(name = TMDB_ID) val tmdbId: Int
 )
 
+data class SgEpisode2Stats(
+    val count: Int,
+    val runtime: Long?
+)
+
 data class SgEpisode2UpdateByNumber(
     val showId: Long,
     val episodeNumber: Int,
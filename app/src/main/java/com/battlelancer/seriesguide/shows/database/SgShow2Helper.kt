@@ -12,11 +12,14 @@ import androidx.room.Query
 import androidx.room.RawQuery
 import androidx.room.Transaction
 import androidx.room.Update
+import androidx.sqlite.db.SimpleSQLiteQuery
 import androidx.sqlite.db.SupportSQLiteQuery
 import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgEpisode2Columns
 import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgShow2Columns
+import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
 import com.battlelancer.seriesguide.shows.tools.ShowStatus
 import com.battlelancer.seriesguide.sync.ShowLastWatchedInfo
+import kotlinx.coroutines.flow.Flow
 
 @Dao
 interface SgShow2Helper {
@@ -66,6 +69,12 @@ interface SgShow2Helper {
     @Query("SELECT series_trakt_id FROM sg_show WHERE _id = :id")
     fun getShowTraktId(id: Long): Int
 
+    /**
+     * Only shows that have a Trakt ID.
+     */
+    @Query("SELECT _id, series_trakt_id FROM sg_show WHERE series_trakt_id > 0")
+    fun getShowTraktIds(): List<SgShow2TraktId>
+
     @Query("SELECT series_tmdb_id FROM sg_show WHERE _id=:id")
     fun getShowTmdbId(id: Long): Int
 
@@ -90,12 +99,42 @@ interface SgShow2Helper {
     @RawQuery(observedEntities = [SgShow2::class])
     fun getShowsLiveData(query: SupportSQLiteQuery): LiveData<MutableList<SgShow2ForLists>>
 
-    @Query("SELECT sg_show._id, series_lastwatchedid, episode_number, episode_season_number, episode_firstairedms, episode_title, episode_plays FROM sg_show LEFT OUTER JOIN sg_episode ON series_lastwatchedid = sg_episode._id WHERE sg_show._id = :id")
-    fun getShowWithLastWatchedEpisode(id: Long): SgShow2LastWatchedEpisode?
+    @RawQuery(observedEntities = [SgShow2::class])
+    fun getShowsFlow(query: SupportSQLiteQuery): Flow<List<SgShow2ForLists>>
+
+    /**
+     * Returns shows where words of the title or network start with all words of [searchTerm],
+     * using the [Tables.SHOWS_SEARCH] index. If [searchTerm] has no words, returns all shows
+     * sorted by last watched.
+     */
+    fun searchShowsFlow(searchTerm: String?): Flow<List<SgShow2ForLists>> {
+        val matchQuery = buildShowSearchMatchQuery(searchTerm)
+        val query = if (matchQuery == null) {
+            SimpleSQLiteQuery(
+                "SELECT ${SgShow2ForLists.SELECT_COLUMNS} FROM ${Tables.SG_SHOW}" +
+                        " ORDER BY ${SgShow2Columns.SORT_LAST_WATCHED},${SgShow2Columns.SORT_TITLE}"
+            )
+        } else {
+            SimpleSQLiteQuery(
+                "SELECT ${SgShow2ForLists.SELECT_COLUMNS} FROM ${Tables.SG_SHOW}" +
+                        " WHERE ${SgShow2Columns._ID} IN (SELECT docid FROM ${Tables.SHOWS_SEARCH}" +
+                        " WHERE ${Tables.SHOWS_SEARCH} MATCH ?)" +
+                        " ORDER BY ${SgShow2Columns.SORT_TITLE}",
+                arrayOf(matchQuery)
+            )
+        }
+        return getShowsFlow(query)
+    }
 
     @Query("SELECT sg_show._id, series_lastwatchedid, episode_number, episode_season_number, episode_firstairedms, episode_title, episode_plays FROM sg_show LEFT OUTER JOIN sg_episode ON series_lastwatchedid = sg_episode._id")
     fun getShowsWithLastWatchedEpisode(): List<SgShow2LastWatchedEpisode>
 
+    /**
+     * See [com.battlelancer.seriesguide.shows.tools.NextEpisodeUpdater].
+     */
+    @RawQuery
+    fun getShowsNextEpisode(query: SupportSQLiteQuery): List<SgShow2NextEpisode>
+
     @Query("SELECT _id, series_status, series_next, series_runtime FROM sg_show")
     fun getStats(): List<SgShow2Stats>
 
@@ -247,6 +286,22 @@ interface SgShow2Helper {
 
     @Query("UPDATE sg_show SET series_status = ${ShowStatus.CANCELED} WHERE series_status = 3")
     fun migrateCanceledShowStatus()
+
+    companion object {
+        private val NOT_A_WORD_CHAR = Regex("[^\\p{L}\\p{N}]+")
+
+        /**
+         * Splits [searchTerm] into words like the search table tokenizer does, so ignoring
+         * punctuation (e.g. "Mr Robot" matches "Mr. Robot"), and matches anything starting with
+         * each word. Returns null if there are no words.
+         */
+        fun buildShowSearchMatchQuery(searchTerm: String?): String? {
+            if (searchTerm.isNullOrBlank()) return null
+            val words = searchTerm.split(NOT_A_WORD_CHAR).filter { it.isNotEmpty() }
+            if (words.isEmpty()) return null
+            return words.joinToString(" ") { "\"$it*\"" }
+        }
+    }
 }
 
 data class SgShow2Ids(
@@ -255,6 +310,11 @@ data class SgShow2Ids(
     @ColumnInfo(name = SgShow2Columns.TVDB_ID) val tvdbId: Int?
 )
 
+data class SgShow2TraktId(
+    @ColumnInfo(name = SgShow2Columns._ID) val id: Long,
+    @ColumnInfo(name = SgShow2Columns.TRAKT_ID) val traktId: Int
+)
+
 data class SgShow2UpdateInfo(
     @ColumnInfo(name = SgShow2Columns._ID) val id: Long,
     @ColumnInfo(name = SgShow2Columns.LASTUPDATED) val lastUpdatedMs: Long
@@ -300,6 +360,21 @@ data class SgShow2ForLists(
         get() = customReleaseTime ?: SgShow2.CUSTOM_RELEASE_TIME_NOT_SET
     val customReleaseDayOffsetOrDefault: Int
         get() = customReleaseDayOffset ?: SgShow2.CUSTOM_RELEASE_DAY_OFFSET_NOT_SET
+
+    companion object {
+        /**
+         * Only the columns of this, to not load e.g. the overview of each show.
+         */
+        const val SELECT_COLUMNS = "${SgShow2Columns._ID},${SgShow2Columns.TVDB_ID}," +
+                "${SgShow2Columns.TITLE},${SgShow2Columns.RELEASE_TIME}," +
+                "${SgShow2Columns.RELEASE_WEEKDAY},${SgShow2Columns.RELEASE_COUNTRY}," +
+                "${SgShow2Columns.RELEASE_TIMEZONE},${SgShow2Columns.CUSTOM_RELEASE_TIME}," +
+                "${SgShow2Columns.CUSTOM_RELEASE_DAY_OFFSET},${SgShow2Columns.CUSTOM_RELEASE_TIME_ZONE}," +
+                "${SgShow2Columns.NETWORK},${SgShow2Columns.STATUS},${SgShow2Columns.NEXTEPISODE}," +
+                "${SgShow2Columns.POSTER},${SgShow2Columns.POSTER_SMALL}," +
+                "${SgShow2Columns.NEXTAIRDATEMS},${SgShow2Columns.NEXTTEXT}," +
+                "${SgShow2Columns.UNWATCHED_COUNT},${SgShow2Columns.FAVORITE},${SgShow2Columns.HIDDEN}"
+    }
 }
 
 /**
@@ -315,6 +390,19 @@ data class SgShow2LastWatchedEpisode(
     @ColumnInfo(name = SgEpisode2Columns.PLAYS) val episodePlays: Int?,
 )
 
+/**
+ * Note: using LEFT OUTER JOIN, so next episode values are null if there is no next episode!
+ */
+data class SgShow2NextEpisode(
+    @ColumnInfo(name = "show_id") val showId: Long,
+    @ColumnInfo(name = "unwatched_count") val unwatchedCount: Int,
+    @ColumnInfo(name = "next_id") val episodeId: Long?,
+    @ColumnInfo(name = "next_season") val season: Int?,
+    @ColumnInfo(name = "next_number") val number: Int?,
+    @ColumnInfo(name = "next_title") val title: String?,
+    @ColumnInfo(name = "next_release_ms") val releaseMs: Long?
+)
+
 data class SgShow2Stats(
     @ColumnInfo(name = SgShow2Columns._ID) val id: Long,
     @ColumnInfo(name = SgShow2Columns.STATUS) val status: Int,
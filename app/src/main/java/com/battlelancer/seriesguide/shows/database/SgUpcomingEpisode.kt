@@ -0,0 +1,54 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.shows.database
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgEpisode2Columns
+import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgShow2Columns
+import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
+
+/**
+ * A copy of an [SgEpisode2] joined with its [SgShow2] released within the window
+ * maintained by [UpcomingEpisodesTable], so notifications and widgets do not have to join
+ * the episode and show tables each time they run.
+ *
+ * Uses the same column names as the source tables, so selections and sort orders built for
+ * [SgEpisode2WithShow] also work on this table.
+ */
+@Entity(
+    tableName = Tables.SG_UPCOMING_EPISODE,
+    indices = [Index(SgEpisode2Columns.FIRSTAIREDMS)]
+)
+data class SgUpcomingEpisode(
+    /**
+     * The row ID of the [SgEpisode2].
+     */
+    @PrimaryKey @ColumnInfo(name = SgEpisode2Columns._ID) val id: Long,
+    @ColumnInfo(name = SgShow2Columns.REF_SHOW_ID) val showId: Long,
+    @ColumnInfo(name = SgEpisode2Columns.TITLE) val title: String?,
+    @ColumnInfo(name = SgEpisode2Columns.NUMBER) val number: Int,
+    @ColumnInfo(name = SgEpisode2Columns.SEASON) val season: Int,
+    @ColumnInfo(name = SgEpisode2Columns.FIRSTAIREDMS) val firstReleasedMs: Long,
+    @ColumnInfo(name = SgEpisode2Columns.WATCHED) val watched: Int,
+    @ColumnInfo(name = SgEpisode2Columns.COLLECTED) val collected: Boolean,
+    @ColumnInfo(name = SgEpisode2Columns.OVERVIEW) val overview: String?,
+    @ColumnInfo(name = SgShow2Columns.TITLE) val showTitle: String,
+    @ColumnInfo(name = SgShow2Columns.NETWORK) val showNetwork: String?,
+    @ColumnInfo(name = SgShow2Columns.POSTER_SMALL) val showPosterSmall: String?,
+    @ColumnInfo(name = SgShow2Columns.FAVORITE) val showFavorite: Boolean,
+    @ColumnInfo(name = SgShow2Columns.HIDDEN) val showHidden: Boolean,
+    @ColumnInfo(name = SgShow2Columns.NOTIFY) val showNotify: Boolean,
+    @ColumnInfo(name = SgShow2Columns.NEXTEPISODE) val showNextEpisode: String?
+) {
+    companion object {
+        /**
+         * Like [SgEpisode2WithShow.SELECT], but reads from this table.
+         */
+        const val SELECT =
+            "SELECT _id, episode_title, episode_number, episode_season_number, episode_firstairedms, episode_watched, episode_collected, episode_description, series_title, series_network, series_poster_small FROM ${Tables.SG_UPCOMING_EPISODE}"
+    }
+}
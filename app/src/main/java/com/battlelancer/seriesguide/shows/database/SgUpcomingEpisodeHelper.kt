@@ -0,0 +1,45 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.shows.database
+
+import androidx.room.Dao
+import androidx.room.Query
+import androidx.room.RawQuery
+import androidx.room.Transaction
+import androidx.sqlite.db.SupportSQLiteQuery
+
+/**
+ * Data Access Object for the sg_upcoming_episode table, see [SgUpcomingEpisode].
+ */
+@Dao
+interface SgUpcomingEpisodeHelper {
+
+    @Query("DELETE FROM sg_upcoming_episode")
+    fun deleteAllUpcomingEpisodes()
+
+    @Query(
+        """INSERT INTO sg_upcoming_episode (_id, series_id, episode_title, episode_number, episode_season_number, episode_firstairedms, episode_watched, episode_collected, episode_description, series_title, series_network, series_poster_small, series_favorite, series_hidden, series_notify, series_next)
+        SELECT sg_episode._id, sg_episode.series_id, episode_title, episode_number, episode_season_number, episode_firstairedms, episode_watched, episode_collected, episode_description, series_title, series_network, series_poster_small, series_favorite, series_hidden, series_notify, series_next
+        FROM sg_episode JOIN sg_show ON sg_episode.series_id=sg_show._id
+        WHERE episode_firstairedms >= :startMs AND episode_firstairedms < :endMs"""
+    )
+    fun insertEpisodesReleasedBetween(startMs: Long, endMs: Long)
+
+    /**
+     * Replaces all rows with episodes released on or after [startMs] and before [endMs].
+     */
+    @Transaction
+    fun replaceUpcomingEpisodes(startMs: Long, endMs: Long) {
+        deleteAllUpcomingEpisodes()
+        insertEpisodesReleasedBetween(startMs, endMs)
+    }
+
+    /**
+     * Like [SgEpisode2Helper.getEpisodesWithShow], but for queries built
+     * with [SgUpcomingEpisode.SELECT].
+     */
+    @RawQuery(observedEntities = [SgUpcomingEpisode::class])
+    fun getEpisodesWithShow(query: SupportSQLiteQuery): List<SgEpisode2WithShow>
+
+}
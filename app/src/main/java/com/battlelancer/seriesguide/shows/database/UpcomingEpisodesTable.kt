@@ -0,0 +1,171 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.shows.database
+
+import android.content.Context
+import android.text.format.DateUtils
+import androidx.annotation.WorkerThread
+import androidx.core.content.edit
+import androidx.preference.PreferenceManager
+import androidx.room.InvalidationTracker
+import com.battlelancer.seriesguide.SgApp
+import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import timber.log.Timber
+
+/**
+ * Maintains the [SgUpcomingEpisode] table, a copy of episodes joined with their show
+ * released within a window around the time it was last filled.
+ *
+ * The table is filled again where show or episode data is written ([refresh]), like after flag
+ * jobs, updating next episodes or syncing, and by the sync stage once the window needs to move
+ * ([refreshIfNeeded]). Readers only check if the table can be used ([covers]) and otherwise
+ * query the episode and show tables, so they never pay for filling it.
+ *
+ * Other changes to show or episode data mark the table stale, so it is not used until filled
+ * again in the background, see [observeChanges].
+ */
+object UpcomingEpisodesTable {
+
+    /**
+     * Covers the last and next few days of the calendar, see [SgEpisode2WithShow],
+     * and the notification look ahead, plus some room for a custom time offset.
+     */
+    private const val WINDOW_PAST_MS = 33 * DateUtils.DAY_IN_MILLIS
+    private const val WINDOW_FUTURE_MS = 33 * DateUtils.DAY_IN_MILLIS
+
+    /**
+     * Fill again after this time, so the window keeps covering the next few days.
+     */
+    private const val REFILL_INTERVAL_MS = DateUtils.DAY_IN_MILLIS
+
+    /**
+     * Wait for further changes before filling again in the background,
+     * like while a sync updates many shows.
+     */
+    private const val STALE_REFILL_DELAY_MS = 5 * DateUtils.SECOND_IN_MILLIS
+
+    private const val KEY_IS_STALE = "upcoming_episodes_stale"
+    private const val KEY_FILLED_AT = "upcoming_episodes_filled_at"
+
+    /**
+     * Guards writes of the stale flag and [staleRefillJob]. Not held while filling the table,
+     * so marking stale does not wait on it.
+     */
+    private val staleLock = Any()
+    private var hasMarkedStale = false
+    private var staleRefillJob: Job? = null
+
+    /**
+     * Marks the table stale on any change to the show or episode tables and fills it again
+     * in the background once there were no further changes for [STALE_REFILL_DELAY_MS].
+     * Call once when creating the database instance.
+     *
+     * Changes followed by a call to [refresh] will usually not need to fill again, but
+     * their notification may arrive only after [refresh] has run.
+     */
+    fun observeChanges(context: Context, database: SgRoomDatabase) {
+        val appContext = context.applicationContext
+        database.invalidationTracker.addObserver(object : InvalidationTracker.Observer(
+            arrayOf(Tables.SG_SHOW, Tables.SG_EPISODE)
+        ) {
+            override fun onInvalidated(tables: Set<String>) {
+                markStale(appContext)
+                scheduleStaleRefill(appContext)
+            }
+        })
+    }
+
+    private fun markStale(context: Context) {
+        synchronized(staleLock) {
+            // Only write once until the table is filled again.
+            if (hasMarkedStale) return
+            // Commit right away so the table is not used if the app is stopped.
+            PreferenceManager.getDefaultSharedPreferences(context).edit(commit = true) {
+                putBoolean(KEY_IS_STALE, true)
+            }
+            hasMarkedStale = true
+        }
+    }
+
+    private fun scheduleStaleRefill(context: Context) {
+        synchronized(staleLock) {
+            staleRefillJob?.cancel()
+            staleRefillJob = SgApp.coroutineScope.launch(Dispatchers.IO) {
+                delay(STALE_REFILL_DELAY_MS)
+                // Skip if filled in the meantime.
+                if (isStale(context)) refresh(context)
+            }
+        }
+    }
+
+    private fun isStale(context: Context): Boolean {
+        return PreferenceManager.getDefaultSharedPreferences(context)
+            .getBoolean(KEY_IS_STALE, true)
+    }
+
+    /**
+     * Fills the table if it is stale or the current time moved too far from when it was last
+     * filled. Call regularly, like when syncing.
+     */
+    @WorkerThread
+    fun refreshIfNeeded(context: Context) {
+        val prefs = PreferenceManager.getDefaultSharedPreferences(context)
+        val now = System.currentTimeMillis()
+        val filledAt = prefs.getLong(KEY_FILLED_AT, 0)
+        if (prefs.getBoolean(KEY_IS_STALE, true)
+            || now < filledAt || now - filledAt > REFILL_INTERVAL_MS) {
+            refresh(context)
+        }
+    }
+
+    /**
+     * Fills the table with episodes released in a window around the current time.
+     * Call after changing show or episode data.
+     *
+     * If filling fails, leaves the table marked stale so it is not used.
+     */
+    @WorkerThread
+    @Synchronized
+    fun refresh(context: Context) {
+        val prefs = PreferenceManager.getDefaultSharedPreferences(context)
+        val now = System.currentTimeMillis()
+        // Clear before filling, so changes while filling mark the table stale again.
+        synchronized(staleLock) {
+            prefs.edit {
+                putBoolean(KEY_IS_STALE, false)
+                putLong(KEY_FILLED_AT, now)
+            }
+            hasMarkedStale = false
+        }
+        try {
+            SgRoomDatabase.getInstance(context).sgUpcomingEpisodeHelper()
+                .replaceUpcomingEpisodes(now - WINDOW_PAST_MS, now + WINDOW_FUTURE_MS)
+        } catch (e: Exception) {
+            Timber.e(e, "Failed to fill upcoming episodes table")
+            markStale(context)
+            return
+        }
+        Timber.d("Filled upcoming episodes table")
+    }
+
+    /**
+     * Returns if episodes released on or after [startMs] and before [endMs] can be read from the
+     * table. If not, callers should query the episode and show tables instead.
+     *
+     * Does not fill the table, so is cheap to call from wake-up paths like notifications
+     * and widgets.
+     */
+    fun covers(context: Context, startMs: Long, endMs: Long): Boolean {
+        val prefs = PreferenceManager.getDefaultSharedPreferences(context)
+        if (prefs.getBoolean(KEY_IS_STALE, true)) return false
+        val filledAt = prefs.getLong(KEY_FILLED_AT, 0)
+        return startMs >= filledAt - WINDOW_PAST_MS && endMs <= filledAt + WINDOW_FUTURE_MS
+    }
+
+}
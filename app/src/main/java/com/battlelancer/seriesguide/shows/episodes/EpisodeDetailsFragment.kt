@@ -20,6 +20,7 @@ import androidx.fragment.app.viewModels
 import androidx.lifecycle.lifecycleScope
 import androidx.loader.app.LoaderManager
 import androidx.loader.content.Loader
+import com.battlelancer.seriesguide.AppStartup
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.api.Action
 import com.battlelancer.seriesguide.backend.settings.HexagonSettings
@@ -65,7 +66,6 @@ import com.battlelancer.seriesguide.util.ViewTools
 import com.battlelancer.seriesguide.util.copyTextToClipboardOnLongClick
 import com.battlelancer.seriesguide.util.safeShow
 import com.squareup.picasso.Callback
-import com.squareup.picasso.Picasso
 import kotlinx.coroutines.Job
 import org.greenrobot.eventbus.EventBus
 import org.greenrobot.eventbus.Subscribe
@@ -225,7 +225,7 @@ class EpisodeDetailsFragment : Fragment(), EpisodeActionsContract {
         // This ensures that the anonymous callback we have does not prevent the fragment from
         // being garbage collected. It also prevents our callback from getting invoked even after the
         // fragment is destroyed.
-        Picasso.get().cancelRequest(binding!!.imageviewScreenshot)
+        AppStartup.getPicasso(requireContext()).cancelRequest(binding!!.imageviewScreenshot)
         binding = null
         bindingButtons = null
         bindingActions = null
@@ -7,35 +7,33 @@ package com.battlelancer.seriesguide.shows.search
 import android.app.Application
 import androidx.lifecycle.AndroidViewModel
 import androidx.lifecycle.MutableLiveData
-import androidx.lifecycle.switchMap
-import androidx.sqlite.db.SimpleSQLiteQuery
-import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgShow2Columns
-import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
+import androidx.lifecycle.asFlow
+import androidx.lifecycle.asLiveData
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.flatMapLatest
 
 class ShowSearchViewModel(application: Application) : AndroidViewModel(application) {
 
     // Set initial value to show results before typing a query,
     // might already display what the user looks for.
     val searchTerm = MutableLiveData("")
-    val shows = searchTerm.switchMap { searchTerm ->
-        val database = SgRoomDatabase.getInstance(getApplication())
-        val query = if (searchTerm.isNullOrBlank()) {
-            SimpleSQLiteQuery(
-                "SELECT * FROM ${Tables.SG_SHOW} " +
-                        "ORDER BY ${SgShow2Columns.SORT_LAST_WATCHED}, ${SgShow2Columns.SORT_TITLE}"
-            )
-        } else {
-            // Query uses % at the beginning and end of the given string
-            // so remove trailing whitespace and replace inner whitespaces with %
-            // this improves matching if characters are left out, like "Mr Robot" vs "Mr. Robot"
-            val filter = searchTerm.trim().replace("\\s".toRegex(), "%")
-            SimpleSQLiteQuery(
-                "SELECT * FROM ${Tables.SG_SHOW} " +
-                        "WHERE ${SgShow2Columns.TITLE} LIKE ?", arrayOf("%$filter%")
-            )
+
+    /**
+     * Only searches once typing pauses, a new search term cancels the previous search.
+     */
+    @OptIn(FlowPreview::class)
+    val shows = searchTerm.asFlow()
+        .debounce { if (it.isNullOrBlank()) 0L else SEARCH_DEBOUNCE_MS }
+        .flatMapLatest { searchTerm ->
+            SgRoomDatabase.getInstance(getApplication()).sgShow2Helper()
+                .searchShowsFlow(searchTerm)
         }
-        database.sgShow2Helper().getShowsLiveData(query)
+        .asLiveData()
+
+    companion object {
+        private const val SEARCH_DEBOUNCE_MS = 150L
     }
 
-}
\ No newline at end of file
+}
@@ -5,6 +5,8 @@ package com.battlelancer.seriesguide.shows.search.discover
 
 import android.content.Context
 import com.battlelancer.seriesguide.SgApp
+import com.battlelancer.seriesguide.tmdbapi.PosterPathCache
+import com.battlelancer.seriesguide.util.LanguageTools
 import com.uwetrottmann.tmdb2.entities.BaseTvShow
 
 object SearchTools {
@@ -50,6 +52,29 @@ object SearchTools {
                 }
             }
         }
+        setCachedPosterPaths(context, results)
+    }
+
+    /**
+     * Sets poster paths cached by [PosterPathCache] for results without a poster path.
+     * Does not request missing ones, those are resolved when loading the poster.
+     */
+    fun setCachedPosterPaths(context: Context, results: List<SearchResult>) {
+        results
+            .filter { it.posterPath.isNullOrEmpty() }
+            // Like SgPicassoRequestHandler, resolve using English if no language is set.
+            .groupBy { if (it.language.isNullOrEmpty()) LanguageTools.LANGUAGE_EN else it.language }
+            .forEach { (language, resultsOfLanguage) ->
+                val posterPaths = PosterPathCache.resolveShowPosterPaths(
+                    context,
+                    resultsOfLanguage.map { it.tmdbId },
+                    language,
+                    fetchMissing = false
+                )
+                for (result in resultsOfLanguage) {
+                    posterPaths[result.tmdbId]?.let { result.posterPath = it }
+                }
+            }
     }
 
 }
\ No newline at end of file
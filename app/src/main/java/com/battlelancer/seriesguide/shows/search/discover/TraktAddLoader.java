@@ -153,6 +153,7 @@ public class TraktAddLoader extends GenericSimpleLoader<TraktAddLoader.Result> {
             }
             results.add(result);
         }
+        SearchTools.INSTANCE.setCachedPosterPaths(context, results);
 
         return results;
     }
@@ -13,7 +13,6 @@ import com.battlelancer.seriesguide.R;
 import com.battlelancer.seriesguide.SgApp;
 import com.battlelancer.seriesguide.backend.settings.HexagonSettings;
 import com.battlelancer.seriesguide.modules.ServicesComponent;
-import com.battlelancer.seriesguide.provider.SeriesGuideDatabase;
 import com.battlelancer.seriesguide.shows.search.discover.SearchResult;
 import com.battlelancer.seriesguide.shows.tools.AddUpdateShowTools.ShowResult;
 import com.battlelancer.seriesguide.sync.HexagonEpisodeSync;
@@ -262,10 +261,6 @@ public class AddShowTask extends AsyncTask<Void, String, Void> {
                     .putLong(TraktSettings.KEY_LAST_SHOWS_RATED_AT, 0)
                     .putLong(TraktSettings.KEY_LAST_EPISODES_RATED_AT, 0)
                     .apply();
-
-            // renew FTS3 table
-            Timber.d("Renewing search table.");
-            SeriesGuideDatabase.rebuildFtsTable(context);
         }
 
         Timber.d("Finished adding shows.");
@@ -23,14 +23,15 @@ import com.battlelancer.seriesguide.shows.database.SgSeason2Numbers
 import com.battlelancer.seriesguide.shows.database.SgSeason2TmdbIdUpdate
 import com.battlelancer.seriesguide.shows.database.SgSeason2Update
 import com.battlelancer.seriesguide.shows.database.SgShow2
+import com.battlelancer.seriesguide.shows.database.SgShow2Update
+import com.battlelancer.seriesguide.shows.database.UpcomingEpisodesTable
 import com.battlelancer.seriesguide.shows.tools.AddUpdateShowTools.ShowService.HEXAGON
 import com.battlelancer.seriesguide.shows.tools.AddUpdateShowTools.ShowService.TMDB
 import com.battlelancer.seriesguide.shows.tools.GetShowTools.GetShowError
 import com.battlelancer.seriesguide.shows.tools.GetShowTools.GetShowError.GetShowDoesNotExist
 import com.battlelancer.seriesguide.shows.tools.GetShowTools.GetShowError.GetShowRetry
 import com.battlelancer.seriesguide.shows.tools.GetShowTools.GetShowError.GetShowStop
-import com.battlelancer.seriesguide.streaming.SgWatchProviderShowMapping
-import com.battlelancer.seriesguide.streaming.StreamingSearch
+import com.battlelancer.seriesguide.streaming.ShowWatchProviderMappings
 import com.battlelancer.seriesguide.sync.HexagonEpisodeSync
 import com.battlelancer.seriesguide.sync.HexagonShowSync
 import com.battlelancer.seriesguide.sync.TraktEpisodeSync
@@ -52,7 +53,13 @@ import com.uwetrottmann.tmdb2.entities.TvEpisode
 import com.uwetrottmann.tmdb2.entities.TvSeason
 import com.uwetrottmann.trakt5.entities.BaseShow
 import dagger.Lazy
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.cancelChildren
 import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.runInterruptible
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
 import timber.log.Timber
 import java.util.TimeZone
 import javax.inject.Inject
@@ -128,6 +135,11 @@ class AddUpdateShowTools @Inject constructor(
             }
         }
 
+        // Download episodes of all seasons before storing anything.
+        val episodesBySeasonNumber =
+            fetchEpisodesOfSeasons(showTmdbId, showDetails.seasons, language)
+                .getOrElse { return ShowResult.TMDB_ERROR }
+
         // Run within transaction to avoid show ID foreign key constraint failures.
         val database = SgRoomDatabase.getInstance(context)
         var showId = -1L
@@ -140,32 +152,34 @@ class AddUpdateShowTools @Inject constructor(
             val seasons = mapToSgSeason2(showDetails.seasons, showId)
             val seasonIds = database.sgSeason2Helper().insertSeasons(seasons)
 
-            // Download episodes by season and store to database
+            // Store episodes by season
+            val releaseInfo = ReleaseInfo(
+                show.releaseTimeZone,
+                show.releaseTimeOrDefault,
+                show.customReleaseTimeZoneOrDefault,
+                show.customReleaseTimeOrDefault,
+                show.customReleaseDayOffsetOrDefault,
+                show.releaseCountry,
+                show.network
+            )
             val episodeHelper = database.sgEpisode2Helper()
             seasons.forEachIndexed { index, season ->
                 val seasonId = seasonIds[index]
                 if (seasonId == -1L) return@forEachIndexed
+                val seasonEpisodes = episodesBySeasonNumber[season.number]
+                    ?: return@forEachIndexed
 
-                val episodeDetails = getEpisodesOfSeason(
-                    ReleaseInfo(
-                        show.releaseTimeZone,
-                        show.releaseTimeOrDefault,
-                        show.customReleaseTimeZoneOrDefault,
-                        show.customReleaseTimeOrDefault,
-                        show.customReleaseDayOffsetOrDefault,
-                        show.releaseCountry,
-                        show.network
-                    ),
-                    showTmdbId,
+                val episodeDetails = mapToSgEpisode2(
+                    seasonEpisodes.episodes,
+                    seasonEpisodes.episodesFallback,
+                    releaseInfo,
                     showId,
-                    season.number,
                     seasonId,
-                    language,
+                    season.number,
                     null,
                     null
-                ).getOrElse { return@runInTransaction ShowResult.TMDB_ERROR }
-                val episodes = episodeDetails.toInsert
-                episodeHelper.insertEpisodes(episodes)
+                )
+                episodeHelper.insertEpisodes(episodeDetails.toInsert)
             }
             return@runInTransaction ShowResult.SUCCESS
         }
@@ -214,11 +228,15 @@ class AddUpdateShowTools @Inject constructor(
             }
         }
 
-        updateWatchProviderMappings(showId, showTmdbId)
+        // Do not wait for the next sync to display where the show is available.
+        runBlocking { ShowWatchProviderMappings.refreshShow(context, showId, showTmdbId) }
 
         // Calculate next episode
         NextEpisodeUpdater(context).updateForShows(showId)
 
+        // Notifications and widgets should include episodes of the new show right away.
+        UpcomingEpisodesTable.refresh(context)
+
         return ShowResult.SUCCESS
     }
 
@@ -242,16 +260,60 @@ class AddUpdateShowTools @Inject constructor(
         )
     }
 
-    private fun getEpisodesOfSeason(
-        releaseInfo: ReleaseInfo,
+    /**
+     * Downloads episodes of all given seasons (skips seasons without TMDB ID or number),
+     * issuing up to [SEASON_DOWNLOADS_AT_ONCE] requests at once.
+     * Returns the first error if downloading any season failed.
+     *
+     * This runs coroutines blocking the current thread. If it is interrupted,
+     * [InterruptedException] is thrown.
+     */
+    @Throws(InterruptedException::class)
+    private fun fetchEpisodesOfSeasons(
+        showTmdbId: Int,
+        tmdbSeasons: List<TvSeason>?,
+        language: String
+    ): Result<Map<Int, SeasonEpisodes>, TmdbError> {
+        val seasonNumbers = tmdbSeasons
+            ?.mapNotNull { if (it.id != null) it.season_number else null }
+            ?.distinct()
+        if (seasonNumbers.isNullOrEmpty()) return Ok(emptyMap())
+
+        return runBlocking<Result<Map<Int, SeasonEpisodes>, TmdbError>> {
+            val downloads = Semaphore(SEASON_DOWNLOADS_AT_ONCE)
+            val results = seasonNumbers.map { number ->
+                async(Dispatchers.IO) {
+                    downloads.withPermit {
+                        // Interrupt blocking network call if cancelled.
+                        runInterruptible {
+                            fetchEpisodesOfSeason(showTmdbId, number, language)
+                        }
+                    }
+                }
+            }
+
+            val episodesBySeasonNumber = mutableMapOf<Int, SeasonEpisodes>()
+            seasonNumbers.forEachIndexed { index, number ->
+                episodesBySeasonNumber[number] = results[index].await()
+                    .getOrElse {
+                        // No need to download remaining seasons.
+                        coroutineContext.cancelChildren()
+                        return@runBlocking Err(it)
+                    }
+            }
+            Ok(episodesBySeasonNumber)
+        }
+    }
+
+    /**
+     * Downloads episodes of a season, if some have no name or overview also in the fallback
+     * language. Does not access the database.
+     */
+    private fun fetchEpisodesOfSeason(
         showTmdbId: Int,
-        showId: Long,
         seasonNumber: Int,
-        seasonId: Long,
-        language: String,
-        localEpisodesByTmdbId: MutableMap<Int, SgEpisode2Ids>?,
-        localEpisodesWithoutTmdbIdByNumber: MutableMap<Int, SgEpisode2Ids>?
-    ): Result<EpisodeDetails, TmdbError> {
+        language: String
+    ): Result<SeasonEpisodes, TmdbError> {
         val fallbackLanguage: String? = ShowsSettings.getShowsLanguageFallback(context)
             .let { if (it != language) it else null }
 
@@ -267,20 +329,14 @@ class AddUpdateShowTools @Inject constructor(
             null
         }
 
-        val episodeDetails = mapToSgEpisode2(
-            tmdbEpisodes,
-            tmdbEpisodesFallback,
-            releaseInfo,
-            showId,
-            seasonId,
-            seasonNumber,
-            localEpisodesByTmdbId,
-            localEpisodesWithoutTmdbIdByNumber
-        )
-
-        return Ok(episodeDetails)
+        return Ok(SeasonEpisodes(tmdbEpisodes, tmdbEpisodesFallback))
     }
 
+    data class SeasonEpisodes(
+        val episodes: List<TvEpisode>,
+        val episodesFallback: List<TvEpisode>?
+    )
+
     data class EpisodeDetails(
         val toInsert: List<SgEpisode2>,
         val toUpdate: List<SgEpisode2Update>,
@@ -431,14 +487,43 @@ class AddUpdateShowTools @Inject constructor(
     /**
      * Updates a show. Adds new, updates changed and removes orphaned episodes.
      *
-     * This runs coroutines blocking the current thread (see [updateWatchProviderMappings]).
+     * This runs coroutines blocking the current thread (see [fetchEpisodesOfSeasons]).
      * If it is interrupted, [InterruptedException] is thrown.
+     *
+     * To update multiple shows in parallel, see [fetchShowUpdate] and [applyShowUpdate].
      */
     @Throws(InterruptedException::class)
     fun updateShow(showId: Long): UpdateResult {
+        val showUpdate = fetchShowUpdate(showId).getOrElse { return it }
+        return applyShowUpdate(showUpdate)
+    }
+
+    /**
+     * Data downloaded by [fetchShowUpdate] to be stored by [applyShowUpdate].
+     */
+    class ShowUpdate(
+        val showId: Long,
+        val showTmdbId: Int,
+        val show: SgShow2,
+        val updatedShow: SgShow2Update,
+        val tmdbSeasons: List<TvSeason>?,
+        val episodesBySeasonNumber: Map<Int, SeasonEpisodes>
+    )
+
+    /**
+     * Downloads all data required to update a show, but does not change the show, its seasons
+     * or episodes in the database. Safe to call from multiple threads at once.
+     *
+     * The returned error is the result of the update, so should be handled like the result of
+     * [updateShow]. Notably, this may return [UpdateResult.Success] if there is nothing to update.
+     *
+     * Note: if the show still needs to be migrated to TMDB IDs, this does write to the database.
+     */
+    @Throws(InterruptedException::class)
+    fun fetchShowUpdate(showId: Long): Result<ShowUpdate, UpdateResult> {
         val helper = SgRoomDatabase.getInstance(context).sgShow2Helper()
         val show = helper.getShow(showId)
-            ?: return UpdateResult.DatabaseError
+            ?: return Err(UpdateResult.DatabaseError)
 
         val language = show.language.let {
             // Handle legacy records.
@@ -457,29 +542,93 @@ class AddUpdateShowTools @Inject constructor(
             Timber.d("Try to migrate show %d to TMDB IDs", showId)
             showTmdbId = migrateShowToTmdbIds(showId, show.tvdbId ?: 0, language)
                 .getOrElse {
-                    return when (it) {
-                        UpdateResult.DoesNotExist -> {
-                            // Can not migrate (yet), try again later.
-                            helper.setLastUpdated(showId, System.currentTimeMillis())
-                            UpdateResult.Success
+                    return Err(
+                        when (it) {
+                            UpdateResult.DoesNotExist -> {
+                                // Can not migrate (yet), try again later.
+                                helper.setLastUpdated(showId, System.currentTimeMillis())
+                                UpdateResult.Success
+                            }
+
+                            else -> it // Failure.
                         }
-
-                        else -> it // Failure.
-                    }
+                    )
                 }
         }
 
         val showDetails = getShowTools.getShowDetails(showTmdbId, language, show)
-            .getOrElse { return it.toUpdateResult() }
+            .getOrElse { return Err(it.toUpdateResult()) }
         val updatedShow = showDetails.showUpdate!!
         updatedShow.id = showId
 
+        // Download episodes of all seasons that will be inserted or updated.
+        val episodesBySeasonNumber =
+            fetchEpisodesOfSeasons(showTmdbId, showDetails.seasons, language)
+                .getOrElse { return Err(it.toUpdateResult()) }
+
+        return Ok(
+            ShowUpdate(
+                showId,
+                showTmdbId,
+                show,
+                updatedShow,
+                showDetails.seasons,
+                episodesBySeasonNumber
+            )
+        )
+    }
+
+    /**
+     * Stores data downloaded by [fetchShowUpdate] in a single transaction: inserts, updates and
+     * removes seasons and episodes and at last updates the show itself.
+     */
+    fun applyShowUpdate(showUpdate: ShowUpdate): UpdateResult {
+        // Apply all changes at once, so readers (like NextEpisodeUpdater or the calendar)
+        // never see a partially updated show.
+        val database = SgRoomDatabase.getInstance(context)
+        try {
+            database.runInTransaction {
+                applyShowUpdateInTransaction(database, showUpdate)
+            }
+        } catch (e: ShowNotUpdatedException) {
+            // Transaction was rolled back, show will be updated again later.
+            return UpdateResult.DatabaseError
+        }
+        // Episodes might have been added, removed or changed release times.
+        NextEpisodeDirtyShows.add(showUpdate.showId)
+        return UpdateResult.Success
+    }
+
+    /**
+     * Thrown by [applyShowUpdateInTransaction] to roll back all changes if the show itself could
+     * not be updated.
+     */
+    private class ShowNotUpdatedException : IllegalStateException()
+
+    private fun applyShowUpdateInTransaction(
+        database: SgRoomDatabase,
+        showUpdate: ShowUpdate
+    ) {
+        val showId = showUpdate.showId
+        val show = showUpdate.show
+        val updatedShow = showUpdate.updatedShow
+
         // Insert, update and remove seasons.
-        val seasons = updateSeasons(showDetails.seasons, showId)
+        val seasons = updateSeasons(showUpdate.tmdbSeasons, showId)
         // Insert, update and remove episodes of inserted or updated seasons.
-        val database = SgRoomDatabase.getInstance(context)
         val episodeHelper = database.sgEpisode2Helper()
+        val releaseInfo = ReleaseInfo(
+            updatedShow.releaseTimeZone,
+            updatedShow.releaseTime,
+            show.customReleaseTimeZoneOrDefault,
+            show.customReleaseTimeOrDefault,
+            show.customReleaseDayOffsetOrDefault,
+            updatedShow.releaseCountry,
+            updatedShow.network
+        )
         seasons.forEach { season ->
+            val seasonEpisodes = showUpdate.episodesBySeasonNumber[season.number]
+                ?: return@forEach
             val episodes = episodeHelper.getEpisodeIdsOfSeason(season.id)
 
             val episodesByTmdbId = mutableMapOf<Int, SgEpisode2Ids>()
@@ -492,24 +641,16 @@ class AddUpdateShowTools @Inject constructor(
                 }
             }
 
-            val episodeDetails = getEpisodesOfSeason(
-                ReleaseInfo(
-                    updatedShow.releaseTimeZone,
-                    updatedShow.releaseTime,
-                    show.customReleaseTimeZoneOrDefault,
-                    show.customReleaseTimeOrDefault,
-                    show.customReleaseDayOffsetOrDefault,
-                    updatedShow.releaseCountry,
-                    updatedShow.network
-                ),
-                showTmdbId,
+            val episodeDetails = mapToSgEpisode2(
+                seasonEpisodes.episodes,
+                seasonEpisodes.episodesFallback,
+                releaseInfo,
                 showId,
-                season.number,
                 season.id,
-                language,
+                season.number,
                 episodesByTmdbId,
                 episodesWithoutTmdbIdByNumber
-            ).getOrElse { return it.toUpdateResult() }
+            )
             episodeHelper.insertEpisodes(episodeDetails.toInsert)
             episodeHelper.updateEpisodes(episodeDetails.toUpdate)
             episodeHelper.deleteEpisodes(episodeDetails.toRemove)
@@ -522,41 +663,9 @@ class AddUpdateShowTools @Inject constructor(
 //        episodeHelper.deleteEpisodesWithoutTmdbId(showId)
 //        database.sgSeason2Helper().deleteSeasonsWithoutTmdbId(showId)
 
-        updateWatchProviderMappings(showId, showTmdbId)
-
         // At last store shows update (sets last updated timestamp).
         val updated = database.sgShow2Helper().updateShow(updatedShow)
-        return if (updated == 1) {
-            UpdateResult.Success
-        } else {
-            UpdateResult.DatabaseError
-        }
-    }
-
-    /**
-     * Download and store watch provider mappings if a streaming search region is configured.
-     */
-    @Throws(InterruptedException::class)
-    private fun updateWatchProviderMappings(showId: Long, showTmdbId: Int) {
-        val region = StreamingSearch.getCurrentRegionOrNull(context) ?: return
-        runBlocking {
-            val providers = TmdbTools2().getWatchProvidersForShow(showTmdbId, region, context)
-            if (providers != null) {
-                // Just take all possible options
-                (providers.flatrate + providers.free + providers.ads + providers.buy)
-                    .mapNotNull { it.provider_id }
-                    .distinct()
-                    .map { SgWatchProviderShowMapping(it, showId) }
-                    .also {
-                        val providerHelper =
-                            SgRoomDatabase.getInstance(context).sgWatchProviderHelper()
-                        providerHelper.deleteShowMappings(showId)
-                        // If providers are added that don't exist in the providers table,
-                        // not an issue as they just won't be displayed (join will fail).
-                        if (it.isNotEmpty()) providerHelper.addShowMappings(it)
-                    }
-            }
-        }
+        if (updated != 1) throw ShowNotUpdatedException()
     }
 
     data class SeasonInfo(val id: Long, val number: Int)
@@ -828,4 +937,12 @@ class AddUpdateShowTools @Inject constructor(
         }
     }
 
+    companion object {
+        /**
+         * Most shows have few seasons, but long-running ones can have 30 or more.
+         * Requests of all workers are limited by TmdbRateLimiter.
+         */
+        private const val SEASON_DOWNLOADS_AT_ONCE = 4
+    }
+
 }
\ No newline at end of file
@@ -7,12 +7,14 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.os.AsyncTask;
 import com.battlelancer.seriesguide.provider.SeriesGuideContract;
+import com.battlelancer.seriesguide.shows.database.UpcomingEpisodesTable;
 import com.battlelancer.seriesguide.util.TaskManager;
 import timber.log.Timber;
 
 /**
- * Updates the latest episode value for a given show or all shows. If supplied a show TVDb id will
- * update only latest episode for that show.
+ * Updates the latest episode value for a given show or all shows that need it, see
+ * {@link NextEpisodeUpdater#updateForDirtyShows()}. If supplied a show id will update only latest
+ * episode for that show.
  *
  * <p><b>Do NOT run in parallel as this task is memory intensive.</b>
  */
@@ -41,9 +43,11 @@ public class LatestEpisodeUpdateTask extends AsyncTask<Integer, Void, Void> {
             Timber.d("Updating next episode for show %s", showId);
             new NextEpisodeUpdater(context).updateForShows(showId);
         } else {
-            // update all shows
-            Timber.d("Updating next episodes for all shows");
-            new NextEpisodeUpdater(context).updateForShows(null);
+            // update shows with changes, or all shows if needed
+            if (new NextEpisodeUpdater(context).updateForDirtyShows() > 0) {
+                // Copies the next episode of shows
+                UpcomingEpisodesTable.refresh(context);
+            }
         }
 
         // Show cursors already notified
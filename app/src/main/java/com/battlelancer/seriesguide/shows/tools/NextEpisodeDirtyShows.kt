@@ -0,0 +1,71 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.shows.tools
+
+import android.os.SystemClock
+import android.text.format.DateUtils
+
+/**
+ * Keeps track of shows that had episode flags changed (e.g. by flag jobs or syncing with Cloud or
+ * Trakt) or episodes updated and need their next episode updated,
+ * see [NextEpisodeUpdater.updateForDirtyShows].
+ *
+ * Only kept in memory, so after the app is started all shows are updated once. Also updates all
+ * shows every [FULL_UPDATE_INTERVAL_MS] as the next episode and unwatched count also change when
+ * episodes get released.
+ */
+object NextEpisodeDirtyShows {
+
+    private const val FULL_UPDATE_INTERVAL_MS = DateUtils.HOUR_IN_MILLIS
+
+    private val showIds = HashSet<Long>()
+    private var isFullUpdateRequested = true
+    private var lastFullUpdateMs = 0L
+    private var lastSettingsKey: String? = null
+
+    @JvmStatic
+    @Synchronized
+    fun add(showId: Long) {
+        showIds.add(showId)
+    }
+
+    @JvmStatic
+    @Synchronized
+    fun addAll(showIds: Collection<Long>) {
+        this.showIds.addAll(showIds)
+    }
+
+    @Synchronized
+    fun remove(showId: Long) {
+        showIds.remove(showId)
+    }
+
+    @Synchronized
+    fun requestFullUpdate() {
+        isFullUpdateRequested = true
+    }
+
+    /**
+     * Returns the shows to update and clears them. Returns null if all shows should be updated:
+     * if requested, none were for [FULL_UPDATE_INTERVAL_MS] or [settingsKey] has changed.
+     */
+    @Synchronized
+    fun takeForUpdate(settingsKey: String): Set<Long>? {
+        val now = SystemClock.elapsedRealtime()
+        val isFullUpdate = isFullUpdateRequested
+                || now - lastFullUpdateMs > FULL_UPDATE_INTERVAL_MS
+                || settingsKey != lastSettingsKey
+        val showIdsToUpdate = if (isFullUpdate) {
+            isFullUpdateRequested = false
+            lastFullUpdateMs = now
+            lastSettingsKey = settingsKey
+            null
+        } else {
+            HashSet(showIds)
+        }
+        showIds.clear()
+        return showIdsToUpdate
+    }
+
+}
@@ -4,159 +4,128 @@
 package com.battlelancer.seriesguide.shows.tools
 
 import android.content.Context
+import androidx.sqlite.db.SimpleSQLiteQuery
 import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgEpisode2Columns
 import com.battlelancer.seriesguide.provider.SeriesGuideContract.SgShow2Columns
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.settings.DisplaySettings
-import com.battlelancer.seriesguide.shows.database.SgEpisode2Helper
+import com.battlelancer.seriesguide.shows.database.SgEpisode2
 import com.battlelancer.seriesguide.shows.database.SgShow2Helper
-import com.battlelancer.seriesguide.shows.database.SgShow2LastWatchedEpisode
 import com.battlelancer.seriesguide.shows.database.SgShow2NextEpisodeUpdate
+import com.battlelancer.seriesguide.shows.episodes.EpisodeFlags
 import com.battlelancer.seriesguide.util.TextTools
 import com.battlelancer.seriesguide.util.TimeTools
 import timber.log.Timber
 
 class NextEpisodeUpdater(
     private val context: Context,
-    private val showHelper: SgShow2Helper,
-    private val episodeHelper: SgEpisode2Helper
+    private val showHelper: SgShow2Helper
 ) {
 
     constructor(context: Context) : this(
         context,
-        SgRoomDatabase.getInstance(context).sgShow2Helper(),
-        SgRoomDatabase.getInstance(context).sgEpisode2Helper()
+        SgRoomDatabase.getInstance(context).sgShow2Helper()
     )
 
     /**
      * Update next episode field and unwatched episode count for the given show. If no show id is
      * passed, will update next episodes for all shows.
      *
+     * Determines the next episode and unwatched episode count of all shows with a single query,
+     * see [buildNextEpisodesQuery].
+     *
      * @return If only one show was passed, the row id of the new next episode. May be 0 if there is
      * no next episode. On failure -1.
      */
     fun updateForShows(showIdOrNull: Long?): Long {
-        // Get a list of shows and their last watched episodes.
-        val shows: List<SgShow2LastWatchedEpisode>
-        if (showIdOrNull != null) {
-            val show = showHelper.getShowWithLastWatchedEpisode(showIdOrNull)
-            if (show == null) {
-                Timber.e("Failed to update next episode, show does not exist: %s", showIdOrNull)
-                return -1 // Fail, show does not (longer) exist.
+        val result = update(showIdOrNull?.let { setOf(it) })
+        if (showIdOrNull != null && result >= 0) NextEpisodeDirtyShows.remove(showIdOrNull)
+        return result
+    }
+
+    /**
+     * Like [updateForShows], but only updates shows that had episode flags changed since the
+     * last update (see [NextEpisodeDirtyShows]). Updates all shows if there was no full update
+     * for some time, if settings affecting next episodes changed or the app was just started.
+     *
+     * @return The number of updated shows, or -1 on failure.
+     */
+    fun updateForDirtyShows(): Int {
+        val showIdsOrNull = NextEpisodeDirtyShows.takeForUpdate(settingsKey())
+        if (showIdsOrNull != null && showIdsOrNull.isEmpty()) {
+            return 0 // nothing to do
+        }
+        Timber.d("Updating next episodes for %s shows", showIdsOrNull?.size ?: "all")
+        val rowsUpdated = updateAndCount(showIdsOrNull)
+        if (rowsUpdated < 0) {
+            // Try again next time.
+            if (showIdsOrNull != null) {
+                NextEpisodeDirtyShows.addAll(showIdsOrNull)
+            } else {
+                NextEpisodeDirtyShows.requestFullUpdate()
             }
-            shows = ArrayList()
-            shows.add(show)
-        } else {
-            shows = showHelper.getShowsWithLastWatchedEpisode()
         }
+        return rowsUpdated
+    }
 
-        // pre-build next episode selection
-        val isNoReleasedEpisodes = DisplaySettings.isNoReleasedEpisodes(context)
-        val nextEpisodeSelection = buildNextEpisodeSelection(
-            DisplaySettings.isHidingSpecials(context), isNoReleasedEpisodes
-        )
+    /**
+     * Settings that affect next episode values of all shows.
+     */
+    private fun settingsKey(): String {
+        return "${DisplaySettings.isHidingSpecials(context)}" +
+                ",${DisplaySettings.isNoReleasedEpisodes(context)}" +
+                ",${DisplaySettings.preventSpoilers(context)}" +
+                ",${DisplaySettings.getShowsTimeOffset(context)}"
+    }
 
-        // build updated next episode values for each show
-        val batch: MutableList<SgShow2NextEpisodeUpdate> = ArrayList()
+    private fun update(showIdsOrNull: Set<Long>?): Long {
         var nextEpisodeIdResult: Long = -1
-        val currentTime = TimeTools.getCurrentTime(context)
-        val preventSpoilers = DisplaySettings.preventSpoilers(context)
-
-        // Received crashes on Android 5.1 where iterator is null,
-        // though can't reproduce on emulator.
-        @Suppress("RedundantNullableReturnType")
-        val iterator: Iterator<SgShow2LastWatchedEpisode>? = shows.iterator()
-        if (iterator == null) {
-            Timber.e("iterator is null showIdOrNull=$showIdOrNull")
-            return -1
+        val rowsUpdated = updateAndCount(showIdsOrNull) { nextEpisodeIdResult = it }
+        if (rowsUpdated < 0) return -1
+        if (showIdsOrNull != null && showIdsOrNull.size == 1 && rowsUpdated == 0) {
+            Timber.e("Failed to update next episode, show does not exist: %s", showIdsOrNull.first())
+            return -1 // Fail, show does not (longer) exist.
         }
+        return nextEpisodeIdResult
+    }
 
-        for (show in iterator) {
-            // STEP 1: get last watched episode details
-            var season = show.seasonNumber
-            var number = show.episodeNumber
-            var releaseTime = show.episodeReleaseDateMs
-            val plays = if (show.episodePlays == null || show.episodePlays == 0) {
-                1
-            } else show.episodePlays
-            // Note: Due to LEFT JOIN query, episode values are null if no matching episode found
-            // or there is no last watched episode ID stored.
-            if (show.lastWatchedEpisodeId == 0L
-                || season == null || number == null || releaseTime == null) {
-                // If there is no info about a last watched episode
-                // use the newest watched/skipped episode, if there is one.
-                // This is useful when adding a show from Cloud/Trakt or restoring a backup where
-                // there is no last watched episode set on the show.
-                val newestWatched = episodeHelper.getNewestWatchedEpisodeOfShow(show.id)
-                // Otherwise assume all episodes unwatched: include all starting with special 0.
-                season = newestWatched?.season ?: -1
-                number = newestWatched?.episodenumber ?: -1
-                releaseTime = newestWatched?.firstReleasedMs ?: Long.MIN_VALUE
-            }
+    /**
+     * @param onNextEpisodeId Called with the row ID of the next episode of each updated show,
+     * 0 if it has none.
+     * @return The number of updated shows, or -1 on failure.
+     */
+    private fun updateAndCount(
+        showIdsOrNull: Set<Long>?,
+        onNextEpisodeId: ((Long) -> Unit)? = null
+    ): Int {
+        val query = buildNextEpisodesQuery(
+            showIdsOrNull,
+            DisplaySettings.isHidingSpecials(context),
+            DisplaySettings.isNoReleasedEpisodes(context),
+            TimeTools.getCurrentTime(context)
+        )
+        val shows = showHelper.getShowsNextEpisode(query)
+        if (shows.isEmpty()) return 0
 
-            // STEP 2: get episode released closest afterwards
-            // (next episode or special episode - important for Anime, also often special episodes
-            // are not added in the order they are released, see e.g. Daemon Slayer);
-            // or at the same time, but with a different number (if all episodes are released at once).
-            // Note: there is a setting to exclude special episodes.
-            val selectionArgs: Array<Any> = if (isNoReleasedEpisodes) {
-                // restrict to episodes with future release date
-                arrayOf(
-                    plays, releaseTime, number, season, releaseTime, currentTime
-                )
-            } else {
-                // restrict to episodes with any valid air date
-                arrayOf(
-                    plays, releaseTime, number, season, releaseTime
-                )
-            }
-            val episodeOrNull = episodeHelper.getEpisodeInfo(
-                show.id,
-                nextEpisodeSelection,
-                SORTORDER,
-                selectionArgs
-            )
-
-            // STEP 3: get remaining episodes count
-            val unwatchedEpisodesCount = episodeHelper
-                .countNotWatchedEpisodesOfShow(show.id, currentTime)
-
-            // STEP 4: build updated next episode values
-            val update: SgShow2NextEpisodeUpdate
-            if (episodeOrNull != null) {
-                val nextEpisodeString: String = TextTools.getNextEpisodeString(
-                    context,
-                    episodeOrNull.season,
-                    episodeOrNull.episodenumber,
-                    if (preventSpoilers) {
-                        null // just the number, like '0x12 Episode 12'
-                    } else {
-                        // next episode text, like '0x12 Episode Name'
-                        episodeOrNull.title
-                    }
-                )
-                // next release date text, e.g. "in 15 mins (Fri)"
-                val releaseTimeNext = episodeOrNull.firstReleasedMs
-
-                nextEpisodeIdResult = episodeOrNull.id
-                update = SgShow2NextEpisodeUpdate(
-                    show.id, nextEpisodeIdResult.toString(),
-                    releaseTimeNext,
-                    nextEpisodeString,
-                    unwatchedEpisodesCount
+        // build updated next episode values for each show
+        val preventSpoilers = DisplaySettings.preventSpoilers(context)
+        val batch = shows.map { show ->
+            val nextEpisodeId = show.episodeId
+            onNextEpisodeId?.invoke(nextEpisodeId ?: 0)
+            if (nextEpisodeId != null) {
+                buildUpdate(
+                    show.showId,
+                    nextEpisodeId,
+                    show.season!!,
+                    show.number!!,
+                    show.title,
+                    show.releaseMs!!,
+                    show.unwatchedCount,
+                    preventSpoilers
                 )
             } else {
-                // no next episode, set empty values
-                nextEpisodeIdResult = 0
-                update = SgShow2NextEpisodeUpdate(
-                    show.id,
-                    "",
-                    UNKNOWN_NEXT_RELEASE_DATE,
-                    "",
-                    unwatchedEpisodesCount
-                )
+                buildNoNextEpisodeUpdate(show.showId, show.unwatchedCount)
             }
-            batch.add(update)
         }
 
         // Update shows in database with new next episode values.
@@ -166,29 +135,134 @@ class NextEpisodeUpdater(
             return -1
         }
 
-        return nextEpisodeIdResult
+        return batch.size
+    }
+
+    private fun buildUpdate(
+        showId: Long,
+        episodeId: Long,
+        season: Int,
+        number: Int,
+        title: String?,
+        releaseTime: Long,
+        unwatchedEpisodesCount: Int,
+        preventSpoilers: Boolean
+    ): SgShow2NextEpisodeUpdate {
+        val nextEpisodeString: String = TextTools.getNextEpisodeString(
+            context,
+            season,
+            number,
+            if (preventSpoilers) {
+                null // just the number, like '0x12 Episode 12'
+            } else {
+                // next episode text, like '0x12 Episode Name'
+                title
+            }
+        )
+        return SgShow2NextEpisodeUpdate(
+            showId, episodeId.toString(),
+            // next release date text, e.g. "in 15 mins (Fri)"
+            releaseTime,
+            nextEpisodeString,
+            unwatchedEpisodesCount
+        )
     }
 
-    private fun buildNextEpisodeSelection(
+    private fun buildNoNextEpisodeUpdate(
+        showId: Long,
+        unwatchedEpisodesCount: Int
+    ): SgShow2NextEpisodeUpdate {
+        // no next episode, set empty values
+        return SgShow2NextEpisodeUpdate(
+            showId,
+            "",
+            UNKNOWN_NEXT_RELEASE_DATE,
+            "",
+            unwatchedEpisodesCount
+        )
+    }
+
+    /**
+     * Builds a query that determines next episode values of all shows (or only the given shows)
+     * at once, using correlated sub-queries instead of one query per show and step. Note: window functions would be nicer, but the SQLite version of older
+     * supported Android versions does not have them.
+     *
+     * 1. Determines the last watched episode of each show, or if none is set the newest
+     *    watched or skipped one.
+     * 2. Using its release time, numbers and plays selects the next episode.
+     * 3. Counts remaining unwatched released episodes.
+     */
+    private fun buildNextEpisodesQuery(
+        showIdsOrNull: Set<Long>?,
         isHidingSpecials: Boolean,
-        isNoReleasedEpisodes: Boolean
-    ): String {
-        val nextEpisodeSelectionBuilder = StringBuilder(SELECT_NEXT)
+        isNoReleasedEpisodes: Boolean,
+        currentTime: Long
+    ): SimpleSQLiteQuery {
+        val args = ArrayList<Any>()
+
+        val showSelection = if (showIdsOrNull != null) {
+            // Note: IDs are numbers, so safe to put into query.
+            " WHERE sg_show._id IN (${showIdsOrNull.joinToString(",")})"
+        } else ""
+
+        // Otherwise assume all episodes unwatched: include all starting with special 0.
+        args.add(Long.MIN_VALUE)
+
+        val nextEpisodeSelection = StringBuilder(SELECT_NEXT_OF_REFERENCE)
         if (isHidingSpecials) {
             // do not take specials into account
-            nextEpisodeSelectionBuilder.append(" AND ")
-                .append(SgEpisode2Columns.SELECTION_NO_SPECIALS)
+            nextEpisodeSelection.append(" AND ").append(SgEpisode2Columns.SELECTION_NO_SPECIALS)
         }
         if (isNoReleasedEpisodes) {
             // restrict to episodes with future release date
-            nextEpisodeSelectionBuilder.append(SELECT_ONLYFUTURE)
+            nextEpisodeSelection.append(SELECT_ONLYFUTURE)
+            args.add(currentTime)
         } else {
             // restrict to episodes with any valid air date
-            // currently show list filters and UI expect a
-            // valid release date if there is a next episode
-            nextEpisodeSelectionBuilder.append(SELECT_WITHAIRDATE)
+            nextEpisodeSelection.append(SELECT_WITHAIRDATE)
         }
-        return nextEpisodeSelectionBuilder.toString()
+
+        // unwatched released episodes
+        args.add(currentTime)
+
+        val sql = """WITH last_watched AS (
+            SELECT sg_show._id AS show_id,
+                CASE WHEN sg_show.series_lastwatchedid != 0 AND lw._id IS NOT NULL THEN lw._id
+                ELSE (SELECT _id FROM sg_episode WHERE series_id = sg_show._id
+                    AND episode_watched != ${EpisodeFlags.UNWATCHED}
+                    ORDER BY episode_firstairedms DESC, episode_season_number DESC, episode_number DESC
+                    LIMIT 1)
+                END AS episode_id,
+                CASE WHEN lw.episode_plays IS NULL OR lw.episode_plays = 0 THEN 1
+                ELSE lw.episode_plays END AS plays
+            FROM sg_show LEFT OUTER JOIN sg_episode AS lw ON sg_show.series_lastwatchedid = lw._id
+            $showSelection
+        ), reference AS (
+            SELECT last_watched.show_id AS show_id, last_watched.plays AS plays,
+                IFNULL(e.episode_season_number, -1) AS season,
+                IFNULL(e.episode_number, -1) AS number,
+                IFNULL(e.episode_firstairedms, ?) AS release_ms
+            FROM last_watched LEFT OUTER JOIN sg_episode AS e ON last_watched.episode_id = e._id
+        ), next_episodes AS (
+            SELECT reference.show_id AS show_id,
+                (SELECT _id FROM sg_episode WHERE series_id = reference.show_id
+                    AND $nextEpisodeSelection
+                    ORDER BY $SORTORDER LIMIT 1) AS next_id,
+                (SELECT COUNT(_id) FROM sg_episode WHERE series_id = reference.show_id
+                    AND episode_watched = ${EpisodeFlags.UNWATCHED}
+                    AND episode_season_number != 0
+                    AND episode_firstairedms != ${SgEpisode2.EPISODE_UNKNOWN_RELEASE}
+                    AND episode_firstairedms <= ?) AS unwatched_count
+            FROM reference
+        )
+        SELECT next_episodes.show_id AS show_id,
+            next_episodes.unwatched_count AS unwatched_count,
+            n._id AS next_id, n.episode_season_number AS next_season,
+            n.episode_number AS next_number, n.episode_title AS next_title,
+            n.episode_firstairedms AS next_release_ms
+        FROM next_episodes LEFT OUTER JOIN sg_episode AS n ON next_episodes.next_id = n._id"""
+
+        return SimpleSQLiteQuery(sql, args.toTypedArray())
     }
 
     companion object {
@@ -202,14 +276,15 @@ class NextEpisodeUpdater(
         const val UNKNOWN_NEXT_RELEASE_DATE = Long.MAX_VALUE
 
         /**
-         * Less plays, not skipped, released later
-         * or has a different (to also match specials) number or season if released the same time.
+         * Less plays, not skipped, released later than the reference (last watched) episode
+         * of the show or has a different (to also match specials) number or season if released
+         * the same time, see [buildNextEpisodesQuery].
          */
-        private const val SELECT_NEXT =
-            (SgEpisode2Columns.PLAYS + "<? AND " + SgEpisode2Columns.SELECTION_NOT_SKIPPED + " AND ("
-                    + "(" + SgEpisode2Columns.FIRSTAIREDMS + "=? AND "
-                    + "(" + SgEpisode2Columns.NUMBER + "!=? OR " + SgEpisode2Columns.SEASON + "!=?)) "
-                    + "OR " + SgEpisode2Columns.FIRSTAIREDMS + ">?)")
+        private const val SELECT_NEXT_OF_REFERENCE =
+            (SgEpisode2Columns.PLAYS + "<reference.plays AND " + SgEpisode2Columns.SELECTION_NOT_SKIPPED + " AND ("
+                    + "(" + SgEpisode2Columns.FIRSTAIREDMS + "=reference.release_ms AND "
+                    + "(" + SgEpisode2Columns.NUMBER + "!=reference.number OR " + SgEpisode2Columns.SEASON + "!=reference.season)) "
+                    + "OR " + SgEpisode2Columns.FIRSTAIREDMS + ">reference.release_ms)")
 
         private const val SELECT_WITHAIRDATE = " AND " + SgEpisode2Columns.FIRSTAIREDMS + "!=-1"
 
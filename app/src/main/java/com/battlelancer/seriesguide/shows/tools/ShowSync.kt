@@ -8,6 +8,7 @@ import android.content.Context
 import android.text.format.DateUtils
 import com.battlelancer.seriesguide.SgApp
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import com.battlelancer.seriesguide.settings.UpdateSettings
 import com.battlelancer.seriesguide.shows.tools.AddUpdateShowTools.UpdateResult.ApiErrorRetry
 import com.battlelancer.seriesguide.shows.tools.AddUpdateShowTools.UpdateResult.ApiErrorStop
 import com.battlelancer.seriesguide.shows.tools.AddUpdateShowTools.UpdateResult.DatabaseError
@@ -17,11 +18,17 @@ import com.battlelancer.seriesguide.sync.SgSyncAdapter
 import com.battlelancer.seriesguide.sync.SgSyncAdapter.UpdateResult
 import com.battlelancer.seriesguide.sync.SyncOptions.SyncType
 import com.battlelancer.seriesguide.sync.SyncProgress
+import com.github.michaelbull.result.Err
+import com.github.michaelbull.result.Ok
 import com.uwetrottmann.androidutils.AndroidUtils
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.cancelChildren
+import kotlinx.coroutines.channels.Channel
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.runInterruptible
 import timber.log.Timber
 import kotlin.math.pow
 import kotlin.random.Random
@@ -47,8 +54,10 @@ class ShowSync(
      *
      * Considers shows that no longer exist at the source to be updated.
      * On network errors retries a few times to update a show before failing.
+     *
+     * If multiple shows are updated and [UpdateSettings.getShowUpdateWorkerCount] is larger than
+     * one, downloads data of multiple shows at once, see [syncInParallel].
      */
-    @SuppressLint("TimberExceptionLogging")
     @Throws(InterruptedException::class)
     fun sync(
         context: Context,
@@ -60,8 +69,22 @@ class ShowSync(
         val showsToUpdate = getShowsToUpdate(context, currentTime) ?: return null
         Timber.d("Updating %d show(s)...", showsToUpdate.size)
 
+        val workerCount = UpdateSettings.getShowUpdateWorkerCount(context)
+        return if (workerCount > 1 && showsToUpdate.size > 1) {
+            syncInParallel(context, progress, showsToUpdate, workerCount)
+        } else {
+            syncOneByOne(context, progress, showsToUpdate)
+        }
+    }
+
+    @Throws(InterruptedException::class)
+    private fun syncOneByOne(
+        context: Context,
+        progress: SyncProgress,
+        showsToUpdate: List<Long>
+    ): UpdateResult {
         val showTools = SgApp.getServicesComponent(context).addUpdateShowTools()
-        var networkErrors = 0
+        val networkErrors = NetworkErrors()
         for (showId in showsToUpdate) {
             // Try to update this show.
             var result: AddUpdateShowTools.UpdateResult
@@ -83,74 +106,245 @@ class ShowSync(
                 result = showTools.updateShow(showId)
 
                 if (result is ApiErrorRetry) {
-                    networkErrors++
-                    if (networkErrors == 3) {
-                        // Stop updating after multiple network errors
-                        // (for timeouts around 3 * 15/20 seconds)
-                        val service = context.getString(result.service.nameResId)
-                        Timber.e("Too many network errors, last one with $service, trying again later.")
-                        progress.setImportantErrorIfNone("Failed to talk to $service, trying again later.")
-                        return UpdateResult.INCOMPLETE
-                    } else {
-                        // Back off, then try again.
-                        // Wait for 2^n seconds + random milliseconds,
-                        // with n starting at 0 (so 1 s + random ms)
-                        val n = networkErrors - 1
-                        // If this thread is interrupted throws InterruptedException
-                        Thread.sleep(
-                            (2.0.pow(n)).toLong() * DateUtils.SECOND_IN_MILLIS
-                                    + Random.nextInt(0, 1000)
-                        )
-                    }
-                } else if (networkErrors > 0) {
-                    // Reduce counter on each successful update.
-                    networkErrors--
+                    val backOffMs = networkErrors.recordError()
+                        ?: return stopAfterNetworkErrors(context, progress, result)
+                    // If this thread is interrupted throws InterruptedException
+                    Thread.sleep(backOffMs)
+                } else {
+                    networkErrors.recordSuccess()
                 }
             } while (result is ApiErrorRetry)
 
             // Handle update result.
-            when (result) {
-                Success -> hasUpdatedShows = true
-                DoesNotExist -> {
-                    // Continue with other shows, assume existing data is latest.
-                    // TODO Add permanent hint to user the show can no longer be updated.
-                    //  Currently, if multiple shows do not exist only the first to be tried
-                    //  is displayed to the user.
-                    setImportantMessageIfNone(
-                        context,
-                        progress,
-                        showId,
-                        "Show '%s' removed from TMDB (id %s), maybe search for a replacement and remove it."
-                    )
+            handleUpdateResult(context, progress, showId, result)
+                ?.let { return it }
+        }
+        return UpdateResult.SUCCESS
+    }
+
+    /**
+     * Downloads show data with [workerCount] workers at once (all sharing the
+     * [com.battlelancer.seriesguide.tmdbapi.TmdbRateLimiter] budget), while the calling thread
+     * is the only one to store downloaded data to the database.
+     *
+     * Handles errors just like [syncOneByOne]: network errors are counted across all workers,
+     * so the back-off and stopping after too many network errors still works.
+     */
+    @Throws(InterruptedException::class)
+    private fun syncInParallel(
+        context: Context,
+        progress: SyncProgress,
+        showsToUpdate: List<Long>,
+        workerCount: Int
+    ): UpdateResult {
+        val showTools = SgApp.getServicesComponent(context).addUpdateShowTools()
+        val networkErrors = NetworkErrors()
+        // If this thread is interrupted throws InterruptedException
+        return runBlocking {
+            val showIds = Channel<Long>(Channel.UNLIMITED)
+            showsToUpdate.forEach { showIds.trySend(it) }
+            showIds.close()
+
+            // Only allow workers to get a little ahead of the writer to keep memory usage low.
+            val fetchResults = Channel<FetchResult>(capacity = workerCount)
+            val workers = launch(Dispatchers.IO) {
+                repeat(workerCount) {
+                    launch {
+                        for (showId in showIds) {
+                            fetchResults.send(
+                                fetchShowUpdate(context, showTools, networkErrors, showId)
+                            )
+                        }
+                    }
                 }
+            }
+            launch {
+                workers.join()
+                fetchResults.close()
+            }
+
+            var syncResult = UpdateResult.SUCCESS
+            for (fetchResult in fetchResults) {
+                if (Thread.interrupted()) throw InterruptedException()
 
-                is ApiErrorRetry -> throw IllegalStateException("Should retry and not handle result.")
-                is ApiErrorStop -> {
-                    // API error, do not continue and try again later.
-                    setImportantMessageIfNone(
+                val stopResult = when (fetchResult) {
+                    FetchResult.NoNetwork -> UpdateResult.INCOMPLETE
+                    is FetchResult.Fetched -> handleUpdateResult(
                         context,
                         progress,
-                        showId,
-                        "Could not update show '%s' (TMDB id %s) due to issue with ${
-                            context.getString(result.service.nameResId)
-                        }, trying again later."
+                        fetchResult.showUpdate.showId,
+                        showTools.applyShowUpdate(fetchResult.showUpdate)
                     )
-                    return UpdateResult.INCOMPLETE
+
+                    is FetchResult.Failed -> if (fetchResult.result is ApiErrorRetry) {
+                        stopAfterNetworkErrors(context, progress, fetchResult.result)
+                    } else {
+                        handleUpdateResult(
+                            context,
+                            progress,
+                            fetchResult.showId,
+                            fetchResult.result
+                        )
+                    }
                 }
+                if (stopResult != null) {
+                    syncResult = stopResult
+                    break
+                }
+            }
+            // Stop workers if stopped early.
+            coroutineContext.cancelChildren()
+            syncResult
+        }
+    }
 
-                DatabaseError -> {
-                    // Database error, do not continue and try again later.
-                    setImportantMessageIfNone(
-                        context,
-                        progress,
-                        showId,
-                        "Could not update show '%s' (TMDB id %s) due to a database error, trying again later."
-                    )
-                    return UpdateResult.INCOMPLETE
+    private sealed class FetchResult {
+        class Fetched(val showUpdate: AddUpdateShowTools.ShowUpdate) : FetchResult()
+
+        /**
+         * If [result] is [ApiErrorRetry] there were too many network errors.
+         */
+        class Failed(
+            val showId: Long,
+            val result: AddUpdateShowTools.UpdateResult
+        ) : FetchResult()
+
+        object NoNetwork : FetchResult()
+    }
+
+    /**
+     * Downloads data for the show, retries with back-off on network errors.
+     */
+    private suspend fun fetchShowUpdate(
+        context: Context,
+        showTools: AddUpdateShowTools,
+        networkErrors: NetworkErrors,
+        showId: Long
+    ): FetchResult {
+        while (true) {
+            // Shortcut to stop updating if connectivity is lost.
+            if (!AndroidUtils.isNetworkConnected(context)) {
+                return FetchResult.NoNetwork
+            }
+
+            // Interrupt blocking network calls if cancelled.
+            when (val result = runInterruptible { showTools.fetchShowUpdate(showId) }) {
+                is Ok -> {
+                    networkErrors.recordSuccess()
+                    return FetchResult.Fetched(result.value)
+                }
+
+                is Err -> {
+                    val error = result.error
+                    if (error is ApiErrorRetry) {
+                        val backOffMs = networkErrors.recordError()
+                            ?: return FetchResult.Failed(showId, error)
+                        delay(backOffMs)
+                    } else {
+                        networkErrors.recordSuccess()
+                        return FetchResult.Failed(showId, error)
+                    }
                 }
             }
         }
-        return UpdateResult.SUCCESS
+    }
+
+    /**
+     * Returns [UpdateResult.INCOMPLETE] if updating should stop, otherwise null.
+     */
+    private fun handleUpdateResult(
+        context: Context,
+        progress: SyncProgress,
+        showId: Long,
+        result: AddUpdateShowTools.UpdateResult
+    ): UpdateResult? {
+        when (result) {
+            Success -> hasUpdatedShows = true
+            DoesNotExist -> {
+                // Continue with other shows, assume existing data is latest.
+                // TODO Add permanent hint to user the show can no longer be updated.
+                //  Currently, if multiple shows do not exist only the first to be tried
+                //  is displayed to the user.
+                setImportantMessageIfNone(
+                    context,
+                    progress,
+                    showId,
+                    "Show '%s' removed from TMDB (id %s), maybe search for a replacement and remove it."
+                )
+            }
+
+            is ApiErrorRetry -> throw IllegalStateException("Should retry and not handle result.")
+            is ApiErrorStop -> {
+                // API error, do not continue and try again later.
+                setImportantMessageIfNone(
+                    context,
+                    progress,
+                    showId,
+                    "Could not update show '%s' (TMDB id %s) due to issue with ${
+                        context.getString(result.service.nameResId)
+                    }, trying again later."
+                )
+                return UpdateResult.INCOMPLETE
+            }
+
+            DatabaseError -> {
+                // Database error, do not continue and try again later.
+                setImportantMessageIfNone(
+                    context,
+                    progress,
+                    showId,
+                    "Could not update show '%s' (TMDB id %s) due to a database error, trying again later."
+                )
+                return UpdateResult.INCOMPLETE
+            }
+        }
+        return null
+    }
+
+    @SuppressLint("TimberExceptionLogging")
+    private fun stopAfterNetworkErrors(
+        context: Context,
+        progress: SyncProgress,
+        lastResult: ApiErrorRetry
+    ): UpdateResult {
+        val service = context.getString(lastResult.service.nameResId)
+        Timber.e("Too many network errors, last one with $service, trying again later.")
+        progress.setImportantErrorIfNone("Failed to talk to $service, trying again later.")
+        return UpdateResult.INCOMPLETE
+    }
+
+    /**
+     * Counts network errors across all shows, so also across workers if updating in parallel.
+     */
+    private class NetworkErrors {
+        private var count = 0
+
+        /**
+         * Records a network error. Returns how long to back off before trying again or null if
+         * there were too many network errors and updating should stop.
+         */
+        @Synchronized
+        fun recordError(): Long? {
+            count++
+            if (count >= MAX_NETWORK_ERRORS) {
+                // Stop updating after multiple network errors
+                // (for timeouts around 3 * 15/20 seconds)
+                return null
+            }
+            // Back off, then try again.
+            // Wait for 2^n seconds + random milliseconds,
+            // with n starting at 0 (so 1 s + random ms)
+            val n = count - 1
+            return (2.0.pow(n)).toLong() * DateUtils.SECOND_IN_MILLIS + Random.nextInt(0, 1000)
+        }
+
+        /**
+         * Reduce counter on each successful update.
+         */
+        @Synchronized
+        fun recordSuccess() {
+            if (count > 0) count--
+        }
     }
 
     private fun setImportantMessageIfNone(
@@ -219,6 +413,8 @@ class ShowSync(
     }
 
     companion object {
+        private const val MAX_NETWORK_ERRORS = 3
+
         // Values based on the assumption that sync runs about every 24 hours
         private const val UPDATE_THRESHOLD_MS = 6 * DateUtils.DAY_IN_MILLIS +
                 12 * DateUtils.HOUR_IN_MILLIS
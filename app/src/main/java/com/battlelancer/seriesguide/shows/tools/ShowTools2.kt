@@ -13,7 +13,6 @@ import com.battlelancer.seriesguide.enums.NetworkResult
 import com.battlelancer.seriesguide.modules.ApplicationContext
 import com.battlelancer.seriesguide.notifications.NotificationService
 import com.battlelancer.seriesguide.provider.SeriesGuideContract
-import com.battlelancer.seriesguide.provider.SeriesGuideDatabase
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.sync.HexagonShowSync
 import com.uwetrottmann.androidutils.AndroidUtils
@@ -163,8 +162,8 @@ class ShowTools2 @Inject constructor(
             if (rowsUpdated == -1) return@withContext SgResult.ERROR
 
             database.sgWatchProviderHelper().deleteShowMappings(showId)
+            database.sgWatchProviderHelper().deleteShowUpdate(showId)
 
-            SeriesGuideDatabase.rebuildFtsTable(context)
             SgResult.SUCCESS
         }
     }
@@ -0,0 +1,62 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.stats
+
+import androidx.room.InvalidationTracker
+import com.battlelancer.seriesguide.provider.SeriesGuideDatabase.Tables
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+
+/**
+ * Keeps the last computed [Stats] so the stats screen can display them right away.
+ * Cleared when shows, episodes or movies are changed in the database.
+ */
+object StatsCache {
+
+    private val statsByExcludeSpecials = mutableMapOf<Boolean, Stats>()
+
+    /**
+     * Incremented on each invalidation, so stats computed while the database changed
+     * are not stored.
+     */
+    private var generation = 0L
+    private var isObserving = false
+
+    private val observer = object : InvalidationTracker.Observer(
+        arrayOf(Tables.SG_SHOW, Tables.SG_EPISODE, Tables.MOVIES)
+    ) {
+        override fun onInvalidated(tables: Set<String>) {
+            invalidate()
+        }
+    }
+
+    /**
+     * Returns a copy of the cached stats or null if there are none.
+     * Also returns the generation to pass to [put].
+     */
+    @Synchronized
+    fun get(database: SgRoomDatabase, excludeSpecials: Boolean): Pair<Stats?, Long> {
+        if (!isObserving) {
+            database.invalidationTracker.addObserver(observer)
+            isObserving = true
+        }
+        return Pair(statsByExcludeSpecials[excludeSpecials]?.copy(), generation)
+    }
+
+    /**
+     * Stores a copy of [stats] if the database did not change since [get] returned [generation].
+     */
+    @Synchronized
+    fun put(excludeSpecials: Boolean, stats: Stats, generation: Long) {
+        if (generation == this.generation) {
+            statsByExcludeSpecials[excludeSpecials] = stats.copy()
+        }
+    }
+
+    @Synchronized
+    private fun invalidate() {
+        generation++
+        statsByExcludeSpecials.clear()
+    }
+
+}
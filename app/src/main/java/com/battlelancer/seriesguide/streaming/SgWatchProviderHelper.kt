@@ -11,6 +11,8 @@ import androidx.room.OnConflictStrategy
 import androidx.room.Query
 import androidx.room.Transaction
 import androidx.room.Update
+import com.battlelancer.seriesguide.provider.chunkedForSqlite
+import com.battlelancer.seriesguide.shows.database.SgShow2Ids
 import kotlinx.coroutines.flow.Flow
 
 @Dao
@@ -80,4 +82,37 @@ interface SgWatchProviderHelper {
 
     @Query("DELETE FROM sg_watch_provider_show_mappings WHERE show_id=:showId")
     suspend fun deleteShowMappings(showId: Long)
+
+    @Query("DELETE FROM sg_watch_provider_show_mappings WHERE show_id IN (:showIds)")
+    suspend fun deleteMappingsOfShows(showIds: List<Long>)
+
+    /**
+     * Shows with a TMDB ID whose mappings were never refreshed or last before [updatedBeforeMs].
+     */
+    @Query("SELECT _id, series_tmdb_id, series_tvdb_id FROM sg_show LEFT JOIN sg_watch_provider_show_updates ON _id=show_id WHERE series_tmdb_id>0 AND (updated_ms IS NULL OR updated_ms<:updatedBeforeMs)")
+    suspend fun getShowsToRefreshMappings(updatedBeforeMs: Long): List<SgShow2Ids>
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertShowUpdates(updates: List<SgWatchProviderShowUpdate>)
+
+    @Query("DELETE FROM sg_watch_provider_show_updates WHERE show_id=:showId")
+    suspend fun deleteShowUpdate(showId: Long)
+
+    @Query("DELETE FROM sg_watch_provider_show_updates")
+    suspend fun deleteAllShowUpdates()
+
+    /**
+     * Replaces all mappings of the shows of [updates] with [mappings] and stores [updates].
+     */
+    @Transaction
+    suspend fun replaceShowMappings(
+        updates: List<SgWatchProviderShowUpdate>,
+        mappings: List<SgWatchProviderShowMapping>
+    ) {
+        updates.map { it.show_id }.chunkedForSqlite().forEach { deleteMappingsOfShows(it) }
+        // If providers are added that don't exist in the providers table,
+        // not an issue as they just won't be displayed (join will fail).
+        if (mappings.isNotEmpty()) addShowMappings(mappings)
+        insertShowUpdates(updates)
+    }
 }
\ No newline at end of file
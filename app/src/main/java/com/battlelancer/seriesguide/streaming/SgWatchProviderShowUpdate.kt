@@ -0,0 +1,20 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.streaming
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * When [SgWatchProviderShowMapping] of a show were last refreshed,
+ * see [ShowWatchProviderMappings].
+ */
+@Entity(tableName = "sg_watch_provider_show_updates")
+data class SgWatchProviderShowUpdate(
+    /**
+     * The row ID of a [SgShow2].
+     */
+    @PrimaryKey val show_id: Long,
+    val updated_ms: Long
+)
@@ -0,0 +1,119 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.streaming
+
+import android.content.Context
+import android.text.format.DateUtils
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import com.battlelancer.seriesguide.shows.database.SgShow2Ids
+import com.battlelancer.seriesguide.tmdbapi.TmdbTools2
+import com.uwetrottmann.androidutils.AndroidUtils
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import timber.log.Timber
+
+/**
+ * Keeps [SgWatchProviderShowMapping] of shows up-to-date for the streaming search region,
+ * separate from updating show data so it does not slow down show updates.
+ */
+object ShowWatchProviderMappings {
+
+    private const val WORKER_COUNT = 4
+    private const val MAX_AGE_MS = 7 * DateUtils.DAY_IN_MILLIS
+
+    private class FetchResult(val showId: Long, val providerIds: List<Int>?)
+
+    /**
+     * If a streaming search region is configured, downloads watch providers of all shows whose
+     * mappings were not refreshed within [MAX_AGE_MS] with [WORKER_COUNT] workers at once (all
+     * sharing the [com.battlelancer.seriesguide.tmdbapi.TmdbRateLimiter] budget), then replaces
+     * mappings of all of them in a single transaction.
+     *
+     * Returns false if downloading failed for at least one show, those are tried again next time.
+     * Shows that no longer exist on TMDB are refreshed with no mappings.
+     */
+    suspend fun refresh(context: Context): Boolean {
+        val region = StreamingSearch.getCurrentRegionOrNull(context) ?: return true
+        val helper = SgRoomDatabase.getInstance(context).sgWatchProviderHelper()
+        val now = System.currentTimeMillis()
+        val shows = helper.getShowsToRefreshMappings(now - MAX_AGE_MS)
+        if (shows.isEmpty()) return true
+        if (!AndroidUtils.isNetworkConnected(context)) return false
+        Timber.d("Refreshing watch providers of %d show(s)...", shows.size)
+
+        val tmdbTools = TmdbTools2()
+        val updates = ArrayList<SgWatchProviderShowUpdate>(shows.size)
+        val mappings = ArrayList<SgWatchProviderShowMapping>()
+        var failedCount = 0
+        coroutineScope {
+            val showsToFetch = Channel<SgShow2Ids>(Channel.UNLIMITED)
+            shows.forEach { showsToFetch.trySend(it) }
+            showsToFetch.close()
+
+            val fetchResults = Channel<FetchResult>(capacity = WORKER_COUNT)
+            val workers = launch(Dispatchers.IO) {
+                repeat(WORKER_COUNT) {
+                    launch {
+                        for (show in showsToFetch) {
+                            val providerIds = tmdbTools
+                                .getWatchProviderIdsForShow(show.tmdbId!!, region, context)
+                            fetchResults.send(FetchResult(show.id, providerIds))
+                        }
+                    }
+                }
+            }
+            launch {
+                workers.join()
+                fetchResults.close()
+            }
+
+            for (result in fetchResults) {
+                if (result.providerIds == null) {
+                    failedCount++
+                    continue
+                }
+                updates.add(SgWatchProviderShowUpdate(result.showId, now))
+                result.providerIds.mapTo(mappings) { SgWatchProviderShowMapping(it, result.showId) }
+            }
+        }
+
+        if (updates.isNotEmpty()) {
+            helper.replaceShowMappings(updates, mappings)
+        }
+        Timber.d(
+            "Refreshing watch providers...DONE (%d refreshed, %d failed)",
+            updates.size,
+            failedCount
+        )
+        return failedCount == 0
+    }
+
+    /**
+     * If a streaming search region is configured, downloads watch providers of a single show,
+     * like after it was added, and replaces its mappings.
+     *
+     * Returns false if downloading failed, then the show is tried again by the next [refresh].
+     */
+    suspend fun refreshShow(context: Context, showId: Long, showTmdbId: Int): Boolean {
+        val region = StreamingSearch.getCurrentRegionOrNull(context) ?: return true
+        val providerIds = TmdbTools2().getWatchProviderIdsForShow(showTmdbId, region, context)
+            ?: return false
+        SgRoomDatabase.getInstance(context).sgWatchProviderHelper().replaceShowMappings(
+            listOf(SgWatchProviderShowUpdate(showId, System.currentTimeMillis())),
+            providerIds.map { SgWatchProviderShowMapping(it, showId) }
+        )
+        return true
+    }
+
+    /**
+     * Refreshes mappings of all shows, like after the region has changed.
+     */
+    suspend fun refreshAll(context: Context): Boolean {
+        SgRoomDatabase.getInstance(context).sgWatchProviderHelper().deleteAllShowUpdates()
+        return refresh(context)
+    }
+
+}
@@ -21,13 +21,11 @@ import com.battlelancer.seriesguide.SgApp
 import com.battlelancer.seriesguide.movies.MoviesSettings
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.shows.ShowsSettings
-import com.battlelancer.seriesguide.sync.SgSyncAdapter
 import com.battlelancer.seriesguide.tmdbapi.TmdbTools2
 import com.battlelancer.seriesguide.util.ViewTools
 import com.uwetrottmann.tmdb2.entities.WatchProviders
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
 import java.text.NumberFormat
 import java.util.Locale
 import kotlin.coroutines.CoroutineContext
@@ -290,11 +288,9 @@ object StreamingSearch {
             // Update providers for new region
             updateWatchProviders(context, SgWatchProvider.Type.SHOWS, region)
             updateWatchProviders(context, SgWatchProvider.Type.MOVIES, region)
-            // Schedule shows to update mappings for new region
-            SgRoomDatabase.getInstance(context).sgShow2Helper().resetLastUpdated()
-            withContext(Dispatchers.Main) {
-                SgSyncAdapter.requestSyncDeltaImmediate(context, true)
-            }
+            // Update mappings of all shows for new region,
+            // failed ones are tried again on the next sync.
+            ShowWatchProviderMappings.refreshAll(context)
         }
     }
 
@@ -11,11 +11,13 @@ import androidx.core.util.Pair;
 import androidx.preference.PreferenceManager;
 import com.battlelancer.seriesguide.backend.HexagonTools;
 import com.battlelancer.seriesguide.backend.settings.HexagonSettings;
+import com.battlelancer.seriesguide.shows.database.SgEpisode2BulkFlagUpdate;
 import com.battlelancer.seriesguide.shows.database.SgEpisode2ForSync;
 import com.battlelancer.seriesguide.shows.database.SgEpisode2UpdateByNumber;
 import com.battlelancer.seriesguide.provider.SgRoomDatabase;
 import com.battlelancer.seriesguide.shows.episodes.EpisodeFlags;
 import com.battlelancer.seriesguide.shows.episodes.EpisodeTools;
+import com.battlelancer.seriesguide.shows.tools.NextEpisodeDirtyShows;
 import com.battlelancer.seriesguide.util.Errors;
 import com.google.api.client.util.DateTime;
 import com.uwetrottmann.androidutils.AndroidUtils;
@@ -54,50 +56,32 @@ public class HexagonEpisodeSync {
         DateTime lastSyncTime = new DateTime(HexagonSettings.getLastEpisodesSyncTime(context));
         Timber.d("downloadChangedFlags: since %s", lastSyncTime);
 
-        List<SgCloudEpisode> episodes;
-        String cursor = null;
-        boolean hasMoreEpisodes = true;
         Map<Long, ShowLastWatchedInfo> showIdsToLastWatched = new HashMap<>();
-        while (hasMoreEpisodes) {
-            try {
-                // get service each time to check if auth was removed
-                Episodes episodesService = hexagonTools.getEpisodesService();
-                if (episodesService == null) {
-                    return false;
-                }
-
-                Episodes.GetSgEpisodes request = episodesService.getSgEpisodes()
-                        .setUpdatedSince(lastSyncTime); // use default server limit
-                if (!TextUtils.isEmpty(cursor)) {
-                    request.setCursor(cursor);
-                }
-
-                SgCloudEpisodeList response = request.execute();
-                if (response == null) {
-                    // we're done here
-                    Timber.d("downloadChangedFlags: response was null, done here");
-                    break;
-                }
-
-                episodes = response.getEpisodes();
+        HexagonPagedDownload<SgCloudEpisode> download = new HexagonPagedDownload<>(context,
+                "get updated episodes", cursor -> {
+            // get service each time to check if auth was removed
+            Episodes episodesService = hexagonTools.getEpisodesService();
+            if (episodesService == null) {
+                return HexagonPagedDownload.Page.failed();
+            }
 
-                // check for more items
-                if (response.getCursor() != null) {
-                    cursor = response.getCursor();
-                } else {
-                    hasMoreEpisodes = false;
-                }
-            } catch (IOException | IllegalArgumentException e) {
-                // Note: JSON parser may throw IllegalArgumentException.
-                Errors.logAndReportHexagon("get updated episodes", e);
-                return false;
+            Episodes.GetSgEpisodes request = episodesService.getSgEpisodes()
+                    .setUpdatedSince(lastSyncTime); // use default server limit
+            if (!TextUtils.isEmpty(cursor)) {
+                request.setCursor(cursor);
             }
 
-            if (episodes == null || episodes.size() == 0) {
-                // nothing to do here
-                break;
+            SgCloudEpisodeList response = request.execute();
+            if (response == null) {
+                // we're done here
+                Timber.d("downloadChangedFlags: response was null, done here");
+                return HexagonPagedDownload.Page.end();
             }
+            return HexagonPagedDownload.Page.loaded(response.getEpisodes(), response.getCursor());
+        });
 
+        // Apply a page while the next one is downloaded.
+        HexagonPagedDownload.Result result = download.download(episodes -> {
             // build batch of episode flag updates
             ArrayList<SgEpisode2UpdateByNumber> batch = new ArrayList<>();
             for (SgCloudEpisode episode : episodes) {
@@ -148,7 +132,14 @@ public class HexagonEpisodeSync {
             }
 
             // execute database update
-            database.sgEpisode2Helper().updateWatchedAndCollectedByNumber(batch);
+            SgEpisode2BulkFlagUpdate.apply(database, batch);
+            for (SgEpisode2UpdateByNumber update : batch) {
+                NextEpisodeDirtyShows.add(update.getShowId());
+            }
+            return true;
+        });
+        if (!result.isSuccessful()) {
+            return false;
         }
 
         if (!showIdsToLastWatched.isEmpty()) {
@@ -194,95 +185,83 @@ public class HexagonEpisodeSync {
             SgRoomDatabase.getInstance(context).sgShow2Helper()
                     .updateLastWatchedMsIfLater(showId, result.getLastWatchedMs());
         }
+        // Note: also if failed, some pages may have been applied.
+        NextEpisodeDirtyShows.add(showId);
 
         return result.getSuccess();
     }
 
     private DownloadFlagsResult downloadFlagsByTmdbId(long showId, int showTmdbId) {
-        List<SgCloudEpisode> episodes;
-        boolean onFirstPage = true;
-        boolean hasMoreEpisodes = true;
-        String cursor = null;
-
-        Long lastWatchedMs = null;
-        while (hasMoreEpisodes) {
-            // abort if connection is lost
-            if (!AndroidUtils.isNetworkConnected(context)) {
-                Timber.e("downloadFlags: no network connection");
-                return DownloadFlagsResult.FAILED;
+        HexagonPagedDownload<SgCloudEpisode> download = new HexagonPagedDownload<>(context,
+                "get episodes of show", cursor -> {
+            // get service each time to check if auth was removed
+            Episodes episodesService = hexagonTools.getEpisodesService();
+            if (episodesService == null) {
+                return HexagonPagedDownload.Page.failed();
             }
 
-            try {
-                // get service each time to check if auth was removed
-                Episodes episodesService = hexagonTools.getEpisodesService();
-                if (episodesService == null) {
-                    return DownloadFlagsResult.FAILED;
-                }
-
-                // build request
-                Episodes.GetSgEpisodes request = episodesService.getSgEpisodes()
-                        .setShowTmdbId(showTmdbId); // use default server limit
-                if (!TextUtils.isEmpty(cursor)) {
-                    request.setCursor(cursor);
-                }
-
-                // execute request
-                SgCloudEpisodeList response = request.execute();
-                if (response == null) {
-                    // If empty should send status 200 and empty list, so no body is a failure.
-                    return DownloadFlagsResult.FAILED;
-                }
-
-                episodes = response.getEpisodes();
-
-                // check for more items
-                if (response.getCursor() != null) {
-                    cursor = response.getCursor();
-                } else {
-                    hasMoreEpisodes = false;
-                }
-            } catch (IOException | IllegalArgumentException e) {
-                // Note: JSON parser may throw IllegalArgumentException.
-                Errors.logAndReportHexagon("get episodes of show", e);
-                return DownloadFlagsResult.FAILED;
+            // build request
+            Episodes.GetSgEpisodes request = episodesService.getSgEpisodes()
+                    .setShowTmdbId(showTmdbId); // use default server limit
+            if (!TextUtils.isEmpty(cursor)) {
+                request.setCursor(cursor);
             }
 
-            if (episodes == null || episodes.size() == 0) {
-                if (onFirstPage) {
-                    // If there is no data by TMDB ID at all, try again using TVDB ID.
-                    return DownloadFlagsResult.NO_DATA;
-                } else {
-                    // no more updates to apply
-                    break;
-                }
+            // execute request
+            SgCloudEpisodeList response = request.execute();
+            if (response == null) {
+                // If empty should send status 200 and empty list, so no body is a failure.
+                return HexagonPagedDownload.Page.failed();
             }
-            onFirstPage = false;
-
-            // build batch of episode flag updates
-            ArrayList<SgEpisode2UpdateByNumber> batch = new ArrayList<>();
-            for (SgCloudEpisode episode : episodes) {
-                Pair<SgEpisode2UpdateByNumber, Long> update = buildSgEpisodeUpdate(
-                        episode.getWatchedFlag(),
-                        episode.getPlays(),
-                        episode.getIsInCollection(),
-                        episode.getUpdatedAt(),
-                        episode.getEpisodeNumber(),
-                        episode.getSeasonNumber(),
-                        showId,
-                        lastWatchedMs
-                );
-                if (update != null) {
-                    batch.add(update.first);
-                    lastWatchedMs = update.second;
+            return HexagonPagedDownload.Page.loaded(response.getEpisodes(), response.getCursor());
+        });
+
+        // Apply a page while the next one is downloaded.
+        FlagsPageProcessor<SgCloudEpisode> processor = new FlagsPageProcessor<SgCloudEpisode>() {
+            @Override
+            public boolean process(@NonNull List<SgCloudEpisode> episodes) {
+                // build batch of episode flag updates
+                ArrayList<SgEpisode2UpdateByNumber> batch = new ArrayList<>();
+                for (SgCloudEpisode episode : episodes) {
+                    Pair<SgEpisode2UpdateByNumber, Long> update = buildSgEpisodeUpdate(
+                            episode.getWatchedFlag(),
+                            episode.getPlays(),
+                            episode.getIsInCollection(),
+                            episode.getUpdatedAt(),
+                            episode.getEpisodeNumber(),
+                            episode.getSeasonNumber(),
+                            showId,
+                            lastWatchedMs
+                    );
+                    if (update != null) {
+                        batch.add(update.first);
+                        lastWatchedMs = update.second;
+                    }
                 }
+
+                // execute database update
+                SgEpisode2BulkFlagUpdate.apply(SgRoomDatabase.getInstance(context), batch);
+                return true;
             }
+        };
+        HexagonPagedDownload.Result result = download.download(processor);
 
-            // execute database update
-            SgRoomDatabase.getInstance(context).sgEpisode2Helper()
-                    .updateWatchedAndCollectedByNumber(batch);
+        if (!result.isSuccessful()) {
+            return DownloadFlagsResult.FAILED;
+        }
+        if (result.getPageCount() == 0) {
+            // If there is no data by TMDB ID at all, try again using TVDB ID.
+            return DownloadFlagsResult.NO_DATA;
         }
+        return new DownloadFlagsResult(true, false, processor.lastWatchedMs);
+    }
 
-        return new DownloadFlagsResult(true, false, lastWatchedMs);
+    /**
+     * Keeps the latest last watched time of all processed pages.
+     */
+    private abstract static class FlagsPageProcessor<T>
+            implements HexagonPagedDownload.PageProcessor<T> {
+        @Nullable Long lastWatchedMs = null;
     }
 
     private DownloadFlagsResult downloadFlagsByTvdbId(long showId, int showTvdbId) {
@@ -358,8 +337,7 @@ public class HexagonEpisodeSync {
             }
 
             // execute database update
-            SgRoomDatabase.getInstance(context).sgEpisode2Helper()
-                    .updateWatchedAndCollectedByNumber(batch);
+            SgEpisode2BulkFlagUpdate.apply(SgRoomDatabase.getInstance(context), batch);
         }
 
         return new DownloadFlagsResult(true, false, lastWatchedMs);
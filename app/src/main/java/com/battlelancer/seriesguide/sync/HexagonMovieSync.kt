@@ -17,7 +17,6 @@ import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.util.DBUtils
 import com.battlelancer.seriesguide.util.Errors
 import com.google.api.client.util.DateTime
-import com.uwetrottmann.androidutils.AndroidUtils
 import com.uwetrottmann.seriesguide.backend.movies.model.Movie
 import com.uwetrottmann.seriesguide.backend.movies.model.MovieList
 import timber.log.Timber
@@ -40,9 +39,6 @@ internal class HexagonMovieSync(
         newWatchedMoviesToPlays: MutableMap<Int, Int>,
         hasMergedMovies: Boolean
     ): Boolean {
-        var movies: List<Movie>?
-        var hasMoreMovies = true
-        var cursor: String? = null
         val currentTime = System.currentTimeMillis()
         val lastSyncTime = DateTime(HexagonSettings.getLastMoviesSyncTime(context))
         val localMovies = MovieTools.getMovieTmdbIdsAsSet(context)
@@ -60,53 +56,31 @@ internal class HexagonMovieSync(
         var updatedCount = 0
         var removedCount = 0
 
-        while (hasMoreMovies) {
-            // abort if connection is lost
-            if (!AndroidUtils.isNetworkConnected(context)) {
-                Timber.e("download: no network connection")
-                return false
-            }
-
-            try {
-                // get service each time to check if auth was removed
-                val moviesService = hexagonTools.moviesService ?: return false
-
-                val request = moviesService.get()  // use default server limit
-                if (hasMergedMovies) {
-                    request.updatedSince = lastSyncTime
-                }
-                if (!TextUtils.isEmpty(cursor)) {
-                    request.cursor = cursor
-                }
-
-                val response = request.execute()
-                if (response == null) {
-                    // nothing more to do
-                    Timber.d("download: response was null, done here")
-                    break
-                }
+        val download = HexagonPagedDownload<Movie>(context, "get movies") { cursor ->
+            // get service each time to check if auth was removed
+            val moviesService = hexagonTools.moviesService
+                ?: return@HexagonPagedDownload HexagonPagedDownload.Page.failed()
 
-                movies = response.movies
-
-                if (response.cursor != null) {
-                    cursor = response.cursor
-                } else {
-                    hasMoreMovies = false
-                }
-            } catch (e: IOException) {
-                Errors.logAndReportHexagon("get movies", e)
-                return false
-            } catch (e: IllegalArgumentException) {
-                // Note: JSON parser may throw IllegalArgumentException.
-                Errors.logAndReportHexagon("get movies", e)
-                return false
+            val request = moviesService.get()  // use default server limit
+            if (hasMergedMovies) {
+                request.updatedSince = lastSyncTime
+            }
+            if (!TextUtils.isEmpty(cursor)) {
+                request.cursor = cursor
             }
 
-            if (movies == null || movies.isEmpty()) {
+            val response = request.execute()
+            if (response == null) {
                 // nothing more to do
-                break
+                Timber.d("download: response was null, done here")
+                HexagonPagedDownload.Page.end()
+            } else {
+                HexagonPagedDownload.Page.loaded(response.movies, response.cursor)
             }
+        }
 
+        // Apply a page while the next one is downloaded.
+        val result = download.download { movies ->
             val batch = ArrayList<ContentProviderOperation>()
             for (movie in movies) {
                 if (localMovies.contains(movie.tmdbId)) {
@@ -182,12 +156,13 @@ internal class HexagonMovieSync(
 
             try {
                 DBUtils.applyInSmallBatches(context, batch)
+                true
             } catch (e: OperationApplicationException) {
                 Timber.e(e, "download: applying movie updates failed")
-                return false
+                false
             }
-
         }
+        if (!result.isSuccessful) return false
 
         Timber.d("download: updated %d and removed %d movies", updatedCount, removedCount)
 
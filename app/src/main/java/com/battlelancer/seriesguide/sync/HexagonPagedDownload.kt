@@ -0,0 +1,166 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.sync
+
+import android.content.Context
+import com.battlelancer.seriesguide.util.Errors
+import com.uwetrottmann.androidutils.AndroidUtils
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.SendChannel
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.runInterruptible
+import timber.log.Timber
+import java.io.IOException
+
+/**
+ * Downloads all pages of a cursor-paged Hexagon list request. While a page is processed
+ * (e.g. written to the database) on the calling thread, already downloads the next pages.
+ * At most [PREFETCH_PAGES] pages are kept waiting to be processed to limit memory usage.
+ *
+ * Like when downloading one page after another, stops if there is no network connection or if
+ * [PageFetcher] returns [Page.Failed], like when auth was removed.
+ *
+ * @param action Used when logging and reporting errors.
+ */
+class HexagonPagedDownload<T>(
+    private val context: Context,
+    private val action: String,
+    private val fetcher: PageFetcher<T>
+) {
+
+    sealed class Page<out T> {
+        /**
+         * If [items] is empty or null, there are no more pages. If [cursor] is null, this is the
+         * last page.
+         */
+        class Loaded<T>(val items: List<T>?, val cursor: String?) : Page<T>()
+
+        /** There are no more pages, e.g. if there was no response. */
+        object End : Page<Nothing>()
+
+        /** Download failed, e.g. if auth was removed or the response was invalid. */
+        object Failed : Page<Nothing>()
+
+        companion object {
+            @JvmStatic
+            fun <T> loaded(items: List<T>?, cursor: String?): Page<T> = Loaded(items, cursor)
+
+            @JvmStatic
+            fun <T> end(): Page<T> = End
+
+            @JvmStatic
+            fun <T> failed(): Page<T> = Failed
+        }
+    }
+
+    fun interface PageFetcher<T> {
+        /**
+         * Downloads the page at [cursor], which is null for the first page. Called on a
+         * background thread. Should get the service each time to check if auth was removed.
+         *
+         * Network errors should be thrown, they are logged and reported.
+         */
+        @Throws(IOException::class)
+        fun fetch(cursor: String?): Page<T>
+    }
+
+    fun interface PageProcessor<T> {
+        /**
+         * Processes a non-empty page. Called on the thread calling [download] in order of pages.
+         * Return false to stop downloading.
+         */
+        fun process(items: List<@JvmSuppressWildcards T>): Boolean
+    }
+
+    /**
+     * @param pageCount The number of non-empty pages that were processed.
+     */
+    class Result(val isSuccessful: Boolean, val pageCount: Int)
+
+    /**
+     * Downloads and processes all pages. Blocks the calling thread until done,
+     * if the calling thread is interrupted throws [InterruptedException].
+     */
+    fun download(processor: PageProcessor<T>): Result = runBlocking {
+        val pages = Channel<Page<T>>(capacity = PREFETCH_PAGES)
+        val fetcherJob = launch(Dispatchers.IO) {
+            fetchPages(pages)
+        }
+
+        var isSuccessful = false
+        var pageCount = 0
+        for (page in pages) {
+            when (page) {
+                is Page.Loaded -> {
+                    if (!processor.process(page.items!!)) break
+                    pageCount++
+                }
+
+                Page.End -> {
+                    isSuccessful = true
+                    break
+                }
+
+                Page.Failed -> break
+            }
+        }
+        // Stop downloading if processing failed.
+        fetcherJob.cancel()
+        Result(isSuccessful, pageCount)
+    }
+
+    private suspend fun fetchPages(pages: SendChannel<Page<T>>) {
+        var cursor: String? = null
+        while (true) {
+            // abort if connection is lost
+            if (!AndroidUtils.isNetworkConnected(context)) {
+                Timber.e("%s: no network connection", action)
+                pages.send(Page.Failed)
+                return
+            }
+
+            val page = try {
+                // Interrupt blocking network call if processing failed.
+                runInterruptible { fetcher.fetch(cursor) }
+            } catch (e: IOException) {
+                // Do not report if cancelled.
+                currentCoroutineContext().ensureActive()
+                Errors.logAndReportHexagon(action, e)
+                Page.Failed
+            } catch (e: IllegalArgumentException) {
+                // Note: JSON parser may throw IllegalArgumentException.
+                Errors.logAndReportHexagon(action, e)
+                Page.Failed
+            }
+
+            if (page !is Page.Loaded) {
+                pages.send(page)
+                return
+            }
+            if (page.items.isNullOrEmpty()) {
+                // nothing more to do
+                pages.send(Page.End)
+                return
+            }
+            pages.send(page)
+            cursor = page.cursor
+            if (cursor == null) {
+                pages.send(Page.End)
+                return
+            }
+        }
+    }
+
+    companion object {
+        /**
+         * Pages are limited by the server, currently to a few hundred items.
+         */
+        const val PREFETCH_PAGES = 2
+    }
+
+}
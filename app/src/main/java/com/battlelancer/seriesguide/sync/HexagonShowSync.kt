@@ -11,6 +11,7 @@ import com.battlelancer.seriesguide.modules.ApplicationContext
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.shows.database.SgShow2CloudUpdate
 import com.battlelancer.seriesguide.shows.search.discover.SearchResult
+import com.battlelancer.seriesguide.sync.HexagonPagedDownload.Page
 import com.battlelancer.seriesguide.tmdbapi.TmdbTools2
 import com.battlelancer.seriesguide.util.Errors.Companion.logAndReportHexagon
 import com.battlelancer.seriesguide.util.LanguageTools
@@ -91,54 +92,29 @@ class HexagonShowSync @Inject constructor(
         hasMergedShows: Boolean,
         lastSyncTime: DateTime
     ): Boolean {
-        var cursor: String? = null
-        var hasMoreShows = true
-        while (hasMoreShows) {
-            // abort if connection is lost
-            if (!AndroidUtils.isNetworkConnected(context)) {
-                Timber.e("download: no network connection")
-                return false
+        val download = HexagonPagedDownload<SgCloudShow>(context, "get shows") { cursor ->
+            // get service each time to check if auth was removed
+            val showsService = hexagonTools.showsService ?: return@HexagonPagedDownload Page.failed()
+            val request = showsService.sgShows // use default server limit
+            if (hasMergedShows) {
+                // only get changed shows (otherwise returns all)
+                request.updatedSince = lastSyncTime
             }
-
-            var shows: List<SgCloudShow>?
-            try {
-                // get service each time to check if auth was removed
-                val showsService = hexagonTools.showsService ?: return false
-                val request = showsService.sgShows // use default server limit
-                if (hasMergedShows) {
-                    // only get changed shows (otherwise returns all)
-                    request.updatedSince = lastSyncTime
-                }
-                if (!cursor.isNullOrEmpty()) {
-                    request.cursor = cursor
-                }
-                val response = request.execute()
-                if (response == null) {
-                    // If empty API sends status 200 and empty list, so no body is a failure.
-                    Timber.e("download: response was null")
-                    return false
-                }
-                shows = response.shows
-
-                // check for more items
-                if (response.cursor != null) {
-                    cursor = response.cursor
-                } else {
-                    hasMoreShows = false
-                }
-            } catch (e: IOException) {
-                logAndReportHexagon("get shows", e)
-                return false
-            } catch (e: IllegalArgumentException) {
-                // Note: JSON parser may throw IllegalArgumentException.
-                logAndReportHexagon("get shows", e)
-                return false
+            if (!cursor.isNullOrEmpty()) {
+                request.cursor = cursor
             }
-            if (shows == null || shows.isEmpty()) {
-                // nothing to do here
-                break
+            val response = request.execute()
+            if (response == null) {
+                // If empty API sends status 200 and empty list, so no body is a failure.
+                Timber.e("download: response was null")
+                Page.failed()
+            } else {
+                Page.loaded(response.shows, response.cursor)
             }
+        }
 
+        // Process a page while the next one is downloaded.
+        return download.download { shows ->
             // append updates for received shows if there isn't one,
             // or appends shows not added locally
             appendShowUpdates(
@@ -150,8 +126,8 @@ class HexagonShowSync @Inject constructor(
                 tmdbIdsToShowIds,
                 !hasMergedShows
             )
-        }
-        return true
+            true
+        }.isSuccessful
     }
 
     private fun downloadLegacyShows(
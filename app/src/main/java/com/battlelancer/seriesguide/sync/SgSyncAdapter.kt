@@ -15,6 +15,7 @@ import android.os.Bundle
 import android.text.format.DateUtils
 import android.widget.Toast
 import androidx.preference.PreferenceManager
+import com.battlelancer.seriesguide.AppStartup
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.SgApp
 import com.battlelancer.seriesguide.backend.HexagonTools
@@ -25,6 +26,7 @@ import com.battlelancer.seriesguide.movies.tools.MovieTools
 import com.battlelancer.seriesguide.notifications.NotificationService
 import com.battlelancer.seriesguide.provider.SeriesGuideDatabase
 import com.battlelancer.seriesguide.settings.UpdateSettings
+import com.battlelancer.seriesguide.shows.database.UpcomingEpisodesTable
 import com.battlelancer.seriesguide.shows.tools.ShowSync
 import com.battlelancer.seriesguide.sync.SyncOptions.SyncType
 import com.battlelancer.seriesguide.traktapi.TraktCredentials
@@ -72,6 +74,10 @@ class SgSyncAdapter(context: Context) : AbstractThreadedSyncAdapter(context, tru
         provider: ContentProviderClient,
         syncResult: SyncResult
     ) {
+        // Jobs and sync may depend on upgrade code, like reset sync state,
+        // and the sync process might have been started without the UI.
+        AppStartup.awaitUpgrade(context)
+
         // determine type of sync
         val options = SyncOptions(extras)
         Timber.i(
@@ -127,12 +133,11 @@ class SgSyncAdapter(context: Context) : AbstractThreadedSyncAdapter(context, tru
 
         // Update show data.
         // If failed for at least one show, do not proceed with other sync steps to avoid
-        // syncing with outdated show data. However, renew the search table and trigger the
+        // syncing with outdated show data. However, trigger the
         // notification service if at least one show was updated.
         // Note: it is still NOT guaranteed show data is up-to-date before syncing with Cloud/Trakt
         // because a show does not get updated if it was recently (see ShowSync selecting which
         // shows to update).
-        var hasAddedShows = false
         try {
             var resultCode = showSync.sync(context, currentTime, progress)
             Timber.d("Syncing: TMDB shows...DONE")
@@ -145,6 +150,12 @@ class SgSyncAdapter(context: Context) : AbstractThreadedSyncAdapter(context, tru
                 return // Try again later.
             }
 
+            if (Thread.interrupted()) throw InterruptedException()
+
+            // Separate from updating shows as providers change more often than show data
+            // and a show update should not wait for them.
+            tmdbSync.updateShowWatchProviderMappings()
+
             // do some more things if this is not a quick update
             if (showSync.isSyncMultiple) {
                 if (Thread.interrupted()) throw InterruptedException()
@@ -164,7 +175,6 @@ class SgSyncAdapter(context: Context) : AbstractThreadedSyncAdapter(context, tru
                         context,
                         hexagonTools.get(), movieTools.get(), progress
                     ).sync()
-                    hasAddedShows = resultHexagonSync.hasAddedShows
                     // don't overwrite failure
                     if (resultCode == UpdateResult.SUCCESS) {
                         resultCode = if (resultHexagonSync.success) {
@@ -213,12 +223,12 @@ class SgSyncAdapter(context: Context) : AbstractThreadedSyncAdapter(context, tru
         } finally {
             // Finish some things even if interrupted
 
-            // Renew search table if shows were updated and it will not be renewed by add task,
-            // but as this is a little costly only do it when doing the less frequent multiple
-            // shows sync.
-            if (showSync.isSyncMultiple && showSync.hasUpdatedShows() && !hasAddedShows) {
-                SeriesGuideDatabase.rebuildFtsTable(context)
-            }
+            // The search table is updated with episodes, only rebuild it if it is outdated,
+            // like after a database upgrade.
+            SeriesGuideDatabase.rebuildFtsTableIfNeeded(context)
+            // After updating shows and syncing with Trakt or Cloud, or if the window of upcoming
+            // episodes needs to move.
+            UpcomingEpisodesTable.refreshIfNeeded(context)
             // There could have been new episodes added after an update
             if (showSync.hasUpdatedShows()) {
                 NotificationService.trigger(context)
@@ -7,8 +7,11 @@ import android.content.Context;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.battlelancer.seriesguide.R;
+import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import org.greenrobot.eventbus.EventBus;
 import timber.log.Timber;
 
@@ -91,7 +94,33 @@ public class SyncProgress {
         }
     }
 
+    /**
+     * How many items a step updated and failed to update, and how long it took.
+     */
+    public static class StepStats {
+        public final int updatedCount;
+        public final int failedCount;
+        public final long durationMs;
+
+        StepStats(int updatedCount, int failedCount, long durationMs) {
+            this.updatedCount = updatedCount;
+            this.failedCount = failedCount;
+            this.durationMs = durationMs;
+        }
+
+        /**
+         * Items (updated or failed) per second.
+         */
+        public double getItemsPerSecond() {
+            if (durationMs <= 0) {
+                return 0;
+            }
+            return (updatedCount + failedCount) * 1000.0 / durationMs;
+        }
+    }
+
     @NonNull private final List<Step> stepsWithError = new LinkedList<>();
+    @NonNull private final Map<Step, StepStats> stepStats = new EnumMap<>(Step.class);
     @Nullable private Step currentStep;
     @Nullable private String importantErrorOrNull;
 
@@ -112,6 +141,23 @@ public class SyncProgress {
         }
     }
 
+    /**
+     * Record how many items the given step updated and failed to update.
+     * Replaces stats previously recorded for the step.
+     */
+    void recordStats(Step step, int updatedCount, int failedCount, long durationMs) {
+        StepStats stats = new StepStats(updatedCount, failedCount, durationMs);
+        stepStats.put(step, stats);
+        Timber.d("Syncing: %s...updated %d, failed %d in %d ms (%s/s)", step.name(),
+                updatedCount, failedCount, durationMs,
+                String.format(Locale.US, "%.1f", stats.getItemsPerSecond()));
+    }
+
+    @Nullable
+    public StepStats getStats(Step step) {
+        return stepStats.get(step);
+    }
+
     /**
      * Set message to be appended to the step description once
      * {@link #publish} or {@link #publishFinished} is called.
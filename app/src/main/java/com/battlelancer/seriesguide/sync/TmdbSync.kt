@@ -3,19 +3,31 @@
 
 package com.battlelancer.seriesguide.sync
 
+import android.content.ContentProviderOperation
 import android.content.Context
+import android.content.OperationApplicationException
+import android.os.SystemClock
 import android.text.format.DateUtils
 import com.battlelancer.seriesguide.SgApp
 import com.battlelancer.seriesguide.movies.MoviesSettings
+import com.battlelancer.seriesguide.movies.details.MovieDetails
 import com.battlelancer.seriesguide.movies.tools.MovieTools
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.settings.TmdbSettings
+import com.battlelancer.seriesguide.settings.UpdateSettings
 import com.battlelancer.seriesguide.streaming.SgWatchProvider
+import com.battlelancer.seriesguide.streaming.ShowWatchProviderMappings
 import com.battlelancer.seriesguide.streaming.StreamingSearch
+import com.battlelancer.seriesguide.util.DBUtils
 import com.battlelancer.seriesguide.util.Errors
 import com.uwetrottmann.androidutils.AndroidUtils
 import com.uwetrottmann.tmdb2.services.ConfigurationService
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.cancelChildren
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.runInterruptible
 import timber.log.Timber
 
 class TmdbSync internal constructor(
@@ -57,6 +69,21 @@ class TmdbSync internal constructor(
         }
     }
 
+    /**
+     * Refreshes watch provider mappings of shows that were not refreshed recently,
+     * see [ShowWatchProviderMappings].
+     *
+     * Does not record an error if refreshing fails for some shows (failures are already
+     * reported), those are just tried again next time.
+     */
+    @Throws(InterruptedException::class)
+    fun updateShowWatchProviderMappings() {
+        // If this thread is interrupted throws InterruptedException
+        runBlocking(SgApp.SINGLE) {
+            ShowWatchProviderMappings.refresh(context)
+        }
+    }
+
     /**
      * Downloads and stores the latest image url configuration from themoviedb.org.
      */
@@ -83,7 +110,15 @@ class TmdbSync internal constructor(
     /**
      * Regularly updates current and future movies (or those without a release date) with data from
      * themoviedb.org. All other movies are updated rarely.
+     *
+     * If [UpdateSettings.getShowUpdateWorkerCount] is larger than one, downloads data of multiple
+     * movies at once (all sharing the [com.battlelancer.seriesguide.tmdbapi.TmdbRateLimiter]
+     * budget). Either way, stores downloaded data in batches and records the number of updated
+     * and failed movies with [progress].
+     *
+     * Returns false if updating at least one movie failed or there is no network connection.
      */
+    @Throws(InterruptedException::class)
     fun updateMovies(progress: SyncProgress): Boolean {
         val currentTimeMillis = System.currentTimeMillis()
         // update movies released 6 months ago or newer, should cover most edits
@@ -91,48 +126,192 @@ class TmdbSync internal constructor(
         // exclude movies updated in the last 7 days
         val updatedBefore = currentTimeMillis - UPDATED_BEFORE_DAYS
         val updatedBeforeOther = currentTimeMillis - UPDATED_BEFORE_90_DAYS
-        val movies = SgRoomDatabase.getInstance(context).movieHelper()
+        val movieTmdbIds = SgRoomDatabase.getInstance(context).movieHelper()
             .getMoviesToUpdate(releasedAfter, updatedBefore, updatedBeforeOther)
-        Timber.d("Updating %d movie(s)...", movies.size)
+            .map { it.tmdbId }
+            .filter { it != 0 } // skip invalid id
+        Timber.d("Updating %d movie(s)...", movieTmdbIds.size)
 
         val languageCode = MoviesSettings.getMoviesLanguage(context)
         val regionCode = MoviesSettings.getMoviesRegion(context)
 
-        var result = true
-        for (movie in movies) {
+        val startMs = SystemClock.elapsedRealtime()
+        val updates = MovieUpdates(progress)
+        // Movies need fewer requests than shows, so just use the same number of workers.
+        val workerCount = UpdateSettings.getShowUpdateWorkerCount(context)
+        val isComplete = try {
+            if (workerCount > 1 && movieTmdbIds.size > 1) {
+                updateMoviesInParallel(movieTmdbIds, languageCode, regionCode, workerCount, updates)
+            } else {
+                updateMoviesOneByOne(movieTmdbIds, languageCode, regionCode, updates)
+            }
+        } finally {
+            // Also store movies downloaded before stopping early.
+            updates.apply()
+        }
+        progress.recordStats(
+            SyncProgress.Step.TMDB,
+            updates.updatedCount,
+            updates.failedCount,
+            SystemClock.elapsedRealtime() - startMs
+        )
+
+        return isComplete && updates.failedCount == 0
+    }
+
+    /**
+     * Returns false if stopped early as there is no network connection.
+     */
+    @Throws(InterruptedException::class)
+    private fun updateMoviesOneByOne(
+        movieTmdbIds: List<Int>,
+        languageCode: String,
+        regionCode: String,
+        updates: MovieUpdates
+    ): Boolean {
+        for (movieTmdbId in movieTmdbIds) {
             if (!AndroidUtils.isNetworkConnected(context)) {
                 return false // stop updates: no network connection
             }
-            if (movie.tmdbId == 0) {
-                continue // skip invalid id
-            }
+            if (Thread.interrupted()) throw InterruptedException()
 
             // try loading details from tmdb
-            val details = movieTools.getMovieDetails(
-                languageCode, regionCode, movie.tmdbId, false
-            )
-            if (details.tmdbMovie() != null) {
-                // update local database
-                movieTools.updateMovie(details, movie.tmdbId)
-            } else {
-                // Treat as failure if updating at least one fails.
-                result = false
+            val details = movieTools.getMovieDetails(languageCode, regionCode, movieTmdbId, false)
+            updates.add(movieTmdbId, details)
+        }
+        return true
+    }
+
+    /**
+     * Downloads movie data with [workerCount] workers at once, while the calling thread is the
+     * only one to store downloaded data to the database.
+     *
+     * Returns false if stopped early as there is no network connection.
+     */
+    @Throws(InterruptedException::class)
+    private fun updateMoviesInParallel(
+        movieTmdbIds: List<Int>,
+        languageCode: String,
+        regionCode: String,
+        workerCount: Int,
+        updates: MovieUpdates
+    ): Boolean {
+        // If this thread is interrupted throws InterruptedException
+        return runBlocking {
+            val tmdbIds = Channel<Int>(Channel.UNLIMITED)
+            movieTmdbIds.forEach { tmdbIds.trySend(it) }
+            tmdbIds.close()
+
+            // Only allow workers to get a little ahead of the writer to keep memory usage low.
+            val fetchResults = Channel<FetchResult>(capacity = workerCount)
+            val workers = launch(Dispatchers.IO) {
+                repeat(workerCount) {
+                    launch {
+                        for (movieTmdbId in tmdbIds) {
+                            if (!AndroidUtils.isNetworkConnected(context)) {
+                                fetchResults.send(FetchResult.NoNetwork)
+                                return@launch
+                            }
+                            // Interrupt blocking network calls if cancelled.
+                            val details = runInterruptible {
+                                movieTools.getMovieDetails(
+                                    languageCode, regionCode, movieTmdbId, false
+                                )
+                            }
+                            fetchResults.send(FetchResult.Fetched(movieTmdbId, details))
+                        }
+                    }
+                }
+            }
+            launch {
+                workers.join()
+                fetchResults.close()
+            }
+
+            var isComplete = true
+            for (fetchResult in fetchResults) {
+                if (Thread.interrupted()) throw InterruptedException()
+
+                when (fetchResult) {
+                    FetchResult.NoNetwork -> {
+                        isComplete = false // stop updates: no network connection
+                        break
+                    }
+
+                    is FetchResult.Fetched -> {
+                        updates.add(fetchResult.movieTmdbId, fetchResult.details)
+                    }
+                }
+            }
+            // Stop workers if stopped early.
+            coroutineContext.cancelChildren()
+            isComplete
+        }
+    }
 
+    private sealed class FetchResult {
+        class Fetched(val movieTmdbId: Int, val details: MovieDetails) : FetchResult()
+        object NoNetwork : FetchResult()
+    }
+
+    /**
+     * Collects database updates for downloaded movies and applies them in batches,
+     * also counts updated and failed movies.
+     */
+    private inner class MovieUpdates(private val progress: SyncProgress) {
+
+        private val batch = ArrayList<ContentProviderOperation>()
+        private var batchMovieCount = 0
+        var updatedCount = 0
+            private set
+        var failedCount = 0
+            private set
+
+        fun add(movieTmdbId: Int, details: MovieDetails) {
+            if (details.tmdbMovie() == null) {
+                failedCount++
                 val movieTitle = SgRoomDatabase.getInstance(context)
                     .movieHelper()
-                    .getMovieTitle(movie.tmdbId)
-                val message = "Failed to update movie ('${movieTitle}', TMDB id ${movie.tmdbId})."
+                    .getMovieTitle(movieTmdbId)
+                val message = "Failed to update movie ('${movieTitle}', TMDB id ${movieTmdbId})."
                 progress.setImportantErrorIfNone(message)
                 Timber.e(message)
+                return
+            }
+
+            movieTools.buildMovieUpdateOp(details, movieTmdbId)?.let { batch.add(it) }
+            batchMovieCount++
+            if (batchMovieCount >= MOVIES_PER_BATCH) {
+                apply()
             }
         }
 
-        return result
+        /**
+         * Applies all collected updates in a single transaction.
+         */
+        fun apply() {
+            if (batchMovieCount == 0) return
+            try {
+                DBUtils.applyInSmallBatches(context, batch)
+                updatedCount += batchMovieCount
+            } catch (e: OperationApplicationException) {
+                Timber.e(e, "updateMovies: database update failed")
+                failedCount += batchMovieCount
+            }
+            batch.clear()
+            batchMovieCount = 0
+        }
     }
 
     companion object {
         const val RELEASED_AFTER_DAYS = 6 * 30 * DateUtils.DAY_IN_MILLIS
         const val UPDATED_BEFORE_DAYS = 7 * DateUtils.DAY_IN_MILLIS
         const val UPDATED_BEFORE_90_DAYS = 3 * 30 * DateUtils.DAY_IN_MILLIS
+
+        /**
+         * Same as the small batch size of [DBUtils.applyInSmallBatches],
+         * so each batch is applied in a single transaction.
+         */
+        private const val MOVIES_PER_BATCH = 50
     }
 }
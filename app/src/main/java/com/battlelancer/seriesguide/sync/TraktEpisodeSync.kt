@@ -5,20 +5,20 @@ package com.battlelancer.seriesguide.sync
 
 import android.content.Context
 import androidx.preference.PreferenceManager
-import com.battlelancer.seriesguide.SgApp
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
-import com.battlelancer.seriesguide.shows.database.SgEpisode2CollectedUpdate
-import com.battlelancer.seriesguide.shows.database.SgEpisode2ForSync
-import com.battlelancer.seriesguide.shows.database.SgEpisode2WatchedUpdate
+import com.battlelancer.seriesguide.shows.database.SgEpisode2BulkFlagUpdate
+import com.battlelancer.seriesguide.shows.database.SgEpisode2ForTraktSync
+import com.battlelancer.seriesguide.shows.database.SgEpisode2UpdateByNumber
 import com.battlelancer.seriesguide.shows.episodes.EpisodeFlags
 import com.battlelancer.seriesguide.shows.episodes.EpisodeTools
+import com.battlelancer.seriesguide.shows.tools.NextEpisodeDirtyShows
 import com.battlelancer.seriesguide.traktapi.SgTrakt
 import com.battlelancer.seriesguide.traktapi.TraktSettings
 import com.battlelancer.seriesguide.traktapi.TraktTools
 import com.battlelancer.seriesguide.traktapi.TraktTools2
 import com.battlelancer.seriesguide.util.Errors
 import com.battlelancer.seriesguide.util.TimeTools
-import com.uwetrottmann.trakt5.entities.BaseSeason
+import com.uwetrottmann.trakt5.entities.BaseEpisode
 import com.uwetrottmann.trakt5.entities.BaseShow
 import com.uwetrottmann.trakt5.entities.ShowIds
 import com.uwetrottmann.trakt5.entities.SyncEpisode
@@ -27,6 +27,7 @@ import com.uwetrottmann.trakt5.entities.SyncSeason
 import com.uwetrottmann.trakt5.entities.SyncShow
 import org.threeten.bp.OffsetDateTime
 import timber.log.Timber
+import java.util.TreeMap
 
 /**
  * Downloads and uploads watched and collected episodes.
@@ -54,7 +55,12 @@ class TraktEpisodeSync(
         }
         val traktShow = tmdbIdsToTraktShow[showTmdbId]
             ?: return true // show is not watched/collected on Trakt, done.
-        return processTraktSeasons(false, showRowId, traktShow, flag)
+        return reconcileShows(
+            listOf(ShowToReconcile(showRowId, traktShow)),
+            emptyMap(), // Not uploading, so no Trakt IDs required.
+            flag,
+            false
+        )
     }
 
     /**
@@ -190,7 +196,12 @@ class TraktEpisodeSync(
     ): Boolean {
         val tmdbIdsToTraktShow = TraktTools2.mapByTmdbId(remoteShows)
 
-        var uploadedShowsCount = 0
+        // Get Trakt IDs of all shows at once instead of for each show.
+        val database = SgRoomDatabase.getInstance(context)
+        val showIdsToTraktId = database.sgShow2Helper().getShowTraktIds()
+            .associate { it.id to it.traktId }
+
+        val showsToReconcile = ArrayList<ShowToReconcile>()
         val showIdsToLastWatched: MutableMap<Long, Long> = HashMap()
         val showsToClear = ArrayList<Long>()
 
@@ -198,9 +209,7 @@ class TraktEpisodeSync(
             val traktShow = tmdbIdsToTraktShow[tmdbId]
             if (traktShow != null) {
                 // show watched/collected on Trakt
-                if (!processTraktSeasons(isInitialSync, showId, traktShow, flag)) {
-                    return false // processing seasons failed, give up.
-                }
+                showsToReconcile.add(ShowToReconcile(showId, traktShow))
                 // For watched shows update local last watched timestamp.
                 if (flag == Flag.WATCHED) {
                     val lastWatchedAt = traktShow.last_watched_at
@@ -208,32 +217,34 @@ class TraktEpisodeSync(
                         showIdsToLastWatched[showId] = lastWatchedAt.toInstant().toEpochMilli()
                     }
                 }
-            } else {
-                // show not watched/collected on Trakt
-                // check if this is because the show can not be tracked with Trakt (yet)
-                // keep state local and maybe upload in the future
-                val showTraktId = SgApp.getServicesComponent(context)
-                    .showTools().getShowTraktId(showId)
-                if (showTraktId != null) {
-                    // Show can be tracked with Trakt.
-                    if (isInitialSync) {
-                        // upload all watched/collected episodes of the show
-                        // do in between processing to stretch uploads over longer time periods
-                        uploadShow(traktSync!!, showId, showTraktId, flag)
-                        uploadedShowsCount++
-                    } else {
-                        // Set all watched/collected episodes of show not watched/collected,
-                        // clear plays if watched.
-                        showsToClear.add(showId)
-                    }
+            } else if (showIdsToTraktId.containsKey(showId)) {
+                // Show not watched/collected on Trakt, but can be tracked with Trakt.
+                // Note: shows that can not be tracked with Trakt (yet) keep their local state
+                // and maybe upload in the future.
+                if (isInitialSync) {
+                    // upload all watched/collected episodes of the show
+                    showsToReconcile.add(ShowToReconcile(showId, null))
+                } else {
+                    // Set all watched/collected episodes of show not watched/collected,
+                    // clear plays if watched.
+                    showsToClear.add(showId)
                 }
             }
         }
+
+        // Compare episodes of some shows at once, so uploads are stretched over a longer time
+        // while the number of queries and transactions stays low.
+        for (shows in showsToReconcile.chunked(SHOWS_PER_BATCH)) {
+            if (!reconcileShows(shows, showIdsToTraktId, flag, isInitialSync)) {
+                return false // processing shows failed, give up.
+            }
+        }
+
         // Clear all watched/collected episodes of marked shows.
-        val database = SgRoomDatabase.getInstance(context)
         if (showsToClear.isNotEmpty()) {
             if (flag == Flag.WATCHED) {
                 database.sgEpisode2Helper().setShowsNotWatchedExcludeSkipped(showsToClear)
+                NextEpisodeDirtyShows.addAll(showsToClear)
             } else {
                 database.sgEpisode2Helper().updateCollectedOfShows(showsToClear, false)
             }
@@ -242,268 +253,184 @@ class TraktEpisodeSync(
         if (showIdsToLastWatched.isNotEmpty()) {
             database.sgShow2Helper().updateLastWatchedMsIfLater(showIdsToLastWatched)
         }
-        if (uploadedShowsCount > 0) {
-            Timber.d(
-                "processTraktShows: uploaded %s flags for %s complete shows.", flag.id,
-                uploadedShowsCount
-            )
-        }
         return true
     }
 
     /**
-     * Sync the watched/collected episodes of the given Trakt show with the local episodes. The
-     * given show has to be watched/collected on Trakt.
+     * A local show and its Trakt show, which is null if the show is not watched/collected
+     * on Trakt.
+     */
+    private class ShowToReconcile(
+        val showId: Long,
+        val traktShow: BaseShow?
+    )
+
+    /**
+     * Sync the watched/collected episodes of the given shows with their Trakt show.
+     *
+     * Loads episodes of all shows with a single query, compares them with the Trakt shows in
+     * memory and stores all changes in a single transaction.
      *
      * If [isInitialSync], will upload watched/collected episodes that are not
      * watched/collected on Trakt. If `false`, will set them not watched/collected (if not
      * skipped) to mirror the Trakt episode.
      */
-    private fun processTraktSeasons(
-        isInitialSync: Boolean, showRowId: Long,
-        traktShow: BaseShow, flag: Flag
+    private fun reconcileShows(
+        shows: List<ShowToReconcile>,
+        showIdsToTraktId: Map<Long, Int>,
+        flag: Flag,
+        isInitialSync: Boolean
     ): Boolean {
-        val traktSeasons = TraktTools.mapSeasonsByNumber(traktShow.seasons)
-
         val database = SgRoomDatabase.getInstance(context)
-        val localSeasons = database.sgSeason2Helper()
-            .getSeasonNumbersOfShow(showRowId)
+        val localEpisodesByShow = database.sgEpisode2Helper()
+            .getEpisodesForTraktSync(shows.map { it.showId })
+            .groupBy { it.showId }
 
-        val seasonsToClear = ArrayList<Long>()
-        val syncSeasons: MutableList<SyncSeason> = ArrayList()
-        for (localSeason in localSeasons) {
-            val seasonId = localSeason.id
-            val seasonNumber = localSeason.number
-            if (traktSeasons.containsKey(seasonNumber)) {
-                // Season watched/collected on Trakt.
-                if (flag == Flag.WATCHED) {
-                    if (!processWatchedTraktEpisodes(
-                            seasonId, seasonNumber,
-                            traktSeasons[seasonNumber]!!, syncSeasons, isInitialSync
-                        )) {
-                        return false
-                    }
+        val updates = ArrayList<SgEpisode2UpdateByNumber>()
+        val uploads = ArrayList<Pair<ShowToReconcile, SyncShow>>()
+        for (show in shows) {
+            val localEpisodes = localEpisodesByShow[show.showId] ?: continue
+            val traktEpisodesBySeason = show.traktShow
+                ?.let { TraktTools.mapSeasonsByNumber(it.seasons) }
+                ?.mapValues { TraktTools.buildTraktEpisodesMap(it.value.episodes) }
+                ?: emptyMap()
+
+            val updateCountBefore = updates.size
+            val syncEpisodesBySeason = TreeMap<Int, MutableList<SyncEpisode>>()
+            for (localEpisode in localEpisodes) {
+                val traktEpisode = traktEpisodesBySeason[localEpisode.season]
+                    ?.get(localEpisode.number)
+                val uploadCount = if (flag == Flag.WATCHED) {
+                    compareWatched(localEpisode, traktEpisode, isInitialSync, updates)
                 } else {
-                    if (!processCollectedTraktEpisodes(
-                            seasonId, seasonNumber,
-                            traktSeasons[seasonNumber]!!, syncSeasons, isInitialSync
-                        )) {
-                        return false
-                    }
+                    compareCollected(localEpisode, traktEpisode, isInitialSync, updates)
                 }
-            } else {
-                // Season not watched/collected on Trakt.
-                if (isInitialSync) {
-                    // schedule all watched/collected episodes of this season for upload
-                    buildSyncSeason(seasonId, seasonNumber, flag)
-                        ?.also { syncSeasons.add(it) }
-                } else {
-                    // Set all watched/collected episodes of season not watched/collected,
-                    // clear plays if watched.
-                    seasonsToClear.add(seasonId)
+                if (uploadCount > 0) {
+                    val syncEpisode = SyncEpisode().number(localEpisode.number)
+                    val syncEpisodes = syncEpisodesBySeason.getOrPut(localEpisode.season) {
+                        ArrayList()
+                    }
+                    repeat(uploadCount) { syncEpisodes.add(syncEpisode) }
                 }
             }
-        }
-        if (seasonsToClear.isNotEmpty()) {
-            if (flag == Flag.WATCHED) {
-                database.sgEpisode2Helper().setSeasonsNotWatchedExcludeSkipped(seasonsToClear)
-            } else {
-                database.sgEpisode2Helper().updateCollectedOfSeasons(seasonsToClear, false)
+            if (flag == Flag.WATCHED && updates.size > updateCountBefore) {
+                NextEpisodeDirtyShows.add(show.showId)
             }
-        }
-        return if (isInitialSync && syncSeasons.size > 0) {
-            // upload watched/collected episodes for this show
-            val showTraktId = SgApp.getServicesComponent(context)
-                .showTools().getShowTraktId(showRowId)
-                ?: return false // show should have a Trakt id, give up
-            upload(traktSync!!, showTraktId, syncSeasons, flag)
-        } else {
-            true
-        }
-    }
-
-    private fun processWatchedTraktEpisodes(
-        seasonId: Long,
-        seasonNumber: Int,
-        traktSeason: BaseSeason,
-        syncSeasons: MutableList<SyncSeason>,
-        isInitialSync: Boolean
-    ): Boolean {
-        val traktEpisodes = TraktTools.buildTraktEpisodesMap(traktSeason.episodes)
-
-        val helper = SgRoomDatabase.getInstance(context).sgEpisode2Helper()
-        val localEpisodes = helper.getEpisodesForTraktSync(seasonId)
 
-        val batch = ArrayList<SgEpisode2WatchedUpdate>()
-        val syncEpisodes: MutableList<SyncEpisode> = ArrayList()
-        var episodesSetOnePlayCount = 0
-        var episodesUnsetCount = 0
-        for ((episodeId, episodeNumber, _, watchedFlag, plays) in localEpisodes) {
-            val isWatchedLocally = EpisodeTools.isWatched(watchedFlag)
-            val traktEpisode = traktEpisodes[episodeNumber]
-            if (traktEpisode != null) {
-                // Episode watched on Trakt.
-                val traktPlays = traktEpisode.plays
-                if (watchedFlag != EpisodeFlags.WATCHED) {
-                    // Local episode is skipped or not watched.
-                    // Set as watched and store plays.
-                    val playsToStore = if (traktPlays != null && traktPlays > 0) traktPlays else 1
-                    batch.add(
-                        SgEpisode2WatchedUpdate(episodeId, EpisodeFlags.WATCHED, playsToStore)
-                    )
-                    if (playsToStore == 1) {
-                        episodesSetOnePlayCount++
-                    }
-                } else {
-                    // Watched locally: update plays if changed.
-                    if (traktPlays != null && traktPlays > 0 && traktPlays != plays) {
-                        batch.add(
-                            SgEpisode2WatchedUpdate(episodeId, EpisodeFlags.WATCHED, traktPlays)
-                        )
-                    }
-                }
-            } else {
-                // Episode not watched on Trakt.
-                // Note: episodes skipped locally are not touched.
-                if (isWatchedLocally) {
-                    if (isInitialSync) {
-                        // Upload to Trakt.
-                        // Add an episode for each play, Trakt will create a separate play for each.
-                        val syncEpisode = SyncEpisode().number(episodeNumber)
-                        for (i in 0 until plays) {
-                            syncEpisodes.add(syncEpisode)
-                        }
-                    } else {
-                        // Set as not watched and remove plays if it is currently watched.
-                        batch.add(
-                            SgEpisode2WatchedUpdate(episodeId, EpisodeFlags.UNWATCHED, 0)
-                        )
-                        episodesUnsetCount++
+            if (isInitialSync && syncEpisodesBySeason.isNotEmpty()) {
+                // upload watched/collected episodes for this show
+                val showTraktId = showIdsToTraktId[show.showId]
+                    ?: return false // show should have a Trakt id, give up
+                val syncShow = SyncShow().apply {
+                    id(ShowIds.trakt(showTraktId))
+                    seasons = syncEpisodesBySeason.map { (number, episodes) ->
+                        SyncSeason().number(number).episodes(episodes)
                     }
                 }
+                uploads.add(Pair(show, syncShow))
             }
         }
-        val localEpisodeCount = localEpisodes.size
-        val setWatchedOnePlayWholeSeason = episodesSetOnePlayCount == localEpisodeCount
-        val notWatchedWholeSeason = episodesUnsetCount == localEpisodeCount
 
-        // Performance improvement especially on initial syncs:
-        // if setting the whole season as (not) watched with 1 play, replace with single db op.
-        when {
-            setWatchedOnePlayWholeSeason -> helper.setSeasonWatched(seasonId)
-            notWatchedWholeSeason -> helper.setSeasonNotWatchedAndRemovePlays(seasonId)
-            else -> {
-                // Or apply individual episode updates.
-                helper.updateEpisodesWatched(batch)
+        SgEpisode2BulkFlagUpdate.apply(database, updates)
+
+        var uploadedShowsCount = 0
+        for ((show, syncShow) in uploads) {
+            if (upload(traktSync!!, syncShow, flag)) {
+                uploadedShowsCount++
+            } else if (show.traktShow != null) {
+                // Only give up if the show is on Trakt, try again for the others next time.
+                return false
             }
         }
-        if (isInitialSync && syncEpisodes.size > 0) {
-            syncSeasons.add(
-                SyncSeason()
-                    .number(seasonNumber)
-                    .episodes(syncEpisodes)
+        if (uploadedShowsCount > 0) {
+            Timber.d(
+                "reconcileShows: uploaded %s flags for %s shows.", flag.id,
+                uploadedShowsCount
             )
         }
         return true
     }
 
-    private fun processCollectedTraktEpisodes(
-        seasonId: Long,
-        seasonNumber: Int,
-        traktSeason: BaseSeason,
-        syncSeasons: MutableList<SyncSeason>,
-        isInitialSync: Boolean
-    ): Boolean {
-        val traktEpisodes = TraktTools.buildTraktEpisodesMap(traktSeason.episodes)
-
-        val helper = SgRoomDatabase.getInstance(context).sgEpisode2Helper()
-        val localEpisodes = helper.getEpisodesForTraktSync(seasonId)
-
-        val batch = ArrayList<SgEpisode2CollectedUpdate>()
-        val syncEpisodes: MutableList<SyncEpisode> = ArrayList()
-        var episodesAddCount = 0
-        var episodesRemoveCount = 0
-        for ((episodeId, episodeNumber, _, _, _, isCollectedLocally) in localEpisodes) {
-            val traktEpisode = traktEpisodes[episodeNumber]
-            if (traktEpisode != null) {
-                // Episode collected on Trakt.
-                if (!isCollectedLocally) {
-                    // Set as collected if it is currently not.
-                    batch.add(SgEpisode2CollectedUpdate(episodeId, true))
-                    episodesAddCount++
-                }
+    /**
+     * Adds an update to [updates] if the watched flag or plays of the local episode need to
+     * change to match Trakt. Returns how often to upload the local episode, which is only the
+     * case for an [isInitialSync].
+     */
+    private fun compareWatched(
+        localEpisode: SgEpisode2ForTraktSync,
+        traktEpisode: BaseEpisode?,
+        isInitialSync: Boolean,
+        updates: MutableList<SgEpisode2UpdateByNumber>
+    ): Int {
+        if (traktEpisode != null) {
+            // Episode watched on Trakt.
+            val traktPlays = traktEpisode.plays
+            if (localEpisode.watched != EpisodeFlags.WATCHED) {
+                // Local episode is skipped or not watched.
+                // Set as watched and store plays.
+                val playsToStore = if (traktPlays != null && traktPlays > 0) traktPlays else 1
+                updates.add(localEpisode.watchedUpdate(EpisodeFlags.WATCHED, playsToStore))
+            } else if (traktPlays != null && traktPlays > 0 && traktPlays != localEpisode.plays) {
+                // Watched locally: update plays if changed.
+                updates.add(localEpisode.watchedUpdate(EpisodeFlags.WATCHED, traktPlays))
+            }
+        } else if (EpisodeTools.isWatched(localEpisode.watched)) {
+            // Episode not watched on Trakt.
+            // Note: episodes skipped locally are not touched.
+            if (isInitialSync) {
+                // Upload to Trakt.
+                // Add an episode for each play, Trakt will create a separate play for each.
+                return localEpisode.plays
             } else {
-                // Episode not collected on Trakt.
-                if (isCollectedLocally) {
-                    if (isInitialSync) {
-                        // Upload to Trakt.
-                        syncEpisodes.add(SyncEpisode().number(episodeNumber))
-                    } else {
-                        // Set as not collected if it is currently.
-                        batch.add(SgEpisode2CollectedUpdate(episodeId, false))
-                        episodesRemoveCount++
-                    }
-                }
+                // Set as not watched and remove plays if it is currently watched.
+                updates.add(localEpisode.watchedUpdate(EpisodeFlags.UNWATCHED, 0))
             }
         }
-        val localEpisodeCount = localEpisodes.size
-        val addWholeSeason = episodesAddCount == localEpisodeCount
-        val removeWholeSeason = episodesRemoveCount == localEpisodeCount
-
-        // Performance improvement especially on initial syncs:
-        // if setting the whole season as (not) collected, replace with single db op.
-        if (addWholeSeason || removeWholeSeason) {
-            helper.updateCollectedOfSeason(seasonId, addWholeSeason)
-        } else {
-            // Or apply individual episode updates.
-            helper.updateEpisodesCollected(batch)
-        }
-        if (isInitialSync && syncEpisodes.size > 0) {
-            syncSeasons.add(
-                SyncSeason()
-                    .number(seasonNumber)
-                    .episodes(syncEpisodes)
-            )
-        }
-        return true
+        return 0
     }
 
     /**
-     * Uploads all watched/collected episodes for the given show to Trakt.
+     * Like [compareWatched], but for the collected flag.
      */
-    private fun uploadShow(
-        traktSync: TraktSync,
-        showId: Long,
-        showTraktId: Int,
-        flag: Flag
-    ): Boolean {
-        val localSeasons = SgRoomDatabase.getInstance(context)
-            .sgSeason2Helper()
-            .getSeasonNumbersOfShow(showId)
-        val syncSeasons = ArrayList<SyncSeason>()
-        for (localSeason in localSeasons) {
-            buildSyncSeason(localSeason.id, localSeason.number, flag)
-                ?.also { syncSeasons.add(it) }
+    private fun compareCollected(
+        localEpisode: SgEpisode2ForTraktSync,
+        traktEpisode: BaseEpisode?,
+        isInitialSync: Boolean,
+        updates: MutableList<SgEpisode2UpdateByNumber>
+    ): Int {
+        if (traktEpisode != null) {
+            // Episode collected on Trakt.
+            if (!localEpisode.collected) {
+                // Set as collected if it is currently not.
+                updates.add(localEpisode.collectedUpdate(true))
+            }
+        } else if (localEpisode.collected) {
+            // Episode not collected on Trakt.
+            if (isInitialSync) {
+                // Upload to Trakt.
+                return 1
+            } else {
+                // Set as not collected if it is currently.
+                updates.add(localEpisode.collectedUpdate(false))
+            }
         }
-        return if (syncSeasons.isEmpty()) {
-            true // nothing to upload for this show
-        } else upload(traktSync, showTraktId, syncSeasons, flag)
+        return 0
     }
 
+    private fun SgEpisode2ForTraktSync.watchedUpdate(watched: Int, plays: Int) =
+        SgEpisode2UpdateByNumber(showId, number, season, watched, plays, null)
+
+    private fun SgEpisode2ForTraktSync.collectedUpdate(collected: Boolean) =
+        SgEpisode2UpdateByNumber(showId, number, season, null, null, collected)
+
     /**
      * Uploads all the given watched/collected episodes of the given show to Trakt.
      */
     private fun upload(
         traktSync: TraktSync,
-        showTraktId: Int,
-        syncSeasons: List<SyncSeason>,
+        syncShow: SyncShow,
         flag: Flag
     ): Boolean {
-        val syncShow = SyncShow().apply {
-            id(ShowIds.trakt(showTraktId))
-            seasons = syncSeasons
-        }
-
         // upload
         val syncItems = SyncItems().shows(syncShow)
         val action = "add episodes to " + flag.id
@@ -527,39 +454,18 @@ class TraktEpisodeSync(
         }
     }
 
-    /**
-     * Returns watched/collected episodes of the given season for uploading.
-     * Returns `null` if no episodes of that season are watched or collected.
-     */
-    private fun buildSyncSeason(seasonId: Long, seasonNumber: Int, flag: Flag): SyncSeason? {
-        // query for watched/collected episodes of the given season
-        val helper = SgRoomDatabase.getInstance(context).sgEpisode2Helper()
-        val episodes: List<SgEpisode2ForSync> = when (flag) {
-            Flag.WATCHED -> {
-                helper.getWatchedEpisodesForTraktSync(seasonId)
-            }
-            Flag.COLLECTED -> {
-                helper.getCollectedEpisodesForTraktSync(seasonId)
-            }
-        }
-        val syncEpisodes: MutableList<SyncEpisode> = ArrayList()
-        for ((_, number, _, _, plays) in episodes) {
-            val syncEpisode = SyncEpisode().number(number)
-
-            // Add an episode for each play, Trakt will create a separate play for each.
-            // Or only a single one if sending collected flag.
-            val count = if (flag == Flag.WATCHED) plays else 1
-            for (i in 0 until count) {
-                syncEpisodes.add(syncEpisode)
-            }
-        }
-        return if (syncEpisodes.size == 0) {
-            null // no episodes watched/collected
-        } else SyncSeason().number(seasonNumber).episodes(syncEpisodes)
-    }
-
     enum class Flag(val id: String) {
         COLLECTED("collected"),
         WATCHED("watched");
     }
+
+    companion object {
+        /**
+         * Stays well below the SQLite variable limit (see
+         * [com.battlelancer.seriesguide.provider.SQLITE_MAX_VARIABLES_PER_CHUNK]) when loading
+         * episodes, while keeping the number of loaded episodes (and the transaction to update
+         * them) small enough.
+         */
+        private const val SHOWS_PER_BATCH = 100
+    }
 }
\ No newline at end of file
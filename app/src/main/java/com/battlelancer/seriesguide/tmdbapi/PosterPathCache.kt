@@ -0,0 +1,142 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.tmdbapi
+
+import android.content.Context
+import android.text.format.DateUtils
+import androidx.annotation.VisibleForTesting
+import com.battlelancer.seriesguide.SgApp
+import com.battlelancer.seriesguide.movies.MoviesSettings
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
+import com.battlelancer.seriesguide.provider.chunkedForSqlite
+
+/**
+ * Caches TMDB poster paths of shows and movies in [SgPosterPath], so resolving a poster
+ * (see [com.battlelancer.seriesguide.util.SgPicassoRequestHandler]) does not have to request
+ * all details from TMDB each time. Poster paths are requested again after [MAX_AGE_MS].
+ *
+ * Blocks, so do not call on the main thread.
+ */
+object PosterPathCache {
+
+    const val TYPE_SHOW = 1
+    const val TYPE_MOVIE = 2
+
+    private const val MAX_AGE_MS = 14 * DateUtils.DAY_IN_MILLIS
+
+    /**
+     * Returns the poster path of the show, or null if it has none or getting it failed.
+     */
+    @JvmStatic
+    fun getShowPosterPath(context: Context, showTmdbId: Int, language: String): String? {
+        return resolveShowPosterPaths(context, listOf(showTmdbId), language)[showTmdbId]
+    }
+
+    /**
+     * Like [getShowPosterPath], but for a movie in the language set for movies.
+     */
+    @JvmStatic
+    fun getMoviePosterPath(context: Context, movieTmdbId: Int): String? {
+        return resolveMoviePosterPaths(context, listOf(movieTmdbId))[movieTmdbId]
+    }
+
+    /**
+     * Returns poster paths of the given shows, mapped by TMDB ID. Shows without poster
+     * are not included.
+     *
+     * Looks up all cached poster paths at once, then if [fetchMissing] requests details of
+     * all remaining shows from TMDB and caches their poster paths. Lists that load posters
+     * later on anyway can skip fetching to display right away.
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun resolveShowPosterPaths(
+        context: Context,
+        showTmdbIds: Collection<Int>,
+        language: String,
+        fetchMissing: Boolean = true
+    ): Map<Int, String> {
+        val tmdbTools = TmdbTools2()
+        return resolvePosterPaths(
+            SgRoomDatabase.getInstance(context).sgPosterPathHelper(),
+            TYPE_SHOW,
+            showTmdbIds,
+            language,
+            fetchMissing
+        ) { showTmdbId ->
+            tmdbTools.getShowDetails(showTmdbId, language, context)
+                ?.let { PosterPathResult(it.poster_path) }
+        }
+    }
+
+    /**
+     * Like [resolveShowPosterPaths], but for movies in the language set for movies.
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun resolveMoviePosterPaths(
+        context: Context,
+        movieTmdbIds: Collection<Int>,
+        fetchMissing: Boolean = true
+    ): Map<Int, String> {
+        val movieTools = SgApp.getServicesComponent(context).movieTools()
+        return resolvePosterPaths(
+            SgRoomDatabase.getInstance(context).sgPosterPathHelper(),
+            TYPE_MOVIE,
+            movieTmdbIds,
+            MoviesSettings.getMoviesLanguage(context),
+            fetchMissing
+        ) { movieTmdbId ->
+            movieTools.getMovieSummary(movieTmdbId)
+                ?.let { PosterPathResult(it.poster_path) }
+        }
+    }
+
+    /**
+     * Wraps the poster path of fetched details, which might be null.
+     */
+    @VisibleForTesting
+    internal class PosterPathResult(val posterPath: String?)
+
+    /**
+     * [fetchPosterPath] returns null if fetching failed, those IDs are not cached.
+     */
+    @VisibleForTesting
+    internal fun resolvePosterPaths(
+        helper: SgPosterPathHelper,
+        type: Int,
+        tmdbIds: Collection<Int>,
+        language: String,
+        fetchMissing: Boolean,
+        fetchPosterPath: (Int) -> PosterPathResult?
+    ): Map<Int, String> {
+        val now = System.currentTimeMillis()
+        val updatedAfterMs = now - MAX_AGE_MS
+
+        val posterPaths = HashMap<Int, String>()
+        val cachedIds = HashSet<Int>()
+        tmdbIds.distinct().chunkedForSqlite().forEach { chunk ->
+            helper.getPosterPaths(type, language, chunk, updatedAfterMs).forEach {
+                cachedIds.add(it.tmdb_id)
+                if (it.poster_path != null) posterPaths[it.tmdb_id] = it.poster_path
+            }
+        }
+        if (!fetchMissing) return posterPaths
+
+        val fetched = ArrayList<SgPosterPath>()
+        for (tmdbId in tmdbIds.distinct()) {
+            if (cachedIds.contains(tmdbId)) continue
+            val result = fetchPosterPath(tmdbId) ?: continue
+            fetched.add(SgPosterPath(type, tmdbId, language, result.posterPath, now))
+            if (result.posterPath != null) posterPaths[tmdbId] = result.posterPath
+        }
+        if (fetched.isNotEmpty()) {
+            helper.insertPosterPaths(fetched)
+            // Only clean up when writing anyway.
+            helper.deleteOutdatedPosterPaths(updatedAfterMs)
+        }
+        return posterPaths
+    }
+
+}
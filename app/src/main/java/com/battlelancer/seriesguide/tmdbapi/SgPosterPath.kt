@@ -0,0 +1,30 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.tmdbapi
+
+import androidx.room.Entity
+
+/**
+ * The TMDB poster path of a show or movie, see [PosterPathCache].
+ */
+@Entity(
+    tableName = "sg_poster_paths",
+    primaryKeys = ["type", "tmdb_id", "language"],
+)
+data class SgPosterPath(
+    /**
+     * Either [PosterPathCache.TYPE_SHOW] or [PosterPathCache.TYPE_MOVIE].
+     */
+    val type: Int,
+    val tmdb_id: Int,
+    /**
+     * The language code the details were requested in.
+     */
+    val language: String,
+    /**
+     * Null if TMDB has no poster.
+     */
+    val poster_path: String?,
+    val updated_ms: Long
+)
@@ -0,0 +1,39 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.tmdbapi
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+
+/**
+ * Data Access Object for the sg_poster_paths table, see [SgPosterPath].
+ */
+@Dao
+interface SgPosterPathHelper {
+
+    /**
+     * Returns poster paths of the given IDs updated after [updatedAfterMs].
+     * Pass at most one chunk of [tmdbIds],
+     * see [com.battlelancer.seriesguide.provider.chunkedForSqlite].
+     */
+    @Query("SELECT * FROM sg_poster_paths WHERE type = :type AND language = :language AND tmdb_id IN (:tmdbIds) AND updated_ms > :updatedAfterMs")
+    fun getPosterPaths(
+        type: Int,
+        language: String,
+        tmdbIds: List<Int>,
+        updatedAfterMs: Long
+    ): List<SgPosterPath>
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun insertPosterPaths(posterPaths: List<SgPosterPath>)
+
+    /**
+     * Deletes poster paths not updated after [updatedAfterMs].
+     */
+    @Query("DELETE FROM sg_poster_paths WHERE updated_ms <= :updatedAfterMs")
+    fun deleteOutdatedPosterPaths(updatedAfterMs: Long)
+
+}
@@ -9,16 +9,28 @@ import dagger.Lazy
 import okhttp3.Interceptor
 import okhttp3.Response
 import java.io.IOException
+import java.io.InterruptedIOException
 import javax.inject.Inject
 
 /**
  * A custom [TmdbInterceptor] which does not require a [Tmdb] instance until
  * intercepting.
+ *
+ * Requests to the TMDB API also take a permit from [TmdbRateLimiter].
  */
 class SgTmdbInterceptor @Inject constructor(private val tmdb: Lazy<Tmdb>) : Interceptor {
 
     @Throws(IOException::class)
     override fun intercept(chain: Interceptor.Chain): Response {
+        if (chain.request().url.host == Tmdb.API_HOST) {
+            try {
+                TmdbRateLimiter.acquire()
+            } catch (e: InterruptedException) {
+                // OkHttp only propagates IOException, cancel like an interrupted call would.
+                Thread.currentThread().interrupt()
+                throw InterruptedIOException("Interrupted while waiting for TMDB rate limit")
+            }
+        }
         return TmdbInterceptor.handleIntercept(chain, tmdb.get())
     }
 }
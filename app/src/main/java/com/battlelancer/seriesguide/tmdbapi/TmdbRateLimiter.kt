@@ -0,0 +1,60 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.tmdbapi
+
+import android.os.SystemClock
+
+/**
+ * A token bucket shared by all TMDB API requests of this app, so parallel workers (like when
+ * updating multiple shows or movies at once) together stay below the TMDB rate limit.
+ *
+ * Requests below the budget are never delayed, so single requests (like from the UI) are
+ * not affected.
+ */
+object TmdbRateLimiter {
+
+    /**
+     * TMDB currently allows around 50 requests per second per IP,
+     * stay well below that as requests from the UI also count against it.
+     */
+    private const val REQUESTS_PER_SECOND = 35
+    private const val MAX_BURST = REQUESTS_PER_SECOND.toDouble()
+    private const val NANOS_PER_REQUEST = 1_000_000_000.0 / REQUESTS_PER_SECOND
+
+    private var availablePermits = MAX_BURST
+    private var lastRefillNanos = SystemClock.elapsedRealtimeNanos()
+
+    /**
+     * Blocks until a request may be made.
+     *
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    @Throws(InterruptedException::class)
+    fun acquire() {
+        val waitNanos = reserve()
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (waitNanos % 1_000_000).toInt())
+        }
+    }
+
+    /**
+     * Takes a permit and returns how long to wait in nanoseconds until it becomes valid.
+     * Permits are reserved ahead of time, so waiting callers are served in order.
+     */
+    @Synchronized
+    private fun reserve(): Long {
+        val now = SystemClock.elapsedRealtimeNanos()
+        val refilled = (now - lastRefillNanos) / NANOS_PER_REQUEST
+        availablePermits = (availablePermits + refilled).coerceAtMost(MAX_BURST)
+        lastRefillNanos = now
+
+        availablePermits -= 1
+        return if (availablePermits >= 0) {
+            0
+        } else {
+            (-availablePermits * NANOS_PER_REQUEST).toLong()
+        }
+    }
+
+}
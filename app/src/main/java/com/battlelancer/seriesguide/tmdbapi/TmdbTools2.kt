@@ -559,6 +559,40 @@ class TmdbTools2 {
             ?.results?.get(region)
     }
 
+    /**
+     * Returns IDs of all watch providers (no matter if streaming, free, with ads or to buy)
+     * of the show in the region. Returns an empty list if there are none or the show no longer
+     * exists (TMDB returned HTTP 404), returns null if the network call failed.
+     */
+    suspend fun getWatchProviderIdsForShow(
+        showTmdbId: Int,
+        region: String,
+        context: Context
+    ): List<Int>? {
+        val action = "providers show"
+        val response = try {
+            SgApp.getServicesComponent(context).tmdb()
+                .tvService()
+                .watchProviders(showTmdbId)
+                .awaitResponse()
+        } catch (e: Exception) {
+            Errors.logAndReport(action, e)
+            return null
+        }
+        if (!response.isSuccessful) {
+            // Show no longer exists, so it has no providers.
+            if (response.code() == 404) return emptyList()
+            Errors.logAndReport(action, response)
+            return null
+        }
+        val results = response.body() ?: return null
+        val providers = results.results?.get(region) ?: return emptyList()
+        return listOfNotNull(providers.flatrate, providers.free, providers.ads, providers.buy)
+            .flatten()
+            .mapNotNull { it.provider_id }
+            .distinct()
+    }
+
     suspend fun getWatchProvidersForMovie(
         movieTmdbId: Int,
         region: String,
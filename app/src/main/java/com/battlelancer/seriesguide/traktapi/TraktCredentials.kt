@@ -17,12 +17,15 @@ import androidx.core.content.getSystemService
 import androidx.preference.PreferenceManager
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.SgApp
+import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.settings.NotificationSettings
 import com.battlelancer.seriesguide.sync.AccountUtils
 import com.battlelancer.seriesguide.ui.ShowsActivity
 import com.battlelancer.seriesguide.util.Errors
 import com.battlelancer.seriesguide.util.PendingIntentCompat
 import com.uwetrottmann.trakt5.TraktV2
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
 import timber.log.Timber
 import java.io.IOException
 
@@ -98,12 +101,15 @@ class TraktCredentials private constructor(context: Context) {
     }
 
     /**
-     * Removes the username and access token.
+     * Removes the username and access token. Also clears the cached history of the user.
      */
     @Synchronized
     fun removeCredentials() {
         removeAccessToken()
         setUsername(null)
+        SgApp.coroutineScope.launch(Dispatchers.IO) {
+            SgRoomDatabase.getInstance(context).sgTraktHistoryHelper().deleteAllHistory()
+        }
     }
 
     /**
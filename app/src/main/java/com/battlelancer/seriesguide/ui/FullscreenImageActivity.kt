@@ -10,6 +10,7 @@ import android.os.Bundle
 import android.os.Handler
 import android.os.Looper
 import android.widget.ImageView
+import com.battlelancer.seriesguide.AppStartup
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.util.ImageTools
 import com.battlelancer.seriesguide.util.SystemUiHider
@@ -17,7 +18,6 @@ import com.battlelancer.seriesguide.util.ThemeUtils
 import com.github.chrisbanes.photoview.PhotoView
 import com.squareup.picasso.Callback
 import com.squareup.picasso.NetworkPolicy
-import com.squareup.picasso.Picasso
 
 /**
  * Displays an image URL full screen in a zoomable view. If a preview image URL is provided, it is
@@ -142,7 +142,7 @@ class FullscreenImageActivity : BaseActivity() {
             // This ensures that the anonymous callback we have does not prevent the activity from
             // being garbage collected. It also prevents our callback from getting invoked even after the
             // activity has finished.
-            Picasso.get().cancelRequest(photoView)
+            AppStartup.getPicasso(this).cancelRequest(photoView)
         }
     }
 
@@ -12,7 +12,6 @@ import com.battlelancer.seriesguide.backend.settings.HexagonSettings
 import com.battlelancer.seriesguide.extensions.ExtensionManager
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.settings.AppSettings
-import com.battlelancer.seriesguide.streaming.StreamingSearch
 import com.battlelancer.seriesguide.traktapi.TraktSettings
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
@@ -28,12 +27,15 @@ class AppUpgrade(
 ) {
 
     /**
-     * Returns true if the app was updated from a previous version.
+     * Returns true if the app was updated from a previous version. Then also stores to let the
+     * user know, see [AppSettings.consumeShowWhatsNew].
      */
     fun upgradeIfNewVersion(): Boolean {
         return if (lastVersion < currentVersion) {
             Timber.i("Upgrading from %d to %d", lastVersion, currentVersion)
             doUpgrades()
+            // Store before the new version, so it is not lost if the app is stopped in between.
+            AppSettings.setShowWhatsNew(context)
             // Update last version to current version
             PreferenceManager.getDefaultSharedPreferences(context).edit()
                 .putInt(AppSettings.KEY_VERSION, currentVersion)
@@ -84,15 +86,6 @@ class AppUpgrade(
             }
         }
 
-        if (lastVersion < SgApp.RELEASE_VERSION_72_0_1) {
-            // Schedule all shows for updating to quickly populate watch provider mappings
-            if (StreamingSearch.getCurrentRegionOrNull(context) != null) {
-                SgApp.coroutineScope.launch(Dispatchers.IO) {
-                    SgRoomDatabase.getInstance(context).sgShow2Helper().resetLastUpdated()
-                }
-            }
-        }
-
         if (lastVersion < SgApp.RELEASE_VERSION_2024_3_5) {
             PreferenceManager.getDefaultSharedPreferences(context).edit {
                 // Remove old settings keys for selected tab
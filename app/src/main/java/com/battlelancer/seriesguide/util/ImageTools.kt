@@ -6,12 +6,14 @@ package com.battlelancer.seriesguide.util
 import android.content.Context
 import android.util.Base64
 import android.widget.ImageView
+import androidx.annotation.VisibleForTesting
+import androidx.collection.LruCache
+import com.battlelancer.seriesguide.AppStartup
 import com.battlelancer.seriesguide.BuildConfig
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.settings.AppSettings
 import com.battlelancer.seriesguide.settings.TmdbSettings
 import com.squareup.picasso.NetworkPolicy
-import com.squareup.picasso.Picasso
 import com.squareup.picasso.RequestCreator
 import timber.log.Timber
 import javax.crypto.Mac
@@ -30,6 +32,23 @@ object ImageTools {
     private val cacheKey: String
         get() = BuildConfig.IMAGE_CACHE_SECRET
 
+    /**
+     * Signed image cache URLs keyed by source URL. Split into stripes that each have their own
+     * lock, so binding rows on the main thread rarely waits on a background thread.
+     */
+    private const val SIGNED_URL_CACHE_STRIPES = 8
+    private const val SIGNED_URL_CACHE_STRIPE_SIZE = 128
+    private val signedUrlCache = Array(SIGNED_URL_CACHE_STRIPES) {
+        LruCache<String, String>(SIGNED_URL_CACHE_STRIPE_SIZE)
+    }
+
+    data class SignedUrlCacheStats(
+        val size: Int,
+        val maxSize: Int,
+        val hitCount: Int,
+        val missCount: Int
+    )
+
     /**
      * Build Picasso [com.squareup.picasso.RequestCreator] which respects user requirement of
      * only loading images over WiFi.
@@ -42,7 +61,7 @@ object ImageTools {
      */
     @JvmStatic
     fun loadWithPicasso(context: Context, path: String?): RequestCreator {
-        val requestCreator = Picasso.get().load(path)
+        val requestCreator = AppStartup.getPicasso(context).load(path)
         if (!Utils.isAllowedLargeDataConnection(context.applicationContext)) {
             // avoid the network, hit the cache immediately + accept stale images.
             requestCreator.networkPolicy(NetworkPolicy.OFFLINE)
@@ -179,13 +198,53 @@ object ImageTools {
         if (BuildConfig.IMAGE_CACHE_URL == null) {
             return posterUrl // no cache
         }
+        return getOrSignImageCacheUrl(posterUrl)
+    }
 
-        val mac = encodeImageUrl(posterUrl)
-        return if (mac != null) {
-            String.format("%s/s%s/%s", BuildConfig.IMAGE_CACHE_URL, mac, posterUrl)
-        } else {
-            null
+    /**
+     * Returns the signed image cache URL for [posterUrl] from the cache,
+     * or signs it and caches the result if it is not cached.
+     */
+    @VisibleForTesting
+    internal fun getOrSignImageCacheUrl(posterUrl: String): String? {
+        val stripeIndex = (posterUrl.hashCode() and Int.MAX_VALUE) % SIGNED_URL_CACHE_STRIPES
+        val stripe = signedUrlCache[stripeIndex]
+        val cachedUrl = stripe[posterUrl]
+        if (cachedUrl != null) return cachedUrl
+
+        // Another thread might sign the same URL at the same time, but that is fine.
+        val signedUrl = signImageCacheUrl(posterUrl) ?: return null
+        stripe.put(posterUrl, signedUrl)
+        return signedUrl
+    }
+
+    @VisibleForTesting
+    internal fun signImageCacheUrl(posterUrl: String): String? {
+        val mac = encodeImageUrl(posterUrl) ?: return null
+        return "${BuildConfig.IMAGE_CACHE_URL}/s$mac/$posterUrl"
+    }
+
+    fun getSignedUrlCacheStats(): SignedUrlCacheStats {
+        var size = 0
+        var hitCount = 0
+        var missCount = 0
+        for (stripe in signedUrlCache) {
+            // Each value is read with the stripe lock, but the sum is not atomic.
+            size += stripe.size()
+            hitCount += stripe.hitCount()
+            missCount += stripe.missCount()
         }
+        return SignedUrlCacheStats(
+            size,
+            SIGNED_URL_CACHE_STRIPES * SIGNED_URL_CACHE_STRIPE_SIZE,
+            hitCount,
+            missCount
+        )
+    }
+
+    @VisibleForTesting
+    internal fun clearSignedUrlCache() {
+        signedUrlCache.forEach { it.evictAll() }
     }
 
     @Synchronized
@@ -194,6 +253,7 @@ object ImageTools {
             val mac = sha256_hmac ?: Mac.getInstance("HmacSHA256").also {
                 val secretKey = SecretKeySpec(cacheKey.toByteArray(), "HmacSHA256")
                 it.init(secretKey)
+                sha256_hmac = it
             }
 
             Base64.encodeToString(
@@ -8,18 +8,14 @@ import static com.squareup.picasso.Picasso.LoadedFrom.NETWORK;
 
 import android.content.Context;
 import android.net.Uri;
-import com.battlelancer.seriesguide.SgApp;
 import com.battlelancer.seriesguide.settings.DisplaySettings;
 import com.battlelancer.seriesguide.settings.TmdbSettings;
-import com.battlelancer.seriesguide.tmdbapi.TmdbTools2;
-import com.battlelancer.seriesguide.movies.tools.MovieTools;
+import com.battlelancer.seriesguide.tmdbapi.PosterPathCache;
 import com.squareup.picasso.Downloader;
 import com.squareup.picasso.NetworkPolicy;
 import com.squareup.picasso.Picasso;
 import com.squareup.picasso.Request;
 import com.squareup.picasso.RequestHandler;
-import com.uwetrottmann.tmdb2.entities.Movie;
-import com.uwetrottmann.tmdb2.entities.TvShow;
 import java.io.IOException;
 import okhttp3.CacheControl;
 import okhttp3.Response;
@@ -27,7 +23,8 @@ import okhttp3.ResponseBody;
 
 /**
  * This is mostly a copy of {@code com.squareup.picasso.NetworkRequestHandler} that is not visible.
- * Extended to fetch the image url from a given show TVDB id or movie TMDB id.
+ * Extended to fetch the image url from a given show or movie TMDB id,
+ * the poster path is looked up using {@link PosterPathCache}.
  */
 public class SgPicassoRequestHandler extends RequestHandler {
 
@@ -61,10 +58,9 @@ public class SgPicassoRequestHandler extends RequestHandler {
             if (language == null || language.length() == 0) {
                 language = LanguageTools.LANGUAGE_EN;
             }
-            TvShow showDetails = new TmdbTools2().getShowDetails(showTmdbId, language, context);
-            if (showDetails != null) {
-                String url = ImageTools
-                        .tmdbOrTvdbPosterUrl(showDetails.poster_path, context, false);
+            String posterPath = PosterPathCache.getShowPosterPath(context, showTmdbId, language);
+            if (posterPath != null) {
+                String url = ImageTools.tmdbOrTvdbPosterUrl(posterPath, context, false);
                 if (url != null) {
                     return loadFromNetwork(Uri.parse(url), networkPolicy);
                 }
@@ -74,11 +70,10 @@ public class SgPicassoRequestHandler extends RequestHandler {
         if (SCHEME_MOVIE_TMDB.equals(scheme)) {
             int movieTmdbId = Integer.valueOf(host);
 
-            MovieTools movieTools = SgApp.getServicesComponent(context).movieTools();
-            Movie movieSummary = movieTools.getMovieSummary(movieTmdbId);
-            if (movieSummary != null && movieSummary.poster_path != null) {
+            String posterPath = PosterPathCache.getMoviePosterPath(context, movieTmdbId);
+            if (posterPath != null) {
                 final String imageUrl = TmdbSettings.getImageBaseUrl(context)
-                        + TmdbSettings.POSTER_SIZE_SPEC_W342 + movieSummary.poster_path;
+                        + TmdbSettings.POSTER_SIZE_SPEC_W342 + posterPath;
                 return loadFromNetwork(Uri.parse(imageUrl), networkPolicy);
             }
         }
@@ -14,11 +14,11 @@ import androidx.core.graphics.drawable.IconCompat
 import androidx.lifecycle.Lifecycle
 import androidx.lifecycle.LifecycleOwner
 import androidx.lifecycle.lifecycleScope
+import com.battlelancer.seriesguide.AppStartup
 import com.battlelancer.seriesguide.R
 import com.battlelancer.seriesguide.ui.OverviewActivity
 import com.squareup.picasso.MemoryPolicy
 import com.squareup.picasso.NetworkPolicy
-import com.squareup.picasso.Picasso
 import com.uwetrottmann.androidutils.AndroidUtils
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
@@ -64,7 +64,7 @@ class ShortcutCreator(
             return@suspendCoroutine
         }
 
-        val requestCreator = Picasso.get()
+        val requestCreator = AppStartup.getPicasso(context)
             .load(posterUrl)
             .centerCrop()
             .memoryPolicy(MemoryPolicy.NO_STORE)
@@ -104,7 +104,7 @@ public class TaskManager {
     }
 
     /**
-     * Schedules a {@link LatestEpisodeUpdateTask} for all shows
+     * Schedules a {@link LatestEpisodeUpdateTask} for all shows that need it
      * if no other one of this type is currently running.
      */
     @MainThread
@@ -0,0 +1,150 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.dataliberation
+
+import com.google.common.truth.Truth.assertWithMessage
+import com.google.flatbuffers.FlatBufferBuilder
+import com.google.flatbuffers.Table
+import org.junit.Test
+import java.io.File
+import java.lang.reflect.Method
+import java.lang.reflect.Modifier
+import java.nio.ByteBuffer
+
+/**
+ * Checks the classes in the binary package match flatbuffers/SgBackup.fbs, as flatc would
+ * generate them: for each table and field, in order, there is an add method that writes the
+ * field to the expected slot and an accessor that reads it, returning the schema default
+ * if not set. Regenerate the classes with flatc if this fails, see flatbuffers/README.md.
+ */
+class BinaryBackupSchemaTest {
+
+    private data class Field(val name: String, val type: String, val default: String?)
+
+    private fun parseSchema(): Map<String, List<Field>> {
+        // Unit tests run in the module directory.
+        val schema = File("../flatbuffers/SgBackup.fbs").readLines()
+            .map { it.substringBefore("//").trim() }
+            .filter { it.isNotEmpty() }
+            .joinToString(" ")
+        val tables = LinkedHashMap<String, List<Field>>()
+        Regex("""table (\w+) \{([^}]*)}""").findAll(schema).forEach { table ->
+            tables[table.groupValues[1]] = Regex("""(\w+):([\w\[\]]+)(?: = (\S+))?;""")
+                .findAll(table.groupValues[2])
+                .map { Field(it.groupValues[1], it.groupValues[2], it.groups[3]?.value) }
+                .toList()
+        }
+        return tables
+    }
+
+    @Test
+    fun generatedClasses_matchSchema() {
+        val tables = parseSchema()
+        assertWithMessage("Tables in schema").that(tables.keys).containsExactly(
+            "BackupShow", "BackupSeason", "BackupEpisode",
+            "BackupList", "BackupListItem", "BackupMovie"
+        )
+        for ((tableName, fields) in tables) {
+            val tableClass = Class.forName("$PACKAGE.$tableName")
+            val addMethods = tableClass.methods
+                .filter { Modifier.isStatic(it.modifiers) && it.name.startsWith("add") }
+                .map { it.name }
+            assertWithMessage("Add methods of $tableName").that(addMethods)
+                .containsExactlyElementsIn(fields.map { "add" + it.name.capitalized() })
+
+            assertDefaults(tableName, tableClass, fields)
+            fields.forEachIndexed { slot, field ->
+                assertFieldInSlot(tableName, tableClass, field, slot)
+            }
+        }
+    }
+
+    /**
+     * Reads all fields of an empty table, they should return the schema default.
+     */
+    private fun assertDefaults(tableName: String, tableClass: Class<*>, fields: List<Field>) {
+        val builder = FlatBufferBuilder(0)
+        tableClass.getMethod("start$tableName", FlatBufferBuilder::class.java)
+            .invoke(null, builder)
+        val table = finish(builder, tableName, tableClass)
+        for (field in fields) {
+            val expected: Any? = when (field.type) {
+                "int" -> field.default?.toInt() ?: 0
+                "long" -> field.default?.toLong() ?: 0L
+                "double" -> field.default?.toDouble() ?: 0.0
+                "bool" -> field.default?.toBoolean() ?: false
+                "string" -> null
+                else -> 0 // Vector, check length.
+            }
+            assertWithMessage("Default of $tableName.${field.name}")
+                .that(read(tableClass, table, field)).isEqualTo(expected)
+        }
+    }
+
+    /**
+     * Writes only [field] and checks it was written to [slot] and reads back.
+     */
+    private fun assertFieldInSlot(
+        tableName: String,
+        tableClass: Class<*>,
+        field: Field,
+        slot: Int
+    ) {
+        val builder = FlatBufferBuilder(0)
+        val value: Any = when (field.type) {
+            "int" -> 42
+            "long" -> 42L
+            "double" -> 4.2
+            // Differ from the default, otherwise it is not written.
+            "bool" -> field.default?.toBoolean()?.not() ?: true
+            "string" -> "value"
+            else -> 0 // Vector, write empty one.
+        }
+        val argument: Any = when (field.type) {
+            "string" -> builder.createString(value as String)
+            "int", "long", "double", "bool" -> value
+            else -> {
+                builder.startVector(4, 0, 4)
+                builder.endVector()
+            }
+        }
+        tableClass.getMethod("start$tableName", FlatBufferBuilder::class.java)
+            .invoke(null, builder)
+        val addMethod = tableClass.methods.single { it.name == "add" + field.name.capitalized() }
+        addMethod.invoke(null, builder, argument)
+        val table = finish(builder, tableName, tableClass)
+
+        assertWithMessage("Slot of $tableName.${field.name}")
+            .that(OFFSET_METHOD.invoke(table, 4 + 2 * slot) as Int).isNotEqualTo(0)
+        assertWithMessage("Value of $tableName.${field.name}")
+            .that(read(tableClass, table, field)).isEqualTo(value)
+    }
+
+    private fun finish(builder: FlatBufferBuilder, tableName: String, tableClass: Class<*>): Any {
+        val offset = tableClass.getMethod("end$tableName", FlatBufferBuilder::class.java)
+            .invoke(null, builder) as Int
+        builder.finish(offset)
+        return tableClass.getMethod("getRootAs$tableName", ByteBuffer::class.java)
+            .invoke(null, builder.dataBuffer())!!
+    }
+
+    private fun read(tableClass: Class<*>, table: Any, field: Field): Any? {
+        val accessor: Method = if (field.type.startsWith("[")) {
+            tableClass.getMethod(field.name + "Length")
+        } else {
+            tableClass.getMethod(field.name)
+        }
+        return accessor.invoke(table)
+    }
+
+    private fun String.capitalized() = replaceFirstChar { it.uppercaseChar() }
+
+    companion object {
+        private const val PACKAGE = "com.battlelancer.seriesguide.dataliberation.binary"
+        private val OFFSET_METHOD: Method = Table::class.java
+            .getDeclaredMethod("__offset", Int::class.javaPrimitiveType)
+            .also { it.isAccessible = true }
+    }
+
+}
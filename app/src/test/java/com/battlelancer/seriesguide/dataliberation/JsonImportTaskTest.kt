@@ -6,6 +6,7 @@ package com.battlelancer.seriesguide.dataliberation
 import android.content.Context
 import androidx.test.core.app.ApplicationProvider
 import com.battlelancer.seriesguide.EmptyTestApplication
+import com.battlelancer.seriesguide.dataliberation.model.Show
 import com.battlelancer.seriesguide.provider.SgRoomDatabase
 import com.battlelancer.seriesguide.shows.database.SgEpisode2Helper
 import com.battlelancer.seriesguide.shows.database.SgSeason2
@@ -13,15 +14,18 @@ import com.battlelancer.seriesguide.shows.database.SgSeason2Helper
 import com.battlelancer.seriesguide.shows.database.SgShow2
 import com.battlelancer.seriesguide.shows.database.SgShow2Helper
 import com.google.common.truth.Truth.assertThat
+import com.google.gson.Gson
 import kotlinx.coroutines.test.runTest
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.mockito.Mockito
+import org.mockito.Mockito.doAnswer
 import org.mockito.Mockito.mock
 import org.mockito.Mockito.verify
 import org.mockito.Mockito.`when`
 import org.robolectric.RobolectricTestRunner
 import org.robolectric.annotation.Config
+import java.io.File
 import java.nio.file.Files
 import kotlin.io.path.writeText
 
@@ -40,25 +44,47 @@ class JsonImportTaskTest {
     @Suppress("BlockingMethodInNonBlockingContext")
     @Test
     fun importShow_modelAsExpected() = runTest {
+        // Test data from export task test: single show, two seasons, each with two episodes.
+        val testBackupFile = Files.createTempFile("seriesguide-shows-json", null)
+        testBackupFile.writeText(JsonExportTaskTest.expectedJsonShows)
+
+        importShowAndVerify(testBackupFile.toFile())
+    }
+
+    @Test
+    fun importShow_binary_modelAsExpected() = runTest {
+        // Same test data as JSON test, but written as binary backup.
+        val shows = Gson().fromJson(JsonExportTaskTest.expectedJsonShows, Array<Show>::class.java)
+        val testBackupFile = Files.createTempFile("seriesguide-shows-binary", null).toFile()
+        BinaryBackup.Writer(testBackupFile.outputStream(), JsonExportTask.BACKUP_SHOWS).use {
+            shows.forEach { show -> it.write(show) }
+        }
+
+        importShowAndVerify(testBackupFile)
+    }
+
+    private suspend fun importShowAndVerify(testBackupFile: File) {
         val sgShow2Helper = mock(SgShow2Helper::class.java)
         val sgSeason2Helper = mock(SgSeason2Helper::class.java)
         val sgEpisode2Helper = mock(SgEpisode2Helper::class.java)
 
+        // Run transactions of the import.
+        val database = mock(SgRoomDatabase::class.java)
+        doAnswer { (it.arguments[0] as Runnable).run() }
+            .`when`(database).runInTransaction(anyNotNull(Runnable::class.java))
+
         val importTask = JsonImportTask(
             context,
             importShows = true,
             importLists = false,
             importMovies = false,
-            mock(SgRoomDatabase::class.java),
+            database,
             sgShow2Helper,
             sgSeason2Helper,
             sgEpisode2Helper
         )
 
-        // Test data from export task test: single show, two seasons, each with two episodes.
-        val testBackupFile = Files.createTempFile("seriesguide-shows-json", null)
-        testBackupFile.writeText(JsonExportTaskTest.expectedJsonShows)
-        importTask.testBackupFile = testBackupFile.toFile()
+        importTask.testBackupFile = testBackupFile
 
         // Return row ids like it would be an insert on an empty database, so start at 1.
         `when`(sgShow2Helper.insertShow(anyNotNull(SgShow2::class.java))).thenReturn(1)
@@ -0,0 +1,129 @@
+// SPDX-License-Identifier: Apache-2.0
+// Copyright 2024 Uwe Trottmann
+
+package com.battlelancer.seriesguide.jobs
+
+import com.battlelancer.seriesguide.jobs.episodes.JobAction
+import com.battlelancer.seriesguide.shows.episodes.EpisodeFlags
+import com.google.common.truth.Truth.assertThat
+import com.google.flatbuffers.FlatBufferBuilder
+import org.junit.Test
+import java.nio.ByteBuffer
+
+class CoalescingNetworkJobExecutorTest {
+
+    private var nextJobId = 1L
+
+    private fun episodeJob(showId: Long, action: JobAction, flagValue: Int): PendingNetworkJob {
+        val builder = FlatBufferBuilder(0)
+        val episodes = SgJobInfo.createEpisodesVector(
+            builder,
+            intArrayOf(EpisodeInfo.createEpisodeInfo(builder, 1, 1, 1))
+        )
+        val jobInfo = SgJobInfo.createSgJobInfo(builder, flagValue, episodes, 0, 0, showId)
+        builder.finish(jobInfo)
+        return pendingJob(action, builder)
+    }
+
+    private fun movieJob(movieTmdbId: Int, action: JobAction): PendingNetworkJob {
+        val builder = FlatBufferBuilder(0)
+        val jobInfo = SgJobInfo.createSgJobInfo(builder, 0, 0, movieTmdbId, 0, 0)
+        builder.finish(jobInfo)
+        return pendingJob(action, builder)
+    }
+
+    private fun pendingJob(action: JobAction, builder: FlatBufferBuilder): PendingNetworkJob {
+        val jobId = nextJobId++
+        val jobInfo = SgJobInfo.getRootAsSgJobInfo(ByteBuffer.wrap(builder.sizedByteArray()))
+        return PendingNetworkJob(jobId, action, jobId * 1000, jobInfo)
+    }
+
+    private fun watched(showId: Long) =
+        episodeJob(showId, JobAction.EPISODE_WATCHED_FLAG, EpisodeFlags.WATCHED)
+
+    private fun collected(showId: Long) =
+        episodeJob(showId, JobAction.EPISODE_COLLECTION, 1)
+
+    private fun List<List<PendingNetworkJob>>.ids() = map { batch -> batch.map { it.id } }
+
+    @Test
+    fun mergesCompatibleJobs_keepsOrderPerShow() {
+        val jobs = listOf(
+            watched(1), // 1
+            watched(2), // 2
+            collected(1), // 3
+            watched(1), // 4, after collected job of show 1, can not merge with 1
+            watched(2), // 5, can merge with 2
+            movieJob(10, JobAction.MOVIE_WATCHED_SET), // 6
+            movieJob(11, JobAction.MOVIE_WATCHED_SET), // 7, can merge with 6
+            movieJob(10, JobAction.MOVIE_WATCHLIST_ADD) // 8
+        )
+        val batches = ArrayList<List<PendingNetworkJob>>()
+        val removed = CoalescingNetworkJobExecutor().execute(jobs) {
+            batches.add(it)
+            true
+        }
+
+        assertThat(batches.ids()).containsExactly(
+            listOf(1L),
+            listOf(2L, 5L),
+            listOf(3L),
+            listOf(4L),
+            listOf(6L, 7L),
+            listOf(8L)
+        ).inOrder()
+        assertThat(removed).containsExactly(1L, 2L, 5L, 3L, 4L, 6L, 7L, 8L)
+    }
+
+    @Test
+    fun failingShow_doesNotBlockOthers() {
+        val jobs = listOf(
+            collected(1), // 1, fails
+            collected(2), // 2
+            watched(1), // 3, blocked
+            watched(2) // 4
+        )
+        val batches = ArrayList<List<PendingNetworkJob>>()
+        val removed = CoalescingNetworkJobExecutor().execute(jobs) {
+            batches.add(it)
+            it.first().entityKey.id != 1L
+        }
+
+        assertThat(batches.ids()).containsExactly(
+            listOf(1L),
+            listOf(2L),
+            listOf(4L)
+        ).inOrder()
+        assertThat(removed).containsExactly(2L, 4L)
+    }
+
+    @Test
+    fun limitsBatchSize() {
+        val jobs = List(5) { watched(1) }
+        val batches = ArrayList<List<PendingNetworkJob>>()
+        CoalescingNetworkJobExecutor(maxJobsPerBatch = 2).execute(jobs) {
+            batches.add(it)
+            true
+        }
+
+        assertThat(batches.ids()).containsExactly(
+            listOf(1L, 2L),
+            listOf(3L, 4L),
+            listOf(5L)
+        ).inOrder()
+    }
+
+    @Test
+    fun sequential_stopsAtFirstFailure() {
+        val jobs = listOf(collected(1), collected(2), watched(2))
+        val batches = ArrayList<List<PendingNetworkJob>>()
+        val removed = SequentialNetworkJobExecutor().execute(jobs) {
+            batches.add(it)
+            it.first().entityKey.id != 2L
+        }
+
+        assertThat(batches.ids()).containsExactly(listOf(1L), listOf(2L)).inOrder()
+        assertThat(removed).containsExactly(1L)
+    }
+
+}